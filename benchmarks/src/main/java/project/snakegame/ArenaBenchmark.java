@@ -0,0 +1,89 @@
+package project.snakegame;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Стоимость одного шага {@link Arena} в зависимости от количества змеек и потоков.
+ * <p>
+ * Змейки постепенно погибают, поэтому арена создается заново перед каждой итерацией;
+ * поле 2000x2000, яблок столько же, сколько змеек.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-bench.xml")
+public class ArenaBenchmark {
+
+    /**
+     * Количество змеек.
+     */
+    @Param({"1000", "10000"})
+    public int snakes;
+
+    /**
+     * Количество потоков пула.
+     */
+    @Param({"1", "2", "4"})
+    public int threads;
+
+    /**
+     * Пул потоков арены.
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * Арена, шаги которой измеряются.
+     */
+    private Arena arena;
+
+    /**
+     * Создает пул потоков.
+     */
+    @Setup(Level.Trial)
+    public void setUpPool() {
+        pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Создает арену со свежими змейками.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        arena = new Arena(2_000, 2_000, snakes, snakes, 1, pool);
+    }
+
+    /**
+     * Останавливает пул потоков.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Выполняет один шаг арены.
+     *
+     * @return Количество живых змеек.
+     */
+    @Benchmark
+    public int tick() {
+        return arena.tick();
+    }
+}
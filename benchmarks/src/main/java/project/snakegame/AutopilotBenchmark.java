@@ -0,0 +1,80 @@
+package project.snakegame;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Пропускная способность {@link AutopilotController}: решения в секунду вместе с шагом игры.
+ * <p>
+ * Когда игра заканчивается, начинается новая с другим зерном, поэтому в замер попадают змейки любой длины.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-bench.xml")
+public class AutopilotBenchmark {
+
+    /**
+     * Сторона квадратного поля.
+     */
+    @Param({"25", "100"})
+    public int size;
+
+    /**
+     * Текущая игра.
+     */
+    private GameEngine engine;
+
+    /**
+     * Контроллер, переиспользуемый между играми.
+     */
+    private final AutopilotController controller = new AutopilotController();
+
+    /**
+     * Зерно следующей игры.
+     */
+    private long seed;
+
+    /**
+     * Начинает первую игру.
+     */
+    @Setup
+    public void setUp() {
+        newGame();
+    }
+
+    /**
+     * Начинает новую игру со следующим зерном.
+     */
+    private void newGame() {
+        engine = new GameEngine(size, size, new int[]{0, 1, 2}, ++seed);
+        engine.placeApple();
+    }
+
+    /**
+     * Выбирает направление и делает шаг.
+     *
+     * @return {@code true}, если змейка съела яблоко.
+     */
+    @Benchmark
+    public boolean decide() {
+        boolean ate = engine.tick(controller.decide(engine));
+        if (!engine.isAlive() || engine.getTicks() >= 100_000) {
+            newGame();
+        }
+        return ate;
+    }
+}
@@ -0,0 +1,58 @@
+package project.snakegame;
+
+/**
+ * Вспомогательные методы для подготовки состояний игры в бенчмарках.
+ * <p>
+ * Змейка ходит по гамильтонову циклу "змейкой" по строкам, поэтому при любой длине меньше площади поля
+ * она может двигаться бесконечно, не сталкиваясь с собой.
+ */
+final class Boards {
+
+    private Boards() {
+    }
+
+    /**
+     * Возвращает направление обхода поля по строкам: четные строки слева направо, нечетные - справа налево.
+     * Высота поля должна быть четной, чтобы цикл замыкался.
+     *
+     * @param engine Игровое ядро.
+     * @return Направление следующего шага.
+     */
+    static Direction serpentine(GameEngine engine) {
+        int head = engine.getHead();
+        int x = engine.x(head);
+        if (engine.y(head) % 2 == 0) {
+            return x == engine.getWidth() - 1 ? Direction.DOWN : Direction.RIGHT;
+        }
+        return x == 0 ? Direction.DOWN : Direction.LEFT;
+    }
+
+    /**
+     * Выращивает змейку до заданной длины, подкладывая яблоко перед головой, и убирает яблоко.
+     *
+     * @param engine Игровое ядро со змейкой, начинающейся в левом верхнем углу и идущей вправо.
+     * @param length Требуемая длина.
+     */
+    static void grow(GameEngine engine, int length) {
+        while (engine.getLength() < length) {
+            Direction direction = serpentine(engine);
+            engine.setApple(next(engine, direction));
+            engine.tick(direction);
+        }
+        engine.setApple(GameEngine.NO_CELL);
+    }
+
+    /**
+     * Вычисляет клетку, в которую перейдет голова при шаге в заданном направлении.
+     *
+     * @param engine    Игровое ядро.
+     * @param direction Направление шага.
+     * @return Индекс следующей клетки.
+     */
+    static int next(GameEngine engine, Direction direction) {
+        int head = engine.getHead();
+        int x = Math.floorMod(engine.x(head) + direction.getDx(), engine.getWidth());
+        int y = Math.floorMod(engine.y(head) + direction.getDy(), engine.getHeight());
+        return engine.index(x, y);
+    }
+}
@@ -0,0 +1,76 @@
+package project.snakegame;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Сравнивает два файла результатов JMH в формате JSON: сохраненный базовый и текущий.
+ * <p>
+ * Для каждого бенчмарка с одинаковыми параметрами печатает оба результата и их отношение.
+ * Отношение больше 1 означает, что текущий прогон медленнее базового (для режима среднего времени).
+ */
+public final class CompareBaseline {
+
+    /**
+     * Шаблон, находящий имя бенчмарка, его параметры и основной результат в JSON, который пишет JMH.
+     */
+    private static final Pattern RESULT = Pattern.compile(
+            "\"benchmark\"\\s*:\\s*\"([^\"]+)\"(.*?)\"primaryMetric\"\\s*:\\s*\\{\\s*\"score\"\\s*:\\s*([-0-9.eE]+)",
+            Pattern.DOTALL);
+
+    /**
+     * Шаблон, находящий параметры бенчмарка.
+     */
+    private static final Pattern PARAMS = Pattern.compile("\"params\"\\s*:\\s*\\{([^}]*)}");
+
+    private CompareBaseline() {
+    }
+
+    /**
+     * Точка входа.
+     *
+     * @param args путь к базовому и к текущему файлу результатов
+     * @throws IOException если файл не удалось прочитать
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: CompareBaseline <baseline.json> <current.json>");
+            System.exit(2);
+        }
+        Map<String, Double> baseline = read(Path.of(args[0]));
+        Map<String, Double> current = read(Path.of(args[1]));
+        System.out.printf("%-80s %14s %14s %8s%n", "benchmark", "baseline", "current", "ratio");
+        for (Map.Entry<String, Double> entry : current.entrySet()) {
+            Double before = baseline.get(entry.getKey());
+            System.out.printf("%-80s %14s %14.3f %8s%n", entry.getKey(),
+                    before == null ? "-" : String.format("%.3f", before), entry.getValue(),
+                    before == null ? "-" : String.format("%.2f", entry.getValue() / before));
+        }
+    }
+
+    /**
+     * Читает результаты из файла JMH.
+     *
+     * @param file Путь к файлу.
+     * @return Основной результат каждого бенчмарка по имени с параметрами.
+     * @throws IOException если файл не удалось прочитать
+     */
+    static Map<String, Double> read(Path file) throws IOException {
+        Map<String, Double> results = new LinkedHashMap<>();
+        Matcher matcher = RESULT.matcher(Files.readString(file));
+        while (matcher.find()) {
+            String name = matcher.group(1).replace("project.snakegame.", "");
+            Matcher params = PARAMS.matcher(matcher.group(2));
+            if (params.find()) {
+                name += " {" + params.group(1).replaceAll("\\s+", "").replace("\"", "") + "}";
+            }
+            results.put(name, Double.parseDouble(matcher.group(3)));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,90 @@
+package project.snakegame;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Стоимость смены направления.
+ * <p>
+ * {@code directionTo} измеряет сам {@link Snake#directionTo(Direction)} в одном потоке.
+ * Группа {@code pipeline} измеряет путь нажатия под нагрузкой: поток JavaFX кладет нажатия
+ * в {@link GameLoop#input(Direction, long)}, а поток игры одновременно применяет их и делает шаги.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-bench.xml")
+public class DirectionBenchmark {
+
+    /**
+     * Змейка длиной 3 клетки, которая при поворотах лесенкой никогда не сталкивается с собой.
+     */
+    private Snake snake;
+
+    /**
+     * Игровой цикл, через очередь которого проходят нажатия.
+     */
+    private GameLoop loop;
+
+    /**
+     * Номер следующего нажатия у писателя.
+     */
+    private int produced;
+
+    /**
+     * Создает змейку и игровой цикл.
+     */
+    @Setup
+    public void setUp() {
+        snake = new Snake(64, List.of(new Cell(0, 0), new Cell(1, 0), new Cell(2, 0)));
+        loop = new GameLoop(snake, Difficulty.HARD);
+    }
+
+    /**
+     * Поворачивает змейку попеременно вверх и вправо.
+     */
+    @Benchmark
+    @Group("directionTo")
+    public void directionTo() {
+        snake.directionTo(Direction.UP);
+        snake.directionTo(Direction.RIGHT);
+    }
+
+    /**
+     * Кладет нажатие в очередь, как обработчик клавиш в потоке JavaFX.
+     */
+    @Benchmark
+    @Group("pipeline")
+    @GroupThreads(1)
+    public void press() {
+        loop.input((produced++ & 1) == 0 ? Direction.UP : Direction.RIGHT, System.nanoTime());
+    }
+
+    /**
+     * Применяет нажатие и делает шаг, как поток игры.
+     *
+     * @return Результат шага.
+     */
+    @Benchmark
+    @Group("pipeline")
+    @GroupThreads(1)
+    public boolean applyAndStep() {
+        loop.applyInput(System.nanoTime());
+        return snake.getEngine().tick();
+    }
+}
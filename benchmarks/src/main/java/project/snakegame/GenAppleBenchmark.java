@@ -0,0 +1,83 @@
+package project.snakegame;
+
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Стоимость размещения яблока {@link Main#genApple()} при разной заполненности поля 25x25 змейкой.
+ * <p>
+ * Для сравнения измеряется очевидный способ "выбирать случайную клетку, пока она занята".
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-bench.xml")
+public class GenAppleBenchmark {
+
+    /**
+     * Доля поля, занятая змейкой.
+     */
+    @Param({"0.01", "0.5", "0.9", "0.99"})
+    public double fill;
+
+    /**
+     * Игра, в которой размещаются яблоки.
+     */
+    private Main game;
+
+    /**
+     * Генератор для способа с повторными попытками.
+     */
+    private final RandomGenerator random = new SplitMix64(1);
+
+    /**
+     * Выращивает змейку игры до нужной заполненности поля.
+     */
+    @Setup
+    public void setUp() {
+        game = new Main();
+        GameEngine engine = game.snake.getEngine();
+        int area = engine.getWidth() * engine.getHeight();
+        Boards.grow(engine, Math.max(3, (int) (area * fill)));
+    }
+
+    /**
+     * Размещает яблоко через множество свободных клеток.
+     *
+     * @return Клетка яблока.
+     */
+    @Benchmark
+    public Cell genApple() {
+        return game.genApple();
+    }
+
+    /**
+     * Размещает яблоко, выбирая случайную клетку до тех пор, пока она занята.
+     *
+     * @return Индекс клетки яблока.
+     */
+    @Benchmark
+    public int retryUntilFree() {
+        GameEngine engine = game.snake.getEngine();
+        int area = engine.getWidth() * engine.getHeight();
+        int cell;
+        do {
+            cell = random.nextInt(area);
+        } while (engine.occupied(cell));
+        return cell;
+    }
+}
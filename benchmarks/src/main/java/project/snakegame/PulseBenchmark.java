@@ -0,0 +1,179 @@
+package project.snakegame;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.shape.Rectangle;
+import javafx.stage.Stage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Длительность импульса JavaFX в зависимости от размера поля и способа рисования фона.
+ * <p>
+ * В отличие от {@link RenderBenchmark}, здесь запускается настоящий JavaFX на безголовой платформе Monocle
+ * с программной растеризацией, а импульсы идут без ограничения частоты ({@code javafx.animation.fullspeed}).
+ * На каждом импульсе змейка делает шаг и кадр перерисовывается, поэтому время между импульсами - это полная
+ * стоимость кадра: CSS, раскладка, синхронизация и растеризация графа сцены. Варианты:
+ * <ul>
+ *     <li>{@code rectangles} - фон из {@code size * size} узлов {@link Rectangle}, как было раньше,
+ *     и холст {@link CanvasRenderer} поверх него;</li>
+ *     <li>{@code nodes} - {@link NodeRenderer} с растеризованным фоном;</li>
+ *     <li>{@code canvas} - {@link CanvasRenderer} с растеризованным фоном.</li>
+ * </ul>
+ * Размер клетки выбирается так же, как в {@link Main}: поле вписывается в 500 пикселей.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Dlog4j.configurationFile=log4j2-bench.xml", "-Dglass.platform=Monocle",
+        "-Dmonocle.platform=Headless", "-Dprism.order=sw", "-Djavafx.animation.fullspeed=true"})
+public class PulseBenchmark {
+
+    /**
+     * Количество импульсов за один вызов.
+     */
+    static final int PULSES = 20;
+
+    /**
+     * Длина змейки.
+     */
+    static final int LENGTH = 100;
+
+    /**
+     * Сторона поля в клетках. Должна быть четной для обхода {@link Boards#serpentine(GameEngine)}.
+     */
+    @Param({"26", "50", "100", "200"})
+    public int size;
+
+    /**
+     * Вариант отрисовки: {@code rectangles}, {@code nodes} или {@code canvas}.
+     */
+    @Param({"rectangles", "nodes", "canvas"})
+    public String renderer;
+
+    /**
+     * Счетчик импульсов текущего вызова.
+     */
+    private volatile CountDownLatch pulses;
+
+    /**
+     * Окно с полем.
+     */
+    private Stage stage;
+
+    /**
+     * Таймер, выполняющий шаг и кадр на каждом импульсе.
+     */
+    private AnimationTimer timer;
+
+    /**
+     * Запускает JavaFX, показывает поле и начинает шаги на каждом импульсе.
+     *
+     * @throws InterruptedException если ожидание запуска было прервано.
+     */
+    @Setup
+    public void setUp() throws InterruptedException {
+        int cellSize = Math.max(1, Math.min(20, 500 / size));
+        GameEngine engine = new GameEngine(size, size, new int[]{0, 1, 2}, 1);
+        Boards.grow(engine, LENGTH);
+        CountDownLatch started = new CountDownLatch(1);
+        Platform.startup(() -> {
+            BoardRenderer board;
+            Node node;
+            if ("rectangles".equals(renderer)) {
+                CanvasRenderer canvas = new CanvasRenderer(size, size, cellSize);
+                board = canvas;
+                node = new Group(grid(cellSize), canvas.getCanvas());
+            } else {
+                board = "nodes".equals(renderer) ? new NodeRenderer(size, size, cellSize)
+                        : new CanvasRenderer(size, size, cellSize);
+                node = board.getNode();
+            }
+            stage = new Stage();
+            stage.setScene(new Scene(new Group(node), 500, 500));
+            stage.show();
+            timer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    engine.tick(Boards.serpentine(engine));
+                    board.render(engine);
+                    CountDownLatch latch = pulses;
+                    if (latch != null) {
+                        latch.countDown();
+                    }
+                }
+            };
+            timer.start();
+            started.countDown();
+        });
+        started.await();
+    }
+
+    /**
+     * Строит фон из отдельного прямоугольника на каждую клетку.
+     *
+     * @param cellSize Размер стороны клетки в пикселях.
+     * @return {@link Group} с {@code size * size} прямоугольниками.
+     */
+    private Group grid(int cellSize) {
+        Group grid = new Group();
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                Rectangle rect = new Rectangle(x * cellSize, y * cellSize, cellSize, cellSize);
+                rect.setFill(BoardRenderer.cellColor(x, y));
+                grid.getChildren().add(rect);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Останавливает таймер и JavaFX.
+     *
+     * @throws InterruptedException если ожидание остановки было прервано.
+     */
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        CountDownLatch stopped = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            timer.stop();
+            stage.hide();
+            stopped.countDown();
+        });
+        stopped.await();
+        Platform.exit();
+    }
+
+    /**
+     * Ждет {@link #PULSES} импульсов.
+     *
+     * @throws InterruptedException если ожидание было прервано.
+     */
+    @Benchmark
+    @OperationsPerInvocation(PULSES)
+    public void pulse() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(PULSES);
+        pulses = latch;
+        latch.await();
+    }
+}
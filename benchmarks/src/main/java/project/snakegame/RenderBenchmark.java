@@ -0,0 +1,97 @@
+package project.snakegame;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javafx.scene.canvas.Canvas;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Стоимость перерисовки поля 25x25 после шага: {@link NodeRenderer} против {@link CanvasRenderer}.
+ * <p>
+ * Измеряется только подготовка кадра в потоке JavaFX (граф сцены или буфер команд холста), без растеризации,
+ * поэтому бенчмарк не требует запущенного JavaFX. Каждый вызов выполняет {@link #FRAMES} шагов и кадров;
+ * перед вызовом буфер команд холста очищается, чтобы он не рос в отсутствие импульсов JavaFX.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-bench.xml")
+public class RenderBenchmark {
+
+    /**
+     * Количество кадров за один вызов.
+     */
+    static final int FRAMES = 1000;
+
+    /**
+     * Длина змейки.
+     */
+    @Param({"3", "100", "500"})
+    public int length;
+
+    /**
+     * Отрисовщик: {@code nodes} или {@code canvas}.
+     */
+    @Param({"nodes", "canvas"})
+    public String renderer;
+
+    /**
+     * Игровое ядро.
+     */
+    private GameEngine engine;
+
+    /**
+     * Измеряемый отрисовщик.
+     */
+    private BoardRenderer board;
+
+    /**
+     * Создает змейку нужной длины и отрисовщик, выполняет первый полный кадр.
+     */
+    @Setup
+    public void setUp() {
+        engine = new Snake(26, List.of(new Cell(0, 0), new Cell(1, 0), new Cell(2, 0))).getEngine();
+        Boards.grow(engine, length);
+        board = "nodes".equals(renderer) ? new NodeRenderer(26, 26, 20) : new CanvasRenderer(26, 26, 20);
+        board.render(engine);
+    }
+
+    /**
+     * Очищает буфер команд холста.
+     */
+    @Setup(Level.Invocation)
+    public void resetCanvas() {
+        if (board instanceof CanvasRenderer canvasRenderer) {
+            Canvas canvas = canvasRenderer.getCanvas();
+            canvas.getGraphicsContext2D().clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        }
+    }
+
+    /**
+     * Выполняет {@link #FRAMES} шагов, перерисовывая поле после каждого.
+     */
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public void stepAndRender() {
+        for (int i = 0; i < FRAMES; i++) {
+            engine.tick(Boards.serpentine(engine));
+            board.render(engine);
+        }
+    }
+}
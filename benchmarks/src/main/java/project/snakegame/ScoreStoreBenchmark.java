@@ -0,0 +1,121 @@
+package project.snakegame;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Время запроса десяти лучших результатов {@link ScoreStore} и дописывания пакета итогов
+ * в зависимости от количества сохраненных игр.
+ * <p>
+ * Запрос читает первые ключи индекса и десять записей журнала, поэтому его время не должно зависеть
+ * от размера журнала. Дописывание включает сброс журнала на диск.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-bench.xml")
+public class ScoreStoreBenchmark {
+
+    /**
+     * Количество итогов в хранилище перед замером.
+     */
+    @Param({"10000", "1000000"})
+    public int records;
+
+    /**
+     * Временный каталог хранилища.
+     */
+    private Path dir;
+
+    /**
+     * Открытое хранилище.
+     */
+    private ScoreStore store;
+
+    /**
+     * Пакет из 64 итогов для дописывания.
+     */
+    private List<ScoreRecord> batch;
+
+    /**
+     * Заполняет хранилище случайными итогами.
+     *
+     * @throws IOException если хранилище не удалось создать.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("scores");
+        store = ScoreStore.open(dir);
+        Random random = new Random(1);
+        List<ScoreRecord> chunk = new ArrayList<>();
+        for (int i = 0; i < records; i++) {
+            chunk.add(new ScoreRecord(random.nextInt(600), Difficulty.values()[i % 3], 3, 1000, 60_000, i, 0));
+            if (chunk.size() == 10_000 || i == records - 1) {
+                store.append(chunk);
+                chunk.clear();
+            }
+        }
+        batch = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            batch.add(new ScoreRecord(random.nextInt(600), Difficulty.NORMAL, 3, 1000, 60_000, i, 0));
+        }
+    }
+
+    /**
+     * Закрывает хранилище и удаляет его файлы.
+     *
+     * @throws IOException если файлы не удалось удалить.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    /**
+     * Запрашивает десять лучших результатов.
+     *
+     * @return Лучшие итоги.
+     * @throws IOException если записи не удалось прочитать.
+     */
+    @Benchmark
+    public List<ScoreRecord> top10() throws IOException {
+        return store.top(Difficulty.NORMAL, 10);
+    }
+
+    /**
+     * Дописывает пакет итогов.
+     *
+     * @throws IOException если журнал не удалось записать.
+     */
+    @Benchmark
+    public void append64() throws IOException {
+        store.append(batch);
+    }
+}
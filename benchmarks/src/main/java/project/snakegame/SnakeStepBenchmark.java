@@ -0,0 +1,65 @@
+package project.snakegame;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Стоимость одного шага {@link Snake#step()} в зависимости от длины змейки.
+ * <p>
+ * Змейка ходит без яблок по гамильтонову циклу поля 128x128, поэтому ее длина не меняется.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-bench.xml")
+public class SnakeStepBenchmark {
+
+    /**
+     * Длина змейки.
+     */
+    @Param({"3", "100", "10000"})
+    public int length;
+
+    /**
+     * Змейка, шаги которой измеряются.
+     */
+    private Snake snake;
+
+    /**
+     * Создает змейку нужной длины.
+     */
+    @Setup
+    public void setUp() {
+        snake = new Snake(128, List.of(new Cell(0, 0), new Cell(1, 0), new Cell(2, 0)));
+        Boards.grow(snake.getEngine(), length);
+    }
+
+    /**
+     * Выполняет один шаг, поворачивая на концах строк.
+     *
+     * @return Результат шага.
+     */
+    @Benchmark
+    public boolean step() {
+        GameEngine engine = snake.getEngine();
+        Direction direction = Boards.serpentine(engine);
+        if (direction != engine.getDirection()) {
+            snake.directionTo(direction);
+        }
+        return snake.step();
+    }
+}
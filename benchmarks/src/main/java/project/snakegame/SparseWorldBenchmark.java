@@ -0,0 +1,75 @@
+package project.snakegame;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Время шага {@link SparseWorld} в зависимости от размера поля.
+ * <p>
+ * Змейка идет лесенкой (1000 шагов вправо, 1000 вниз), поэтому постоянно входит в новые плитки и освобождает
+ * старые. Время шага не должно зависеть от стороны поля.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-bench.xml")
+public class SparseWorldBenchmark {
+
+    /**
+     * Сторона квадратного поля.
+     */
+    @Param({"1000", "100000", "1000000000"})
+    public int size;
+
+    /**
+     * Текущая игра.
+     */
+    private SparseWorld world;
+
+    /**
+     * Зерно следующей игры.
+     */
+    private long seed;
+
+    /**
+     * Начинает первую игру.
+     */
+    @Setup
+    public void setUp() {
+        newGame();
+    }
+
+    /**
+     * Начинает новую игру со следующим зерном.
+     */
+    private void newGame() {
+        world = new SparseWorld(size, size, 1000, ++seed);
+    }
+
+    /**
+     * Делает шаг.
+     *
+     * @return {@code true}, если змейка съела яблоко.
+     */
+    @Benchmark
+    public boolean tick() {
+        boolean ate = world.tick(world.getTicks() % 2000 < 1000 ? Direction.RIGHT : Direction.DOWN);
+        if (!world.isAlive()) {
+            newGame();
+        }
+        return ate;
+    }
+}
@@ -0,0 +1,91 @@
+package project.snakegame;
+
+import java.util.concurrent.TimeUnit;
+
+import javafx.scene.canvas.Canvas;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Стоимость кадра {@link SpectatorWall}, на котором каждая игра сделала шаг, и стоимость шага всех игр
+ * {@link GameWall} с {@link AutopilotController}.
+ * <p>
+ * Как и в {@link RenderBenchmark}, измеряется только подготовка буфера команд холста в потоке JavaFX,
+ * без растеризации. Бюджет кадра не ограничен, поэтому кадр обновляет все места.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-bench.xml")
+public class SpectatorWallBenchmark {
+
+    /**
+     * Количество игр на стене.
+     */
+    @Param({"64", "256"})
+    public int games;
+
+    /**
+     * Игры.
+     */
+    private GameWall wall;
+
+    /**
+     * Стена наблюдения.
+     */
+    private SpectatorWall view;
+
+    /**
+     * Создает игры 25x25 и стену с клетками по 2 пикселя, выполняет первый кадр.
+     */
+    @Setup
+    public void setUp() {
+        wall = new GameWall(games, 25, 25, 0, 1, 1, seed -> new AutopilotController());
+        view = new SpectatorWall(wall, 2);
+        view.setBudget(Long.MAX_VALUE);
+        view.render();
+    }
+
+    /**
+     * Очищает буфер команд холста.
+     */
+    @Setup(Level.Invocation)
+    public void resetCanvas() {
+        Canvas canvas = view.getCanvas();
+        canvas.getGraphicsContext2D().clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+    }
+
+    /**
+     * Делает шаг во всех играх.
+     *
+     * @return Количество игр, сделавших шаг.
+     */
+    @Benchmark
+    public int step() {
+        return wall.step(0, wall.size());
+    }
+
+    /**
+     * Делает шаг во всех играх и перерисовывает все места.
+     *
+     * @return Количество обновленных мест.
+     */
+    @Benchmark
+    public int stepAndRender() {
+        wall.step(0, wall.size());
+        return view.render();
+    }
+}
@@ -0,0 +1,159 @@
+package project.snakegame;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Измеряет время запуска игры до готовности JavaFX и до первого отрисованного кадра.
+ * <p>
+ * Игра запускается отдельным процессом несколько раз в каждой конфигурации (с архивом CDS, без него,
+ * с простым журналом) со сложностью без окна выбора и {@code -Dsnake.startup.exit=true}. Оба времени берутся
+ * из строк журнала {@link Startup#TOOLKIT_MESSAGE} и {@link Startup#FIRST_FRAME_MESSAGE}, которые пишет сама
+ * игра; печатаются медианы этих времен и полного времени жизни процесса. Например, для образа jlink
+ * ({@code mvn -Pimage package}):
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar project.snakegame.StartupHarness 10 target/app/bin/java
+ * </pre>
+ * Для запуска без образа после пути к {@code java} передается {@code --module-path} с модулями игры.
+ * На машине без дисплея можно передать параметры Monocle ({@code --patch-module javafx.graphics=<monocle.jar>
+ * -Dglass.platform=Monocle -Dmonocle.platform=Headless -Dprism.order=sw}), но {@code --patch-module}
+ * отключает CDS. Если кадр отрисовать не удалось (например, нет библиотек вывода текста), время первого кадра
+ * печатается как {@code n/a}, а стенд явно сообщает, что измерено только время готовности JavaFX.
+ */
+public final class StartupHarness {
+
+    /**
+     * Шаблон строки журнала с временем готовности JavaFX.
+     */
+    private static final Pattern TOOLKIT = Pattern.compile(Pattern.quote(Startup.TOOLKIT_MESSAGE) + "(\\d+) ms");
+
+    /**
+     * Шаблон строки журнала с временем первого кадра.
+     */
+    private static final Pattern FIRST_FRAME = Pattern.compile(Pattern.quote(Startup.FIRST_FRAME_MESSAGE) + "(\\d+) ms");
+
+    /**
+     * Наибольшее время одного запуска в секундах.
+     */
+    private static final long TIMEOUT_SECONDS = 60;
+
+    /**
+     * Сравниваемые конфигурации: название и дополнительные параметры JVM.
+     */
+    private static final Map<String, List<String>> CONFIGURATIONS = new LinkedHashMap<>();
+
+    static {
+        CONFIGURATIONS.put("default", List.of());
+        CONFIGURATIONS.put("no CDS", List.of("-Xshare:off"));
+        CONFIGURATIONS.put("lite logging", List.of("-Dsnake.log=lite"));
+    }
+
+    private StartupHarness() {
+    }
+
+    /**
+     * Точка входа.
+     *
+     * @param args количество запусков, путь к {@code java} и необязательные параметры JVM для всех запусков
+     * @throws IOException          если процесс не удалось запустить
+     * @throws InterruptedException если ожидание процесса прервано
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("usage: StartupHarness <runs> <java> [jvm options...]");
+            System.exit(2);
+        }
+        int runs = Integer.parseInt(args[0]);
+        List<String> base = Arrays.asList(args).subList(1, args.length);
+        System.out.printf("%-16s %16s %16s %16s%n", "configuration", "toolkit ms", "first frame ms", "process ms");
+        boolean framesMissing = false;
+        for (Map.Entry<String, List<String>> configuration : CONFIGURATIONS.entrySet()) {
+            long[] toolkit = new long[runs];
+            long[] firstFrame = new long[runs];
+            long[] process = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                List<String> command = new ArrayList<>();
+                command.add(base.get(0));
+                command.addAll(configuration.getValue());
+                command.addAll(base.subList(1, base.size()));
+                command.addAll(List.of("-Dsnake.difficulty=NORMAL", "-Dsnake.record=false",
+                        "-Dsnake.startup.exit=true", "-m", "project.snakegame/project.snakegame.Launcher"));
+                long start = System.nanoTime();
+                long[] times = launch(command);
+                process[run] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                toolkit[run] = times[0];
+                firstFrame[run] = times[1];
+            }
+            long frame = median(firstFrame);
+            framesMissing |= frame < 0;
+            System.out.printf("%-16s %16d %16s %16d%n", configuration.getKey(), median(toolkit),
+                    frame < 0 ? "n/a" : Long.toString(frame), median(process));
+        }
+        if (framesMissing) {
+            System.out.println("the first frame was not rendered in some runs (no display or text libraries):"
+                    + " only the toolkit initialization time was measured there,"
+                    + " without building the scene and rendering the first frame");
+        }
+    }
+
+    /**
+     * Запускает игру и ждет ее завершения.
+     *
+     * @param command Команда запуска.
+     * @return Время готовности JavaFX и время первого кадра в миллисекундах от старта JVM; время кадра равно -1,
+     * если кадр не был отрисован.
+     * @throws IOException          если процесс не удалось запустить, он не успел завершиться или JavaFX не запустился
+     * @throws InterruptedException если ожидание процесса прервано
+     */
+    private static long[] launch(List<String> command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        long toolkit = -1;
+        long firstFrame = -1;
+        StringBuilder output = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                output.append(line).append(System.lineSeparator());
+                Matcher matcher = TOOLKIT.matcher(line);
+                if (matcher.find()) {
+                    toolkit = Long.parseLong(matcher.group(1));
+                }
+                matcher = FIRST_FRAME.matcher(line);
+                if (matcher.find()) {
+                    firstFrame = Long.parseLong(matcher.group(1));
+                }
+            }
+        }
+        if (!process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            throw new IOException("the game did not exit in " + TIMEOUT_SECONDS + " s: " + command);
+        }
+        if (toolkit < 0) {
+            throw new IOException("the game did not start the toolkit: " + command
+                    + System.lineSeparator() + output);
+        }
+        return new long[]{toolkit, firstFrame};
+    }
+
+    /**
+     * Возвращает медиану.
+     *
+     * @param values Значения; массив сортируется.
+     * @return Медиана; -1, если хотя бы одно значение отсутствует.
+     */
+    private static long median(long[] values) {
+        Arrays.sort(values);
+        return values[0] < 0 ? -1 : values[values.length / 2];
+    }
+}
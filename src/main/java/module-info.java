@@ -2,6 +2,10 @@ module project.snakegame {
     requires javafx.controls;
     requires javafx.fxml;
     requires org.apache.logging.log4j;
+    requires java.management;
+    requires jdk.management;
+    // Log4j Core, which Launcher loads from lib/app of the jlink image, needs JNDI classes at startup
+    requires java.naming;
 
 
     opens project.snakegame to javafx.fxml;
@@ -0,0 +1,783 @@
+package project.snakegame;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Арена: много змеек-ботов и несколько яблок на одном большом поле-торе, без JavaFX.
+ * <p>
+ * Поле - общая сетка владельцев: в каждой клетке хранится номер змейки + 1, номер яблока со знаком минус
+ * или 0 для пустой клетки. Тела змеек не хранятся отдельно: каждая клетка тела ссылается на следующую
+ * клетку к голове, поэтому шаг змейки любой длины - это несколько записей в массивы, а столкновение
+ * головы с телом проверяется одним чтением сетки.
+ * <p>
+ * Шаг арены выполняется в три фазы, между которыми все потоки синхронизируются:
+ * <ol>
+ *     <li>каждая змейка выбирает направление по состоянию до шага и заявляет клетку, в которую идет;
+ *     змейка, идущая в занятую клетку, погибает (как и в {@link GameEngine#tick()}, хвост, который
+ *     ушел бы на этом шаге, тоже считается занятым);</li>
+ *     <li>змейки, заявившие одну и ту же клетку, погибают все (столкновение голов);</li>
+ *     <li>выжившие змейки двигаются, тела погибших освобождают клетки.</li>
+ * </ol>
+ * Внутри фазы каждая змейка пишет только в свои клетки и в клетку, которую заявила только она, поэтому
+ * порядок обработки змеек не влияет на результат: при одинаковом зерне игра одинакова при любом числе
+ * потоков. Съеденные яблоки затем заново размещаются в одном потоке по порядку номеров змеек.
+ * <p>
+ * Змейки распределяются между задачами {@link ForkJoinPool} по горизонтальным полосам поля, в которых
+ * находятся их головы, поэтому один поток работает с соседними строками сетки.
+ * <p>
+ * Класс не потокобезопасен: {@link #tick()} и остальные методы вызываются из одного потока.
+ */
+public final class Arena {
+
+    /**
+     * Переменная для логирования
+     */
+    private static final Logger logger = LogManager.getLogger(Arena.class);
+
+    /**
+     * Номер змейки, означающий, что клетка никому не принадлежит.
+     */
+    public static final int NO_SNAKE = -1;
+
+    /**
+     * Значение заявки на клетку, которую заявили несколько змеек.
+     */
+    private static final int CONTESTED = -1;
+
+    /**
+     * Количество змеек, которое одна задача обрабатывает без дальнейшего деления.
+     */
+    private static final int SNAKES_PER_TASK = 512;
+
+    /**
+     * Количество полос поля на один поток пула.
+     */
+    private static final int STRIPES_PER_THREAD = 4;
+
+    /**
+     * Количество попыток найти место для змейки или яблока.
+     */
+    private static final int PLACE_ATTEMPTS = 64;
+
+    /**
+     * Направления в порядке перебора.
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * Ширина поля.
+     */
+    private final int width;
+
+    /**
+     * Высота поля.
+     */
+    private final int height;
+
+    /**
+     * Сетка владельцев: номер змейки + 1, минус (номер яблока + 1) или 0.
+     */
+    private final int[] owner;
+
+    /**
+     * Для клетки тела - следующая клетка в сторону головы.
+     */
+    private final int[] link;
+
+    /**
+     * Заявки змеек на клетки в текущем шаге: номер змейки + 1, {@link #CONTESTED} или 0.
+     */
+    private final AtomicIntegerArray claims;
+
+    /**
+     * Клетки яблок или {@link GameEngine#NO_CELL}, если яблоко еще не размещено.
+     */
+    private final int[] apples;
+
+    /**
+     * Генератор для размещения змеек и яблок.
+     */
+    private final SplitMix64 random;
+
+    /**
+     * Пул потоков, в котором обрабатываются полосы.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Количество строк в одной полосе.
+     */
+    private final int stripeHeight;
+
+    /**
+     * Начало списка змеек каждой полосы в {@link #order}; последний элемент - общее количество.
+     */
+    private final int[] stripeStart;
+
+    /**
+     * Живые змейки, упорядоченные по полосам, а внутри полосы по номерам.
+     */
+    private int[] order = new int[0];
+
+    /**
+     * Количество змеек, включая погибших.
+     */
+    private int snakeCount;
+
+    /**
+     * Количество живых змеек.
+     */
+    private int aliveCount;
+
+    /**
+     * Клетка головы каждой змейки.
+     */
+    private int[] heads = new int[0];
+
+    /**
+     * Клетка хвоста каждой змейки.
+     */
+    private int[] tails = new int[0];
+
+    /**
+     * Длина каждой змейки.
+     */
+    private int[] lengths = new int[0];
+
+    /**
+     * Количество яблок, съеденных каждой змейкой.
+     */
+    private int[] scores = new int[0];
+
+    /**
+     * Порядковый номер {@link Direction} каждой змейки.
+     */
+    private byte[] directions = new byte[0];
+
+    /**
+     * Признак того, что змейка жива.
+     */
+    private boolean[] alive = new boolean[0];
+
+    /**
+     * Клетка, в которую змейка идет на текущем шаге.
+     */
+    private int[] nextHeads = new int[0];
+
+    /**
+     * Признак того, что змейка погибает на текущем шаге.
+     */
+    private boolean[] dying = new boolean[0];
+
+    /**
+     * Номер яблока, съеденного змейкой на текущем шаге, или -1.
+     */
+    private int[] eaten = new int[0];
+
+    /**
+     * Количество выполненных шагов.
+     */
+    private long ticks;
+
+    /**
+     * Создает арену со случайно расставленными змейками длины 3, использующую все доступные ядра.
+     *
+     * @param width  Ширина поля.
+     * @param height Высота поля.
+     * @param snakes Количество змеек.
+     * @param apples Количество яблок.
+     * @param seed   Зерно генератора.
+     */
+    public Arena(int width, int height, int snakes, int apples, long seed) {
+        this(width, height, snakes, apples, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Создает арену со случайно расставленными змейками длины 3.
+     * Каждая змейка занимает три клетки подряд в строке и смотрит вправо.
+     *
+     * @param width  Ширина поля.
+     * @param height Высота поля.
+     * @param snakes Количество змеек.
+     * @param apples Количество яблок.
+     * @param seed   Зерно генератора.
+     * @param pool   {@link ForkJoinPool} для обработки полос.
+     * @throws IllegalArgumentException если размеры некорректны или змейкам не хватает места.
+     */
+    public Arena(int width, int height, int snakes, int apples, long seed, ForkJoinPool pool) {
+        if (width < 3 || height <= 0) {
+            throw new IllegalArgumentException("invalid board size: " + width + "x" + height);
+        }
+        if ((long) width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("board is too large: " + width + "x" + height);
+        }
+        if (snakes < 0 || apples < 0) {
+            throw new IllegalArgumentException("negative number of snakes or apples: " + snakes + ", " + apples);
+        }
+        this.width = width;
+        this.height = height;
+        this.owner = new int[width * height];
+        this.link = new int[owner.length];
+        this.claims = new AtomicIntegerArray(owner.length);
+        this.apples = new int[apples];
+        Arrays.fill(this.apples, GameEngine.NO_CELL);
+        this.random = new SplitMix64(seed);
+        this.pool = pool;
+        int stripes = Math.min(height, pool.getParallelism() * STRIPES_PER_THREAD);
+        this.stripeHeight = (height + stripes - 1) / stripes;
+        this.stripeStart = new int[(height + stripeHeight - 1) / stripeHeight + 1];
+        int[] cells = new int[3];
+        for (int i = 0; i < snakes; i++) {
+            if (!spawnRandom(cells)) {
+                throw new IllegalArgumentException("no room for " + snakes + " snakes on " + width + "x" + height);
+            }
+        }
+        placeApples();
+    }
+
+    /**
+     * Ставит змейку в случайные три свободные клетки подряд.
+     *
+     * @param cells Массив для клеток тела.
+     * @return {@code false}, если место не найдено.
+     */
+    private boolean spawnRandom(int[] cells) {
+        for (int attempt = 0; attempt < PLACE_ATTEMPTS; attempt++) {
+            int cell = random.nextInt(owner.length);
+            int x = cell % width;
+            if (x > width - cells.length) {
+                cell -= x - (width - cells.length);
+            }
+            boolean free = true;
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = cell + i;
+                free &= owner[cell + i] == 0;
+            }
+            if (free) {
+                spawn(cells, Direction.RIGHT);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Добавляет змейку на поле.
+     *
+     * @param cells     Клетки тела от хвоста к голове.
+     * @param direction Направление движения.
+     * @return Номер новой змейки.
+     * @throws IllegalArgumentException если тело пустое, клетка вне поля или уже занята.
+     */
+    public int spawn(int[] cells, Direction direction) {
+        if (cells.length == 0) {
+            throw new IllegalArgumentException("empty snake");
+        }
+        int id = snakeCount;
+        for (int i = 0; i < cells.length; i++) {
+            int cell = cells[i];
+            if (cell < 0 || cell >= owner.length || owner[cell] != 0) {
+                for (int j = 0; j < i; j++) {
+                    owner[cells[j]] = 0;
+                }
+                throw new IllegalArgumentException("cell is out of the board or taken: " + cell);
+            }
+            owner[cell] = id + 1;
+            if (i > 0) {
+                link[cells[i - 1]] = cell;
+            }
+        }
+        if (id == heads.length) {
+            grow(Math.max(16, id * 2));
+        }
+        heads[id] = cells[cells.length - 1];
+        tails[id] = cells[0];
+        lengths[id] = cells.length;
+        directions[id] = (byte) direction.ordinal();
+        alive[id] = true;
+        snakeCount++;
+        aliveCount++;
+        return id;
+    }
+
+    /**
+     * Увеличивает массивы состояния змеек.
+     *
+     * @param capacity Новая вместимость.
+     */
+    private void grow(int capacity) {
+        heads = Arrays.copyOf(heads, capacity);
+        tails = Arrays.copyOf(tails, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        scores = Arrays.copyOf(scores, capacity);
+        directions = Arrays.copyOf(directions, capacity);
+        alive = Arrays.copyOf(alive, capacity);
+        nextHeads = Arrays.copyOf(nextHeads, capacity);
+        dying = Arrays.copyOf(dying, capacity);
+        eaten = Arrays.copyOf(eaten, capacity);
+        order = Arrays.copyOf(order, capacity);
+    }
+
+    /**
+     * Выполняет один шаг всех живых змеек.
+     *
+     * @return Количество змеек, оставшихся в живых.
+     */
+    public int tick() {
+        ticks++;
+        int moving = sortByStripe();
+        run(Phase.MOVE, moving);
+        run(Phase.RESOLVE, moving);
+        run(Phase.APPLY, moving);
+        for (int i = 0; i < moving; i++) {
+            int snake = order[i];
+            if (dying[snake]) {
+                alive[snake] = false;
+                aliveCount--;
+            } else if (eaten[snake] >= 0) {
+                apples[eaten[snake]] = GameEngine.NO_CELL;
+            }
+        }
+        placeApples();
+        return aliveCount;
+    }
+
+    /**
+     * Выполняет фазу шага для всех живых змеек, в пуле или в текущем потоке, если змеек мало.
+     *
+     * @param phase  Фаза.
+     * @param moving Количество живых змеек в {@link #order}.
+     */
+    private void run(Phase phase, int moving) {
+        if (pool.getParallelism() == 1 || moving <= SNAKES_PER_TASK) {
+            process(phase, 0, moving);
+        } else {
+            pool.invoke(new Stripes(phase, 0, stripeStart.length - 1));
+        }
+    }
+
+    /**
+     * Выполняет фазу для змеек из отрезка {@link #order}.
+     *
+     * @param phase Фаза.
+     * @param from  Начало отрезка.
+     * @param to    Конец отрезка (не включая).
+     */
+    private void process(Phase phase, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int snake = order[i];
+            switch (phase) {
+                case MOVE -> move(snake);
+                case RESOLVE -> resolve(snake);
+                case APPLY -> apply(snake);
+            }
+        }
+    }
+
+    /**
+     * Первая фаза: выбирает направление змейки и заявляет клетку, в которую она идет.
+     *
+     * @param snake Номер змейки.
+     */
+    private void move(int snake) {
+        Direction direction = steer(snake);
+        directions[snake] = (byte) direction.ordinal();
+        int next = neighbour(heads[snake], direction);
+        nextHeads[snake] = next;
+        eaten[snake] = -1;
+        dying[snake] = owner[next] > 0;
+        if (dying[snake]) {
+            return;
+        }
+        int id = snake + 1;
+        for (;;) {
+            int claim = claims.get(next);
+            if (claim == CONTESTED || claims.compareAndSet(next, claim, claim == 0 ? id : CONTESTED)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Вторая фаза: змейка, чью клетку заявил кто-то еще, погибает.
+     *
+     * @param snake Номер змейки.
+     */
+    private void resolve(int snake) {
+        if (!dying[snake] && claims.get(nextHeads[snake]) != snake + 1) {
+            dying[snake] = true;
+        }
+    }
+
+    /**
+     * Третья фаза: двигает выжившую змейку или освобождает клетки погибшей.
+     *
+     * @param snake Номер змейки.
+     */
+    private void apply(int snake) {
+        int next = nextHeads[snake];
+        claims.setPlain(next, 0);
+        if (dying[snake]) {
+            int cell = tails[snake];
+            for (int i = 0; i < lengths[snake]; i++) {
+                owner[cell] = 0;
+                cell = link[cell];
+            }
+            return;
+        }
+        int apple = owner[next];
+        link[heads[snake]] = next;
+        if (apple < 0) {
+            eaten[snake] = -apple - 1;
+            lengths[snake]++;
+            scores[snake]++;
+        } else {
+            int tail = tails[snake];
+            owner[tail] = 0;
+            tails[snake] = link[tail];
+        }
+        owner[next] = snake + 1;
+        heads[snake] = next;
+    }
+
+    /**
+     * Выбирает направление змейки: не в занятую клетку и ближе к яблоку с номером {@code snake % apples}.
+     * При равенстве предпочитается текущее направление.
+     *
+     * @param snake Номер змейки.
+     * @return {@link Direction}; текущее, если все соседние клетки заняты.
+     */
+    private Direction steer(int snake) {
+        Direction current = DIRECTIONS[directions[snake]];
+        int head = heads[snake];
+        int target = apples.length == 0 ? GameEngine.NO_CELL : apples[snake % apples.length];
+        Direction best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int i = -1; i < DIRECTIONS.length; i++) {
+            Direction direction = i < 0 ? current : DIRECTIONS[i];
+            if (i >= 0 && direction == current || direction == current.opposite()) {
+                continue;
+            }
+            int next = neighbour(head, direction);
+            if (owner[next] > 0) {
+                continue;
+            }
+            int distance = target == GameEngine.NO_CELL ? 0 : distance(next, target);
+            if (distance < bestDistance) {
+                best = direction;
+                bestDistance = distance;
+            }
+        }
+        return best == null ? current : best;
+    }
+
+    /**
+     * Возвращает расстояние между клетками на торе по Манхэттену.
+     *
+     * @param from Первая клетка.
+     * @param to   Вторая клетка.
+     * @return Расстояние в шагах.
+     */
+    private int distance(int from, int to) {
+        int dx = Math.abs(from % width - to % width);
+        int dy = Math.abs(from / width - to / width);
+        return Math.min(dx, width - dx) + Math.min(dy, height - dy);
+    }
+
+    /**
+     * Возвращает соседнюю клетку на торе.
+     *
+     * @param cell      Индекс клетки.
+     * @param direction Направление.
+     * @return Индекс соседней клетки.
+     */
+    private int neighbour(int cell, Direction direction) {
+        int x = cell % width;
+        return switch (direction) {
+            case LEFT -> x == 0 ? cell + width - 1 : cell - 1;
+            case RIGHT -> x == width - 1 ? cell - width + 1 : cell + 1;
+            case UP -> cell < width ? cell + owner.length - width : cell - width;
+            case DOWN -> cell >= owner.length - width ? cell - owner.length + width : cell + width;
+        };
+    }
+
+    /**
+     * Размещает неразмещенные яблоки в случайных пустых клетках по порядку их номеров.
+     * Если пустая клетка не нашлась за {@link #PLACE_ATTEMPTS} попыток, яблоко ждет следующего шага.
+     */
+    private void placeApples() {
+        for (int apple = 0; apple < apples.length; apple++) {
+            if (apples[apple] != GameEngine.NO_CELL) {
+                continue;
+            }
+            for (int attempt = 0; attempt < PLACE_ATTEMPTS; attempt++) {
+                int cell = random.nextInt(owner.length);
+                if (owner[cell] == 0) {
+                    owner[cell] = -apple - 1;
+                    apples[apple] = cell;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Раскладывает живых змеек по полосам поля подсчетом, сохраняя порядок номеров внутри полосы.
+     *
+     * @return Количество живых змеек.
+     */
+    private int sortByStripe() {
+        Arrays.fill(stripeStart, 0);
+        int count = 0;
+        for (int snake = 0; snake < snakeCount; snake++) {
+            if (alive[snake]) {
+                stripeStart[stripe(snake) + 1]++;
+                count++;
+            }
+        }
+        for (int stripe = 1; stripe < stripeStart.length; stripe++) {
+            stripeStart[stripe] += stripeStart[stripe - 1];
+        }
+        for (int snake = 0; snake < snakeCount; snake++) {
+            if (alive[snake]) {
+                order[stripeStart[stripe(snake)]++] = snake;
+            }
+        }
+        System.arraycopy(stripeStart, 0, stripeStart, 1, stripeStart.length - 1);
+        stripeStart[0] = 0;
+        return count;
+    }
+
+    /**
+     * Возвращает номер полосы, в которой находится голова змейки.
+     *
+     * @param snake Номер змейки.
+     * @return Номер полосы.
+     */
+    private int stripe(int snake) {
+        return heads[snake] / width / stripeHeight;
+    }
+
+    /**
+     * Возвращает номер змейки, занимающей клетку.
+     *
+     * @param cell Индекс клетки.
+     * @return Номер змейки или {@link #NO_SNAKE}.
+     */
+    public int getOwner(int cell) {
+        return owner[cell] > 0 ? owner[cell] - 1 : NO_SNAKE;
+    }
+
+    /**
+     * Возвращает клетку яблока.
+     *
+     * @param apple Номер яблока.
+     * @return Индекс клетки или {@link GameEngine#NO_CELL}, если яблоко не размещено.
+     */
+    public int getApple(int apple) {
+        return apples[apple];
+    }
+
+    /**
+     * Возвращает количество яблок.
+     *
+     * @return Число яблок.
+     */
+    public int getAppleCount() {
+        return apples.length;
+    }
+
+    /**
+     * Возвращает количество змеек, включая погибших.
+     *
+     * @return Число змеек.
+     */
+    public int getSnakeCount() {
+        return snakeCount;
+    }
+
+    /**
+     * Возвращает количество живых змеек.
+     *
+     * @return Число живых змеек.
+     */
+    public int getAliveCount() {
+        return aliveCount;
+    }
+
+    /**
+     * Проверяет, жива ли змейка.
+     *
+     * @param snake Номер змейки.
+     * @return {@code true}, если змейка жива.
+     */
+    public boolean isAlive(int snake) {
+        return alive[snake];
+    }
+
+    /**
+     * Возвращает клетку головы змейки.
+     *
+     * @param snake Номер змейки.
+     * @return Индекс клетки.
+     */
+    public int getHead(int snake) {
+        return heads[snake];
+    }
+
+    /**
+     * Возвращает длину змейки.
+     *
+     * @param snake Номер змейки.
+     * @return Количество клеток тела.
+     */
+    public int getLength(int snake) {
+        return lengths[snake];
+    }
+
+    /**
+     * Возвращает количество яблок, съеденных змейкой.
+     *
+     * @param snake Номер змейки.
+     * @return Счет змейки.
+     */
+    public int getScore(int snake) {
+        return scores[snake];
+    }
+
+    /**
+     * Возвращает направление движения змейки.
+     *
+     * @param snake Номер змейки.
+     * @return {@link Direction}.
+     */
+    public Direction getDirection(int snake) {
+        return DIRECTIONS[directions[snake]];
+    }
+
+    /**
+     * Возвращает количество выполненных шагов.
+     *
+     * @return Число шагов.
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Возвращает ширину поля.
+     *
+     * @return Ширина в клетках.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Возвращает высоту поля.
+     *
+     * @return Высота в клетках.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Фаза шага арены.
+     */
+    private enum Phase {
+        /**
+         * Выбор направления и заявка клетки.
+         */
+        MOVE,
+        /**
+         * Разрешение столкновений голов.
+         */
+        RESOLVE,
+        /**
+         * Перемещение змеек.
+         */
+        APPLY
+    }
+
+    /**
+     * Задача, выполняющая фазу для диапазона полос и делящая его пополам, пока в нем много змеек.
+     */
+    private final class Stripes extends RecursiveAction {
+
+        /**
+         * Версия сериализованной формы задачи: {@link RecursiveAction} сериализуем.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Фаза.
+         */
+        private final Phase phase;
+
+        /**
+         * Номер первой полосы диапазона.
+         */
+        private final int from;
+
+        /**
+         * Номер полосы, следующей за последней в диапазоне.
+         */
+        private final int to;
+
+        /**
+         * Создает задачу для диапазона полос.
+         *
+         * @param phase Фаза.
+         * @param from  Номер первой полосы.
+         * @param to    Номер полосы, следующей за последней.
+         */
+        Stripes(Phase phase, int from, int to) {
+            this.phase = phase;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Обрабатывает змеек полос диапазона или делит его на две задачи.
+         */
+        @Override
+        protected void compute() {
+            if (to - from > 1 && stripeStart[to] - stripeStart[from] > SNAKES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Stripes(phase, from, middle), new Stripes(phase, middle, to));
+                return;
+            }
+            process(phase, stripeStart[from], stripeStart[to]);
+        }
+    }
+
+    /**
+     * Точка входа для замера пропускной способности арены из командной строки.
+     *
+     * @param args количество змеек, размер поля, количество шагов и зерно; все аргументы необязательны
+     */
+    public static void main(String[] args) {
+        int snakes = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+        Arena arena = new Arena(size, size, snakes, snakes, seed);
+        long moves = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ticks && arena.getAliveCount() > 0; i++) {
+            moves += arena.getAliveCount();
+            arena.tick();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        logger.info("snakes: {}, board: {}x{}, ticks: {}, alive: {}, time: {} ms, {} ticks/s, {} moves/s",
+                snakes, size, size, arena.getTicks(), arena.getAliveCount(), Math.round(seconds * 1000),
+                Math.round(arena.getTicks() / seconds), Math.round(moves / seconds));
+    }
+}
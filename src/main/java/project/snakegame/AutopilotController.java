@@ -0,0 +1,381 @@
+package project.snakegame;
+
+import java.util.Arrays;
+
+/**
+ * Автопилот: ищет кратчайший путь от головы к яблоку поиском в ширину по тору и идет по нему.
+ * <p>
+ * Поиск учитывает, что тело уходит: клетка, занятая сегментом с номером {@code i} от хвоста,
+ * освобождается через {@code i + 1} шагов, а войти в нее можно начиная с шага {@code i + 2}, потому что
+ * столкновение проверяется и с хвостом, который еще не ушел (как в {@link GameEngine#tick()}).
+ * Найденный путь остается верным, пока яблоко не съедено, поэтому он запоминается, и обычный шаг -
+ * это чтение следующего направления из плана; поиск выполняется примерно один раз на яблоко.
+ * <p>
+ * Путь к яблоку принимается, только если после его съедения голова сможет дойти до своего хвоста.
+ * Иначе, а также если до яблока не дойти, змейка идет за своим хвостом в обход яблока (чтобы не съесть его
+ * по дороге и не сбить расчет времени), а если недоступен и хвост, - в любую свободную клетку.
+ * Путь к хвосту тоже запоминается до конца, после чего поиск яблока повторяется.
+ * <p>
+ * Все массивы выделяются один раз для размера поля; сам выбор направления не создает объектов.
+ * Экземпляр не потокобезопасен: на каждую игру нужен свой контроллер.
+ */
+public class AutopilotController implements Controller {
+
+    /**
+     * Направления в порядке перебора.
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * Ширина поля, под которое выделены массивы.
+     */
+    private int width;
+
+    /**
+     * Высота поля, под которое выделены массивы.
+     */
+    private int height;
+
+    /**
+     * Площадь поля.
+     */
+    private int area;
+
+    /**
+     * Очередь поиска в ширину.
+     */
+    private int[] queue = new int[0];
+
+    /**
+     * Расстояние от начала поиска до клетки в шагах.
+     */
+    private int[] distance = new int[0];
+
+    /**
+     * Порядковый номер направления, которым поиск пришел в клетку.
+     */
+    private byte[] via = new byte[0];
+
+    /**
+     * Поколение поиска, в котором клетка была посещена.
+     */
+    private int[] visited = new int[0];
+
+    /**
+     * Поколение разметки тела, в котором клетка была занята.
+     */
+    private int[] marked = new int[0];
+
+    /**
+     * Шаг, начиная с которого в занятую клетку можно войти.
+     */
+    private int[] enterableAt = new int[0];
+
+    /**
+     * Клетки тела и пути к яблоку подряд, для разметки тела после съедения яблока.
+     */
+    private int[] sequence = new int[0];
+
+    /**
+     * Запомненный план: направления от головы к яблоку.
+     */
+    private Direction[] plan = new Direction[0];
+
+    /**
+     * Длина плана.
+     */
+    private int planLength;
+
+    /**
+     * Номер следующего направления плана.
+     */
+    private int planPos;
+
+    /**
+     * Клетка, в которой должна быть голова, чтобы план оставался верным.
+     */
+    private int planHead = GameEngine.NO_CELL;
+
+    /**
+     * Яблоко, к которому ведет план.
+     */
+    private int planApple = GameEngine.NO_CELL;
+
+    /**
+     * Текущее поколение поиска.
+     */
+    private int searchGeneration;
+
+    /**
+     * Текущее поколение разметки тела.
+     */
+    private int markGeneration;
+
+    /**
+     * Выбирает направление: следующий шаг плана, новый путь к яблоку или путь к хвосту.
+     *
+     * @param state {@link GameState} перед шагом.
+     * @return {@link Direction} для следующего шага или {@code null}, если свободных клеток рядом нет.
+     */
+    @Override
+    public Direction decide(GameState state) {
+        int head = state.getHead();
+        int apple = state.getApple();
+        if (planPos < planLength && head == planHead && apple == planApple) {
+            return follow(state);
+        }
+        planLength = 0;
+        planPos = 0;
+        ensureCapacity(state.getWidth(), state.getHeight());
+        if (apple != GameEngine.NO_CELL) {
+            markBody(state);
+            int steps = search(state, head, apple, GameEngine.NO_CELL);
+            if (steps > 0) {
+                tracePlan(apple, steps);
+                if (safeAfterEating(state, steps)) {
+                    return startPlan(state, steps);
+                }
+            }
+            markBody(state);
+        }
+        int tail = state.getCell(0);
+        int steps = search(state, head, tail, apple);
+        if (steps > 0) {
+            tracePlan(tail, steps);
+            return startPlan(state, steps);
+        }
+        return anyFree(state);
+    }
+
+    /**
+     * Запоминает восстановленный план и возвращает его первое направление.
+     *
+     * @param state {@link GameState}.
+     * @param steps Длина плана.
+     * @return Первое направление плана.
+     */
+    private Direction startPlan(GameState state, int steps) {
+        planLength = steps;
+        planApple = state.getApple();
+        planHead = state.getHead();
+        return follow(state);
+    }
+
+    /**
+     * Возвращает следующее направление плана и сдвигает ожидаемое положение головы.
+     *
+     * @param state {@link GameState}.
+     * @return {@link Direction}.
+     */
+    private Direction follow(GameState state) {
+        Direction direction = plan[planPos++];
+        planHead = state.neighbour(planHead, direction);
+        return direction;
+    }
+
+    /**
+     * Выделяет массивы под поле заданного размера, если он изменился.
+     *
+     * @param width  Ширина поля.
+     * @param height Высота поля.
+     */
+    private void ensureCapacity(int width, int height) {
+        if (width == this.width && height == this.height) {
+            return;
+        }
+        this.width = width;
+        this.height = height;
+        this.area = width * height;
+        queue = new int[area];
+        distance = new int[area];
+        via = new byte[area];
+        visited = new int[area];
+        marked = new int[area];
+        enterableAt = new int[area];
+        sequence = new int[area * 2];
+        plan = new Direction[area];
+        searchGeneration = 0;
+        markGeneration = 0;
+    }
+
+    /**
+     * Размечает стены и текущее тело: сегмент с номером {@code i} от хвоста доступен с шага {@code i + 2}.
+     *
+     * @param state {@link GameState}.
+     */
+    private void markBody(GameState state) {
+        nextMarkGeneration();
+        markWalls(state);
+        int length = state.getLength();
+        for (int i = 0; i < length; i++) {
+            int cell = state.getCell(i);
+            marked[cell] = markGeneration;
+            enterableAt[cell] = i + 2;
+        }
+    }
+
+    /**
+     * Размечает стены уровня как клетки, в которые нельзя войти никогда.
+     *
+     * @param state {@link GameState}.
+     */
+    private void markWalls(GameState state) {
+        Level level = state.getLevel();
+        if (level == null) {
+            return;
+        }
+        for (int cell : level.getWallCells()) {
+            marked[cell] = markGeneration;
+            enterableAt[cell] = Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Восстанавливает в {@link #plan} направления найденного пути, идя от цели назад.
+     *
+     * @param target Конечная клетка пути.
+     * @param steps  Длина пути.
+     */
+    private void tracePlan(int target, int steps) {
+        int cell = target;
+        for (int i = steps - 1; i >= 0; i--) {
+            plan[i] = DIRECTIONS[via[cell]];
+            cell = neighbour(cell, cell % width, plan[i].opposite().ordinal());
+        }
+    }
+
+    /**
+     * Проверяет, что после съедения яблока в конце плана голова сможет дойти до своего хвоста.
+     * <p>
+     * Тело после {@code steps} шагов - это последние {@code length + 1} клеток последовательности
+     * "текущее тело, затем клетки пути", так как на всех шагах, кроме последнего, хвост уходит.
+     *
+     * @param state {@link GameState}.
+     * @param steps Длина плана.
+     * @return {@code true}, если хвост достижим.
+     */
+    private boolean safeAfterEating(GameState state, int steps) {
+        int length = state.getLength();
+        if (length + 1 >= area) {
+            return true;
+        }
+        for (int i = 0; i < length; i++) {
+            sequence[i] = state.getCell(i);
+        }
+        int cell = state.getHead();
+        for (int i = 0; i < steps; i++) {
+            cell = neighbour(cell, cell % width, plan[i].ordinal());
+            sequence[length + i] = cell;
+        }
+        nextMarkGeneration();
+        markWalls(state);
+        for (int j = 0; j <= length; j++) {
+            int segment = sequence[steps - 1 + j];
+            marked[segment] = markGeneration;
+            enterableAt[segment] = j + 2;
+        }
+        return search(state, state.getApple(), sequence[steps - 1], GameEngine.NO_CELL) > 0;
+    }
+
+    /**
+     * Ищет в ширину кратчайший путь между клетками с учетом уходящего тела, размеченного {@link #markBody}.
+     * Первый шаг не может быть разворотом, если поиск начинается от головы.
+     *
+     * @param state  {@link GameState}.
+     * @param start  Начальная клетка.
+     * @param target Целевая клетка.
+     * @param avoid  Клетка, через которую путь не должен проходить, или {@link GameEngine#NO_CELL}.
+     * @return Длина пути в шагах или 0, если цель недостижима.
+     */
+    private int search(GameState state, int start, int target, int avoid) {
+        int generation = nextSearchGeneration();
+        int reverse = start == state.getHead() ? state.getDirection().opposite().ordinal() : -1;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        visited[start] = generation;
+        distance[start] = 0;
+        while (head < tail) {
+            int cell = queue[head++];
+            int x = cell % width;
+            int step = distance[cell] + 1;
+            for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+                if (step == 1 && direction == reverse) {
+                    continue;
+                }
+                int next = neighbour(cell, x, direction);
+                if (visited[next] == generation || next == avoid
+                        || marked[next] == markGeneration && enterableAt[next] > step) {
+                    continue;
+                }
+                visited[next] = generation;
+                distance[next] = step;
+                via[next] = (byte) direction;
+                if (next == target) {
+                    return step;
+                }
+                queue[tail++] = next;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Возвращает соседнюю клетку на торе без деления: то же, что {@link GameState#neighbour(int, Direction)}.
+     *
+     * @param cell      Индекс клетки.
+     * @param x         Координата X клетки.
+     * @param direction Порядковый номер {@link Direction}.
+     * @return Индекс соседней клетки.
+     */
+    private int neighbour(int cell, int x, int direction) {
+        return switch (DIRECTIONS[direction]) {
+            case LEFT -> x == 0 ? cell + width - 1 : cell - 1;
+            case RIGHT -> x == width - 1 ? cell - width + 1 : cell + 1;
+            case UP -> cell < width ? cell + area - width : cell - width;
+            case DOWN -> cell >= area - width ? cell - area + width : cell + width;
+        };
+    }
+
+    /**
+     * Выбирает любую свободную соседнюю клетку, предпочитая текущее направление.
+     *
+     * @param state {@link GameState}.
+     * @return {@link Direction} или {@code null}, если свободных клеток рядом нет.
+     */
+    private Direction anyFree(GameState state) {
+        Direction current = state.getDirection();
+        if (!state.occupied(state.neighbour(state.getHead(), current))) {
+            return current;
+        }
+        for (Direction direction : DIRECTIONS) {
+            if (direction != current.opposite() && !state.occupied(state.neighbour(state.getHead(), direction))) {
+                return direction;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Начинает новое поколение поиска, очищая отметки при переполнении счетчика.
+     *
+     * @return Номер нового поколения.
+     */
+    private int nextSearchGeneration() {
+        if (++searchGeneration == 0) {
+            Arrays.fill(visited, 0);
+            searchGeneration = 1;
+        }
+        return searchGeneration;
+    }
+
+    /**
+     * Начинает новое поколение разметки тела, очищая отметки при переполнении счетчика.
+     */
+    private void nextMarkGeneration() {
+        if (++markGeneration == 0) {
+            Arrays.fill(marked, 0);
+            markGeneration = 1;
+        }
+    }
+}
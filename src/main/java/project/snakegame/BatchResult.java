@@ -0,0 +1,161 @@
+package project.snakegame;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Результат пакетного прогона игр: счет, длительность и конечный хеш состояния каждой игры, распределение счета
+ * и пропускная способность.
+ */
+public class BatchResult {
+
+    /**
+     * Счет каждой игры в порядке номеров игр.
+     */
+    private final int[] scores;
+
+    /**
+     * Отсортированная копия {@link #scores} для вычисления перцентилей.
+     */
+    private final int[] sortedScores;
+
+    /**
+     * Суммарное количество шагов всех игр.
+     */
+    private final long totalTicks;
+
+    /**
+     * Хеш Зобриста конечного состояния каждой игры в порядке номеров игр.
+     */
+    private final long[] hashes;
+
+    /**
+     * Время прогона в наносекундах.
+     */
+    private final long elapsedNanos;
+
+    /**
+     * Создает результат прогона.
+     *
+     * @param scores       Счет каждой игры.
+     * @param ticks        Количество шагов каждой игры.
+     * @param hashes       Хеш конечного состояния каждой игры.
+     * @param elapsedNanos Время прогона в наносекундах.
+     */
+    public BatchResult(int[] scores, long[] ticks, long[] hashes, long elapsedNanos) {
+        this.scores = scores;
+        this.hashes = hashes;
+        this.sortedScores = scores.clone();
+        Arrays.sort(sortedScores);
+        this.totalTicks = Arrays.stream(ticks).sum();
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Возвращает количество игр.
+     *
+     * @return Число игр.
+     */
+    public int getGames() {
+        return scores.length;
+    }
+
+    /**
+     * Возвращает счет игры по номеру.
+     *
+     * @param game Номер игры.
+     * @return Счет игры.
+     */
+    public int getScore(int game) {
+        return scores[game];
+    }
+
+    /**
+     * Возвращает хеш конечного состояния игры по номеру.
+     *
+     * @param game Номер игры.
+     * @return Хеш Зобриста.
+     */
+    public long getHash(int game) {
+        return hashes[game];
+    }
+
+    /**
+     * Возвращает сводный хеш прогона, зависящий от конечного состояния каждой игры и порядка игр.
+     * Прогоны с одним зерном должны давать одинаковый сводный хеш при любом числе потоков.
+     *
+     * @return Сводный хеш.
+     */
+    public long getDigest() {
+        long digest = hashes.length;
+        for (long hash : hashes) {
+            digest = SplitMix64.mix(digest ^ hash);
+        }
+        return digest;
+    }
+
+    /**
+     * Возвращает суммарное количество шагов всех игр.
+     *
+     * @return Число шагов.
+     */
+    public long getTotalTicks() {
+        return totalTicks;
+    }
+
+    /**
+     * Возвращает средний счет.
+     *
+     * @return Средний счет или 0, если игр не было.
+     */
+    public double getMeanScore() {
+        return scores.length == 0 ? 0 : Arrays.stream(scores).average().orElse(0);
+    }
+
+    /**
+     * Возвращает перцентиль распределения счета.
+     *
+     * @param percentile Перцентиль от 0 до 100.
+     * @return Счет, не превышенный указанной долей игр, или 0, если игр не было.
+     */
+    public int getScorePercentile(double percentile) {
+        if (sortedScores.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * sortedScores.length) - 1;
+        return sortedScores[Math.max(0, Math.min(sortedScores.length - 1, index))];
+    }
+
+    /**
+     * Возвращает пропускную способность в шагах в секунду.
+     *
+     * @return Шагов в секунду.
+     */
+    public double getTicksPerSecond() {
+        return totalTicks * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsedNanos);
+    }
+
+    /**
+     * Возвращает пропускную способность в играх в секунду.
+     *
+     * @return Игр в секунду.
+     */
+    public double getGamesPerSecond() {
+        return scores.length * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsedNanos);
+    }
+
+    /**
+     * Возвращает сводку прогона.
+     *
+     * @return Строка с количеством игр, пропускной способностью и распределением счета.
+     */
+    @Override
+    public String toString() {
+        return String.format("games: %d, ticks: %d, time: %d ms, %.0f ticks/s, %.1f games/s, "
+                        + "score min/p50/p90/p99/max: %d/%d/%d/%d/%d, mean: %.2f, digest: %016x",
+                getGames(), totalTicks, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                getTicksPerSecond(), getGamesPerSecond(),
+                getScorePercentile(0), getScorePercentile(50), getScorePercentile(90),
+                getScorePercentile(99), getScorePercentile(100), getMeanScore(), getDigest());
+    }
+}
@@ -0,0 +1,217 @@
+package project.snakegame;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.LongFunction;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Пакетный прогон множества независимых игр без JavaFX на всех ядрах процессора.
+ * <p>
+ * Каждая игра - отдельный {@link GameEngine} со своим зерном, выведенным из общего зерна и номера игры,
+ * поэтому результат прогона не зависит от числа потоков и порядка выполнения игр.
+ * Игры распределяются по {@link ForkJoinPool} рекурсивным делением диапазона номеров.
+ */
+public class BatchSimulator {
+
+    /**
+     * Переменная для логирования
+     */
+    private static final Logger logger = LogManager.getLogger(BatchSimulator.class);
+
+    /**
+     * Количество игр, которое одна задача выполняет без дальнейшего деления.
+     */
+    private static final int GAMES_PER_TASK = 16;
+
+    /**
+     * Ширина поля.
+     */
+    private final int width;
+
+    /**
+     * Высота поля.
+     */
+    private final int height;
+
+    /**
+     * Наибольшее количество шагов в одной игре; защищает от бесконечных игр ботов, которые ходят по кругу.
+     */
+    private final long maxTicks;
+
+    /**
+     * Пул потоков, в котором выполняются игры.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Создает симулятор, использующий все доступные ядра.
+     *
+     * @param width    Ширина поля.
+     * @param height   Высота поля.
+     * @param maxTicks Наибольшее количество шагов в одной игре.
+     */
+    public BatchSimulator(int width, int height, long maxTicks) {
+        this(width, height, maxTicks, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Создает симулятор, выполняющий игры в заданном пуле.
+     *
+     * @param width    Ширина поля.
+     * @param height   Высота поля.
+     * @param maxTicks Наибольшее количество шагов в одной игре.
+     * @param pool     {@link ForkJoinPool} для выполнения игр.
+     */
+    public BatchSimulator(int width, int height, long maxTicks, ForkJoinPool pool) {
+        this.width = width;
+        this.height = height;
+        this.maxTicks = maxTicks;
+        this.pool = pool;
+    }
+
+    /**
+     * Выполняет заданное количество игр.
+     *
+     * @param games       Количество игр.
+     * @param seed        Общее зерно прогона.
+     * @param controllers Фабрика контроллеров; получает зерно игры и создает контроллер для нее.
+     * @return {@link BatchResult} со счетом каждой игры и пропускной способностью.
+     */
+    public BatchResult run(int games, long seed, LongFunction<? extends Controller> controllers) {
+        int[] scores = new int[games];
+        long[] ticks = new long[games];
+        long[] hashes = new long[games];
+        long start = System.nanoTime();
+        pool.invoke(new Games(0, games, seed, controllers, scores, ticks, hashes));
+        return new BatchResult(scores, ticks, hashes, System.nanoTime() - start);
+    }
+
+    /**
+     * Выполняет одну игру до смерти змейки или до {@link #maxTicks} шагов.
+     *
+     * @param seed       Зерно игры.
+     * @param controller Контроллер игры.
+     * @return {@link GameEngine} в конечном состоянии.
+     */
+    GameEngine play(long seed, Controller controller) {
+        GameEngine engine = new GameEngine(width, height, new int[]{0, 1, 2}, seed);
+        engine.placeApple();
+        while (engine.isAlive() && engine.getTicks() < maxTicks) {
+            engine.tick(controller.decide(engine));
+        }
+        return engine;
+    }
+
+    /**
+     * Вычисляет зерно игры по общему зерну прогона и номеру игры.
+     *
+     * @param seed Общее зерно.
+     * @param game Номер игры.
+     * @return Зерно игры.
+     */
+    static long gameSeed(long seed, long game) {
+        return new SplitMix64(seed ^ (game * 0x9E3779B97F4A7C15L)).nextLong();
+    }
+
+    /**
+     * Задача, выполняющая диапазон игр и делящая его пополам, пока он больше {@link #GAMES_PER_TASK}.
+     */
+    private final class Games extends RecursiveAction {
+
+        /**
+         * Номер первой игры диапазона.
+         */
+        private final int from;
+
+        /**
+         * Номер игры, следующей за последней в диапазоне.
+         */
+        private final int to;
+
+        /**
+         * Общее зерно прогона.
+         */
+        private final long seed;
+
+        /**
+         * Фабрика контроллеров.
+         */
+        private final LongFunction<? extends Controller> controllers;
+
+        /**
+         * Счет каждой игры.
+         */
+        private final int[] scores;
+
+        /**
+         * Количество шагов каждой игры.
+         */
+        private final long[] ticks;
+
+        /**
+         * Хеш конечного состояния каждой игры.
+         */
+        private final long[] hashes;
+
+        /**
+         * Создает задачу для диапазона игр.
+         *
+         * @param from        Номер первой игры.
+         * @param to          Номер игры, следующей за последней.
+         * @param seed        Общее зерно прогона.
+         * @param controllers Фабрика контроллеров.
+         * @param scores      Массив для счета игр.
+         * @param ticks       Массив для количества шагов игр.
+         * @param hashes      Массив для хешей конечных состояний игр.
+         */
+        Games(int from, int to, long seed, LongFunction<? extends Controller> controllers, int[] scores, long[] ticks,
+              long[] hashes) {
+            this.from = from;
+            this.to = to;
+            this.seed = seed;
+            this.controllers = controllers;
+            this.scores = scores;
+            this.ticks = ticks;
+            this.hashes = hashes;
+        }
+
+        /**
+         * Выполняет игры диапазона или делит его на две задачи.
+         */
+        @Override
+        protected void compute() {
+            if (to - from > GAMES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Games(from, middle, seed, controllers, scores, ticks, hashes),
+                        new Games(middle, to, seed, controllers, scores, ticks, hashes));
+                return;
+            }
+            for (int game = from; game < to; game++) {
+                long gameSeed = gameSeed(seed, game);
+                GameEngine engine = play(gameSeed, controllers.apply(gameSeed));
+                scores[game] = engine.getScore();
+                ticks[game] = engine.getTicks();
+                hashes[game] = engine.getHash();
+            }
+        }
+    }
+
+    /**
+     * Точка входа для прогона из командной строки с {@link GreedyController} или {@link AutopilotController}.
+     *
+     * @param args количество игр, размер поля, зерно и контроллер ({@code greedy} или {@code autopilot});
+     *             все аргументы необязательны
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 25;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        boolean autopilot = args.length > 3 && "autopilot".equals(args[3]);
+        BatchResult result = new BatchSimulator(size, size, 100_000).run(games, seed,
+                s -> autopilot ? new AutopilotController() : new GreedyController());
+        logger.info("{}", result);
+    }
+}
@@ -0,0 +1,127 @@
+package project.snakegame;
+
+import javafx.scene.Node;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+/**
+ * Отрисовщик игрового поля.
+ * <p>
+ * Реализации строят собственный узел JavaFX и обновляют его по {@link GameState}.
+ * Неизменный шахматный фон рисуется один раз методом {@link #background(int, int, int)}, а реализации
+ * обновляют только слой змейки и яблока поверх него.
+ * Все методы вызываются только из потока JavaFX.
+ */
+public interface BoardRenderer {
+
+    /**
+     * Цвет клеток поля, у которых сумма координат четная.
+     */
+    Color EVEN_CELL = Color.web("86BB1FFF");
+
+    /**
+     * Цвет клеток поля, у которых сумма координат нечетная.
+     */
+    Color ODD_CELL = Color.web("F5D163FF");
+
+    /**
+     * Цвет стен уровня.
+     */
+    Color WALL = Color.web("5B4636FF");
+
+    /**
+     * Цвет тела змейки.
+     */
+    Color SNAKE = Color.PURPLE;
+
+    /**
+     * Цвет яблока.
+     */
+    Color APPLE = Color.RED;
+
+    /**
+     * Возвращает узел, который нужно добавить в сцену.
+     *
+     * @return {@link Node} с изображением поля.
+     */
+    Node getNode();
+
+    /**
+     * Обновляет изображение поля по текущему состоянию игры.
+     *
+     * @param state {@link GameState} для отрисовки.
+     */
+    void render(GameState state);
+
+    /**
+     * Возвращает цвет фона клетки поля.
+     *
+     * @param x Координата X клетки.
+     * @param y Координата Y клетки.
+     * @return {@link #EVEN_CELL} или {@link #ODD_CELL}.
+     */
+    static Color cellColor(int x, int y) {
+        return (x + y) % 2 == 0 ? EVEN_CELL : ODD_CELL;
+    }
+
+    /**
+     * Создает узел с шахматным фоном поля.
+     * <p>
+     * Фон растеризуется один раз в {@link WritableImage} в натуральную величину, без масштабирования
+     * при выводе (масштабирование изображения в программном конвейере дороже самого фона). Поэтому фон -
+     * это один узел и одна текстура при любом размере поля, а не {@code width * height} прямоугольников,
+     * участвующих в CSS, раскладке и выборе на каждом импульсе.
+     *
+     * @param width    Ширина поля в клетках.
+     * @param height   Высота поля в клетках.
+     * @param cellSize Размер стороны клетки в пикселях.
+     * @return {@link ImageView} размером {@code width * cellSize} на {@code height * cellSize}.
+     */
+    static ImageView background(int width, int height, int cellSize) {
+        return background(width, height, cellSize, null);
+    }
+
+    /**
+     * Создает узел с шахматным фоном поля и стенами уровня. Стены неподвижны, поэтому они растеризуются
+     * в фон вместе с клетками и не перерисовываются на кадрах.
+     *
+     * @param width    Ширина поля в клетках.
+     * @param height   Высота поля в клетках.
+     * @param cellSize Размер стороны клетки в пикселях.
+     * @param level    {@link Level} того же размера или {@code null}, если стен нет.
+     * @return {@link ImageView} размером {@code width * cellSize} на {@code height * cellSize}.
+     */
+    static ImageView background(int width, int height, int cellSize, Level level) {
+        int pixelWidth = width * cellSize;
+        WritableImage image = new WritableImage(pixelWidth, height * cellSize);
+        int even = argb(EVEN_CELL);
+        int odd = argb(ODD_CELL);
+        int wall = argb(WALL);
+        int[] row = new int[pixelWidth];
+        for (int y = 0; y < height; y++) {
+            for (int px = 0; px < pixelWidth; px++) {
+                int x = px / cellSize;
+                row[px] = level != null && level.isWall(y * width + x) ? wall : (x + y) % 2 == 0 ? even : odd;
+            }
+            for (int py = y * cellSize; py < (y + 1) * cellSize; py++) {
+                image.getPixelWriter().setPixels(0, py, pixelWidth, 1, PixelFormat.getIntArgbInstance(), row, 0, 0);
+            }
+        }
+        return new ImageView(image);
+    }
+
+    /**
+     * Упаковывает цвет в формат ARGB.
+     *
+     * @param color Цвет.
+     * @return Цвет в формате {@code 0xAARRGGBB}.
+     */
+    private static int argb(Color color) {
+        return (int) Math.round(color.getOpacity() * 255) << 24
+                | (int) Math.round(color.getRed() * 255) << 16
+                | (int) Math.round(color.getGreen() * 255) << 8
+                | (int) Math.round(color.getBlue() * 255);
+    }
+}
@@ -0,0 +1,246 @@
+package project.snakegame;
+
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+
+/**
+ * Отрисовщик на {@link Canvas}, перерисовывающий только изменившиеся клетки.
+ * <p>
+ * Холст прозрачен и лежит поверх заранее растеризованного фона {@link BoardRenderer#background(int, int, int)}:
+ * на холсте есть только змейка и яблоко, а освободившиеся клетки просто стираются. Поэтому ни частичный,
+ * ни полный кадр не закрашивают фон поля.
+ * <p>
+ * Отрисовщик хранит собственную копию нарисованного тела в кольцевом буфере. На каждом кадре он по номерам
+ * хвоста ({@link GameState#getTailSeq()}) определяет, какие клетки освободились и какие добавились,
+ * и закрашивает только их и клетки яблока. Поэтому стоимость кадра зависит от числа шагов между кадрами,
+ * а не от длины змейки, и не создает узлов графа сцены.
+ */
+public class CanvasRenderer implements BoardRenderer {
+
+    /**
+     * Размер стороны клетки в пикселях.
+     */
+    private final int cellSize;
+
+    /**
+     * Корневой узел: фон и холст.
+     */
+    private final Group root;
+
+    /**
+     * Холст, на котором рисуются змейка и яблоко.
+     */
+    private final Canvas canvas;
+
+    /**
+     * Контекст рисования холста.
+     */
+    private final GraphicsContext gc;
+
+    /**
+     * Кольцевой буфер нарисованных клеток тела.
+     */
+    private int[] drawn = new int[0];
+
+    /**
+     * Позиция нарисованного хвоста в {@link #drawn}.
+     */
+    private int drawnTailPos;
+
+    /**
+     * Номер нарисованного хвоста.
+     */
+    private long drawnTailSeq;
+
+    /**
+     * Номер нарисованной головы.
+     */
+    private long drawnHeadSeq = -1;
+
+    /**
+     * Клетка нарисованного яблока.
+     */
+    private int drawnApple = GameEngine.NO_CELL;
+
+    /**
+     * Ширина поля, под которую растеризован фон.
+     */
+    private int drawnWidth;
+
+    /**
+     * Высота поля, под которую растеризован фон.
+     */
+    private int drawnHeight;
+
+    /**
+     * Уровень, стены которого растеризованы в фоне, или {@code null}.
+     */
+    private Level drawnLevel;
+
+    /**
+     * Создает отрисовщик для поля заданного размера.
+     *
+     * @param width    Ширина поля в клетках.
+     * @param height   Высота поля в клетках.
+     * @param cellSize Размер стороны клетки в пикселях.
+     */
+    public CanvasRenderer(int width, int height, int cellSize) {
+        this(width, height, cellSize, null);
+    }
+
+    /**
+     * Создает отрисовщик для поля заданного размера со стенами уровня в фоне.
+     *
+     * @param width    Ширина поля в клетках.
+     * @param height   Высота поля в клетках.
+     * @param cellSize Размер стороны клетки в пикселях.
+     * @param level    {@link Level} или {@code null}, если стен нет.
+     */
+    public CanvasRenderer(int width, int height, int cellSize, Level level) {
+        this.cellSize = cellSize;
+        this.canvas = new Canvas(width * cellSize, height * cellSize);
+        this.gc = canvas.getGraphicsContext2D();
+        this.root = new Group(BoardRenderer.background(width, height, cellSize, level), canvas);
+        this.drawnWidth = width;
+        this.drawnHeight = height;
+        this.drawnLevel = level;
+    }
+
+    /**
+     * Возвращает узел, который нужно добавить в сцену.
+     *
+     * @return {@link Group} с фоном и холстом.
+     */
+    @Override
+    public Node getNode() {
+        return root;
+    }
+
+    /**
+     * Возвращает холст со змейкой и яблоком.
+     *
+     * @return {@link Canvas} динамического слоя.
+     */
+    Canvas getCanvas() {
+        return canvas;
+    }
+
+    /**
+     * Перерисовывает клетки, изменившиеся с прошлого кадра.
+     * <p>
+     * Если изменились размер поля или уровень либо с прошлого кадра змейка сместилась больше чем на свою длину,
+     * выполняется полная перерисовка.
+     *
+     * @param state {@link GameState} для отрисовки.
+     */
+    @Override
+    public void render(GameState state) {
+        long tailSeq = state.getTailSeq();
+        long headSeq = tailSeq + state.getLength() - 1;
+        if (state.getWidth() != drawnWidth || state.getHeight() != drawnHeight || state.getLevel() != drawnLevel
+                || tailSeq > drawnHeadSeq || tailSeq < drawnTailSeq || headSeq < drawnHeadSeq) {
+            renderFull(state);
+            return;
+        }
+        int width = state.getWidth();
+
+        if (drawnApple != GameEngine.NO_CELL && drawnApple != state.getApple()) {
+            clear(drawnApple, width);
+        }
+        while (drawnTailSeq < tailSeq) {
+            clear(drawn[drawnTailPos], width);
+            drawnTailPos = drawnTailPos + 1 == drawn.length ? 0 : drawnTailPos + 1;
+            drawnTailSeq++;
+        }
+        while (drawnHeadSeq < headSeq) {
+            drawnHeadSeq++;
+            int cell = state.getCell((int) (drawnHeadSeq - tailSeq));
+            drawn[(int) (drawnHeadSeq % drawn.length)] = cell;
+            paintSnake(cell, width);
+        }
+        if (drawnApple != GameEngine.NO_CELL && drawnApple != state.getApple() && state.occupied(drawnApple)) {
+            paintSnake(drawnApple, width);
+        }
+        drawnApple = state.getApple();
+        if (drawnApple != GameEngine.NO_CELL) {
+            paintApple(drawnApple, width);
+        }
+    }
+
+    /**
+     * Полностью перерисовывает змейку и яблоко и заново заполняет буфер нарисованных клеток.
+     * Если изменились размер поля или уровень, холст получает размер нового поля, а фон растеризуется заново.
+     *
+     * @param state {@link GameState} для отрисовки.
+     */
+    private void renderFull(GameState state) {
+        int width = state.getWidth();
+        int height = state.getHeight();
+        if (drawn.length != width * height) {
+            drawn = new int[width * height];
+        }
+        if (width != drawnWidth || height != drawnHeight || state.getLevel() != drawnLevel) {
+            canvas.setWidth(width * cellSize);
+            canvas.setHeight(height * cellSize);
+            root.getChildren().set(0, BoardRenderer.background(width, height, cellSize, state.getLevel()));
+        }
+        clearAll();
+        drawnTailSeq = state.getTailSeq();
+        drawnHeadSeq = drawnTailSeq + state.getLength() - 1;
+        drawnTailPos = (int) (drawnTailSeq % drawn.length);
+        for (int i = 0; i < state.getLength(); i++) {
+            int cell = state.getCell(i);
+            drawn[(int) ((drawnTailSeq + i) % drawn.length)] = cell;
+            paintSnake(cell, width);
+        }
+        drawnApple = state.getApple();
+        if (drawnApple != GameEngine.NO_CELL) {
+            paintApple(drawnApple, width);
+        }
+        drawnWidth = width;
+        drawnHeight = height;
+        drawnLevel = state.getLevel();
+    }
+
+    /**
+     * Стирает весь холст. Эта и следующие операции рисования - единственное, что отрисовщик делает с холстом,
+     * поэтому тесты подменяют их, чтобы проверить выбор перерисовываемых клеток без запуска JavaFX.
+     */
+    void clearAll() {
+        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+    }
+
+    /**
+     * Стирает клетку, открывая под ней фон поля.
+     *
+     * @param cell  Индекс клетки.
+     * @param width Ширина поля.
+     */
+    void clear(int cell, int width) {
+        gc.clearRect(cell % width * cellSize, cell / width * cellSize, cellSize, cellSize);
+    }
+
+    /**
+     * Закрашивает клетку цветом змейки.
+     *
+     * @param cell  Индекс клетки.
+     * @param width Ширина поля.
+     */
+    void paintSnake(int cell, int width) {
+        gc.setFill(SNAKE);
+        gc.fillRect(cell % width * cellSize, cell / width * cellSize, cellSize, cellSize);
+    }
+
+    /**
+     * Рисует яблоко в клетке.
+     *
+     * @param cell  Индекс клетки.
+     * @param width Ширина поля.
+     */
+    void paintApple(int cell, int width) {
+        gc.setFill(APPLE);
+        gc.fillOval(cell % width * cellSize, cell / width * cellSize, cellSize, cellSize);
+    }
+}
@@ -67,4 +67,16 @@ public class Cell {
         return x == cell.x
                 && y == cell.y;
     }
+
+    /**
+     * Возвращает хеш-код клетки, согласованный с {@link #equals(Object)}.
+     * <p>
+     * Позволяет хранить клетки в хешируемых коллекциях, например {@link java.util.HashSet}.
+     *
+     * @return Хеш-код, вычисленный по координатам X и Y.
+     */
+    @Override
+    public int hashCode() {
+        return 31 * x + y;
+    }
 }
@@ -0,0 +1,20 @@
+package project.snakegame;
+
+/**
+ * Управляющий змейкой без участия игрока: бот, автопилот или воспроизведение записи.
+ * <p>
+ * Перед каждым шагом игры контроллер получает текущее состояние и выбирает направление.
+ * Выбранное направление проходит через те же правила, что и {@link Snake#directionTo(Direction)}:
+ * разворот на 180 градусов игнорируется.
+ */
+@FunctionalInterface
+public interface Controller {
+
+    /**
+     * Выбирает направление для следующего шага.
+     *
+     * @param state {@link GameState} перед шагом.
+     * @return {@link Direction} или {@code null}, чтобы сохранить текущее направление.
+     */
+    Direction decide(GameState state);
+}
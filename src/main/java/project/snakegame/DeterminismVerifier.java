@@ -0,0 +1,435 @@
+package project.snakegame;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.LongFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Проверка детерминированности игры по потокам хешей Зобриста.
+ * <p>
+ * Одна и та же игра с одним зерном и одним контроллером проигрывается несколькими способами, и для каждого
+ * записывается хеш состояния после каждого шага ({@link GameState#getHash()}). Эталон - ядро в вызывающем
+ * потоке. С ним сравниваются:
+ * <ul>
+ *     <li>{@code recomputed} - хеш, вычисленный заново по всему состоянию, а не инкрементально;</li>
+ *     <li>{@code thread} - игра через адаптер {@link Snake} в отдельном потоке с записью повтора;</li>
+ *     <li>{@code pool} - игра в общем {@link ForkJoinPool};</li>
+ *     <li>{@code snapshot} - состояние, которое видят отрисовщики: снимки {@link SnapshotExchange},
+ *     хеш которых вычисляется заново по скопированному телу;</li>
+ *     <li>{@code replay} - воспроизведение записанного повтора с начала;</li>
+ *     <li>{@code keyframe} - воспроизведение повтора с середины через ключевой кадр.</li>
+ * </ul>
+ * Для каждого расхождения сообщается первый шаг, на котором хеши различаются. Отдельно
+ * {@link #verifyBatch(int, long, int)} сравнивает конечные хеши игр пакетного прогона на разном числе потоков.
+ */
+public final class DeterminismVerifier {
+
+    /**
+     * Переменная для логирования
+     */
+    private static final Logger logger = LogManager.getLogger(DeterminismVerifier.class);
+
+    /**
+     * Интервал ключевых кадров записываемого повтора: короткий, чтобы переход к середине даже короткой игры
+     * восстанавливал состояние из ключевого кадра.
+     */
+    private static final long KEYFRAME_INTERVAL = 32;
+
+    /**
+     * Первое расхождение способа прогона с эталоном.
+     */
+    public static final class Divergence {
+
+        /**
+         * Название способа прогона.
+         */
+        private final String runner;
+
+        /**
+         * Первый шаг, на котором хеши различаются.
+         */
+        private final long tick;
+
+        /**
+         * Хеш эталона на этом шаге или {@code 0}, если эталон к этому шагу закончился.
+         */
+        private final long expected;
+
+        /**
+         * Хеш способа прогона на этом шаге или {@code 0}, если прогон к этому шагу закончился.
+         */
+        private final long actual;
+
+        /**
+         * Создает описание расхождения.
+         *
+         * @param runner   Название способа прогона.
+         * @param tick     Первый шаг расхождения.
+         * @param expected Хеш эталона.
+         * @param actual   Хеш способа прогона.
+         */
+        Divergence(String runner, long tick, long expected, long actual) {
+            this.runner = runner;
+            this.tick = tick;
+            this.expected = expected;
+            this.actual = actual;
+        }
+
+        /**
+         * Возвращает название способа прогона.
+         *
+         * @return Название.
+         */
+        public String getRunner() {
+            return runner;
+        }
+
+        /**
+         * Возвращает первый шаг расхождения.
+         *
+         * @return Номер шага.
+         */
+        public long getTick() {
+            return tick;
+        }
+
+        /**
+         * Возвращает хеш эталона на шаге расхождения.
+         *
+         * @return Хеш.
+         */
+        public long getExpected() {
+            return expected;
+        }
+
+        /**
+         * Возвращает хеш способа прогона на шаге расхождения.
+         *
+         * @return Хеш.
+         */
+        public long getActual() {
+            return actual;
+        }
+
+        /**
+         * Возвращает строковое представление расхождения.
+         *
+         * @return Строка с названием прогона, шагом и хешами.
+         */
+        @Override
+        public String toString() {
+            return String.format("%s diverges at tick %d: expected %016x, got %016x", runner, tick, expected, actual);
+        }
+    }
+
+    /**
+     * Ширина поля.
+     */
+    private final int width;
+
+    /**
+     * Высота поля.
+     */
+    private final int height;
+
+    /**
+     * Наибольшее количество шагов одной игры.
+     */
+    private final long maxTicks;
+
+    /**
+     * Фабрика контроллеров; получает зерно игры. Контроллеры должны быть детерминированными.
+     */
+    private final LongFunction<? extends Controller> controllers;
+
+    /**
+     * Создает проверку для игр на поле заданного размера.
+     *
+     * @param width       Ширина поля.
+     * @param height      Высота поля.
+     * @param maxTicks    Наибольшее количество шагов одной игры.
+     * @param controllers Фабрика детерминированных контроллеров.
+     */
+    public DeterminismVerifier(int width, int height, long maxTicks, LongFunction<? extends Controller> controllers) {
+        this.width = width;
+        this.height = height;
+        this.maxTicks = maxTicks;
+        this.controllers = controllers;
+    }
+
+    /**
+     * Проигрывает игру всеми способами и сравнивает потоки хешей с эталоном.
+     *
+     * @param seed Зерно игры.
+     * @return Расхождения; пустой список, если все способы дали одинаковые хеши на каждом шаге.
+     * @throws IOException          если повтор не удалось записать или прочитать.
+     * @throws InterruptedException если ожидание прогона в другом потоке было прервано.
+     */
+    public List<Divergence> verify(long seed) throws IOException, InterruptedException {
+        List<Divergence> divergences = new ArrayList<>();
+        long[] reference = play(newEngine(seed), controllers.apply(seed), GameEngine::getHash);
+        compare("recomputed", reference, play(newEngine(seed), controllers.apply(seed), Zobrist::of), 0,
+                divergences);
+        compare("pool", reference, await(ForkJoinPool.commonPool().submit(
+                () -> play(newEngine(seed), controllers.apply(seed), GameEngine::getHash))), 0, divergences);
+        compare("snapshot", reference, playSnapshots(seed), 0, divergences);
+
+        Path file = Files.createTempFile("determinism", ".snkr");
+        try {
+            FutureTask<long[]> recorded = new FutureTask<>(() -> playRecorded(seed, file));
+            Thread thread = new Thread(recorded, "determinism-check");
+            thread.start();
+            compare("thread", reference, await(recorded), 0, divergences);
+
+            Replay replay = Replay.read(file);
+            Snake start = replay.newSnake();
+            compare("replay", reference, play(start.getEngine(), replay.newController(), GameEngine::getHash), 0,
+                    divergences);
+            GameEngine resumed = replay.seek(replay.getEndTick() / 2).getEngine();
+            long from = resumed.getTicks();
+            compare("keyframe", reference, play(resumed, replay.newController(from), GameEngine::getHash), from,
+                    divergences);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        return divergences;
+    }
+
+    /**
+     * Сравнивает конечные хеши игр пакетного прогона в пуле из одного потока и в пуле из нескольких потоков.
+     *
+     * @param games   Количество игр.
+     * @param seed    Общее зерно прогона.
+     * @param threads Количество потоков второго пула.
+     * @return Номер первой игры с разными хешами или {@code -1}, если все совпали.
+     */
+    public int verifyBatch(int games, long seed, int threads) {
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool parallel = new ForkJoinPool(threads);
+        try {
+            BatchResult expected = new BatchSimulator(width, height, maxTicks, single).run(games, seed, controllers);
+            BatchResult actual = new BatchSimulator(width, height, maxTicks, parallel).run(games, seed, controllers);
+            for (int game = 0; game < games; game++) {
+                if (expected.getHash(game) != actual.getHash(game)) {
+                    return game;
+                }
+            }
+            return -1;
+        } finally {
+            single.shutdown();
+            parallel.shutdown();
+        }
+    }
+
+    /**
+     * Создает ядро новой игры с первым яблоком, как {@link BatchSimulator}.
+     *
+     * @param seed Зерно игры.
+     * @return {@link GameEngine}.
+     */
+    private GameEngine newEngine(long seed) {
+        GameEngine engine = new GameEngine(width, height, new int[]{0, 1, 2}, seed);
+        engine.placeApple();
+        return engine;
+    }
+
+    /**
+     * Проверяет, продолжается ли игра.
+     *
+     * @param engine {@link GameEngine}.
+     * @return {@code true}, если змейка жива, есть яблоко и не исчерпан лимит шагов.
+     */
+    private boolean running(GameEngine engine) {
+        return engine.isAlive() && engine.getTicks() < maxTicks && engine.getApple() != GameEngine.NO_CELL;
+    }
+
+    /**
+     * Проигрывает игру на ядре и записывает хеш после каждого шага.
+     *
+     * @param engine     {@link GameEngine} в начальном состоянии прогона.
+     * @param controller Контроллер игры.
+     * @param hasher     Способ получения хеша состояния.
+     * @return Хеши начиная с шага {@code engine.getTicks()}, включая начальное состояние.
+     */
+    private long[] play(GameEngine engine, Controller controller, ToLongFunction<GameEngine> hasher) {
+        Trace trace = new Trace();
+        trace.add(hasher.applyAsLong(engine));
+        while (running(engine)) {
+            engine.tick(controller.decide(engine));
+            trace.add(hasher.applyAsLong(engine));
+        }
+        return trace.toArray();
+    }
+
+    /**
+     * Проигрывает игру, публикуя каждый шаг через {@link SnapshotExchange}, и вычисляет хеш снимков заново.
+     *
+     * @param seed Зерно игры.
+     * @return Хеши снимков после каждого шага, включая начальное состояние.
+     */
+    private long[] playSnapshots(long seed) {
+        GameEngine engine = newEngine(seed);
+        Controller controller = controllers.apply(seed);
+        SnapshotExchange exchange = new SnapshotExchange(engine);
+        Trace trace = new Trace();
+        trace.add(Zobrist.of(exchange.latest()));
+        while (running(engine)) {
+            engine.tick(controller.decide(engine));
+            exchange.publish(engine);
+            trace.add(Zobrist.of(exchange.latest()));
+        }
+        return trace.toArray();
+    }
+
+    /**
+     * Проигрывает игру через адаптер {@link Snake}, записывая повтор в файл.
+     *
+     * @param seed Зерно игры.
+     * @param file Файл повтора.
+     * @return Хеши после каждого шага, включая начальное состояние.
+     * @throws IOException если повтор не удалось записать.
+     */
+    private long[] playRecorded(long seed, Path file) throws IOException {
+        GameEngine engine = newEngine(seed);
+        Controller controller = controllers.apply(seed);
+        Snake snake = new Snake(engine);
+        snake.setRecorder(new ReplayRecorder(file, engine, Difficulty.NORMAL, KEYFRAME_INTERVAL));
+        Trace trace = new Trace();
+        trace.add(engine.getHash());
+        while (running(engine)) {
+            Direction direction = controller.decide(engine);
+            if (direction != null) {
+                snake.directionTo(direction);
+            }
+            snake.step();
+            trace.add(engine.getHash());
+        }
+        snake.finishRecording();
+        return trace.toArray();
+    }
+
+    /**
+     * Дожидается результата прогона в другом потоке.
+     *
+     * @param task Задача прогона.
+     * @return Хеши прогона.
+     * @throws IOException          если прогон завершился ошибкой ввода-вывода.
+     * @throws InterruptedException если ожидание было прервано.
+     */
+    private static long[] await(Future<long[]> task) throws IOException, InterruptedException {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IllegalStateException("the check run failed", e.getCause());
+        }
+    }
+
+    /**
+     * Сравнивает поток хешей прогона с эталоном и добавляет первое расхождение в список.
+     *
+     * @param runner      Название способа прогона.
+     * @param reference   Хеши эталона с шага {@code 0}.
+     * @param actual      Хеши прогона с шага {@code from}.
+     * @param from        Шаг, с которого начинается прогон.
+     * @param divergences Список расхождений.
+     */
+    static void compare(String runner, long[] reference, long[] actual, long from, List<Divergence> divergences) {
+        long end = Math.max(reference.length, from + actual.length);
+        for (long tick = from; tick < end; tick++) {
+            long expected = tick < reference.length ? reference[(int) tick] : 0;
+            long got = tick - from < actual.length ? actual[(int) (tick - from)] : 0;
+            if (tick >= reference.length || tick - from >= actual.length || expected != got) {
+                divergences.add(new Divergence(runner, tick, expected, got));
+                return;
+            }
+        }
+    }
+
+    /**
+     * Растущий массив хешей.
+     */
+    private static final class Trace {
+
+        /**
+         * Хеши.
+         */
+        private long[] hashes = new long[1024];
+
+        /**
+         * Количество хешей.
+         */
+        private int size;
+
+        /**
+         * Добавляет хеш.
+         *
+         * @param hash Хеш очередного шага.
+         */
+        void add(long hash) {
+            if (size == hashes.length) {
+                hashes = Arrays.copyOf(hashes, size * 2);
+            }
+            hashes[size++] = hash;
+        }
+
+        /**
+         * Возвращает добавленные хеши.
+         *
+         * @return Массив длиной в количество хешей.
+         */
+        long[] toArray() {
+            return Arrays.copyOf(hashes, size);
+        }
+    }
+
+    /**
+     * Проверяет детерминированность нескольких игр и пакетного прогона из командной строки.
+     * Завершается с кодом {@code 1}, если найдено расхождение.
+     *
+     * @param args количество игр, размер поля, зерно и контроллер ({@code greedy} или {@code autopilot});
+     *             все аргументы необязательны
+     * @throws IOException          если повтор не удалось записать или прочитать
+     * @throws InterruptedException если ожидание прогона было прервано
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 25;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        boolean autopilot = args.length > 3 && "autopilot".equals(args[3]);
+        DeterminismVerifier verifier = new DeterminismVerifier(size, size, 100_000,
+                s -> autopilot ? new AutopilotController() : new GreedyController());
+        boolean diverged = false;
+        for (int game = 0; game < games; game++) {
+            long gameSeed = BatchSimulator.gameSeed(seed, game);
+            for (Divergence divergence : verifier.verify(gameSeed)) {
+                logger.error("game {} (seed {}): {}", game, Long.toHexString(gameSeed), divergence);
+                diverged = true;
+            }
+        }
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        int batchGame = verifier.verifyBatch(Math.max(games, 100), seed, threads);
+        if (batchGame >= 0) {
+            logger.error("batch game {} ends in different states on 1 and {} threads", batchGame, threads);
+            diverged = true;
+        }
+        logger.info("{} games checked: {}", games, diverged ? "NOT deterministic" : "deterministic");
+        if (diverged) {
+            System.exit(1);
+        }
+    }
+}
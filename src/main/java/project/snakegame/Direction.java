@@ -2,27 +2,82 @@ package project.snakegame;
 
 /**
  * Перечисление {@code Direction} представляет возможные направления движения змейки в игре.
+ * <p>
+ * Каждое направление хранит смещение по осям X и Y, на которое сдвигается голова змейки за один шаг.
  */
-enum Direction {
+public enum Direction {
 
     /**
      * Движение влево.
      */
-    LEFT,
+    LEFT(-1, 0),
 
     /**
      * Движение вправо.
      */
-    RIGHT,
+    RIGHT(1, 0),
 
     /**
      * Движение вверх.
      */
-    UP,
+    UP(0, -1),
 
     /**
      * Движение вниз.
      */
-    DOWN
+    DOWN(0, 1);
+
+    /**
+     * Смещение головы по оси X за один шаг.
+     */
+    private final int dx;
+
+    /**
+     * Смещение головы по оси Y за один шаг.
+     */
+    private final int dy;
+
+    /**
+     * Создает направление с заданным смещением.
+     *
+     * @param dx Смещение по оси X.
+     * @param dy Смещение по оси Y.
+     */
+    Direction(int dx, int dy) {
+        this.dx = dx;
+        this.dy = dy;
+    }
+
+    /**
+     * Возвращает смещение головы по оси X.
+     *
+     * @return -1, 0 или 1.
+     */
+    public int getDx() {
+        return dx;
+    }
+
+    /**
+     * Возвращает смещение головы по оси Y.
+     *
+     * @return -1, 0 или 1.
+     */
+    public int getDy() {
+        return dy;
+    }
+
+    /**
+     * Возвращает противоположное направление.
+     *
+     * @return {@link Direction}, разворот в которое запрещен из текущего.
+     */
+    public Direction opposite() {
+        return switch (this) {
+            case LEFT -> RIGHT;
+            case RIGHT -> LEFT;
+            case UP -> DOWN;
+            case DOWN -> UP;
+        };
+    }
 }
 
@@ -0,0 +1,376 @@
+package project.snakegame;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+
+/**
+ * Клиент {@link GameServer}: восстанавливает состояние игры по кадрам {@link GameProtocol} и отправляет команды.
+ * <p>
+ * Клиент сам является {@link GameState}, поэтому им можно управлять любым {@link Controller}
+ * или отрисовывать его любым {@link BoardRenderer}. Чтение блокирующее; клиент не потокобезопасен.
+ */
+public final class GameClient implements GameState, Closeable {
+
+    /**
+     * Направления по порядковым номерам.
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * Канал соединения с сервером.
+     */
+    private final SocketChannel channel;
+
+    /**
+     * Входящие данные в режиме чтения.
+     */
+    private ByteBuffer in = ByteBuffer.allocate(4096);
+
+    /**
+     * Буфер для отправки команды.
+     */
+    private final ByteBuffer input = ByteBuffer.allocate(3);
+
+    /**
+     * Ширина поля.
+     */
+    private int width;
+
+    /**
+     * Высота поля.
+     */
+    private int height;
+
+    /**
+     * Кольцевой буфер тела, как в {@link GameEngine}.
+     */
+    private int[] ring = new int[0];
+
+    /**
+     * Битовая карта занятости поля.
+     */
+    private long[] occupancy = new long[0];
+
+    /**
+     * Позиция хвоста в кольцевом буфере.
+     */
+    private int tailPos;
+
+    /**
+     * Длина змейки.
+     */
+    private int length;
+
+    /**
+     * Номер хвоста среди всех клеток, добавленных в голову.
+     */
+    private long tailSeq;
+
+    /**
+     * Клетка яблока или {@link GameEngine#NO_CELL}.
+     */
+    private int apple = GameEngine.NO_CELL;
+
+    /**
+     * Направление движения.
+     */
+    private Direction direction = Direction.RIGHT;
+
+    /**
+     * Жива ли змейка.
+     */
+    private boolean alive;
+
+    /**
+     * Номер шага.
+     */
+    private long ticks;
+
+    /**
+     * Счет.
+     */
+    private int score;
+
+    /**
+     * Количество полученных кадров полного состояния.
+     */
+    private long states;
+
+    /**
+     * Создает клиента над открытым каналом.
+     *
+     * @param channel Канал в блокирующем режиме.
+     */
+    private GameClient(SocketChannel channel) {
+        this.channel = channel;
+        in.flip();
+    }
+
+    /**
+     * Подключается к серверу и ждет первое полное состояние.
+     *
+     * @param address Адрес сервера.
+     * @return Подключенный {@link GameClient}.
+     * @throws IOException если не удалось подключиться или сервер закрыл соединение.
+     */
+    public static GameClient connect(InetSocketAddress address) throws IOException {
+        SocketChannel channel = SocketChannel.open(address);
+        channel.socket().setTcpNoDelay(true);
+        GameClient client = new GameClient(channel);
+        if (!client.receive()) {
+            client.close();
+            throw new EOFException("the server closed the connection before sending the state");
+        }
+        return client;
+    }
+
+    /**
+     * Отправляет направление серверу.
+     *
+     * @param direction Направление.
+     * @throws IOException если соединение разорвано.
+     */
+    public void send(Direction direction) throws IOException {
+        input.clear();
+        GameProtocol.writeInput(direction, input);
+        input.flip();
+        while (input.hasRemaining()) {
+            channel.write(input);
+        }
+    }
+
+    /**
+     * Ждет и применяет один кадр.
+     *
+     * @return {@code false}, если сервер закрыл соединение.
+     * @throws IOException если соединение разорвано или кадр некорректен.
+     */
+    public boolean receive() throws IOException {
+        int frame;
+        while ((frame = GameProtocol.nextFrame(in)) < 0) {
+            in.compact();
+            if (!in.hasRemaining()) {
+                in = ByteBuffer.allocate(in.capacity() * 2).put(in.flip());
+            }
+            int read = channel.read(in);
+            in.flip();
+            if (read < 0) {
+                return false;
+            }
+        }
+        int end = in.position() + frame;
+        byte type = in.get();
+        if (type == GameProtocol.STATE) {
+            readState();
+        } else if (type == GameProtocol.DELTA) {
+            readDelta();
+        } else {
+            throw new IOException("unknown frame type: " + type);
+        }
+        if (in.position() != end) {
+            throw new IOException("malformed frame of type " + type);
+        }
+        return true;
+    }
+
+    /**
+     * Применяет кадр полного состояния.
+     */
+    private void readState() {
+        width = (int) Replay.readVarint(in);
+        height = (int) Replay.readVarint(in);
+        ticks = Replay.readVarint(in);
+        score = (int) Replay.readVarint(in);
+        tailSeq = Replay.readVarint(in);
+        direction = DIRECTIONS[in.get()];
+        alive = in.get() != 0;
+        apple = (int) Replay.readVarint(in) - 1;
+        length = (int) Replay.readVarint(in);
+        if (ring.length != width * height) {
+            ring = new int[width * height];
+            occupancy = new long[(ring.length + 63) >>> 6];
+        } else {
+            Arrays.fill(occupancy, 0);
+        }
+        for (int i = 0; i < length; i++) {
+            int cell = (int) Replay.readVarint(in);
+            ring[i] = cell;
+            occupancy[cell >>> 6] |= 1L << cell;
+        }
+        tailPos = 0;
+        states++;
+    }
+
+    /**
+     * Применяет кадр изменений за один шаг.
+     */
+    private void readDelta() {
+        int flags = in.get() & 0xFF;
+        direction = DIRECTIONS[flags >>> GameProtocol.DIRECTION_SHIFT & 3];
+        ticks++;
+        if ((flags & GameProtocol.TAIL_REMOVED) != 0) {
+            int tail = ring[tailPos];
+            occupancy[tail >>> 6] &= ~(1L << tail);
+            tailPos = tailPos + 1 == ring.length ? 0 : tailPos + 1;
+            tailSeq++;
+            length--;
+        }
+        if ((flags & GameProtocol.HEAD_ADDED) != 0) {
+            int head = (int) Replay.readVarint(in);
+            int pos = tailPos + length;
+            ring[pos >= ring.length ? pos - ring.length : pos] = head;
+            occupancy[head >>> 6] |= 1L << head;
+            length++;
+            if ((flags & GameProtocol.TAIL_REMOVED) == 0) {
+                score++;
+            }
+        }
+        if ((flags & GameProtocol.APPLE_MOVED) != 0) {
+            apple = (int) Replay.readVarint(in) - 1;
+        }
+        if ((flags & GameProtocol.DEAD) != 0) {
+            alive = false;
+        }
+    }
+
+    /**
+     * Возвращает количество полученных кадров полного состояния, включая первый.
+     *
+     * @return Число кадров STATE.
+     */
+    public long getStateCount() {
+        return states;
+    }
+
+    /**
+     * Закрывает соединение.
+     *
+     * @throws IOException если не удалось закрыть канал.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Возвращает ширину поля.
+     *
+     * @return Ширина в клетках.
+     */
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Возвращает высоту поля.
+     *
+     * @return Высота в клетках.
+     */
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Возвращает текущую длину змейки.
+     *
+     * @return Количество клеток тела.
+     */
+    @Override
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Возвращает клетку тела по порядковому номеру.
+     *
+     * @param i Номер клетки от хвоста ({@code 0}) до головы ({@code getLength() - 1}).
+     * @return Индекс клетки.
+     * @throws IndexOutOfBoundsException если номер выходит за пределы тела.
+     */
+    @Override
+    public int getCell(int i) {
+        if (i < 0 || i >= length) {
+            throw new IndexOutOfBoundsException("cell " + i + " of " + length);
+        }
+        int pos = tailPos + i;
+        return ring[pos >= ring.length ? pos - ring.length : pos];
+    }
+
+    /**
+     * Возвращает порядковый номер текущего хвоста среди всех клеток, когда-либо добавленных в голову.
+     *
+     * @return Номер хвоста; номер головы равен {@code getTailSeq() + getLength() - 1}.
+     */
+    @Override
+    public long getTailSeq() {
+        return tailSeq;
+    }
+
+    /**
+     * Возвращает текущее направление движения.
+     *
+     * @return {@link Direction}.
+     */
+    @Override
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * Проверяет, занята ли клетка телом змейки.
+     *
+     * @param cell Индекс клетки.
+     * @return {@code true}, если клетка принадлежит телу.
+     */
+    @Override
+    public boolean occupied(int cell) {
+        return (occupancy[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     * Возвращает положение яблока.
+     *
+     * @return Индекс клетки с яблоком или {@link GameEngine#NO_CELL}.
+     */
+    @Override
+    public int getApple() {
+        return apple;
+    }
+
+    /**
+     * Возвращает текущий статус змейки (жива или нет).
+     *
+     * @return {@code true}, если змейка жива.
+     */
+    @Override
+    public boolean isAlive() {
+        return alive;
+    }
+
+    /**
+     * Возвращает количество выполненных шагов.
+     *
+     * @return Число шагов.
+     */
+    @Override
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Возвращает количество съеденных яблок.
+     *
+     * @return Счет игры.
+     */
+    @Override
+    public int getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,669 @@
+package project.snakegame;
+
+import java.util.Arrays;
+
+/**
+ * Безголовое (без JavaFX) игровое ядро "Змейки".
+ * <p>
+ * Хранит тело змейки в кольцевом буфере примитивных индексов клеток, где клетка с координатами
+ * {@code (x, y)} кодируется числом {@code y * width + x}. Первая клетка буфера - хвост, последняя - голова.
+ * Один шаг {@link #tick()} не создает объектов, поэтому ядро можно гонять миллионы раз в секунду
+ * для ботов, повторов и нагрузочных тестов. Классы {@link Snake} и {@link Main} являются
+ * лишь адаптерами над этим ядром.
+ * <p>
+ * Ядро также хранит множество свободных клеток, из которого яблоко выбирается за постоянное время
+ * генератором {@link SplitMix64}, принадлежащим ядру, поэтому при одинаковом зерне игра воспроизводима.
+ * Воспроизводимость проверяется хешем Зобриста состояния ({@link #getHash()}), который ядро обновляет
+ * за постоянное время на каждом шаге.
+ * <p>
+ * Класс не потокобезопасен: все вызовы должны выполняться из одного потока.
+ */
+public final class GameEngine implements GameState {
+
+    /**
+     * Значение индекса, означающее отсутствие клетки (например, когда яблоко не размещено).
+     */
+    public static final int NO_CELL = -1;
+
+    /**
+     * Ширина игрового поля в клетках.
+     */
+    private final int width;
+
+    /**
+     * Высота игрового поля в клетках.
+     */
+    private final int height;
+
+    /**
+     * Кольцевой буфер тела змейки. Вместимость равна площади поля, поэтому буфер никогда не переполняется.
+     */
+    private final int[] ring;
+
+    /**
+     * Битовая карта занятости поля: бит с номером индекса клетки установлен, если клетка принадлежит телу
+     * или в ней стена уровня. Стены копируются один раз при создании, а тело поддерживается инкрементально
+     * при перемещении головы и хвоста, поэтому столкновение со стеной и с телом - одна проверка бита.
+     */
+    private final long[] occupancy;
+
+    /**
+     * Уровень со стенами или {@code null}, если стен нет.
+     */
+    private final Level level;
+
+    /**
+     * Плотный массив свободных клеток. Первые {@link #freeCount} элементов - индексы клеток, не занятых
+     * ни телом, ни стенами.
+     */
+    private final int[] freeCells;
+
+    /**
+     * Позиция каждой клетки в {@link #freeCells} или {@link #NO_CELL}, если клетка занята телом.
+     * Вместе с {@link #freeCells} позволяет добавлять и удалять свободные клетки обменом за постоянное время.
+     */
+    private final int[] freeSlot;
+
+    /**
+     * Количество свободных клеток.
+     */
+    private int freeCount;
+
+    /**
+     * Зерно, с которым была создана игра.
+     */
+    private long seed;
+
+    /**
+     * Генератор случайных чисел, используемый для размещения яблок.
+     */
+    private final SplitMix64 random;
+
+    /**
+     * Позиция хвоста в кольцевом буфере.
+     */
+    private int tailPos;
+
+    /**
+     * Позиция головы в кольцевом буфере.
+     */
+    private int headPos;
+
+    /**
+     * Текущая длина змейки.
+     */
+    private int length;
+
+    /**
+     * Общее количество клеток, когда-либо добавленных в голову, включая начальное тело.
+     */
+    private long pushed;
+
+    /**
+     * Индекс клетки с яблоком или {@link #NO_CELL}.
+     */
+    private int apple = NO_CELL;
+
+    /**
+     * Текущее направление движения змейки.
+     */
+    private Direction direction = Direction.RIGHT;
+
+    /**
+     * Флаг, указывающий, жива ли змейка.
+     */
+    private boolean alive = true;
+
+    /**
+     * Количество выполненных шагов.
+     */
+    private long ticks;
+
+    /**
+     * Количество съеденных яблок.
+     */
+    private int score;
+
+    /**
+     * Хеш Зобриста состояния ({@link Zobrist}), обновляемый при каждом изменении состояния.
+     */
+    private long hash;
+
+    /**
+     * Создает игровое ядро с полем заданного размера, начальным телом змейки и случайным зерном.
+     *
+     * @param width  Ширина поля в клетках.
+     * @param height Высота поля в клетках.
+     * @param cells  Индексы начальных клеток тела, от хвоста к голове.
+     * @throws IllegalArgumentException если размеры поля не положительны, тело пустое
+     *                                  или клетка выходит за пределы поля.
+     */
+    public GameEngine(int width, int height, int[] cells) {
+        this(width, height, cells, System.nanoTime());
+    }
+
+    /**
+     * Создает игровое ядро с полем заданного размера, начальным телом змейки и зерном генератора яблок.
+     *
+     * @param width  Ширина поля в клетках.
+     * @param height Высота поля в клетках.
+     * @param cells  Индексы начальных клеток тела, от хвоста к голове.
+     * @param seed   Зерно генератора случайных чисел.
+     * @throws IllegalArgumentException если размеры поля не положительны, тело пустое
+     *                                  или клетка выходит за пределы поля.
+     */
+    public GameEngine(int width, int height, int[] cells, long seed) {
+        this(width, height, null, cells, seed);
+    }
+
+    /**
+     * Создает игровое ядро на уровне со стенами. Стены не попадают в множество свободных клеток,
+     * поэтому яблоко никогда не размещается в стене.
+     *
+     * @param level {@link Level}.
+     * @param cells Индексы начальных клеток тела, от хвоста к голове.
+     * @param seed  Зерно генератора случайных чисел.
+     * @throws IllegalArgumentException если тело пустое, клетка выходит за пределы поля или попадает в стену.
+     */
+    public GameEngine(Level level, int[] cells, long seed) {
+        this(level.getWidth(), level.getHeight(), level, cells, seed);
+    }
+
+    /**
+     * Создает игровое ядро.
+     *
+     * @param width  Ширина поля в клетках.
+     * @param height Высота поля в клетках.
+     * @param level  {@link Level} того же размера или {@code null}.
+     * @param cells  Индексы начальных клеток тела, от хвоста к голове.
+     * @param seed   Зерно генератора случайных чисел.
+     */
+    private GameEngine(int width, int height, Level level, int[] cells, long seed) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("board size must be positive: " + width + "x" + height);
+        }
+        if ((long) width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("board is too large: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.ring = new int[width * height];
+        this.occupancy = new long[(ring.length + 63) >>> 6];
+        this.freeCells = new int[ring.length];
+        this.freeSlot = new int[ring.length];
+        this.random = new SplitMix64(seed);
+        this.level = level;
+        reset(cells, seed);
+    }
+
+    /**
+     * Начинает новую игру на том же поле: змейка из заданных клеток, без яблока, с направлением
+     * {@link Direction#RIGHT} и генератором яблок с новым зерном. Массивы ядра переиспользуются,
+     * поэтому многократно перезапускаемые игры (например, эпизоды {@link VectorEnv}) не создают объектов.
+     *
+     * @param cells Индексы начальных клеток тела, от хвоста к голове.
+     * @param seed  Зерно генератора случайных чисел.
+     * @throws IllegalArgumentException если тело пустое, клетка выходит за пределы поля или попадает в стену;
+     *                                  состояние ядра после исключения не определено.
+     */
+    public void reset(int[] cells, long seed) {
+        if (cells.length == 0 || cells.length > ring.length) {
+            throw new IllegalArgumentException("invalid snake length: " + cells.length);
+        }
+        Arrays.fill(occupancy, 0);
+        if (level != null) {
+            level.copyWalls(occupancy);
+        }
+        for (int cell : cells) {
+            if (cell < 0 || cell >= ring.length) {
+                throw new IllegalArgumentException("cell is out of the board: " + cell);
+            }
+            if (level != null && level.isWall(cell)) {
+                throw new IllegalArgumentException("cell is a wall: " + cell);
+            }
+            if (occupied(cell)) {
+                throw new IllegalArgumentException("cell is used twice: " + cell);
+            }
+            occupancy[cell >>> 6] |= 1L << cell;
+        }
+        System.arraycopy(cells, 0, ring, 0, cells.length);
+        freeCount = 0;
+        for (int cell = 0; cell < ring.length; cell++) {
+            if (occupied(cell)) {
+                freeSlot[cell] = NO_CELL;
+            } else {
+                freeSlot[cell] = freeCount;
+                freeCells[freeCount++] = cell;
+            }
+        }
+        this.tailPos = 0;
+        this.headPos = cells.length - 1;
+        this.length = cells.length;
+        this.pushed = cells.length;
+        this.apple = NO_CELL;
+        this.direction = Direction.RIGHT;
+        this.alive = true;
+        this.ticks = 0;
+        this.score = 0;
+        this.seed = seed;
+        random.setState(seed);
+        this.hash = Zobrist.of(this);
+    }
+
+    /**
+     * Восстанавливает состояние игры из ключевого кадра повтора.
+     * <p>
+     * Порядок свободных клеток восстанавливается в точности, так как от него зависит выбор следующего
+     * яблока: после восстановления игра продолжается так же, как продолжилась бы исходная.
+     *
+     * @param body         Индексы клеток тела, от хвоста к голове.
+     * @param free         Свободные клетки в порядке множества свободных клеток.
+     * @param direction    Направление движения.
+     * @param apple        Индекс клетки с яблоком или {@link #NO_CELL}.
+     * @param score        Счет.
+     * @param ticks        Количество выполненных шагов.
+     * @param randomState  Состояние генератора яблок.
+     * @throws IllegalArgumentException если тело, свободные клетки и стены не покрывают поле ровно один раз.
+     */
+    void restore(int[] body, int[] free, Direction direction, int apple, int score, long ticks, long randomState) {
+        int walls = level == null ? 0 : level.getWallCount();
+        if (body.length == 0 || body.length + free.length + walls != ring.length) {
+            throw new IllegalArgumentException("invalid keyframe: " + body.length + " + " + free.length
+                    + " cells on a board of " + ring.length);
+        }
+        Arrays.fill(occupancy, 0);
+        if (level != null) {
+            level.copyWalls(occupancy);
+        }
+        Arrays.fill(freeSlot, NO_CELL);
+        for (int cell : body) {
+            if (occupied(cell)) {
+                throw new IllegalArgumentException("cell is used twice: " + cell);
+            }
+            occupancy[cell >>> 6] |= 1L << cell;
+        }
+        System.arraycopy(body, 0, ring, 0, body.length);
+        freeCount = 0;
+        for (int cell : free) {
+            if (occupied(cell) || freeSlot[cell] != NO_CELL) {
+                throw new IllegalArgumentException("cell is used twice: " + cell);
+            }
+            addFree(cell);
+        }
+        this.tailPos = 0;
+        this.headPos = body.length - 1;
+        this.length = body.length;
+        this.pushed = body.length;
+        this.direction = direction;
+        this.apple = apple;
+        this.score = score;
+        this.ticks = ticks;
+        this.alive = true;
+        this.hash = Zobrist.of(this);
+        random.setState(randomState);
+    }
+
+    /**
+     * Кодирует координаты клетки в индекс.
+     *
+     * @param x Координата X.
+     * @param y Координата Y.
+     * @return Индекс клетки {@code y * width + x}.
+     */
+    public int index(int x, int y) {
+        return y * width + x;
+    }
+
+    /**
+     * Возвращает координату X клетки с заданным индексом.
+     *
+     * @param cell Индекс клетки.
+     * @return Координата X.
+     */
+    public int x(int cell) {
+        return cell % width;
+    }
+
+    /**
+     * Возвращает координату Y клетки с заданным индексом.
+     *
+     * @param cell Индекс клетки.
+     * @return Координата Y.
+     */
+    public int y(int cell) {
+        return cell / width;
+    }
+
+    /**
+     * Изменяет направление движения змейки.
+     * <p>
+     * Разворот на 180 градусов игнорируется, как и в {@link Snake#directionTo(Direction)}.
+     *
+     * @param direction Новое направление движения.
+     * @return {@code true}, если направление принято, {@code false}, если это был запрещенный разворот.
+     */
+    public boolean turn(Direction direction) {
+        if (direction == this.direction.opposite()) {
+            return false;
+        }
+        if (direction != this.direction) {
+            hash ^= Zobrist.direction(this.direction) ^ Zobrist.direction(direction);
+            this.direction = direction;
+        }
+        return true;
+    }
+
+    /**
+     * Меняет направление (если это не разворот) и выполняет один шаг.
+     *
+     * @param direction Запрошенное направление или {@code null}, чтобы сохранить текущее.
+     * @return {@code true}, если змейка съела яблоко на этом шаге.
+     */
+    public boolean tick(Direction direction) {
+        if (direction != null) {
+            turn(direction);
+        }
+        return tick();
+    }
+
+    /**
+     * Выполняет один шаг движения змейки в текущем направлении.
+     * <p>
+     * Поле замкнуто в тор: выход за край переносит голову на противоположную сторону.
+     * Столкновение проверяется со всем телом, включая хвост, который освободился бы на этом шаге.
+     * Если змейка съела яблоко, новое яблоко сразу размещается методом {@link #placeApple()}.
+     *
+     * @return {@code true}, если змейка съела яблоко на этом шаге, {@code false} в противном случае
+     * или если змейка мертва.
+     */
+    public boolean tick() {
+        if (!alive) {
+            return false;
+        }
+        int head = ring[headPos];
+        int next = neighbour(head, direction);
+        ticks++;
+
+        if (occupied(next)) {
+            alive = false;
+            hash ^= Zobrist.DEAD;
+            return false;
+        }
+
+        boolean eat = next == apple;
+        if (!eat) {
+            int tail = ring[tailPos];
+            hash ^= Zobrist.body(tail);
+            occupancy[tail >>> 6] &= ~(1L << tail);
+            addFree(tail);
+            tailPos = advance(tailPos);
+            length--;
+        }
+        headPos = advance(headPos);
+        ring[headPos] = next;
+        occupancy[next >>> 6] |= 1L << next;
+        removeFree(next);
+        length++;
+        pushed++;
+        hash ^= Zobrist.head(head) ^ Zobrist.head(next) ^ Zobrist.body(next);
+        if (eat) {
+            hash ^= Zobrist.score(score) ^ Zobrist.score(score + 1);
+            score++;
+            placeApple();
+        }
+        return eat;
+    }
+
+    /**
+     * Размещает яблоко в случайной свободной клетке.
+     * <p>
+     * Клетка выбирается равномерно из множества свободных клеток за постоянное время,
+     * без перебора поля и повторных попыток, даже если змейка занимает почти все поле.
+     *
+     * @return Индекс клетки с яблоком или {@link #NO_CELL}, если свободных клеток не осталось.
+     */
+    public int placeApple() {
+        setApple(freeCount == 0 ? NO_CELL : freeCells[random.nextInt(freeCount)]);
+        return apple;
+    }
+
+    /**
+     * Возвращает клетку в множество свободных.
+     *
+     * @param cell Индекс освободившейся клетки.
+     */
+    private void addFree(int cell) {
+        freeSlot[cell] = freeCount;
+        freeCells[freeCount++] = cell;
+    }
+
+    /**
+     * Удаляет клетку из множества свободных, перемещая на ее место последний элемент.
+     *
+     * @param cell Индекс занятой клетки.
+     */
+    private void removeFree(int cell) {
+        int slot = freeSlot[cell];
+        int last = freeCells[--freeCount];
+        freeCells[slot] = last;
+        freeSlot[last] = slot;
+        freeSlot[cell] = NO_CELL;
+    }
+
+    /**
+     * Проверяет, занята ли клетка телом змейки или стеной, за постоянное время независимо от длины змейки.
+     *
+     * @param cell Индекс клетки.
+     * @return {@code true}, если клетка принадлежит телу или в ней стена.
+     */
+    @Override
+    public boolean occupied(int cell) {
+        return (occupancy[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     * Сдвигает позицию в кольцевом буфере на один элемент вперед.
+     *
+     * @param pos Текущая позиция.
+     * @return Следующая позиция с учетом переноса в начало буфера.
+     */
+    private int advance(int pos) {
+        return ++pos == ring.length ? 0 : pos;
+    }
+
+    /**
+     * Возвращает клетку тела по порядковому номеру.
+     *
+     * @param i Номер клетки от хвоста ({@code 0}) до головы ({@code getLength() - 1}).
+     * @return Индекс клетки.
+     * @throws IndexOutOfBoundsException если номер выходит за пределы тела.
+     */
+    @Override
+    public int getCell(int i) {
+        if (i < 0 || i >= length) {
+            throw new IndexOutOfBoundsException("cell " + i + " of " + length);
+        }
+        int pos = tailPos + i;
+        return ring[pos >= ring.length ? pos - ring.length : pos];
+    }
+
+    /**
+     * Возвращает порядковый номер текущего хвоста среди всех клеток, когда-либо добавленных в голову.
+     *
+     * @return Номер хвоста; номер головы равен {@code getTailSeq() + getLength() - 1}.
+     */
+    @Override
+    public long getTailSeq() {
+        return pushed - length;
+    }
+
+    /**
+     * Возвращает индекс клетки головы.
+     *
+     * @return Индекс головы.
+     */
+    @Override
+    public int getHead() {
+        return ring[headPos];
+    }
+
+    /**
+     * Возвращает индекс клетки хвоста.
+     *
+     * @return Индекс хвоста.
+     */
+    public int getTail() {
+        return ring[tailPos];
+    }
+
+    /**
+     * Возвращает текущую длину змейки.
+     *
+     * @return Количество клеток тела.
+     */
+    @Override
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Возвращает свободную клетку по ее номеру в множестве свободных клеток.
+     *
+     * @param i Номер от 0 до {@link #getFreeCount()} - 1.
+     * @return Индекс свободной клетки.
+     */
+    int getFreeCell(int i) {
+        if (i < 0 || i >= freeCount) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        return freeCells[i];
+    }
+
+    /**
+     * Устанавливает положение яблока.
+     *
+     * @param cell Индекс клетки или {@link #NO_CELL}, чтобы убрать яблоко.
+     */
+    public void setApple(int cell) {
+        hash ^= Zobrist.apple(apple) ^ Zobrist.apple(cell);
+        apple = cell;
+    }
+
+    /**
+     * Возвращает положение яблока.
+     *
+     * @return Индекс клетки с яблоком или {@link #NO_CELL}.
+     */
+    @Override
+    public int getApple() {
+        return apple;
+    }
+
+    /**
+     * Возвращает количество клеток, не занятых телом змейки.
+     *
+     * @return Число свободных клеток.
+     */
+    public int getFreeCount() {
+        return freeCount;
+    }
+
+    /**
+     * Возвращает зерно, с которым была создана игра.
+     *
+     * @return Зерно генератора случайных чисел.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Возвращает генератор случайных чисел ядра.
+     *
+     * @return {@link SplitMix64}, используемый для размещения яблок.
+     */
+    public SplitMix64 getRandom() {
+        return random;
+    }
+
+    /**
+     * Возвращает текущее направление движения.
+     *
+     * @return {@link Direction}.
+     */
+    @Override
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * Возвращает текущий статус змейки (жива или нет).
+     *
+     * @return {@code true}, если змейка жива.
+     */
+    @Override
+    public boolean isAlive() {
+        return alive;
+    }
+
+    /**
+     * Возвращает количество выполненных шагов.
+     *
+     * @return Число шагов с момента создания ядра.
+     */
+    @Override
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Возвращает количество съеденных яблок.
+     *
+     * @return Счет игры.
+     */
+    @Override
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Возвращает хеш Зобриста состояния за постоянное время: ядро обновляет его инкрементально
+     * на каждом шаге, смене направления и размещении яблока.
+     *
+     * @return Хеш состояния, равный {@link Zobrist#of(GameState)}.
+     */
+    @Override
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Возвращает уровень со стенами.
+     *
+     * @return {@link Level} или {@code null}, если стен нет.
+     */
+    @Override
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Возвращает ширину поля.
+     *
+     * @return Ширина в клетках.
+     */
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Возвращает высоту поля.
+     *
+     * @return Высота в клетках.
+     */
+    @Override
+    public int getHeight() {
+        return height;
+    }
+}
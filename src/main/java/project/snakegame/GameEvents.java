@@ -0,0 +1,62 @@
+package project.snakegame;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import static org.apache.logging.log4j.util.Unbox.box;
+
+/**
+ * Структурированный журнал событий игры: смена направления, съеденное яблоко и смерть с номером шага.
+ * <p>
+ * События пишутся в отдельный логгер {@code project.snakegame.events}, который по умолчанию выключен
+ * и включается системным свойством {@code -Dsnake.events=INFO}. Каждый метод сначала проверяет,
+ * включен ли логгер, поэтому выключенный журнал стоит одну проверку уровня. Числа передаются через
+ * {@link org.apache.logging.log4j.util.Unbox}, поэтому включенный журнал тоже не создает мусора.
+ */
+final class GameEvents {
+
+    /**
+     * Логгер событий игры.
+     */
+    private static final Logger events = LogManager.getLogger("project.snakegame.events");
+
+    private GameEvents() {
+    }
+
+    /**
+     * Записывает смену направления.
+     *
+     * @param engine    {@link GameEngine} игры.
+     * @param direction Новое направление.
+     */
+    static void turn(GameEngine engine, Direction direction) {
+        if (events.isInfoEnabled()) {
+            events.info("game={} tick={} event=turn direction={}",
+                    box(engine.getSeed()), box(engine.getTicks()), direction);
+        }
+    }
+
+    /**
+     * Записывает съеденное яблоко.
+     *
+     * @param engine {@link GameEngine} игры.
+     */
+    static void eat(GameEngine engine) {
+        if (events.isInfoEnabled()) {
+            events.info("game={} tick={} event=eat score={} length={}",
+                    box(engine.getSeed()), box(engine.getTicks()), box(engine.getScore()), box(engine.getLength()));
+        }
+    }
+
+    /**
+     * Записывает смерть змейки.
+     *
+     * @param engine {@link GameEngine} игры.
+     */
+    static void death(GameEngine engine) {
+        if (events.isInfoEnabled()) {
+            events.info("game={} tick={} event=death score={} length={}",
+                    box(engine.getSeed()), box(engine.getTicks()), box(engine.getScore()), box(engine.getLength()));
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package project.snakegame;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Игровой цикл с фиксированным шагом времени, работающий в отдельном потоке.
+ * <p>
+ * Цикл накапливает прошедшее время и выполняет по одному шагу {@link Snake#step()} на каждый
+ * полный интервал, поэтому темп игры не зависит от того, сколько длились сам шаг и отрисовка.
+ * Если поток отстал (например, после паузы сборщика мусора), за одну итерацию выполняется не больше
+ * {@link #MAX_CATCH_UP_TICKS} шагов, а остаток отставания отбрасывается.
+ * <p>
+ * После каждой группы шагов состояние публикуется в {@link SnapshotExchange}; поток отрисовки забирает
+ * последний снимок в своем темпе, например на каждом импульсе {@link javafx.animation.AnimationTimer}.
+ * <p>
+ * Нажатия клавиш передаются в цикл через {@link InputQueue} и применяются не больше одного за шаг,
+ * поэтому быстрые повороты не теряются, а разворот на 180 градусов невозможен даже при двух нажатиях за шаг.
+ * <p>
+ * Длительность каждого шага, выделенная на нем память и задержка ввода записываются в {@link GameMetrics}.
+ */
+public class GameLoop {
+
+    /**
+     * Переменная для логирования
+     */
+    private static final Logger logger = LogManager.getLogger(GameLoop.class);
+
+    /**
+     * Максимальное количество шагов, выполняемых подряд для того, чтобы догнать время.
+     */
+    static final int MAX_CATCH_UP_TICKS = 5;
+
+    /**
+     * Вместимость очереди нажатий.
+     */
+    static final int INPUT_CAPACITY = 16;
+
+    /**
+     * Змейка, которой управляет цикл.
+     */
+    private final Snake snake;
+
+    /**
+     * Длительность одного шага в наносекундах.
+     */
+    private final long stepNanos;
+
+    /**
+     * Обменник снимков между потоком игры и потоком отрисовки.
+     */
+    private final SnapshotExchange exchange;
+
+    /**
+     * Очередь нажатий от потока JavaFX.
+     */
+    private final InputQueue inputs = new InputQueue(INPUT_CAPACITY);
+
+    /**
+     * Метрики цикла.
+     */
+    private final GameMetrics metrics = new GameMetrics();
+
+    /**
+     * Контроллер, выбирающий направление вместо игрока, или {@code null}, если играет человек.
+     */
+    private Controller controller;
+
+    /**
+     * Количество шагов, после которого цикл останавливается.
+     */
+    private long tickLimit = Long.MAX_VALUE;
+
+    /**
+     * Флаг работы цикла.
+     */
+    private volatile boolean running;
+
+    /**
+     * Поток, в котором выполняется цикл.
+     */
+    private Thread thread;
+
+    /**
+     * Создает игровой цикл.
+     *
+     * @param snake      {@link Snake}, которой управляет цикл.
+     * @param difficulty {@link Difficulty}, определяющая длительность шага.
+     */
+    public GameLoop(Snake snake, Difficulty difficulty) {
+        this(snake, TimeUnit.MILLISECONDS.toNanos(difficulty.getSpeed()));
+    }
+
+    /**
+     * Создает игровой цикл с заданной длительностью шага.
+     *
+     * @param snake     {@link Snake}, которой управляет цикл.
+     * @param stepNanos Длительность одного шага в наносекундах.
+     */
+    public GameLoop(Snake snake, long stepNanos) {
+        this.snake = snake;
+        this.stepNanos = stepNanos;
+        this.exchange = new SnapshotExchange(snake.getEngine());
+    }
+
+    /**
+     * Передает управление змейкой контроллеру, например при воспроизведении повтора.
+     * Нажатия клавиш при этом игнорируются. Вызывается до {@link #start()}.
+     *
+     * @param controller {@link Controller}, выбирающий направление перед каждым шагом.
+     */
+    public void setController(Controller controller) {
+        this.controller = controller;
+    }
+
+    /**
+     * Ограничивает количество шагов игры. Вызывается до {@link #start()}.
+     *
+     * @param tickLimit Количество шагов, после которого цикл останавливается.
+     */
+    public void setTickLimit(long tickLimit) {
+        this.tickLimit = tickLimit;
+    }
+
+    /**
+     * Запускает цикл в отдельном фоновом потоке.
+     */
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "game-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Останавливает цикл и ждет завершения его потока.
+     *
+     * @throws InterruptedException если ожидание было прервано.
+     */
+    public void stop() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            thread.join();
+        }
+    }
+
+    /**
+     * Передает нажатие в игровой цикл. Вызывается только из потока JavaFX.
+     *
+     * @param direction Запрошенное направление.
+     * @param stamp     Момент нажатия по {@link System#nanoTime()}.
+     */
+    public void input(Direction direction, long stamp) {
+        if (!inputs.offer(direction, stamp)) {
+            logger.warn("the input queue is full, the key press was dropped");
+        }
+    }
+
+    /**
+     * Применяет первое нажатие из очереди, которое меняет направление движения.
+     * <p>
+     * Нажатия, совпадающие с последним примененным направлением или противоположные ему, отбрасываются.
+     * Остальные нажатия остаются в очереди до следующих шагов.
+     *
+     * @param now Момент шага по {@link System#nanoTime()}.
+     */
+    void applyInput(long now) {
+        if (inputs.skipToTurn(snake.getEngine().getDirection())) {
+            snake.directionTo(inputs.peek());
+            metrics.recordInput(now - inputs.peekStamp());
+            inputs.remove();
+        }
+    }
+
+    /**
+     * Возвращает количество примененных нажатий.
+     *
+     * @return Число нажатий, изменивших направление.
+     */
+    public long getInputsApplied() {
+        return metrics.inputLatency().getCount();
+    }
+
+    /**
+     * Возвращает среднюю задержку от нажатия до шага, на котором оно применено.
+     *
+     * @return Задержка в наносекундах или 0, если нажатий не было.
+     */
+    public long getMeanInputLatency() {
+        return metrics.inputLatency().getMean();
+    }
+
+    /**
+     * Возвращает максимальную задержку от нажатия до шага, на котором оно применено.
+     *
+     * @return Задержка в наносекундах.
+     */
+    public long getMaxInputLatency() {
+        return metrics.inputLatency().getMax();
+    }
+
+    /**
+     * Возвращает метрики цикла. Поток отрисовки записывает в них длительность своих кадров.
+     *
+     * @return {@link GameMetrics} этого цикла.
+     */
+    public GameMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Возвращает самый свежий снимок состояния игры. Вызывается только из потока отрисовки.
+     *
+     * @return {@link GameSnapshot} последнего опубликованного состояния.
+     */
+    public GameSnapshot latest() {
+        return exchange.latest();
+    }
+
+    /**
+     * Тело игрового цикла.
+     */
+    private void run() {
+        long previous = System.nanoTime();
+        long accumulator = 0;
+        GameEngine engine = snake.getEngine();
+        while (running && snake.isAlive() && engine.getTicks() < tickLimit) {
+            long now = System.nanoTime();
+            accumulator += now - previous;
+            previous = now;
+
+            int steps = 0;
+            while (accumulator >= stepNanos && steps < MAX_CATCH_UP_TICKS && snake.isAlive()
+                    && engine.getTicks() < tickLimit) {
+                long tickStart = System.nanoTime();
+                long allocatedBefore = GameMetrics.allocatedBytes();
+                if (controller == null) {
+                    applyInput(tickStart);
+                } else {
+                    Direction direction = controller.decide(engine);
+                    if (direction != null) {
+                        snake.directionTo(direction);
+                    }
+                }
+                if (snake.step()) {
+                    logger.debug("the snake ate the apple");
+                }
+                metrics.recordTick(System.nanoTime() - tickStart,
+                        allocatedBefore < 0 ? -1 : GameMetrics.allocatedBytes() - allocatedBefore);
+                accumulator -= stepNanos;
+                steps++;
+            }
+            if (accumulator >= stepNanos) {
+                logger.warn("the game loop fell behind, dropping {} ms", TimeUnit.NANOSECONDS.toMillis(accumulator));
+                accumulator = 0;
+            }
+            if (steps > 0) {
+                exchange.publish(snake.getEngine());
+            }
+            LockSupport.parkNanos(stepNanos - accumulator);
+        }
+        snake.finishRecording();
+        logger.info("tick time, ns: {}", metrics.getTickTime());
+        logger.info("tick allocation, bytes: {}", metrics.getTickAllocation());
+        logger.info("input latency, ns: {}", metrics.getInputLatency());
+    }
+}
@@ -0,0 +1,215 @@
+package project.snakegame;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Метрики игрового цикла и отрисовки: гистограммы длительности шага, отрисовки, задержки импульса JavaFX,
+ * задержки ввода и выделения памяти на шаг.
+ * <p>
+ * Каждую гистограмму пишет только один поток: шаги и ввод - поток игры, отрисовку и импульсы - поток JavaFX.
+ * Запись не создает объектов, поэтому метрики можно держать включенными постоянно. Метрики доступны через JMX
+ * под именем {@link #OBJECT_NAME} и в отладочной панели окна игры.
+ */
+public class GameMetrics implements GameMetricsMXBean {
+
+    /**
+     * Переменная для логирования
+     */
+    private static final Logger logger = LogManager.getLogger(GameMetrics.class);
+
+    /**
+     * Имя, под которым метрики регистрируются в JMX.
+     */
+    public static final String OBJECT_NAME = "project.snakegame:type=GameMetrics";
+
+    /**
+     * Счетчик памяти, выделенной потоками, или {@code null}, если JVM его не поддерживает.
+     */
+    private static final com.sun.management.ThreadMXBean threads = allocationCounter();
+
+    /**
+     * Длительность шага.
+     */
+    private final Histogram tickTime = new Histogram();
+
+    /**
+     * Длительность отрисовки.
+     */
+    private final Histogram renderTime = new Histogram();
+
+    /**
+     * Задержка импульса JavaFX.
+     */
+    private final Histogram pulseDelay = new Histogram();
+
+    /**
+     * Задержка ввода.
+     */
+    private final Histogram inputLatency = new Histogram();
+
+    /**
+     * Память, выделенная за шаг.
+     */
+    private final Histogram tickAllocation = new Histogram();
+
+    /**
+     * Возвращает счетчик выделенной памяти, если JVM поддерживает его и он включен.
+     *
+     * @return {@link com.sun.management.ThreadMXBean} или {@code null}.
+     */
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+            return bean;
+        }
+        return null;
+    }
+
+    /**
+     * Возвращает объем памяти, выделенной текущим потоком с момента его запуска.
+     *
+     * @return Количество байт или -1, если счетчик недоступен.
+     */
+    static long allocatedBytes() {
+        return threads == null ? -1 : threads.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Записывает один шаг игры. Вызывается только из потока игры.
+     *
+     * @param nanos          Длительность шага в наносекундах.
+     * @param allocatedBytes Память, выделенная за шаг, или отрицательное число, если она не измерялась.
+     */
+    void recordTick(long nanos, long allocatedBytes) {
+        tickTime.record(nanos);
+        if (allocatedBytes >= 0) {
+            tickAllocation.record(allocatedBytes);
+        }
+    }
+
+    /**
+     * Записывает задержку примененного нажатия. Вызывается только из потока игры.
+     *
+     * @param nanos Задержка в наносекундах.
+     */
+    void recordInput(long nanos) {
+        inputLatency.record(nanos);
+    }
+
+    /**
+     * Записывает один импульс отрисовки. Вызывается только из потока JavaFX.
+     *
+     * @param delayNanos  Задержка начала импульса относительно его запланированного времени.
+     * @param renderNanos Длительность отрисовки.
+     */
+    void recordFrame(long delayNanos, long renderNanos) {
+        pulseDelay.record(delayNanos);
+        renderTime.record(renderNanos);
+    }
+
+    /**
+     * Возвращает гистограмму задержки ввода.
+     *
+     * @return {@link Histogram} в наносекундах.
+     */
+    Histogram inputLatency() {
+        return inputLatency;
+    }
+
+    /**
+     * Регистрирует метрики в JMX. Ранее зарегистрированные метрики с тем же именем заменяются.
+     */
+    public void register() {
+        try {
+            var server = ManagementFactory.getPlatformMBeanServer();
+            var name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            logger.warn("failed to register the game metrics in JMX", e);
+        }
+    }
+
+    /**
+     * Снимает регистрацию метрик в JMX, если они зарегистрированы.
+     */
+    public void unregister() {
+        try {
+            var server = ManagementFactory.getPlatformMBeanServer();
+            var name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            logger.warn("failed to unregister the game metrics from JMX", e);
+        }
+    }
+
+    /**
+     * Возвращает распределение длительности шага игры.
+     *
+     * @return {@link HistogramSummary} в наносекундах.
+     */
+    @Override
+    public HistogramSummary getTickTime() {
+        return tickTime.summary();
+    }
+
+    /**
+     * Возвращает распределение длительности отрисовки кадра.
+     *
+     * @return {@link HistogramSummary} в наносекундах.
+     */
+    @Override
+    public HistogramSummary getRenderTime() {
+        return renderTime.summary();
+    }
+
+    /**
+     * Возвращает распределение задержки импульса JavaFX.
+     *
+     * @return {@link HistogramSummary} в наносекундах.
+     */
+    @Override
+    public HistogramSummary getPulseDelay() {
+        return pulseDelay.summary();
+    }
+
+    /**
+     * Возвращает распределение задержки ввода.
+     *
+     * @return {@link HistogramSummary} в наносекундах.
+     */
+    @Override
+    public HistogramSummary getInputLatency() {
+        return inputLatency.summary();
+    }
+
+    /**
+     * Возвращает распределение памяти, выделенной за шаг.
+     *
+     * @return {@link HistogramSummary} в байтах.
+     */
+    @Override
+    public HistogramSummary getTickAllocation() {
+        return tickAllocation.summary();
+    }
+
+    /**
+     * Возвращает общий объем памяти, выделенной на шагах.
+     *
+     * @return Количество байт.
+     */
+    @Override
+    public long getAllocatedBytes() {
+        return tickAllocation.getTotal();
+    }
+}
@@ -0,0 +1,51 @@
+package project.snakegame;
+
+/**
+ * Интерфейс управления JMX для метрик игры {@link GameMetrics}.
+ * <p>
+ * Длительности возвращаются в наносекундах, объемы памяти - в байтах.
+ */
+public interface GameMetricsMXBean {
+
+    /**
+     * Возвращает распределение длительности шага игры: применение ввода и {@link Snake#step()}.
+     *
+     * @return {@link HistogramSummary} в наносекундах.
+     */
+    HistogramSummary getTickTime();
+
+    /**
+     * Возвращает распределение длительности отрисовки кадра.
+     *
+     * @return {@link HistogramSummary} в наносекундах.
+     */
+    HistogramSummary getRenderTime();
+
+    /**
+     * Возвращает распределение задержки выполнения импульса JavaFX относительно его запланированного времени.
+     *
+     * @return {@link HistogramSummary} в наносекундах.
+     */
+    HistogramSummary getPulseDelay();
+
+    /**
+     * Возвращает распределение задержки от нажатия клавиши до шага, на котором оно применено.
+     *
+     * @return {@link HistogramSummary} в наносекундах.
+     */
+    HistogramSummary getInputLatency();
+
+    /**
+     * Возвращает распределение объема памяти, выделенной потоком игры за один шаг.
+     *
+     * @return {@link HistogramSummary} в байтах.
+     */
+    HistogramSummary getTickAllocation();
+
+    /**
+     * Возвращает общий объем памяти, выделенной потоком игры на шагах.
+     *
+     * @return Количество байт.
+     */
+    long getAllocatedBytes();
+}
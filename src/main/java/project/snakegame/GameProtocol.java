@@ -0,0 +1,226 @@
+package project.snakegame;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Двоичный протокол {@link GameServer}: кадры состояния игры для клиентов и команды от клиентов.
+ * <p>
+ * Каждый кадр - это длина (varint, без учета самой длины), байт типа и данные (числа varint, если не указано иное):
+ * <pre>
+ * STATE (сервер)  ширина, высота, номер шага, счет, номер хвоста ({@link GameState#getTailSeq()}),
+ *                 byte направление, byte жива (0/1), клетка яблока + 1 (0 - яблока нет),
+ *                 длина тела, клетки тела от хвоста к голове
+ * DELTA (сервер)  byte флаги: {@link #HEAD_ADDED}, {@link #TAIL_REMOVED}, {@link #APPLE_MOVED}, {@link #DEAD}
+ *                 и порядковый номер {@link Direction} в битах {@link #DIRECTION_SHIFT}..+1,
+ *                 затем новая голова (если HEAD_ADDED) и клетка яблока + 1 (если APPLE_MOVED)
+ * INPUT (клиент)  byte порядковый номер {@link Direction}
+ * </pre>
+ * Сервер отправляет STATE при подключении и после отставания клиента, затем по одному DELTA на каждый шаг.
+ * Шаг, на котором голова добавлена, а хвост не удален, - съеденное яблоко. Обычный кадр DELTA занимает
+ * 4-6 байт независимо от размера поля. Клетки задаются индексами {@code y * ширина + x}.
+ */
+public final class GameProtocol {
+
+    /**
+     * Тип кадра с полным состоянием игры.
+     */
+    public static final byte STATE = 1;
+
+    /**
+     * Тип кадра с изменениями за один шаг.
+     */
+    public static final byte DELTA = 2;
+
+    /**
+     * Тип кадра с направлением от клиента.
+     */
+    public static final byte INPUT = 3;
+
+    /**
+     * Флаг DELTA: к голове добавлена клетка.
+     */
+    public static final int HEAD_ADDED = 1;
+
+    /**
+     * Флаг DELTA: хвост освободил клетку.
+     */
+    public static final int TAIL_REMOVED = 1 << 1;
+
+    /**
+     * Флаг DELTA: яблоко перемещено или исчезло.
+     */
+    public static final int APPLE_MOVED = 1 << 2;
+
+    /**
+     * Флаг DELTA: змейка погибла на этом шаге.
+     */
+    public static final int DEAD = 1 << 3;
+
+    /**
+     * Номер младшего бита направления в флагах DELTA.
+     */
+    public static final int DIRECTION_SHIFT = 4;
+
+    /**
+     * Наибольшая длина одного числа varint.
+     */
+    private static final int MAX_VARINT = 5;
+
+    /**
+     * Наибольший размер кадра DELTA вместе с длиной.
+     */
+    static final int MAX_DELTA_SIZE = 1 + 1 + 1 + 2 * MAX_VARINT;
+
+    /**
+     * Закрытый конструктор: класс содержит только статические методы и константы.
+     */
+    private GameProtocol() {
+    }
+
+    /**
+     * Возвращает наибольший размер кадра STATE вместе с длиной для поля заданной площади.
+     *
+     * @param area Количество клеток поля.
+     * @return Размер в байтах.
+     */
+    static int maxStateSize(int area) {
+        return MAX_VARINT + 1 + 7 * MAX_VARINT + 2 + area * MAX_VARINT;
+    }
+
+    /**
+     * Записывает кадр STATE.
+     *
+     * @param state Состояние игры.
+     * @param out   Буфер размером не меньше {@link #maxStateSize(int)}.
+     */
+    static void writeState(GameState state, ByteBuffer out) {
+        int start = beginFrame(out);
+        out.put(STATE);
+        Replay.writeVarint(out, state.getWidth());
+        Replay.writeVarint(out, state.getHeight());
+        Replay.writeVarint(out, state.getTicks());
+        Replay.writeVarint(out, state.getScore());
+        Replay.writeVarint(out, state.getTailSeq());
+        out.put((byte) state.getDirection().ordinal());
+        out.put((byte) (state.isAlive() ? 1 : 0));
+        Replay.writeVarint(out, state.getApple() + 1);
+        Replay.writeVarint(out, state.getLength());
+        for (int i = 0; i < state.getLength(); i++) {
+            Replay.writeVarint(out, state.getCell(i));
+        }
+        endFrame(out, start);
+    }
+
+    /**
+     * Записывает кадр DELTA.
+     *
+     * @param flags     Флаги изменений.
+     * @param direction Направление после шага.
+     * @param head      Новая голова (используется с {@link #HEAD_ADDED}).
+     * @param apple     Новое яблоко (используется с {@link #APPLE_MOVED}).
+     * @param out       Буфер размером не меньше {@link #MAX_DELTA_SIZE}.
+     */
+    static void writeDelta(int flags, Direction direction, int head, int apple, ByteBuffer out) {
+        int start = beginFrame(out);
+        out.put(DELTA);
+        out.put((byte) (flags | direction.ordinal() << DIRECTION_SHIFT));
+        if ((flags & HEAD_ADDED) != 0) {
+            Replay.writeVarint(out, head);
+        }
+        if ((flags & APPLE_MOVED) != 0) {
+            Replay.writeVarint(out, apple + 1);
+        }
+        endFrame(out, start);
+    }
+
+    /**
+     * Записывает кадр INPUT.
+     *
+     * @param direction Направление.
+     * @param out       Буфер.
+     */
+    static void writeInput(Direction direction, ByteBuffer out) {
+        out.put((byte) 2);
+        out.put(INPUT);
+        out.put((byte) direction.ordinal());
+    }
+
+    /**
+     * Оставляет место под длину кадра. Длина пишется одним байтом и при необходимости расширяется в {@link #endFrame}.
+     *
+     * @param out Буфер.
+     * @return Позиция начала кадра.
+     */
+    private static int beginFrame(ByteBuffer out) {
+        int start = out.position();
+        out.put((byte) 0);
+        return start;
+    }
+
+    /**
+     * Записывает длину кадра перед его данными, сдвигая данные, если длина не помещается в один байт.
+     *
+     * @param out   Буфер с записанными данными кадра.
+     * @param start Позиция начала кадра.
+     */
+    private static void endFrame(ByteBuffer out, int start) {
+        int length = out.position() - start - 1;
+        if (length < 0x80) {
+            out.put(start, (byte) length);
+            return;
+        }
+        int extra = varintSize(length) - 1;
+        int end = out.position();
+        for (int i = end - 1; i > start; i--) {
+            out.put(i + extra, out.get(i));
+        }
+        out.position(start);
+        Replay.writeVarint(out, length);
+        out.position(end + extra);
+    }
+
+    /**
+     * Возвращает количество байт числа в кодировке varint.
+     *
+     * @param value Неотрицательное число.
+     * @return Размер в байтах.
+     */
+    private static int varintSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Проверяет, что в буфере есть целый кадр, и переходит к его типу.
+     * Если кадр неполный, позиция буфера не меняется.
+     *
+     * @param in Буфер в режиме чтения.
+     * @return Длина кадра без длины или -1, если кадр еще не получен целиком.
+     */
+    static int nextFrame(ByteBuffer in) {
+        int start = in.position();
+        long length = 0;
+        int shift = 0;
+        while (true) {
+            if (!in.hasRemaining()) {
+                in.position(start);
+                return -1;
+            }
+            byte b = in.get();
+            length |= (long) (b & 0x7F) << shift;
+            shift += 7;
+            if (b >= 0) {
+                break;
+            }
+        }
+        if (in.remaining() < length) {
+            in.position(start);
+            return -1;
+        }
+        return (int) length;
+    }
+}
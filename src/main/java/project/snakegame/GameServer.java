@@ -0,0 +1,524 @@
+package project.snakegame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Сервер игры для внешних клиентов (ботов на других языках, зрителей) на локальном сокете.
+ * <p>
+ * Один поток на {@link Selector} ведет и игру, и весь сетевой ввод-вывод: между шагами он принимает
+ * подключения и команды, а после каждого шага кодирует один кадр изменений {@link GameProtocol#DELTA}
+ * и раздает его всем клиентам неблокирующей записью.
+ * <p>
+ * У каждого клиента свой ограниченный буфер исходящих данных. Если клиент читает медленнее, чем идет игра,
+ * и очередной кадр не помещается в буфер, изменения для него больше не копятся: когда буфер опустеет,
+ * клиент получит одно полное состояние {@link GameProtocol#STATE} и дальше снова изменения. Поэтому
+ * медленный клиент не задерживает шаги и не расходует память сервера, а пропускает промежуточные шаги.
+ * <p>
+ * Команды {@link GameProtocol#INPUT} всех клиентов попадают в одну {@link InputQueue} и применяются
+ * не больше одной за шаг, как нажатия клавиш в {@link GameLoop}: повторы текущего направления и развороты
+ * отбрасываются, не занимая шаг, поэтому один клиент не может задержать поворот другого.
+ */
+public final class GameServer implements Closeable {
+
+    /**
+     * Переменная для логирования
+     */
+    private static final Logger logger = LogManager.getLogger(GameServer.class);
+
+    /**
+     * Направления по порядковым номерам.
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * Размер буфера исходящих данных клиента по умолчанию.
+     */
+    static final int DEFAULT_OUTBOUND_CAPACITY = 64 * 1024;
+
+    /**
+     * Размер буфера отправки сокета клиента. Небольшой буфер не дает ядру скрывать отставание клиента,
+     * которое иначе обнаружилось бы только после нескольких мегабайт данных.
+     */
+    private static final int SOCKET_SEND_BUFFER = 32 * 1024;
+
+    /**
+     * Размер буфера входящих команд клиента.
+     */
+    private static final int INBOUND_CAPACITY = 256;
+
+    /**
+     * Время, в течение которого после конца игры клиентам дописываются оставшиеся данные.
+     */
+    private static final long LINGER_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Змейка, которой управляет сервер.
+     */
+    private final Snake snake;
+
+    /**
+     * Длительность одного шага в наносекундах; 0 - шаги без пауз.
+     */
+    private final long stepNanos;
+
+    /**
+     * Размер буфера исходящих данных клиента.
+     */
+    private final int outboundCapacity;
+
+    /**
+     * Селектор сервера.
+     */
+    private final Selector selector;
+
+    /**
+     * Канал, принимающий подключения.
+     */
+    private final ServerSocketChannel server;
+
+    /**
+     * Подключенные клиенты.
+     */
+    private final List<Client> clients = new ArrayList<>();
+
+    /**
+     * Команды клиентов, ожидающие применения.
+     */
+    private final InputQueue inputs = new InputQueue(GameLoop.INPUT_CAPACITY);
+
+    /**
+     * Буфер для кодирования кадра изменений, общий для всех клиентов.
+     */
+    private final ByteBuffer delta = ByteBuffer.allocateDirect(GameProtocol.MAX_DELTA_SIZE);
+
+    /**
+     * Обработчик готовых каналов; создается один раз, чтобы выбор каналов не создавал объектов.
+     */
+    private final Consumer<SelectionKey> handler = this::handle;
+
+    /**
+     * Наибольшее количество шагов игры.
+     */
+    private long tickLimit = Long.MAX_VALUE;
+
+    /**
+     * Количество раз, когда клиенту вместо изменений пришлось отправить полное состояние.
+     */
+    private long resyncs;
+
+    /**
+     * Флаг работы сервера.
+     */
+    private volatile boolean running = true;
+
+    /**
+     * Создает сервер на свободном порту локального адреса.
+     *
+     * @param snake     Змейка с размещенным яблоком.
+     * @param stepNanos Длительность шага в наносекундах; 0 - шаги без пауз.
+     * @throws IOException если не удалось открыть сокет.
+     */
+    public GameServer(Snake snake, long stepNanos) throws IOException {
+        this(snake, stepNanos, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), DEFAULT_OUTBOUND_CAPACITY);
+    }
+
+    /**
+     * Создает сервер.
+     *
+     * @param snake            Змейка с размещенным яблоком.
+     * @param stepNanos        Длительность шага в наносекундах; 0 - шаги без пауз.
+     * @param address          Адрес для приема подключений.
+     * @param outboundCapacity Размер буфера исходящих данных клиента; увеличивается до размера полного состояния.
+     * @throws IOException если не удалось открыть сокет.
+     */
+    public GameServer(Snake snake, long stepNanos, InetSocketAddress address, int outboundCapacity)
+            throws IOException {
+        GameEngine engine = snake.getEngine();
+        this.snake = snake;
+        this.stepNanos = stepNanos;
+        this.outboundCapacity = Math.max(outboundCapacity,
+                GameProtocol.maxStateSize(engine.getWidth() * engine.getHeight()));
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        server.bind(address);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Ограничивает количество шагов игры.
+     *
+     * @param tickLimit Номер шага, после которого игра заканчивается.
+     */
+    public void setTickLimit(long tickLimit) {
+        this.tickLimit = tickLimit;
+    }
+
+    /**
+     * Возвращает адрес, на котором сервер принимает подключения.
+     *
+     * @return {@link InetSocketAddress} с фактическим портом.
+     * @throws IOException если сокет закрыт.
+     */
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) server.getLocalAddress();
+    }
+
+    /**
+     * Возвращает количество подключенных клиентов. Вызывается из потока сервера или после его остановки.
+     *
+     * @return Число клиентов.
+     */
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    /**
+     * Возвращает количество полных состояний, отправленных клиентам из-за отставания.
+     * Вызывается из потока сервера или после его остановки.
+     *
+     * @return Число пересылок состояния.
+     */
+    public long getResyncs() {
+        return resyncs;
+    }
+
+    /**
+     * Ведет игру до смерти змейки, предела шагов или {@link #stop()}, затем дописывает клиентам
+     * оставшиеся данные, ждет, пока клиенты закроют соединения, и закрывает сервер.
+     *
+     * @param clientsToWait Количество клиентов, подключения которых нужно дождаться перед первым шагом.
+     * @throws IOException если произошла ошибка селектора или сокета сервера.
+     */
+    public void run(int clientsToWait) throws IOException {
+        GameEngine engine = snake.getEngine();
+        while (running && clients.size() < clientsToWait) {
+            selector.select(handler, 100);
+        }
+        logger.info("serving a {}x{} game on {} to {} clients", engine.getWidth(), engine.getHeight(),
+                getAddress(), clients.size());
+        long next = System.nanoTime();
+        while (running && engine.isAlive() && engine.getTicks() < tickLimit) {
+            long now = System.nanoTime();
+            long wait = next - now;
+            if (wait > 0) {
+                selector.select(handler, Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait)));
+                continue;
+            }
+            if (-wait > GameLoop.MAX_CATCH_UP_TICKS * stepNanos) {
+                next = now;
+            }
+            selector.selectNow(handler);
+            tick(engine);
+            next += stepNanos;
+        }
+        long deadline = System.nanoTime() + LINGER_NANOS;
+        while (!clients.isEmpty() && System.nanoTime() < deadline) {
+            for (int i = clients.size() - 1; i >= 0; i--) {
+                finish(clients.get(i));
+            }
+            selector.select(handler, 10);
+        }
+        logger.info("the game is over after {} ticks with score {}, resyncs: {}", engine.getTicks(),
+                engine.getScore(), resyncs);
+        close();
+    }
+
+    /**
+     * Выполняет шаг игры и рассылает кадр изменений.
+     *
+     * @param engine Игровое ядро змейки.
+     */
+    private void tick(GameEngine engine) {
+        if (inputs.skipToTurn(engine.getDirection())) {
+            snake.directionTo(inputs.peek());
+            inputs.remove();
+        }
+        long tailSeq = engine.getTailSeq();
+        long headSeq = tailSeq + engine.getLength();
+        int apple = engine.getApple();
+        snake.step();
+        int flags = 0;
+        if (engine.getTailSeq() != tailSeq) {
+            flags |= GameProtocol.TAIL_REMOVED;
+        }
+        if (engine.getTailSeq() + engine.getLength() != headSeq) {
+            flags |= GameProtocol.HEAD_ADDED;
+        }
+        if (engine.getApple() != apple) {
+            flags |= GameProtocol.APPLE_MOVED;
+        }
+        if (!engine.isAlive()) {
+            flags |= GameProtocol.DEAD;
+        }
+        delta.clear();
+        GameProtocol.writeDelta(flags, engine.getDirection(), engine.getHead(), engine.getApple(), delta);
+        delta.flip();
+        for (int i = clients.size() - 1; i >= 0; i--) {
+            Client client = clients.get(i);
+            if (client.resync) {
+                continue;
+            }
+            if (client.out.remaining() < delta.remaining()) {
+                client.resync = true;
+                resyncs++;
+                continue;
+            }
+            client.out.put(delta);
+            delta.rewind();
+            flush(client);
+        }
+    }
+
+    /**
+     * Обрабатывает готовый канал: принимает подключение, читает команды или дописывает данные.
+     *
+     * @param key Ключ готового канала.
+     */
+    private void handle(SelectionKey key) {
+        try {
+            if (key.isAcceptable()) {
+                accept();
+                return;
+            }
+            Client client = (Client) key.attachment();
+            if (key.isReadable()) {
+                read(client);
+            }
+            if (key.isValid() && key.isWritable()) {
+                flush(client);
+            }
+        } catch (IOException e) {
+            logger.warn("server i/o error", e);
+        }
+    }
+
+    /**
+     * Принимает подключение и отправляет клиенту полное состояние.
+     *
+     * @throws IOException если не удалось принять подключение.
+     */
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        channel.setOption(StandardSocketOptions.SO_SNDBUF, SOCKET_SEND_BUFFER);
+        Client client = new Client(channel, outboundCapacity);
+        client.key = channel.register(selector, SelectionKey.OP_READ, client);
+        clients.add(client);
+        logger.info("client {} connected", channel.getRemoteAddress());
+        GameProtocol.writeState(snake.getEngine(), client.out);
+        flush(client);
+    }
+
+    /**
+     * Читает команды клиента. Клиент, закрывший соединение или приславший некорректный кадр, отключается.
+     *
+     * @param client Клиент.
+     */
+    private void read(Client client) {
+        ByteBuffer in = client.in;
+        try {
+            if (client.channel.read(in) < 0) {
+                disconnect(client, null);
+                return;
+            }
+        } catch (IOException e) {
+            disconnect(client, e);
+            return;
+        }
+        in.flip();
+        int length;
+        while ((length = GameProtocol.nextFrame(in)) >= 0) {
+            int end = in.position() + length;
+            if (length != 2 || in.get() != GameProtocol.INPUT || (in.get(in.position()) & 0xFF) >= DIRECTIONS.length) {
+                disconnect(client, new IOException("invalid frame from client"));
+                return;
+            }
+            inputs.offer(DIRECTIONS[in.get()], System.nanoTime());
+            in.position(end);
+        }
+        in.compact();
+        if (!in.hasRemaining()) {
+            disconnect(client, new IOException("client frame is too long"));
+        }
+    }
+
+    /**
+     * Отправляет клиенту накопленные данные без блокировки. Если буфер опустел, а клиент отстал,
+     * в буфер записывается полное состояние.
+     *
+     * @param client Клиент.
+     */
+    private void flush(Client client) {
+        ByteBuffer out = client.out;
+        try {
+            while (true) {
+                out.flip();
+                client.channel.write(out);
+                out.compact();
+                if (out.position() != 0 || !client.resync || !running) {
+                    break;
+                }
+                client.resync = false;
+                GameProtocol.writeState(snake.getEngine(), out);
+            }
+        } catch (IOException e) {
+            disconnect(client, e);
+            return;
+        }
+        int ops = out.position() == 0 ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+        if (client.key.interestOps() != ops) {
+            client.key.interestOps(ops);
+        }
+    }
+
+    /**
+     * Закрывает передачу клиенту, когда ему отправлено все. Соединение остается открытым для чтения,
+     * пока клиент не закроет его сам: так поздние команды клиента не приводят к сбросу соединения
+     * и потере еще не прочитанных им данных.
+     *
+     * @param client Клиент.
+     */
+    private void finish(Client client) {
+        if (client.finished || client.out.position() != 0 || client.resync) {
+            return;
+        }
+        client.finished = true;
+        try {
+            client.channel.shutdownOutput();
+        } catch (IOException e) {
+            disconnect(client, e);
+        }
+    }
+
+    /**
+     * Закрывает соединение с клиентом.
+     *
+     * @param client Клиент.
+     * @param error  Причина или {@code null}, если клиент закрыл соединение сам.
+     */
+    private void disconnect(Client client, IOException error) {
+        clients.remove(client);
+        client.key.cancel();
+        try {
+            client.channel.close();
+        } catch (IOException e) {
+            logger.warn("failed to close a client connection", e);
+        }
+        if (error == null) {
+            logger.info("client disconnected");
+        } else {
+            logger.warn("client disconnected: {}", error.toString());
+        }
+    }
+
+    /**
+     * Останавливает игру; вызывается из любого потока.
+     */
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Закрывает все соединения и сокет сервера.
+     *
+     * @throws IOException если не удалось закрыть селектор.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        for (Client client : clients) {
+            client.channel.close();
+        }
+        clients.clear();
+        server.close();
+        selector.close();
+    }
+
+    /**
+     * Подключенный клиент и его буферы.
+     */
+    private static final class Client {
+
+        /**
+         * Канал клиента.
+         */
+        private final SocketChannel channel;
+
+        /**
+         * Входящие команды.
+         */
+        private final ByteBuffer in = ByteBuffer.allocate(INBOUND_CAPACITY);
+
+        /**
+         * Исходящие кадры в режиме записи.
+         */
+        private final ByteBuffer out;
+
+        /**
+         * Ключ канала в селекторе.
+         */
+        private SelectionKey key;
+
+        /**
+         * Клиенту отправлено все, передача закрыта.
+         */
+        private boolean finished;
+
+        /**
+         * Клиент отстал: изменения не копятся, после опустошения буфера будет отправлено полное состояние.
+         */
+        private boolean resync;
+
+        /**
+         * Создает клиента.
+         *
+         * @param channel  Канал клиента.
+         * @param capacity Размер буфера исходящих данных.
+         */
+        Client(SocketChannel channel, int capacity) {
+            this.channel = channel;
+            this.out = ByteBuffer.allocateDirect(capacity);
+        }
+    }
+
+    /**
+     * Запускает сервер без окна.
+     *
+     * @param args порт, размер поля, длительность шага в миллисекундах и зерно; все аргументы необязательны
+     * @throws IOException если не удалось открыть сокет.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7777;
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 25;
+        long stepMillis = args.length > 2 ? Long.parseLong(args[2]) : Difficulty.NORMAL.getSpeed();
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+        GameEngine engine = new GameEngine(size, size, new int[]{0, 1, 2}, seed);
+        engine.placeApple();
+        try (GameServer server = new GameServer(new Snake(engine), TimeUnit.MILLISECONDS.toNanos(stepMillis),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port), DEFAULT_OUTBOUND_CAPACITY)) {
+            server.run(1);
+        }
+    }
+}
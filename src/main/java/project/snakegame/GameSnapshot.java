@@ -0,0 +1,270 @@
+package project.snakegame;
+
+import java.util.Arrays;
+
+/**
+ * Копия состояния {@link GameEngine}, которую поток игры передает потоку отрисовки.
+ * <p>
+ * Снимок обновляется инкрементально: при повторном копировании из того же ядра переносятся только
+ * клетки, освободившиеся у хвоста и добавленные у головы с прошлого копирования, поэтому стоимость
+ * копирования зависит от числа прошедших шагов, а не от длины змейки или площади поля.
+ * Экземпляры не потокобезопасны; передачей снимков между потоками занимается {@link SnapshotExchange}.
+ */
+public final class GameSnapshot implements GameState {
+
+    /**
+     * Ширина поля.
+     */
+    private final int width;
+
+    /**
+     * Высота поля.
+     */
+    private final int height;
+
+    /**
+     * Кольцевой буфер тела; клетка с номером {@code seq} хранится в элементе {@code seq % ring.length}.
+     */
+    private final int[] ring;
+
+    /**
+     * Битовая карта занятости поля телом и стенами.
+     */
+    private final long[] occupancy;
+
+    /**
+     * Уровень ядра, из которого копировался снимок, или {@code null}.
+     */
+    private Level level;
+
+    /**
+     * Номер хвоста.
+     */
+    private long tailSeq;
+
+    /**
+     * Длина змейки, или 0, если в снимок еще ничего не копировалось.
+     */
+    private int length;
+
+    /**
+     * Индекс клетки с яблоком.
+     */
+    private int apple = GameEngine.NO_CELL;
+
+    /**
+     * Направление движения.
+     */
+    private Direction direction = Direction.RIGHT;
+
+    /**
+     * Флаг, указывающий, жива ли змейка.
+     */
+    private boolean alive = true;
+
+    /**
+     * Количество выполненных шагов.
+     */
+    private long ticks;
+
+    /**
+     * Количество съеденных яблок.
+     */
+    private int score;
+
+    /**
+     * Хеш состояния, скопированный из ядра.
+     */
+    private long hash;
+
+    /**
+     * Создает пустой снимок для поля заданного размера.
+     *
+     * @param width  Ширина поля.
+     * @param height Высота поля.
+     */
+    public GameSnapshot(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.ring = new int[width * height];
+        this.occupancy = new long[(ring.length + 63) >>> 6];
+    }
+
+    /**
+     * Копирует в снимок текущее состояние ядра.
+     * <p>
+     * Если снимок пуст или отстал от ядра больше чем на длину змейки, тело копируется целиком.
+     *
+     * @param engine {@link GameEngine} с полем того же размера.
+     */
+    public void copyFrom(GameEngine engine) {
+        long engineTail = engine.getTailSeq();
+        long engineHead = engineTail + engine.getLength() - 1;
+        long head = tailSeq + length - 1;
+        if (length == 0 || engineTail > head || engineTail < tailSeq || engineHead < head
+                || level != engine.getLevel()) {
+            level = engine.getLevel();
+            Arrays.fill(occupancy, 0);
+            if (level != null) {
+                level.copyWalls(occupancy);
+            }
+            tailSeq = engineTail;
+            length = 0;
+            head = engineTail - 1;
+        }
+        while (tailSeq < engineTail) {
+            int cell = ring[(int) (tailSeq % ring.length)];
+            occupancy[cell >>> 6] &= ~(1L << cell);
+            tailSeq++;
+            length--;
+        }
+        while (head < engineHead) {
+            head++;
+            int cell = engine.getCell((int) (head - engineTail));
+            ring[(int) (head % ring.length)] = cell;
+            occupancy[cell >>> 6] |= 1L << cell;
+            length++;
+        }
+        apple = engine.getApple();
+        direction = engine.getDirection();
+        alive = engine.isAlive();
+        ticks = engine.getTicks();
+        score = engine.getScore();
+        hash = engine.getHash();
+    }
+
+    /**
+     * Возвращает уровень со стенами.
+     *
+     * @return {@link Level} или {@code null}, если стен нет.
+     */
+    @Override
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Возвращает ширину поля.
+     *
+     * @return Ширина в клетках.
+     */
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Возвращает высоту поля.
+     *
+     * @return Высота в клетках.
+     */
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Возвращает длину змейки на момент снимка.
+     *
+     * @return Количество клеток тела.
+     */
+    @Override
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Возвращает клетку тела по порядковому номеру.
+     *
+     * @param i Номер клетки от хвоста.
+     * @return Индекс клетки.
+     */
+    @Override
+    public int getCell(int i) {
+        if (i < 0 || i >= length) {
+            throw new IndexOutOfBoundsException("cell " + i + " of " + length);
+        }
+        return ring[(int) ((tailSeq + i) % ring.length)];
+    }
+
+    /**
+     * Возвращает номер хвоста на момент снимка.
+     *
+     * @return Номер хвоста.
+     */
+    @Override
+    public long getTailSeq() {
+        return tailSeq;
+    }
+
+    /**
+     * Проверяет, была ли клетка занята телом или стеной на момент снимка.
+     *
+     * @param cell Индекс клетки.
+     * @return {@code true}, если клетка принадлежит телу или в ней стена.
+     */
+    @Override
+    public boolean occupied(int cell) {
+        return (occupancy[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     * Возвращает положение яблока на момент снимка.
+     *
+     * @return Индекс клетки с яблоком или {@link GameEngine#NO_CELL}.
+     */
+    @Override
+    public int getApple() {
+        return apple;
+    }
+
+    /**
+     * Возвращает направление движения на момент снимка.
+     *
+     * @return {@link Direction}.
+     */
+    @Override
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * Возвращает статус змейки на момент снимка.
+     *
+     * @return {@code true}, если змейка жива.
+     */
+    @Override
+    public boolean isAlive() {
+        return alive;
+    }
+
+    /**
+     * Возвращает количество шагов на момент снимка.
+     *
+     * @return Число шагов.
+     */
+    @Override
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Возвращает счет на момент снимка.
+     *
+     * @return Количество съеденных яблок.
+     */
+    @Override
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Возвращает хеш состояния на момент снимка, скопированный из ядра.
+     *
+     * @return Хеш Зобриста.
+     */
+    @Override
+    public long getHash() {
+        return hash;
+    }
+}
@@ -0,0 +1,149 @@
+package project.snakegame;
+
+/**
+ * Состояние игры, доступное только для чтения.
+ * <p>
+ * Через этот интерфейс отрисовщики ({@link BoardRenderer}) получают тело змейки и яблоко,
+ * не завися от того, читают ли они само игровое ядро или его копию.
+ * Клетки задаются индексами {@code y * getWidth() + x}.
+ */
+public interface GameState {
+
+    /**
+     * Возвращает ширину поля.
+     *
+     * @return Ширина в клетках.
+     */
+    int getWidth();
+
+    /**
+     * Возвращает высоту поля.
+     *
+     * @return Высота в клетках.
+     */
+    int getHeight();
+
+    /**
+     * Возвращает текущую длину змейки.
+     *
+     * @return Количество клеток тела.
+     */
+    int getLength();
+
+    /**
+     * Возвращает клетку тела по порядковому номеру.
+     *
+     * @param i Номер клетки от хвоста ({@code 0}) до головы ({@code getLength() - 1}).
+     * @return Индекс клетки.
+     */
+    int getCell(int i);
+
+    /**
+     * Возвращает порядковый номер текущего хвоста среди всех клеток, когда-либо добавленных в голову.
+     * <p>
+     * По разнице номеров двух состояний можно узнать, сколько клеток освободилось у хвоста
+     * и сколько добавилось у головы, не сравнивая тела целиком.
+     *
+     * @return Номер хвоста; номер головы равен {@code getTailSeq() + getLength() - 1}.
+     */
+    long getTailSeq();
+
+    /**
+     * Возвращает индекс клетки головы.
+     *
+     * @return Индекс головы.
+     */
+    default int getHead() {
+        return getCell(getLength() - 1);
+    }
+
+    /**
+     * Возвращает соседнюю клетку в заданном направлении.
+     * Поле замкнуто в тор: выход за край переносит на противоположную сторону.
+     *
+     * @param cell      Индекс клетки.
+     * @param direction Направление.
+     * @return Индекс соседней клетки.
+     */
+    default int neighbour(int cell, Direction direction) {
+        int width = getWidth();
+        int height = getHeight();
+        int x = cell % width + direction.getDx();
+        int y = cell / width + direction.getDy();
+        if (x < 0) {
+            x = width - 1;
+        } else if (x == width) {
+            x = 0;
+        }
+        if (y < 0) {
+            y = height - 1;
+        } else if (y == height) {
+            y = 0;
+        }
+        return y * width + x;
+    }
+
+    /**
+     * Возвращает текущее направление движения.
+     *
+     * @return {@link Direction}.
+     */
+    Direction getDirection();
+
+    /**
+     * Проверяет, занята ли клетка телом змейки или стеной уровня.
+     *
+     * @param cell Индекс клетки.
+     * @return {@code true}, если клетка принадлежит телу или в ней стена.
+     */
+    boolean occupied(int cell);
+
+    /**
+     * Возвращает уровень со стенами.
+     *
+     * @return {@link Level} или {@code null}, если стен нет.
+     */
+    default Level getLevel() {
+        return null;
+    }
+
+    /**
+     * Возвращает положение яблока.
+     *
+     * @return Индекс клетки с яблоком или {@link GameEngine#NO_CELL}.
+     */
+    int getApple();
+
+    /**
+     * Возвращает текущий статус змейки (жива или нет).
+     *
+     * @return {@code true}, если змейка жива.
+     */
+    boolean isAlive();
+
+    /**
+     * Возвращает количество выполненных шагов.
+     *
+     * @return Число шагов.
+     */
+    long getTicks();
+
+    /**
+     * Возвращает количество съеденных яблок.
+     *
+     * @return Счет игры.
+     */
+    int getScore();
+
+    /**
+     * Возвращает хеш Зобриста состояния: тела, головы, направления, яблока, счета и признака смерти.
+     * <p>
+     * Реализация по умолчанию вычисляет хеш заново за время, пропорциональное длине змейки;
+     * {@link GameEngine} поддерживает его инкрементально и возвращает за постоянное время.
+     *
+     * @return Хеш состояния.
+     */
+    default long getHash() {
+        return Zobrist.of(this);
+    }
+}
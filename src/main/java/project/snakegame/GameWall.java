@@ -0,0 +1,308 @@
+package project.snakegame;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+/**
+ * Множество одновременно идущих игр ботов без JavaFX для наблюдения на {@link SpectatorWall}.
+ * <p>
+ * Игры делятся между несколькими фоновыми потоками непрерывными диапазонами. Каждый поток с интервалом шага
+ * делает по шагу во всех своих играх и публикует их состояние через {@link SnapshotExchange}. Поэтому
+ * потоки игр не ждут поток отрисовки, а отрисовка, отстающая на несколько шагов, видит самое свежее
+ * состояние. Закончившаяся (или затянувшаяся дольше {@link #MAX_TICKS} шагов) игра показывается
+ * еще {@link #RESTART_STEPS} шагов, после чего на ее месте начинается новая со следующим зерном: новая игра
+ * публикуется новым объектом {@link Game}, и отрисовка по смене объекта понимает, что место на стене
+ * нужно перерисовать целиком.
+ */
+public final class GameWall {
+
+    /**
+     * Переменная для логирования
+     */
+    private static final Logger logger = LogManager.getLogger(GameWall.class);
+
+    /**
+     * Количество шагов, в течение которых закончившаяся игра остается на месте перед перезапуском.
+     */
+    static final int RESTART_STEPS = 20;
+
+    /**
+     * Наибольшее количество шагов одной игры; защищает от ботов, которые ходят по кругу.
+     */
+    static final long MAX_TICKS = 100_000;
+
+    /**
+     * Игра одного места стены: ядро, контроллер и обменник снимков.
+     */
+    static final class Game {
+
+        /**
+         * Игровое ядро; изменяется только потоком игр.
+         */
+        private final GameEngine engine;
+
+        /**
+         * Контроллер, выбирающий направление.
+         */
+        private final Controller controller;
+
+        /**
+         * Обменник снимков для потока отрисовки.
+         */
+        private final SnapshotExchange exchange;
+
+        /**
+         * Количество шагов после окончания игры.
+         */
+        private int deadSteps;
+
+        /**
+         * Создает игру.
+         *
+         * @param engine     Игровое ядро с размещенным яблоком.
+         * @param controller Контроллер игры.
+         */
+        Game(GameEngine engine, Controller controller) {
+            this.engine = engine;
+            this.controller = controller;
+            this.exchange = new SnapshotExchange(engine);
+        }
+
+        /**
+         * Возвращает самый свежий снимок игры. Вызывается только из потока отрисовки.
+         *
+         * @return {@link GameSnapshot}.
+         */
+        GameSnapshot latest() {
+            return exchange.latest();
+        }
+    }
+
+    /**
+     * Ширина поля каждой игры.
+     */
+    private final int width;
+
+    /**
+     * Высота поля каждой игры.
+     */
+    private final int height;
+
+    /**
+     * Длительность шага в наносекундах.
+     */
+    private final long stepNanos;
+
+    /**
+     * Общее зерно, из которого выводятся зерна игр.
+     */
+    private final long seed;
+
+    /**
+     * Фабрика контроллеров; получает зерно игры.
+     */
+    private final LongFunction<? extends Controller> controllers;
+
+    /**
+     * Текущие игры мест стены.
+     */
+    private final AtomicReferenceArray<Game> games;
+
+    /**
+     * Потоки игр.
+     */
+    private final Thread[] threads;
+
+    /**
+     * Количество сделанных шагов во всех играх.
+     */
+    private final long[] steps;
+
+    /**
+     * Количество начатых игр.
+     */
+    private final int[] started;
+
+    /**
+     * Флаг работы.
+     */
+    private volatile boolean running;
+
+    /**
+     * Создает стену игр; игры начинаются, но шаги не выполняются до {@link #start()}.
+     *
+     * @param count       Количество одновременных игр.
+     * @param width       Ширина поля.
+     * @param height      Высота поля.
+     * @param stepNanos   Длительность шага в наносекундах; {@code 0} - без пауз.
+     * @param seed        Общее зерно.
+     * @param threads     Количество потоков игр.
+     * @param controllers Фабрика контроллеров; получает зерно игры и создает контроллер для нее.
+     */
+    public GameWall(int count, int width, int height, long stepNanos, long seed, int threads,
+                    LongFunction<? extends Controller> controllers) {
+        if (count <= 0 || threads <= 0) {
+            throw new IllegalArgumentException("invalid wall of " + count + " games on " + threads + " threads");
+        }
+        this.width = width;
+        this.height = height;
+        this.stepNanos = stepNanos;
+        this.seed = seed;
+        this.controllers = controllers;
+        this.games = new AtomicReferenceArray<>(count);
+        int workers = Math.min(threads, count);
+        this.threads = new Thread[workers];
+        this.steps = new long[workers];
+        this.started = new int[count];
+        for (int slot = 0; slot < count; slot++) {
+            games.set(slot, newGame(slot));
+        }
+    }
+
+    /**
+     * Начинает новую игру на месте стены.
+     *
+     * @param slot Номер места.
+     * @return {@link Game} со следующим зерном места.
+     */
+    private Game newGame(int slot) {
+        long gameSeed = BatchSimulator.gameSeed(seed, started[slot]++ * games.length() + slot);
+        GameEngine engine = new GameEngine(width, height, new int[]{0, 1, 2}, gameSeed);
+        engine.placeApple();
+        return new Game(engine, controllers.apply(gameSeed));
+    }
+
+    /**
+     * Запускает потоки игр.
+     */
+    public void start() {
+        running = true;
+        int count = games.length();
+        for (int w = 0; w < threads.length; w++) {
+            int worker = w;
+            int from = (int) ((long) count * w / threads.length);
+            int to = (int) ((long) count * (w + 1) / threads.length);
+            threads[w] = new Thread(() -> run(worker, from, to), "game-wall-" + w);
+            threads[w].setDaemon(true);
+            threads[w].start();
+        }
+        logger.info("{} games started on {} threads", count, threads.length);
+    }
+
+    /**
+     * Тело потока игр: делает шаг во всех играх диапазона и публикует их, затем ждет следующего шага.
+     * Если поток отстал, шаги не наверстываются пачкой, а отсчет начинается заново.
+     *
+     * @param worker Номер потока.
+     * @param from   Номер первого места.
+     * @param to     Номер места после последнего.
+     */
+    private void run(int worker, int from, int to) {
+        long next = System.nanoTime();
+        while (running) {
+            steps[worker] += step(from, to);
+            next += stepNanos;
+            long now = System.nanoTime();
+            if (next > now) {
+                LockSupport.parkNanos(next - now);
+            } else {
+                next = now;
+            }
+        }
+    }
+
+    /**
+     * Делает по шагу в играх диапазона, перезапускает закончившиеся игры и публикует состояние.
+     * Диапазон должен принадлежать одному потоку.
+     *
+     * @param from Номер первого места.
+     * @param to   Номер места после последнего.
+     * @return Количество игр, в которых был сделан шаг.
+     */
+    int step(int from, int to) {
+        int count = 0;
+        for (int slot = from; slot < to; slot++) {
+            Game game = games.get(slot);
+            GameEngine engine = game.engine;
+            if (engine.isAlive() && engine.getTicks() < MAX_TICKS && engine.getApple() != GameEngine.NO_CELL) {
+                engine.tick(game.controller.decide(engine));
+                count++;
+            } else if (++game.deadSteps > RESTART_STEPS) {
+                game = newGame(slot);
+                games.set(slot, game);
+            }
+            game.exchange.publish(game.engine);
+        }
+        return count;
+    }
+
+    /**
+     * Останавливает потоки игр и ждет их завершения.
+     *
+     * @throws InterruptedException если ожидание было прервано.
+     */
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread thread : threads) {
+            if (thread != null) {
+                LockSupport.unpark(thread);
+                thread.join();
+            }
+        }
+    }
+
+    /**
+     * Возвращает текущую игру места. Вызывается из потока отрисовки.
+     *
+     * @param slot Номер места.
+     * @return {@link Game}; после перезапуска возвращается другой объект.
+     */
+    Game get(int slot) {
+        return games.get(slot);
+    }
+
+    /**
+     * Возвращает количество одновременных игр.
+     *
+     * @return Число мест стены.
+     */
+    public int size() {
+        return games.length();
+    }
+
+    /**
+     * Возвращает ширину поля игр.
+     *
+     * @return Ширина в клетках.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Возвращает высоту поля игр.
+     *
+     * @return Высота в клетках.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Возвращает приблизительное количество сделанных шагов во всех играх.
+     * Счетчики потоков читаются без синхронизации, поэтому значение может немного отставать.
+     *
+     * @return Число шагов.
+     */
+    public long getSteps() {
+        long total = 0;
+        for (long count : steps) {
+            total += count;
+        }
+        return total;
+    }
+}
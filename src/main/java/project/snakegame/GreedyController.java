@@ -0,0 +1,69 @@
+package project.snakegame;
+
+/**
+ * Простой контроллер, который на каждом шаге идет к яблоку кратчайшим путем по тору,
+ * избегая клеток, занятых телом, если есть такая возможность.
+ * <p>
+ * Не создает объектов и подходит как базовая стратегия для пакетных прогонов.
+ */
+public class GreedyController implements Controller {
+
+    /**
+     * Направления в порядке перебора.
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * Выбирает свободное направление, сокращающее расстояние до яблока, или любое свободное.
+     *
+     * @param state {@link GameState} перед шагом.
+     * @return {@link Direction} для следующего шага.
+     */
+    @Override
+    public Direction decide(GameState state) {
+        int width = state.getWidth();
+        int height = state.getHeight();
+        int head = state.getHead();
+        int hx = head % width;
+        int hy = head / width;
+        int apple = state.getApple();
+        Direction current = state.getDirection();
+        Direction fallback = null;
+        for (Direction direction : DIRECTIONS) {
+            if (direction == current.opposite()) {
+                continue;
+            }
+            int x = Math.floorMod(hx + direction.getDx(), width);
+            int y = Math.floorMod(hy + direction.getDy(), height);
+            if (state.occupied(y * width + x)) {
+                continue;
+            }
+            if (apple != GameEngine.NO_CELL
+                    && distance(x, y, apple % width, apple / width, width, height)
+                    < distance(hx, hy, apple % width, apple / width, width, height)) {
+                return direction;
+            }
+            if (fallback == null || direction == current) {
+                fallback = direction;
+            }
+        }
+        return fallback;
+    }
+
+    /**
+     * Вычисляет манхэттенское расстояние между клетками на торе.
+     *
+     * @param x1     Координата X первой клетки.
+     * @param y1     Координата Y первой клетки.
+     * @param x2     Координата X второй клетки.
+     * @param y2     Координата Y второй клетки.
+     * @param width  Ширина поля.
+     * @param height Высота поля.
+     * @return Расстояние в шагах.
+     */
+    static int distance(int x1, int y1, int x2, int y2, int width, int height) {
+        int dx = Math.abs(x1 - x2);
+        int dy = Math.abs(y1 - y2);
+        return Math.min(dx, width - dx) + Math.min(dy, height - dy);
+    }
+}
@@ -0,0 +1,161 @@
+package project.snakegame;
+
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Двоичный интерфейс {@link VectorEnv} в стиле gym через стандартный ввод и вывод (или любой канал).
+ * <p>
+ * После запуска сервер пишет заголовок, затем на каждую команду отвечает результатом шага
+ * (числа little-endian):
+ * <pre>
+ * заголовок   int MAGIC ("SNKG"), int K, int ширина, int высота, int количество плоскостей
+ * 'r' long    сброс всех игр с зерном; ответ - результат {@link VectorEnv#getResult()}
+ * 's' byte[K] шаг всех игр с действиями; ответ - результат {@link VectorEnv#getResult()}
+ * 'q'         завершение (как и конец ввода)
+ * </pre>
+ * Результат имеет постоянный размер, поэтому клиент читает его одним вызовом без разбора, например:
+ * <pre>
+ * proc.stdin.write(b's' + actions.astype(np.int8).tobytes()); proc.stdin.flush()
+ * buf = proc.stdout.read(size)
+ * reward = np.frombuffer(buf, '&lt;f4', K); done = np.frombuffer(buf, np.uint8, K, 4 * K)
+ * obs = np.frombuffer(buf, np.uint8, offset=5 * K).reshape(K, 3, H, W)
+ * </pre>
+ * Стандартный вывод занят протоколом, поэтому консольный журнал при запуске через {@link #main(String[])}
+ * переключается на стандартный поток ошибок.
+ */
+public final class GymServer {
+
+    /**
+     * Сигнатура заголовка.
+     */
+    static final int MAGIC = 0x534E4B47;
+
+    /**
+     * Команда сброса.
+     */
+    static final byte RESET = 'r';
+
+    /**
+     * Команда шага.
+     */
+    static final byte STEP = 's';
+
+    /**
+     * Команда завершения.
+     */
+    static final byte QUIT = 'q';
+
+    /**
+     * Набор игр.
+     */
+    private final VectorEnv env;
+
+    /**
+     * Буфер входящей команды: байт команды и данные самой длинной команды.
+     */
+    private final ByteBuffer command;
+
+    /**
+     * Создает сервер над набором игр.
+     *
+     * @param env {@link VectorEnv}.
+     */
+    public GymServer(VectorEnv env) {
+        this.env = env;
+        this.command = ByteBuffer.allocateDirect(Math.max(Long.BYTES, env.getCount())).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Обслуживает команды до команды завершения или конца ввода.
+     *
+     * @param in  Канал команд.
+     * @param out Канал ответов.
+     * @throws IOException если произошла ошибка ввода-вывода или пришла неизвестная команда.
+     */
+    public void serve(ReadableByteChannel in, WritableByteChannel out) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(5 * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(env.getCount()).putInt(env.getWidth()).putInt(env.getHeight())
+                .putInt(VectorEnv.PLANES).flip();
+        write(out, header);
+        ByteBuffer result = env.getResult();
+        while (read(in, 1)) {
+            byte type = command.get();
+            if (type == QUIT) {
+                return;
+            } else if (type == RESET) {
+                if (!read(in, Long.BYTES)) {
+                    return;
+                }
+                env.reset(command.getLong());
+            } else if (type == STEP) {
+                if (!read(in, env.getCount())) {
+                    return;
+                }
+                env.step(command);
+            } else {
+                throw new IOException("unknown command: " + type);
+            }
+            result.clear();
+            write(out, result);
+        }
+    }
+
+    /**
+     * Читает заданное количество байт в {@link #command}.
+     *
+     * @param in     Канал.
+     * @param length Количество байт.
+     * @return {@code false}, если ввод закончился.
+     * @throws IOException если произошла ошибка чтения.
+     */
+    private boolean read(ReadableByteChannel in, int length) throws IOException {
+        command.clear().limit(length);
+        while (command.hasRemaining()) {
+            if (in.read(command) < 0) {
+                return false;
+            }
+        }
+        command.flip();
+        return true;
+    }
+
+    /**
+     * Записывает буфер целиком.
+     *
+     * @param out    Канал.
+     * @param buffer Буфер в режиме чтения.
+     * @throws IOException если произошла ошибка записи.
+     */
+    private static void write(WritableByteChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * Запускает сервер на стандартных вводе и выводе.
+     *
+     * @param args количество игр K, размер поля и наибольшее количество шагов эпизода; все аргументы необязательны
+     * @throws IOException если произошла ошибка ввода-вывода.
+     */
+    public static void main(String[] args) throws IOException {
+        if (System.getProperty("snake.log.console") == null) {
+            System.setProperty("snake.log.console", "SYSTEM_ERR");
+        }
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        long maxSteps = args.length > 2 ? Long.parseLong(args[2]) : 100L * size * size;
+        GymServer server = new GymServer(new VectorEnv(count, size, size, maxSteps));
+        try (FileInputStream stdin = new FileInputStream(FileDescriptor.in);
+             FileOutputStream stdout = new FileOutputStream(FileDescriptor.out)) {
+            server.serve(stdin.getChannel(), stdout.getChannel());
+        }
+    }
+}
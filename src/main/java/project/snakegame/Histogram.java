@@ -0,0 +1,170 @@
+package project.snakegame;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Гистограмма неотрицательных значений (длительностей в наносекундах, байтов и т.п.) с логарифмическими корзинами.
+ * <p>
+ * Как и в HdrHistogram, диапазон значений делится на октавы {@code [2^k, 2^(k+1))}, каждая из которых
+ * разбита на {@link #SUB_COUNT}/2 равных корзин, поэтому относительная погрешность перцентилей не превышает
+ * 1/16 во всем диапазоне {@code long}, а память постоянна - меньше тысячи счетчиков. Запись - это несколько
+ * битовых операций и запись в массив, без блокировок и создания объектов.
+ * <p>
+ * Писать в гистограмму должен один поток; читать можно из любого (например, из потока JMX),
+ * при этом снимок может не учитывать записи, сделанные во время чтения.
+ */
+public final class Histogram {
+
+    /**
+     * Количество бит точности внутри октавы.
+     */
+    private static final int SUB_BITS = 5;
+
+    /**
+     * Количество корзин для значений меньше {@code 2^SUB_BITS}, где каждая корзина - одно значение.
+     */
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    /**
+     * Количество корзин в каждой следующей октаве.
+     */
+    private static final int HALF = SUB_COUNT >> 1;
+
+    /**
+     * Общее количество корзин.
+     */
+    private static final int BUCKETS = (Long.SIZE - SUB_BITS) * HALF + SUB_COUNT;
+
+    /**
+     * Счетчики корзин.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Количество записанных значений.
+     */
+    private volatile long count;
+
+    /**
+     * Сумма записанных значений.
+     */
+    private volatile long total;
+
+    /**
+     * Максимальное записанное значение.
+     */
+    private volatile long max;
+
+    /**
+     * Записывает значение. Отрицательные значения записываются как 0.
+     *
+     * @param value Значение.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        int bucket = bucket(value);
+        counts.lazySet(bucket, counts.get(bucket) + 1);
+        total += value;
+        if (value > max) {
+            max = value;
+        }
+        count++;
+    }
+
+    /**
+     * Возвращает номер корзины для значения.
+     *
+     * @param value Неотрицательное значение.
+     * @return Номер корзины.
+     */
+    static int bucket(long value) {
+        int shift = Math.max(0, Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BITS);
+        return shift * HALF + (int) (value >>> shift);
+    }
+
+    /**
+     * Возвращает наибольшее значение, попадающее в корзину.
+     *
+     * @param bucket Номер корзины.
+     * @return Верхняя граница корзины.
+     */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket;
+        }
+        int shift = bucket / HALF - 1;
+        long mantissa = bucket - (long) shift * HALF;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    /**
+     * Возвращает значение, не меньше которого заданная доля записанных значений.
+     *
+     * @param percentile Перцентиль от 0 до 100.
+     * @return Верхняя граница корзины, в которую попал перцентиль, но не больше максимума, или 0, если записей нет.
+     */
+    public long getPercentile(double percentile) {
+        long recorded = count;
+        if (recorded == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * recorded));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(upperBound(bucket), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Возвращает количество записанных значений.
+     *
+     * @return Число значений.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Возвращает сумму записанных значений.
+     *
+     * @return Сумма.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Возвращает среднее записанное значение.
+     *
+     * @return Среднее или 0, если записей нет.
+     */
+    public long getMean() {
+        long recorded = count;
+        return recorded == 0 ? 0 : total / recorded;
+    }
+
+    /**
+     * Возвращает максимальное записанное значение.
+     *
+     * @return Максимум или 0, если записей нет.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Создает сводку гистограммы для отображения и JMX.
+     *
+     * @return {@link HistogramSummary} с основными перцентилями.
+     */
+    public HistogramSummary summary() {
+        return new HistogramSummary(getCount(), getMean(), getPercentile(50), getPercentile(90),
+                getPercentile(99), getPercentile(99.9), getMax());
+    }
+}
@@ -0,0 +1,139 @@
+package project.snakegame;
+
+/**
+ * Сводка {@link Histogram}: количество, среднее, основные перцентили и максимум.
+ * <p>
+ * Через JMX сводка видна как составной атрибут с полями, названными по методам доступа.
+ */
+public final class HistogramSummary {
+
+    /**
+     * Количество записанных значений.
+     */
+    private final long count;
+
+    /**
+     * Среднее значение.
+     */
+    private final long mean;
+
+    /**
+     * Медиана.
+     */
+    private final long p50;
+
+    /**
+     * 90-й перцентиль.
+     */
+    private final long p90;
+
+    /**
+     * 99-й перцентиль.
+     */
+    private final long p99;
+
+    /**
+     * 99.9-й перцентиль.
+     */
+    private final long p999;
+
+    /**
+     * Максимальное значение.
+     */
+    private final long max;
+
+    /**
+     * Создает сводку.
+     *
+     * @param count Количество значений.
+     * @param mean  Среднее.
+     * @param p50   Медиана.
+     * @param p90   90-й перцентиль.
+     * @param p99   99-й перцентиль.
+     * @param p999  99.9-й перцентиль.
+     * @param max   Максимум.
+     */
+    public HistogramSummary(long count, long mean, long p50, long p90, long p99, long p999, long max) {
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    /**
+     * Возвращает количество значений.
+     *
+     * @return Число значений.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Возвращает среднее значение.
+     *
+     * @return Среднее.
+     */
+    public long getMean() {
+        return mean;
+    }
+
+    /**
+     * Возвращает медиану.
+     *
+     * @return 50-й перцентиль.
+     */
+    public long getP50() {
+        return p50;
+    }
+
+    /**
+     * Возвращает 90-й перцентиль.
+     *
+     * @return 90-й перцентиль.
+     */
+    public long getP90() {
+        return p90;
+    }
+
+    /**
+     * Возвращает 99-й перцентиль.
+     *
+     * @return 99-й перцентиль.
+     */
+    public long getP99() {
+        return p99;
+    }
+
+    /**
+     * Возвращает 99.9-й перцентиль.
+     *
+     * @return 99.9-й перцентиль.
+     */
+    public long getP999() {
+        return p999;
+    }
+
+    /**
+     * Возвращает максимальное значение.
+     *
+     * @return Максимум.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Возвращает строковое представление сводки.
+     *
+     * @return Строка вида {@code n=.. mean=.. p50=.. p99=.. max=..}.
+     */
+    @Override
+    public String toString() {
+        return "n=" + count + " mean=" + mean + " p50=" + p50 + " p90=" + p90 + " p99=" + p99
+                + " p99.9=" + p999 + " max=" + max;
+    }
+}
@@ -0,0 +1,125 @@
+package project.snakegame;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограниченная очередь нажатий клавиш без блокировок для одного писателя и одного читателя.
+ * <p>
+ * Писатель - поток JavaFX, который кладет направление и момент нажатия. Читатель - поток игры,
+ * который забирает нажатия перед шагом. Благодаря очереди несколько нажатий за один шаг
+ * не перезаписывают друг друга, а применяются на последовательных шагах.
+ * Очередь не создает объектов ни при записи, ни при чтении.
+ */
+public final class InputQueue {
+
+    /**
+     * Направления в кольцевом буфере.
+     */
+    private final Direction[] directions;
+
+    /**
+     * Моменты нажатий ({@link System#nanoTime()}) в кольцевом буфере.
+     */
+    private final long[] stamps;
+
+    /**
+     * Маска для получения позиции в буфере; вместимость - степень двойки.
+     */
+    private final int mask;
+
+    /**
+     * Номер следующего элемента для чтения. Изменяется только читателем.
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Номер следующего элемента для записи. Изменяется только писателем.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Создает очередь заданной вместимости.
+     *
+     * @param capacity Вместимость; округляется вверх до степени двойки.
+     */
+    public InputQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.directions = new Direction[size];
+        this.stamps = new long[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Добавляет нажатие в очередь. Вызывается только писателем.
+     *
+     * @param direction Направление.
+     * @param stamp     Момент нажатия по {@link System#nanoTime()}.
+     * @return {@code true}, если нажатие добавлено, {@code false}, если очередь заполнена и нажатие отброшено.
+     */
+    public boolean offer(Direction direction, long stamp) {
+        long t = tail.get();
+        if (t - head.get() == directions.length) {
+            return false;
+        }
+        int pos = (int) t & mask;
+        directions[pos] = direction;
+        stamps[pos] = stamp;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Проверяет, пуста ли очередь. Вызывается только читателем.
+     *
+     * @return {@code true}, если нажатий нет.
+     */
+    public boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    /**
+     * Возвращает направление первого нажатия в очереди. Вызывается только читателем.
+     *
+     * @return {@link Direction} первого нажатия; очередь не должна быть пустой.
+     */
+    public Direction peek() {
+        return directions[(int) head.get() & mask];
+    }
+
+    /**
+     * Возвращает момент первого нажатия в очереди. Вызывается только читателем.
+     *
+     * @return Момент нажатия по {@link System#nanoTime()}; очередь не должна быть пустой.
+     */
+    public long peekStamp() {
+        return stamps[(int) head.get() & mask];
+    }
+
+    /**
+     * Удаляет первое нажатие из очереди. Вызывается только читателем.
+     */
+    public void remove() {
+        long h = head.get();
+        directions[(int) h & mask] = null;
+        head.lazySet(h + 1);
+    }
+
+    /**
+     * Отбрасывает из начала очереди нажатия, которые не меняют направление: повтор текущего направления
+     * и разворот. Такие нажатия не должны занимать шаг, иначе они задерживают следующий настоящий поворот.
+     * Вызывается только читателем.
+     *
+     * @param current Текущее направление змейки.
+     * @return {@code true}, если первым в очереди осталось нажатие, меняющее направление.
+     */
+    public boolean skipToTurn(Direction current) {
+        while (!isEmpty()) {
+            Direction direction = peek();
+            if (direction != current && direction != current.opposite()) {
+                return true;
+            }
+            remove();
+        }
+        return false;
+    }
+}
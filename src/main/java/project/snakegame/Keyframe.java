@@ -0,0 +1,176 @@
+package project.snakegame;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Ключевой кадр повтора - полное состояние игры на некотором шаге.
+ * <p>
+ * Кадр позволяет начать воспроизведение с середины записи, не проигрывая все предыдущие шаги.
+ * Формат кадра (числа varint, если не указано иное):
+ * <pre>
+ * byte   порядковый номер {@link Direction}
+ *        клетка яблока + 1 (0 - яблока нет)
+ *        счет
+ * long   состояние генератора яблок
+ *        длина тела
+ * byte   формат тела: {@link #BODY_MOVES} или {@link #BODY_CELLS}
+ *        BODY_MOVES: клетка хвоста, затем по 2 бита на направление от каждой клетки к следующей
+ *        BODY_CELLS: индексы всех клеток от хвоста к голове
+ *        количество свободных клеток, затем их индексы в порядке множества свободных клеток
+ * </pre>
+ * Порядок свободных клеток сохраняется, потому что от него зависит размещение следующих яблок.
+ */
+final class Keyframe {
+
+    /**
+     * Тело записано клеткой хвоста и переходами между соседними клетками.
+     */
+    private static final byte BODY_MOVES = 0;
+
+    /**
+     * Тело записано индексами клеток: используется, если соседние клетки тела не смежны.
+     */
+    private static final byte BODY_CELLS = 1;
+
+    /**
+     * Наибольшая длина одного числа varint.
+     */
+    private static final int MAX_VARINT = 5;
+
+    /**
+     * Закрытый конструктор: класс содержит только статические методы.
+     */
+    private Keyframe() {
+    }
+
+    /**
+     * Возвращает наибольший размер кадра для поля заданной площади.
+     *
+     * @param area Количество клеток поля.
+     * @return Размер буфера, в который гарантированно помещается кадр.
+     */
+    static int maxSize(int area) {
+        return 1 + 3 * MAX_VARINT + Long.BYTES + 1 + MAX_VARINT + area * MAX_VARINT;
+    }
+
+    /**
+     * Записывает состояние игры в буфер.
+     *
+     * @param engine {@link GameEngine}, состояние которого записывается.
+     * @param out    Буфер размером не меньше {@link #maxSize(int)}.
+     */
+    static void write(GameEngine engine, ByteBuffer out) {
+        out.put((byte) engine.getDirection().ordinal());
+        Replay.writeVarint(out, engine.getApple() + 1);
+        Replay.writeVarint(out, engine.getScore());
+        out.putLong(engine.getRandom().getState());
+        Replay.writeVarint(out, engine.getLength());
+        int start = out.position();
+        if (!writeMoves(engine, out)) {
+            out.position(start);
+            out.put(BODY_CELLS);
+            for (int i = 0; i < engine.getLength(); i++) {
+                Replay.writeVarint(out, engine.getCell(i));
+            }
+        }
+        Replay.writeVarint(out, engine.getFreeCount());
+        for (int i = 0; i < engine.getFreeCount(); i++) {
+            Replay.writeVarint(out, engine.getFreeCell(i));
+        }
+    }
+
+    /**
+     * Записывает тело в формате {@link #BODY_MOVES}.
+     *
+     * @param engine {@link GameEngine}.
+     * @param out    Буфер.
+     * @return {@code false}, если какие-то соседние клетки тела не смежны и формат неприменим.
+     */
+    private static boolean writeMoves(GameEngine engine, ByteBuffer out) {
+        out.put(BODY_MOVES);
+        Replay.writeVarint(out, engine.getCell(0));
+        int packed = 0;
+        int bits = 0;
+        for (int i = 1; i < engine.getLength(); i++) {
+            int move = move(engine, engine.getCell(i - 1), engine.getCell(i));
+            if (move < 0) {
+                return false;
+            }
+            packed |= move << bits;
+            bits += 2;
+            if (bits == Byte.SIZE) {
+                out.put((byte) packed);
+                packed = 0;
+                bits = 0;
+            }
+        }
+        if (bits != 0) {
+            out.put((byte) packed);
+        }
+        return true;
+    }
+
+    /**
+     * Находит направление перехода между соседними клетками.
+     *
+     * @param engine {@link GameEngine}, задающий размеры поля.
+     * @param from   Исходная клетка.
+     * @param to     Следующая клетка.
+     * @return Порядковый номер {@link Direction} или -1, если клетки не смежны.
+     */
+    private static int move(GameEngine engine, int from, int to) {
+        for (Direction direction : Direction.values()) {
+            if (engine.neighbour(from, direction) == to) {
+                return direction.ordinal();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Читает кадр из буфера и восстанавливает по нему состояние игры.
+     *
+     * @param in     Буфер, установленный на начало кадра.
+     * @param ticks  Номер шага, на котором записан кадр.
+     * @param engine {@link GameEngine} того же поля и зерна, что и записанная игра.
+     * @throws IOException если кадр поврежден.
+     */
+    static void read(ByteBuffer in, long ticks, GameEngine engine) throws IOException {
+        try {
+            Direction[] directions = Direction.values();
+            Direction direction = directions[in.get()];
+            int apple = (int) Replay.readVarint(in) - 1;
+            int score = (int) Replay.readVarint(in);
+            long randomState = in.getLong();
+            int[] body = new int[(int) Replay.readVarint(in)];
+            byte format = in.get();
+            if (format == BODY_MOVES) {
+                body[0] = (int) Replay.readVarint(in);
+                int packed = 0;
+                for (int i = 1; i < body.length; i++) {
+                    int bits = (i - 1) % 4 * 2;
+                    if (bits == 0) {
+                        packed = in.get();
+                    }
+                    body[i] = engine.neighbour(body[i - 1], directions[(packed >>> bits) & 3]);
+                }
+            } else if (format == BODY_CELLS) {
+                for (int i = 0; i < body.length; i++) {
+                    body[i] = (int) Replay.readVarint(in);
+                }
+            } else {
+                throw new IOException("unknown keyframe body format: " + format);
+            }
+            int[] free = new int[(int) Replay.readVarint(in)];
+            for (int i = 0; i < free.length; i++) {
+                free[i] = (int) Replay.readVarint(in);
+            }
+            engine.restore(body, free, direction, apple, score, ticks, randomState);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException
+                 | IllegalArgumentException e) {
+            throw new IOException("corrupted keyframe at tick " + ticks, e);
+        }
+    }
+}
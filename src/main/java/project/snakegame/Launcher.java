@@ -1,15 +1,85 @@
 package project.snakegame;
 
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+
 /**
  * Класс для помощи в визуальном представлении
+ * <p>
+ * Перед запуском выбирает реализацию журнала. Log4j Core и Disruptor - автоматические модули, которые jlink
+ * не включает в образ, поэтому сборка образа копирует их в каталог {@value #IMAGE_LOGGING_DIR} образа, а этот
+ * класс подключает их через загрузчик классов потока: Log4j API находит в нем Log4j Core, и журнал работает
+ * так же, как при запуске с пути модулей, - асинхронно и с конфигурацией {@code log4j2.xml}.
+ * <p>
+ * Если задано {@code -Dsnake.log=lite} или Log4j Core недоступен вовсе, используется простой журнал из
+ * Log4j API: он пишет в стандартный поток ошибок и не загружает конфигурацию, плагины и асинхронные очереди,
+ * что сокращает запуск. Поэтому класс не должен обращаться к журналу сам.
  */
 public class Launcher {
 
+    /**
+     * Класс, по наличию которого определяется, доступен ли Log4j Core.
+     */
+    private static final String LOG4J_CORE_CLASS = "org/apache/logging/log4j/core/LoggerContext.class";
+
+    /**
+     * Каталог образа jlink относительно {@code java.home}, в котором лежат архивы Log4j Core и Disruptor.
+     */
+    static final String IMAGE_LOGGING_DIR = "lib/app";
+
     /**
      * Точка входа в класс, ссылается на класс Main
      * @param args аргументы
      */
     public static void main(String[] args) {
+        if ("lite".equals(System.getProperty("snake.log"))
+                || ClassLoader.getSystemResource(LOG4J_CORE_CLASS) == null && !useImageLogging()) {
+            useLiteLogging();
+        }
         Main.main(args);
     }
+
+    /**
+     * Подключает архивы журнала из каталога {@value #IMAGE_LOGGING_DIR} образа загрузчиком классов
+     * текущего потока. Потоки, созданные позже, в том числе потоки JavaFX и асинхронного журнала,
+     * наследуют этот загрузчик.
+     *
+     * @return {@code true}, если Log4j Core найден в образе.
+     */
+    static boolean useImageLogging() {
+        File[] jars = new File(System.getProperty("java.home"), IMAGE_LOGGING_DIR)
+                .listFiles((dir, name) -> name.endsWith(".jar"));
+        if (jars == null || jars.length == 0) {
+            return false;
+        }
+        URL[] urls = new URL[jars.length];
+        try {
+            for (int i = 0; i < jars.length; i++) {
+                urls[i] = jars[i].toURI().toURL();
+            }
+        } catch (MalformedURLException e) {
+            return false;
+        }
+        ClassLoader loader = new URLClassLoader("snake-logging", urls, Launcher.class.getClassLoader());
+        if (loader.getResource(LOG4J_CORE_CLASS) == null) {
+            return false;
+        }
+        Thread.currentThread().setContextClassLoader(loader);
+        return true;
+    }
+
+    /**
+     * Переключает Log4j API на простой журнал, если реализация не задана явно.
+     */
+    static void useLiteLogging() {
+        if (System.getProperty("log4j2.loggerContextFactory") == null) {
+            System.setProperty("log4j2.loggerContextFactory",
+                    "org.apache.logging.log4j.simple.SimpleLoggerContextFactory");
+        }
+        if (System.getProperty("org.apache.logging.log4j.simplelog.level") == null) {
+            System.setProperty("org.apache.logging.log4j.simplelog.level", "INFO");
+        }
+    }
 }
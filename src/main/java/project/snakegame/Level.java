@@ -0,0 +1,291 @@
+package project.snakegame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Уровень: размер поля и неподвижные стены.
+ * <p>
+ * Стены хранятся битовой картой в той же раскладке, что и карта занятости {@link GameEngine}: бит с номером
+ * индекса клетки {@code y * width + x} установлен, если в клетке стена. Ядро копирует эту карту в свою карту
+ * занятости, поэтому проверка столкновения со стеной и с телом - одна и та же проверка бита.
+ * <p>
+ * Файл уровня (числа little-endian):
+ * <pre>
+ * int    MAGIC ("SNKL")
+ * int    версия формата
+ * int    ширина, int высота
+ * long[] битовая карта стен, {@code (width * height + 63) / 64} элементов
+ * </pre>
+ * Карта в файле совпадает с картой в памяти, поэтому чтение через отображение файла в память - это
+ * проверка заголовка и одно массовое копирование без разбора. Текстовое описание уровня ({@code #} - стена,
+ * любой другой символ - свободная клетка) переводится в файл методом {@link #main(String[])}.
+ */
+public final class Level {
+
+    /**
+     * Сигнатура файла уровня.
+     */
+    static final int MAGIC = 0x534E4B4C;
+
+    /**
+     * Версия формата.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Размер заголовка файла в байтах.
+     */
+    private static final int HEADER_SIZE = 4 * Integer.BYTES;
+
+    /**
+     * Ширина поля.
+     */
+    private final int width;
+
+    /**
+     * Высота поля.
+     */
+    private final int height;
+
+    /**
+     * Битовая карта стен.
+     */
+    private final long[] walls;
+
+    /**
+     * Индексы клеток со стенами по возрастанию.
+     */
+    private final int[] wallCells;
+
+    /**
+     * Создает уровень по битовой карте стен.
+     *
+     * @param width  Ширина поля.
+     * @param height Высота поля.
+     * @param walls  Битовая карта стен; копируется.
+     * @throws IllegalArgumentException если размеры не положительны, карта другого размера
+     *                                  или в ней отмечены клетки за пределами поля.
+     */
+    public Level(int width, int height, long[] walls) {
+        if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("invalid level size: " + width + "x" + height);
+        }
+        int area = width * height;
+        if (walls.length != words(area)) {
+            throw new IllegalArgumentException("wall mask has " + walls.length + " words instead of " + words(area));
+        }
+        if ((area & 63) != 0 && walls[walls.length - 1] >>> (area & 63) != 0) {
+            throw new IllegalArgumentException("wall mask marks cells outside the board");
+        }
+        this.width = width;
+        this.height = height;
+        this.walls = walls.clone();
+        int count = 0;
+        for (long word : walls) {
+            count += Long.bitCount(word);
+        }
+        this.wallCells = new int[count];
+        int i = 0;
+        for (int word = 0; word < walls.length; word++) {
+            for (long bits = walls[word]; bits != 0; bits &= bits - 1) {
+                wallCells[i++] = word << 6 | Long.numberOfTrailingZeros(bits);
+            }
+        }
+    }
+
+    /**
+     * Возвращает количество слов битовой карты для поля заданной площади.
+     *
+     * @param area Количество клеток.
+     * @return Количество {@code long}.
+     */
+    private static int words(int area) {
+        return (area + 63) >>> 6;
+    }
+
+    /**
+     * Строит уровень по текстовому описанию.
+     *
+     * @param rows Строки поля одинаковой длины: {@code #} - стена, любой другой символ - свободная клетка.
+     * @return {@link Level}.
+     * @throws IllegalArgumentException если строк нет или они разной длины.
+     */
+    public static Level parse(List<String> rows) {
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("the level has no rows");
+        }
+        int width = rows.get(0).length();
+        int height = rows.size();
+        long[] walls = new long[words(width * height)];
+        for (int y = 0; y < height; y++) {
+            String row = rows.get(y);
+            if (row.length() != width) {
+                throw new IllegalArgumentException("row " + y + " has " + row.length() + " cells instead of " + width);
+            }
+            for (int x = 0; x < width; x++) {
+                if (row.charAt(x) == '#') {
+                    int cell = y * width + x;
+                    walls[cell >>> 6] |= 1L << cell;
+                }
+            }
+        }
+        return new Level(width, height, walls);
+    }
+
+    /**
+     * Читает уровень из файла, отображая его в память.
+     *
+     * @param file Путь к файлу уровня.
+     * @return {@link Level}.
+     * @throws IOException если файл не удалось прочитать или он некорректен.
+     */
+    public static Level read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("not a level file: " + file);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("not a level file: " + file);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported level version " + version + ": " + file);
+            }
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE
+                    || size != HEADER_SIZE + (long) words(width * height) * Long.BYTES) {
+                throw new IOException("malformed level " + width + "x" + height + " of " + size + " bytes: " + file);
+            }
+            long[] walls = new long[words(width * height)];
+            buffer.asLongBuffer().get(walls);
+            try {
+                return new Level(width, height, walls);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("malformed level: " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Записывает уровень в файл.
+     *
+     * @param file Путь к файлу уровня.
+     * @throws IOException если файл не удалось записать.
+     */
+    public void write(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + walls.length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height);
+        buffer.asLongBuffer().put(walls);
+        buffer.rewind();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Выбирает начальное тело змейки длины 3, движущейся вправо: первые три свободные клетки строки,
+     * за которыми есть еще одна свободная клетка.
+     *
+     * @return Индексы клеток от хвоста к голове.
+     * @throws IllegalStateException если на уровне нет такого места.
+     */
+    public int[] spawn() {
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x + 3 < width; x++) {
+                int cell = y * width + x;
+                if (!isWall(cell) && !isWall(cell + 1) && !isWall(cell + 2) && !isWall(cell + 3)) {
+                    return new int[]{cell, cell + 1, cell + 2};
+                }
+            }
+        }
+        throw new IllegalStateException("the level has no room for the snake");
+    }
+
+    /**
+     * Проверяет, есть ли в клетке стена.
+     *
+     * @param cell Индекс клетки.
+     * @return {@code true}, если в клетке стена.
+     */
+    public boolean isWall(int cell) {
+        return (walls[cell >>> 6] & 1L << cell) != 0;
+    }
+
+    /**
+     * Копирует битовую карту стен в карту занятости.
+     *
+     * @param occupancy Карта того же размера.
+     */
+    void copyWalls(long[] occupancy) {
+        System.arraycopy(walls, 0, occupancy, 0, walls.length);
+    }
+
+    /**
+     * Возвращает индексы клеток со стенами.
+     *
+     * @return Массив по возрастанию; не изменять.
+     */
+    int[] getWallCells() {
+        return wallCells;
+    }
+
+    /**
+     * Возвращает количество стен.
+     *
+     * @return Число клеток со стенами.
+     */
+    public int getWallCount() {
+        return wallCells.length;
+    }
+
+    /**
+     * Возвращает ширину поля.
+     *
+     * @return Ширина в клетках.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Возвращает высоту поля.
+     *
+     * @return Высота в клетках.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Переводит текстовое описание уровня в файл уровня.
+     *
+     * @param args путь к текстовому описанию и путь к создаваемому файлу
+     * @throws IOException если файл не удалось прочитать или записать
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: Level <level.txt> <level.snkl>");
+            System.exit(2);
+        }
+        Level level = parse(Files.readAllLines(Path.of(args[0]), StandardCharsets.UTF_8));
+        level.write(Path.of(args[1]));
+        System.out.printf("%dx%d level with %d walls written to %s%n", level.width, level.height,
+                level.getWallCount(), args[1]);
+    }
+}
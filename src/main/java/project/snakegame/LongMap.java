@@ -0,0 +1,160 @@
+package project.snakegame;
+
+/**
+ * Хеш-таблица с примитивными ключами {@code long} и открытой адресацией.
+ * <p>
+ * Ключи хранятся в массиве {@code long[]} без упаковки в {@link Long}, коллизии разрешаются линейным
+ * пробированием, а удаление сдвигает следующие элементы цепочки назад, поэтому в таблице нет «надгробий»
+ * и поиск не замедляется после многих удалений. Поиск и удаление не создают объектов.
+ * <p>
+ * Класс не потокобезопасен.
+ *
+ * @param <V> Тип значений; {@code null} не допускается.
+ */
+final class LongMap<V> {
+
+    /**
+     * Начальная емкость таблицы.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Ключи.
+     */
+    private long[] keys;
+
+    /**
+     * Значения; {@code null} означает пустую ячейку.
+     */
+    private Object[] values;
+
+    /**
+     * Маска индекса ячейки: емкость минус один.
+     */
+    private int mask;
+
+    /**
+     * Количество элементов.
+     */
+    private int size;
+
+    /**
+     * Создает пустую таблицу.
+     */
+    LongMap() {
+        keys = new long[INITIAL_CAPACITY];
+        values = new Object[INITIAL_CAPACITY];
+        mask = INITIAL_CAPACITY - 1;
+    }
+
+    /**
+     * Возвращает значение по ключу.
+     *
+     * @param key Ключ.
+     * @return Значение или {@code null}, если ключа нет.
+     */
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            Object value = values[slot];
+            if (value == null || keys[slot] == key) {
+                return (V) value;
+            }
+        }
+    }
+
+    /**
+     * Добавляет или заменяет значение по ключу.
+     *
+     * @param key   Ключ.
+     * @param value Значение, не {@code null}.
+     */
+    void put(long key, V value) {
+        int slot = slot(key);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > (mask + 1) >>> 1) {
+            resize();
+        }
+    }
+
+    /**
+     * Удаляет значение по ключу.
+     * <p>
+     * Следующие элементы цепочки, которые не стоят на своих исходных ячейках, сдвигаются на освободившееся место.
+     *
+     * @param key Ключ.
+     * @return Удаленное значение или {@code null}, если ключа не было.
+     */
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        int slot = slot(key);
+        while (values[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        Object removed = values[slot];
+        if (removed == null) {
+            return null;
+        }
+        size--;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+            int home = slot(keys[next]);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        values[hole] = null;
+        return (V) removed;
+    }
+
+    /**
+     * Возвращает количество элементов.
+     *
+     * @return Число ключей.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Возвращает исходную ячейку ключа.
+     *
+     * @param key Ключ.
+     * @return Индекс ячейки.
+     */
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ hash >>> 32) & mask;
+    }
+
+    /**
+     * Удваивает емкость таблицы и переносит элементы.
+     */
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = slot(oldKeys[i]);
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -1,26 +1,32 @@
 package project.snakegame;
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.application.Platform;
-import javafx.scene.Group;
 import javafx.scene.Scene;
 import javafx.scene.control.ChoiceDialog;
 import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
-import javafx.scene.shape.Circle;
 import javafx.scene.shape.Rectangle;
 import javafx.stage.Stage;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
-import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Главный класс приложения "Змейка", отвечающий за запуск и управление игровым процессом.
@@ -38,25 +44,47 @@ public class Main extends Application {
      */
     private static final String name = "Snake";
     /**
-     * Размер сетки
+     * Размер сетки по умолчанию
      */
     private static final int size = 25;
+    /**
+     * Ширина поля в клетках, задается системным свойством {@code snake.width}
+     */
+    private static final int width = Integer.getInteger("snake.width", size);
+    /**
+     * Высота поля в клетках, задается системным свойством {@code snake.height}
+     */
+    private static final int height = Integer.getInteger("snake.height", size);
+    /**
+     * Наибольший размер стороны клетки в пикселях
+     */
+    private static final int maxCellSize = 20;
+    /**
+     * Наибольший размер видимой области поля в пикселях
+     */
+    private static final int maxViewport = 500;
+    /**
+     * Интервал обновления отладочной панели ({@code -Dsnake.debug=true}) в наносекундах
+     */
+    private static final long debugUpdateNanos = 500_000_000L;
+    /**
+     * Наибольший размер стены наблюдения ({@code -Dsnake.wall}) в пикселях
+     */
+    private static final int maxWallViewport = 1000;
     /**
      * Объект змейки, представляющий игрового персонажа.
+     * Является адаптером над {@link GameEngine}, который не зависит от JavaFX.
+     * Заменяется змейкой на уровне, если задано свойство {@code snake.level}.
      */
-    protected final Snake snake = new Snake(List.of(new Cell(0, 0), new Cell(1, 0), new Cell(2, 0)));
+    protected Snake snake = new Snake(width, height, List.of(new Cell(0, 0), new Cell(1, 0), new Cell(2, 0)));
     /**
-     * Массив данных, хранящий длину змеи
+     * Отрисовщик игрового поля
      */
-    private final List<Rectangle> snakePosition = new ArrayList<>();
+    private BoardRenderer renderer;
     /**
      * Лейбл для отображения поражения игры
      */
     private Label gameOverLabel;
-    /**
-     * Объект круга, представляющий позицию яблока на игровом поле.
-     */
-    protected Circle applePosition;
     /**
      * Счетчик съеденных яблок
      */
@@ -65,6 +93,14 @@ public class Main extends Application {
      * Лейбл для отображения съеденных яблок
      */
     private Label scoreLabel;
+    /**
+     * Хранилище итогов игр или {@code null}, если итоги не сохраняются
+     */
+    private ScoreStore scores;
+    /**
+     * Фоновый писатель итогов в {@link #scores}
+     */
+    private ScoreWriter scoreWriter;
 
 
 
@@ -84,218 +120,560 @@ public class Main extends Application {
         rect.setY(y * size);
         rect.setHeight(size);
         rect.setWidth(size);
-        if ((x + y) % 2 == 0) {
-            rect.setFill(Color.web("86BB1FFF"));
+        rect.setFill(BoardRenderer.cellColor(x, y));
+        return rect;
+    }
+
+
+    /**
+     * Основной метод запуска JavaFX приложения.
+     * Инициализирует окно, обрабатывает ввод пользователя, запускает игровой цикл.
+     * <p>
+     * Если задано системное свойство {@code snake.replay}, вместо новой игры воспроизводится повтор из файла.
+     * С {@code -Dsnake.autopilot=true} змейкой управляет {@link AutopilotController}.
+     * Свойство {@code snake.difficulty} (например, {@code -Dsnake.difficulty=HARD}) задает сложность
+     * без окна выбора. С {@code -Dsnake.world=100000} игра идет на разреженном поле {@link SparseWorld}
+     * заданного размера, а с {@code -Dsnake.level=<файл>} - на уровне со стенами ({@link Level}).
+     * С {@code -Dsnake.wall=256} вместо игры показывается стена наблюдения за заданным количеством игр ботов.
+     *
+     * @param stage Основное окно приложения.
+     */
+    @Override
+    public void start(Stage stage) {
+        Startup.toolkitReady();
+        String replayFile = System.getProperty("snake.replay");
+        if (replayFile != null) {
+            startReplay(stage, Path.of(replayFile));
+            return;
+        }
+        String worldSize = System.getProperty("snake.world");
+        if (worldSize != null) {
+            startWorld(stage, Integer.parseInt(worldSize));
+            return;
+        }
+        String wallSize = System.getProperty("snake.wall");
+        if (wallSize != null) {
+            startWall(stage, Integer.parseInt(wallSize));
+            return;
+        }
+        String levelFile = System.getProperty("snake.level");
+        if (levelFile != null) {
+            try {
+                Level level = Level.read(Path.of(levelFile));
+                snake = new Snake(new GameEngine(level, level.spawn(), System.nanoTime()));
+                logger.info("playing the {}x{} level {} with {} walls", level.getWidth(), level.getHeight(),
+                        levelFile, level.getWallCount());
+            } catch (IOException e) {
+                logger.error("failed to read the level {}", levelFile, e);
+                Platform.exit();
+                return;
+            }
+        }
+        Optional<Difficulty> result;
+        String preset = System.getProperty("snake.difficulty");
+        if (preset != null) {
+            result = Optional.of(Difficulty.valueOf(preset.toUpperCase(Locale.ROOT)));
         } else {
-            rect.setFill(Color.web("F5D163FF"));
+            logger.info("opening a window with a choice of difficulty");
+            ChoiceDialog<Difficulty> dialog = new ChoiceDialog<>(Difficulty.NORMAL, Difficulty.values());
+            dialog.setTitle("Выбор сложности");
+            dialog.setHeaderText("Выберите уровень сложности:");
+            dialog.setContentText("Сложность:");
+            result = dialog.showAndWait();
+        }
+        if (result.isPresent()) {
+            result.ifPresent(difficulty -> selectedDifficulty = difficulty);
+
+            genApple();
+            startRecording();
+            openScores();
+            GameLoop loop = new GameLoop(snake, selectedDifficulty);
+            if (Boolean.getBoolean("snake.autopilot")) {
+                loop.setController(new AutopilotController());
+            }
+            stage.addEventHandler(KeyEvent.KEY_PRESSED, event -> {
+                long stamp = System.nanoTime();
+                switch (event.getCode()) {
+                    case RIGHT -> loop.input(Direction.RIGHT, stamp);
+                    case UP -> loop.input(Direction.UP, stamp);
+                    case LEFT -> loop.input(Direction.LEFT, stamp);
+                    case DOWN -> loop.input(Direction.DOWN, stamp);
+                    default -> {
+                    }
+                }
+            });
+            show(stage, snake, loop);
+            logger.info("the program has started with difficulty: {}", selectedDifficulty);
+        } else {
+            Platform.exit();
+            logger.error("the user did not choose the difficulty");
         }
-        return rect;
     }
 
+    /**
+     * Воспроизводит повтор игры из файла.
+     * <p>
+     * Скорость задается системным свойством {@code snake.replay.speed}: множитель скорости записанной
+     * сложности ({@code 1}, {@code 10} и т.д.) или {@code max} - игра проигрывается без отрисовки
+     * с наибольшей скоростью и показывается конечное состояние. Свойство {@code snake.replay.from} задает шаг,
+     * с которого начинается воспроизведение: переход к нему выполняется через ключевые кадры повтора.
+     *
+     * @param stage Основное окно приложения.
+     * @param file  Путь к файлу повтора.
+     */
+    private void startReplay(Stage stage, Path file) {
+        String speed = System.getProperty("snake.replay.speed", "1");
+        long from = Long.getLong("snake.replay.from", 0);
+        Replay replay;
+        Snake replaySnake;
+        try {
+            replay = Replay.read(file);
+            replaySnake = replay.seek("max".equals(speed) ? replay.getEndTick() : from);
+        } catch (IOException e) {
+            logger.error("failed to read the replay {}", file, e);
+            Platform.exit();
+            return;
+        }
+        logger.info("replaying {} with difficulty {} at speed {} from tick {}", file, replay.getDifficulty(), speed,
+                replaySnake.getEngine().getTicks());
+        long stepNanos = TimeUnit.MILLISECONDS.toNanos(replay.getDifficulty().getSpeed());
+        if (!"max".equals(speed)) {
+            stepNanos = (long) (stepNanos / Double.parseDouble(speed));
+        }
+        GameLoop loop = new GameLoop(replaySnake, stepNanos);
+        loop.setController(replay.newController(replaySnake.getEngine().getTicks()));
+        loop.setTickLimit(replay.getEndTick());
+        show(stage, replaySnake, loop);
+    }
 
     /**
-     * Создает и возвращает прямоугольник, представляющий клетку змейки.
+     * Запускает игру на разреженном поле {@link SparseWorld}, показывая область вокруг головы змейки.
+     * <p>
+     * Шаг поля не зависит от его размера, поэтому шаги выполняются прямо на импульсах {@link AnimationTimer}
+     * с интервалом сложности ({@code snake.difficulty}, по умолчанию {@link Difficulty#NORMAL}), а за шаг
+     * применяется не больше одного нажатия, меняющего направление, как в {@link GameLoop}: повторы и развороты
+     * отбрасываются, не занимая шаг. Как и в {@link GameLoop}, после задержки (например, свернутого окна)
+     * за один импульс выполняется не больше {@link GameLoop#MAX_CATCH_UP_TICKS} шагов, а остаток отставания
+     * отбрасывается, чтобы змейка не погибла за пределами видимых кадров. Количество яблок задает свойство
+     * {@code snake.world.apples}.
      *
-     * @param cell  {@link Cell} - координаты клетки змейки.
-     * @param color {@link Color} - цвет заливки прямоугольника.
-     * @return {@link Rectangle} - созданный прямоугольник.
+     * @param stage Основное окно приложения.
+     * @param size  Сторона поля в клетках.
      */
-    private Rectangle block(Cell cell, Color color) {
-        Rectangle rect = new Rectangle();
-        rect.setX(cell.getX() * 20);
-        rect.setY(cell.getY() * 20);
-        rect.setHeight(20);
-        rect.setWidth(20);
-        rect.setFill(color);
-        return rect;
+    private void startWorld(Stage stage, int size) {
+        selectedDifficulty = Difficulty.valueOf(
+                System.getProperty("snake.difficulty", Difficulty.NORMAL.name()).toUpperCase(Locale.ROOT));
+        SparseWorld world = new SparseWorld(size, size, Integer.getInteger("snake.world.apples", 1000),
+                System.nanoTime());
+        int cells = maxViewport / maxCellSize;
+        SparseWorldView view = new SparseWorldView(cells, cells, maxCellSize);
+        InputQueue input = new InputQueue(GameLoop.INPUT_CAPACITY);
+        stage.addEventHandler(KeyEvent.KEY_PRESSED, event -> {
+            switch (event.getCode()) {
+                case RIGHT -> input.offer(Direction.RIGHT, System.nanoTime());
+                case UP -> input.offer(Direction.UP, System.nanoTime());
+                case LEFT -> input.offer(Direction.LEFT, System.nanoTime());
+                case DOWN -> input.offer(Direction.DOWN, System.nanoTime());
+                default -> {
+                }
+            }
+        });
+        scoreLabel = new Label("Score: " + score);
+        scoreLabel.setStyle("-fx-font-size: 40px; -fx-font-weight: bold;");
+        gameOverLabel = new Label("Game Over");
+        gameOverLabel.setTextFill(Color.RED);
+        gameOverLabel.setStyle("-fx-font-size: 40px; -fx-font-weight: bold;");
+        gameOverLabel.setVisible(false);
+        BorderPane border = new BorderPane(view.getNode());
+        border.setTop(new VBox(scoreLabel, gameOverLabel));
+        stage.setScene(new Scene(border, cells * maxCellSize + 20, cells * maxCellSize + 200));
+        stage.setTitle(name);
+        stage.setResizable(false);
+        view.render(world);
+        stage.show();
+        logger.info("the program has started on a {}x{} world with difficulty: {}", size, size, selectedDifficulty);
+        long stepNanos = TimeUnit.MILLISECONDS.toNanos(selectedDifficulty.getSpeed());
+        new AnimationTimer() {
+            /**
+             * Момент следующего шага поля.
+             */
+            private long nextStep;
+
+            @Override
+            public void handle(long now) {
+                if (nextStep == 0) {
+                    nextStep = now + stepNanos;
+                }
+                int steps = 0;
+                while (now >= nextStep && steps < GameLoop.MAX_CATCH_UP_TICKS && world.isAlive()) {
+                    steps++;
+                    nextStep += stepNanos;
+                    Direction turn = null;
+                    if (input.skipToTurn(world.getDirection())) {
+                        turn = input.peek();
+                        input.remove();
+                    }
+                    world.tick(turn);
+                }
+                if (now >= nextStep && world.isAlive()) {
+                    logger.warn("the world fell behind, dropping {} ms", TimeUnit.NANOSECONDS.toMillis(now - nextStep));
+                    nextStep = now + stepNanos;
+                }
+                if (world.getScore() != score) {
+                    setScore(world.getScore() - score);
+                    updateScoreLabel();
+                }
+                view.render(world);
+                if (!world.isAlive()) {
+                    stop();
+                    gameOverLabel.setVisible(true);
+                    logger.info("the game is over after {} ticks with score {}", world.getTicks(), world.getScore());
+                }
+            }
+        }.start();
     }
 
     /**
-     * Создает и возвращает круг, представляющий яблоко на игровом поле.
+     * Показывает стену наблюдения {@link SpectatorWall} за одновременными играми ботов {@link GameWall}.
+     * <p>
+     * Игры идут в фоновых потоках (по одному на ядро, кроме ядра потока JavaFX) с интервалом шага сложности
+     * ({@code snake.difficulty}, по умолчанию {@link Difficulty#NORMAL}). Змейками управляет
+     * {@link AutopilotController}, а с {@code -Dsnake.wall.controller=greedy} - {@link GreedyController}.
      *
-     * @param cell {@link Cell} - координаты клетки, где расположено яблоко.
-     * @return {@link Circle} - созданный круг.
-     */
-    private Circle circle(Cell cell) {
-        Circle circle = new Circle();
-        circle.setCenterX(cell.getX() * 20 + 10);
-        circle.setCenterY(cell.getY() * 20 + 10);
-        circle.setRadius(10);
-        circle.setFill(Color.RED);
-        return circle;
+     * @param stage Основное окно приложения.
+     * @param count Количество игр.
+     */
+    private void startWall(Stage stage, int count) {
+        selectedDifficulty = Difficulty.valueOf(
+                System.getProperty("snake.difficulty", Difficulty.NORMAL.name()).toUpperCase(Locale.ROOT));
+        boolean greedy = "greedy".equals(System.getProperty("snake.wall.controller"));
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        long stepNanos = TimeUnit.MILLISECONDS.toNanos(selectedDifficulty.getSpeed());
+        GameWall games = new GameWall(count, width, height, stepNanos, System.nanoTime(), threads,
+                seed -> greedy ? new GreedyController() : new AutopilotController());
+        int columns = SpectatorWall.columns(count);
+        int cellSize = Math.max(1, Math.min(maxCellSize,
+                (maxWallViewport - (columns - 1) * SpectatorWall.GAP) / (columns * Math.max(width, height))));
+        SpectatorWall wall = new SpectatorWall(games, cellSize);
+        Label status = new Label();
+        status.setStyle("-fx-font-family: monospace; -fx-font-size: 12px;");
+        BorderPane border = new BorderPane(wall.getNode());
+        border.setTop(status);
+        stage.setScene(new Scene(border));
+        stage.setTitle(name);
+        stage.setResizable(false);
+        stage.setOnHidden(event -> {
+            try {
+                games.stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        stage.show();
+        games.start();
+        logger.info("watching {} games on {} threads with difficulty: {}", count, threads, selectedDifficulty);
+        new AnimationTimer() {
+            /**
+             * Момент прошлого обновления строки состояния.
+             */
+            private long lastUpdate;
+
+            /**
+             * Количество кадров на момент прошлого обновления.
+             */
+            private long lastFrames;
+
+            /**
+             * Количество обновлений мест на момент прошлого обновления.
+             */
+            private long lastRefreshes;
+
+            /**
+             * Количество шагов игр на момент прошлого обновления.
+             */
+            private long lastSteps;
+
+            @Override
+            public void handle(long now) {
+                wall.render();
+                if (lastUpdate == 0) {
+                    lastUpdate = now;
+                } else if (now - lastUpdate >= debugUpdateNanos) {
+                    double seconds = (now - lastUpdate) / 1e9;
+                    status.setText(String.format(Locale.ROOT,
+                            "%d games  %.0f fps  %.1f refreshes/s per game  %.0f steps/s", count,
+                            (wall.getFrames() - lastFrames) / seconds,
+                            (wall.getRefreshes() - lastRefreshes) / seconds / count,
+                            (games.getSteps() - lastSteps) / seconds));
+                    lastUpdate = now;
+                    lastFrames = wall.getFrames();
+                    lastRefreshes = wall.getRefreshes();
+                    lastSteps = games.getSteps();
+                }
+            }
+        }.start();
     }
 
     /**
-     * Создает и возвращает группу узлов, представляющую сетку игрового поля.
-     * Сетка состоит из чередующихся цветных прямоугольников.
+     * Формирует текст отладочной панели.
      *
-     * @return {@link Group} - группа узлов, представляющая сетку.
-     */
-    private Group buildGrid() {
-        Group panel = new Group();
-        for (int y = 0; y != this.size; y++) {
-            for (int x = 0; x != this.size; x++) {
-                panel.getChildren().add(
-                        this.buildRectangle(x, y, 20)
-                );
+     * @param metrics {@link GameMetrics} игры.
+     * @return Многострочный текст с 99-ми перцентилями и максимумами.
+     */
+    static String debugText(GameMetrics metrics) {
+        HistogramSummary tick = metrics.getTickTime();
+        HistogramSummary render = metrics.getRenderTime();
+        HistogramSummary pulse = metrics.getPulseDelay();
+        HistogramSummary input = metrics.getInputLatency();
+        HistogramSummary allocation = metrics.getTickAllocation();
+        return String.format("tick   p99 %6d us  max %6d us%n"
+                        + "render p99 %6d us  max %6d us%n"
+                        + "pulse  p99 %6d us  max %6d us%n"
+                        + "input  p99 %6d ms  max %6d ms%n"
+                        + "alloc  p99 %6d B   total %5d KB",
+                tick.getP99() / 1_000, tick.getMax() / 1_000,
+                render.getP99() / 1_000, render.getMax() / 1_000,
+                pulse.getP99() / 1_000, pulse.getMax() / 1_000,
+                input.getP99() / 1_000_000, input.getMax() / 1_000_000,
+                allocation.getP99(), metrics.getAllocatedBytes() / 1024);
+    }
+
+    /**
+     * Начинает запись повтора игры в каталог {@code replays}.
+     * Запись отключается системным свойством {@code -Dsnake.record=false}; игры на уровнях со стенами
+     * не записываются, так как формат повтора не хранит уровень.
+     */
+    private void startRecording() {
+        if (!Boolean.parseBoolean(System.getProperty("snake.record", "true"))) {
+            return;
+        }
+        if (snake.getEngine().getLevel() != null) {
+            logger.info("the game is not recorded: replays do not store levels");
+            return;
+        }
+        Path file = Path.of("replays", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"))
+                + "-" + Long.toHexString(snake.getEngine().getSeed()) + ".snkr");
+        try {
+            Files.createDirectories(file.getParent());
+            snake.setRecorder(new ReplayRecorder(file, snake.getEngine(), selectedDifficulty));
+            logger.info("recording the game to {}", file);
+        } catch (IOException e) {
+            logger.error("failed to start recording the game", e);
+        }
+    }
+
+    /**
+     * Открывает хранилище итогов в каталоге {@code scores} и пишет в журнал лучший результат выбранной сложности.
+     * Сохранение итогов отключается системным свойством {@code -Dsnake.scores=false}.
+     */
+    private void openScores() {
+        if (!Boolean.parseBoolean(System.getProperty("snake.scores", "true"))) {
+            return;
+        }
+        try {
+            scores = ScoreStore.open(Path.of("scores"));
+            scoreWriter = new ScoreWriter(scores);
+            List<ScoreRecord> best = scores.top(selectedDifficulty, 1);
+            if (!best.isEmpty()) {
+                logger.info("the best result of {} games with difficulty {}: {}", scores.count(selectedDifficulty),
+                        selectedDifficulty, best.get(0));
             }
+        } catch (IOException e) {
+            logger.error("failed to open the score store, results will not be saved", e);
         }
-        return panel;
     }
 
     /**
-     * Основной метод запуска JavaFX приложения.
-     * Инициализирует окно, обрабатывает ввод пользователя, запускает игровой цикл.
+     * Дописывает ожидающие итоги и закрывает хранилище итогов.
+     */
+    private void closeScores() {
+        if (scores == null) {
+            return;
+        }
+        try {
+            scoreWriter.close();
+            logger.info("{} results saved, {} dropped", scoreWriter.getWritten(), scoreWriter.getDropped());
+        } catch (IOException e) {
+            logger.error("failed to save the pending results", e);
+        } finally {
+            try {
+                scores.close();
+            } catch (IOException e) {
+                logger.error("failed to close the score store", e);
+            }
+            scores = null;
+            scoreWriter = null;
+        }
+    }
+
+    /**
+     * Строит окно игры, запускает игровой цикл и отрисовку на импульсах {@link AnimationTimer}.
      *
      * @param stage Основное окно приложения.
+     * @param game  {@link Snake}, которая отображается.
+     * @param loop  {@link GameLoop}, управляющий змейкой.
      */
-    @Override
-    public void start(Stage stage) {
-        logger.info("opening a window with a choice of difficulty");
-        ChoiceDialog<Difficulty> dialog = new ChoiceDialog<>(Difficulty.NORMAL, Difficulty.values());
-        dialog.setTitle("Выбор сложности");
-        dialog.setHeaderText("Выберите уровень сложности:");
-        dialog.setContentText("Сложность:");
+    private void show(Stage stage, Snake game, GameLoop loop) {
+        BorderPane border = new BorderPane();
+        gameOverLabel = new Label("Game Over");
+        gameOverLabel.setTextFill(Color.RED);
+        gameOverLabel.setStyle("-fx-font-size: 40px; -fx-font-weight: bold;");
+        gameOverLabel.setVisible(false);
 
-        Optional<Difficulty> result = dialog.showAndWait();
-        if (result.isPresent()) {
-            result.ifPresent(difficulty -> selectedDifficulty = difficulty);
+        scoreLabel = new Label("Score: " + score);
+        scoreLabel.setStyle("-fx-font-size: 40px; -fx-font-weight: bold;");
 
-            BorderPane border = new BorderPane();
-            stage.addEventHandler(KeyEvent.KEY_RELEASED, event -> {
-                switch (event.getCode().getName()) {
-                    case "Right":
-                        snake.directionTo(Direction.RIGHT);
-                        break;
-                    case "Up":
-                        snake.directionTo(Direction.UP);
-                        break;
-                    case "Left":
-                        snake.directionTo(Direction.LEFT);
-                        break;
-                    case "Down":
-                        snake.directionTo(Direction.DOWN);
-                        break;
-                }
-            });
+        GameMetrics metrics = loop.getMetrics();
+        Label debugLabel = new Label();
+        debugLabel.setStyle("-fx-font-family: monospace; -fx-font-size: 11px;");
+        HBox scoreBox = new HBox(20, scoreLabel);
+        scoreBox.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
+        if (Boolean.getBoolean("snake.debug")) {
+            scoreBox.getChildren().add(debugLabel);
+        }
+        VBox topBox = new VBox(scoreBox, gameOverLabel);
+        topBox.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
+        border.setTop(topBox);
 
-            gameOverLabel = new Label("Game Over");
-            gameOverLabel.setTextFill(Color.RED);
-            gameOverLabel.setStyle("-fx-font-size: 40px; -fx-font-weight: bold;");
-            gameOverLabel.setVisible(false);
-
-            scoreLabel = new Label("Score: " + score);
-            scoreLabel.setStyle("-fx-font-size: 40px; -fx-font-weight: bold;");
-
-            VBox topBox = new VBox(scoreLabel, gameOverLabel);
-            topBox.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
-            border.setTop(topBox);
-
-            var grid = buildGrid();
-            border.setCenter(grid);
-            stage.setScene(new Scene(border, 520, 700));
-            stage.setTitle(name);
-            stage.setResizable(false);
-            drawSnake(grid);
-            drawApple(grid);
-            stage.show();
-            logger.info("the program has started with difficulty: {}", selectedDifficulty);
-            new Thread(() -> {
-                try {
-                    while (snake.isAlive()) {
-                        var eat = snake.step();
-                        Platform.runLater(() -> {
-
-                            if (eat) {
-                                logger.info("the snake ate the apple");
-                                setScore(1);
-                                redrawApple(grid);
-                            }
-                            updateScoreLabel();
-                            redrawSnake(grid);
-                        });
-                        Thread.sleep(selectedDifficulty.getSpeed());
+        GameEngine engine = game.getEngine();
+        int cellSize = cellSize(engine.getWidth(), engine.getHeight());
+        renderer = createRenderer(engine.getWidth(), engine.getHeight(), cellSize, engine.getLevel());
+        int viewportWidth = Math.min(engine.getWidth() * cellSize, maxViewport);
+        int viewportHeight = Math.min(engine.getHeight() * cellSize, maxViewport);
+        if (engine.getWidth() * cellSize > maxViewport || engine.getHeight() * cellSize > maxViewport) {
+            ScrollPane viewport = new ScrollPane(renderer.getNode());
+            viewport.setPrefViewportWidth(viewportWidth);
+            viewport.setPrefViewportHeight(viewportHeight);
+            border.setCenter(viewport);
+        } else {
+            border.setCenter(renderer.getNode());
+        }
+        stage.setScene(new Scene(border, viewportWidth + 20, viewportHeight + 200));
+        stage.setTitle(name);
+        stage.setResizable(false);
+        renderer.render(loop.latest());
+        metrics.register();
+        stage.setOnHidden(event -> {
+            metrics.unregister();
+            try {
+                loop.stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            closeScores();
+        });
+        stage.show();
+        Startup.measureFirstFrame(stage.getScene());
+        long startedAt = System.nanoTime();
+        new AnimationTimer() {
+            /**
+             * Момент следующего обновления отладочной панели.
+             */
+            private long nextDebugUpdate;
+
+            @Override
+            public void handle(long now) {
+                long start = System.nanoTime();
+                GameSnapshot snapshot = loop.latest();
+                if (snapshot.getScore() != score) {
+                    setScore(snapshot.getScore() - score);
+                    updateScoreLabel();
+                }
+                renderer.render(snapshot);
+                metrics.recordFrame(start - now, System.nanoTime() - start);
+                if (now >= nextDebugUpdate && debugLabel.getScene() != null) {
+                    nextDebugUpdate = now + debugUpdateNanos;
+                    debugLabel.setText(debugText(metrics));
+                }
+                if (!snapshot.isAlive()) {
+                    stop();
+                    gameOverLabel.setVisible(true);
+                    border.setCenter(gameOverLabel);
+                    if (scoreWriter != null) {
+                        scoreWriter.submit(ScoreRecord.of(snapshot, engine.getSeed(), selectedDifficulty,
+                                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt)));
                     }
-                    Platform.runLater(() -> {
-                        gameOverLabel.setVisible(true);
-                        border.setCenter(gameOverLabel);
-                    });
-                } catch (InterruptedException e) {
-                    logger.error("runtime exception");
-                    throw new RuntimeException(e);
                 }
             }
-            ).start();
-        } else {
-            Platform.exit();
-            logger.error("the user did not choose the difficulty");
-        }
+        }.start();
+        loop.start();
     }
 
     /**
-     * Отрисовывает змейку на игровом поле.
-     * Удаляет предыдущие отрисовки змейки и добавляет новые прямоугольники,
-     * соответствующие текущим клеткам тела змейки.
+     * Создает отрисовщик игрового поля.
+     * <p>
+     * По умолчанию используется {@link CanvasRenderer}. Прежний отрисовщик на узлах графа сцены
+     * включается системным свойством {@code -Dsnake.renderer=nodes}; он создает узел на каждую клетку
+     * и подходит только для небольших полей.
      *
-     * @param grid {@link Group} - группа узлов, представляющая игровое поле.
+     * @param width    Ширина поля в клетках.
+     * @param height   Высота поля в клетках.
+     * @param cellSize Размер стороны клетки в пикселях.
+     * @param level    {@link Level} со стенами или {@code null}.
+     * @return {@link BoardRenderer} для поля.
      */
-    private void drawSnake(Group grid) {
-        for (Cell body : snake.asCells()) {
-            var el = block(body, Color.PURPLE);
-            snakePosition.add(el);
-            grid.getChildren().add(el);
+    private BoardRenderer createRenderer(int width, int height, int cellSize, Level level) {
+        if ("nodes".equals(System.getProperty("snake.renderer"))) {
+            return new NodeRenderer(width, height, cellSize, level);
         }
+        return new CanvasRenderer(width, height, cellSize, level);
     }
 
     /**
-     * Отрисовывает яблоко на игровом поле.
-     * Генерирует новую позицию для яблока, устанавливает ее для змейки и
-     * добавляет круглое представление яблока на игровое поле.
+     * Вычисляет размер стороны клетки в пикселях: поле целиком вписывается в {@link #maxViewport},
+     * если клетки при этом не меньше одного пикселя.
      *
-     * @param grid {@link Group} - группа узлов, представляющая игровое поле.
+     * @param width  Ширина поля в клетках.
+     * @param height Высота поля в клетках.
+     * @return Размер стороны клетки от 1 до {@link #maxCellSize}.
      */
-    private void drawApple(Group grid) {
-        var cell = genApple();
-        snake.apple(cell);
-        applePosition = circle(cell);
-        grid.getChildren().add(applePosition);
+    private static int cellSize(int width, int height) {
+        return Math.max(1, Math.min(maxCellSize, maxViewport / Math.max(width, height)));
     }
 
     /**
-     * Перерисовывает яблоко на игровом поле.
-     * Удаляет текущее изображение яблока и отрисовывает его на новой позиции.
+     * Генерирует случайную позицию для яблока на игровом поле и устанавливает ее для змейки.
+     * <p>
+     * Позиция выбирается игровым ядром среди клеток, не занятых змейкой, за постоянное время.
      *
-     * @param group {@link Group} - группа узлов, представляющая игровое поле.
+     * @return {@link Cell} - случайная позиция для яблока или {@code null}, если свободных клеток не осталось.
      */
-    private void redrawApple(Group group) {
-        group.getChildren().removeAll(applePosition);
-        drawApple(group);
+    protected Cell genApple() {
+        var engine = snake.getEngine();
+        var apple = engine.placeApple();
+        if (apple == GameEngine.NO_CELL) {
+            return null;
+        }
+        return new Cell(engine.x(apple), engine.y(apple));
     }
 
     /**
-     * Генерирует случайную позицию для яблока на игровом поле.
+     * Возвращает размер игрового поля.
      *
-     * @return {@link Cell} - случайная позиция для яблока.
+     * @return int - ширина игрового поля.
+     * @deprecated поле может быть не квадратным, используйте {@link #getWidth()} и {@link #getHeight()}.
      */
-    protected Cell genApple() {
-        var rm = new Random();
-        var x = rm.nextInt(25);
-        var y = rm.nextInt(25);
-        return new Cell(x, y);
+    @Deprecated
+    public static int getSize() {
+        return width;
     }
 
-    private void redrawSnake(Group group) {
-        group.getChildren().removeAll(snakePosition);
-        drawSnake(group);
+    /**
+     * Возвращает ширину игрового поля.
+     *
+     * @return int - ширина игрового поля в клетках.
+     */
+    public static int getWidth() {
+        return width;
     }
 
     /**
-     * Возвращает размер игрового поля.
+     * Возвращает высоту игрового поля.
      *
-     * @return int - размер игрового поля.
+     * @return int - высота игрового поля в клетках.
      */
-    public static int getSize() {
-        return size;
+    public static int getHeight() {
+        return height;
     }
 
     /**
@@ -0,0 +1,111 @@
+package project.snakegame;
+
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Rectangle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Отрисовщик на узлах графа сцены: каждая клетка змейки - отдельный {@link Rectangle}, яблоко - {@link Circle}.
+ * <p>
+ * Тело змейки перестраивается целиком на каждом кадре. Оставлен как альтернатива {@link CanvasRenderer}.
+ * Фон поля - одно изображение {@link BoardRenderer#background(int, int, int)}, а не узел на каждую клетку.
+ */
+public class NodeRenderer implements BoardRenderer {
+
+    /**
+     * Размер стороны клетки в пикселях.
+     */
+    private final int cellSize;
+
+    /**
+     * Корневой узел: фон, слой змейки и яблоко.
+     */
+    private final Group root;
+
+    /**
+     * Слой с прямоугольниками тела змейки.
+     */
+    private final Group snakeLayer = new Group();
+
+    /**
+     * Круг, представляющий яблоко.
+     */
+    private final Circle apple;
+
+    /**
+     * Создает отрисовщик для поля заданного размера.
+     *
+     * @param width    Ширина поля в клетках.
+     * @param height   Высота поля в клетках.
+     * @param cellSize Размер стороны клетки в пикселях.
+     */
+    public NodeRenderer(int width, int height, int cellSize) {
+        this(width, height, cellSize, null);
+    }
+
+    /**
+     * Создает отрисовщик для поля заданного размера со стенами уровня в фоне.
+     *
+     * @param width    Ширина поля в клетках.
+     * @param height   Высота поля в клетках.
+     * @param cellSize Размер стороны клетки в пикселях.
+     * @param level    {@link Level} или {@code null}, если стен нет.
+     */
+    public NodeRenderer(int width, int height, int cellSize, Level level) {
+        this.cellSize = cellSize;
+        this.apple = new Circle(cellSize / 2.0, APPLE);
+        this.apple.setVisible(false);
+        this.root = new Group(BoardRenderer.background(width, height, cellSize, level), snakeLayer, apple);
+    }
+
+    /**
+     * Возвращает узел, который нужно добавить в сцену.
+     *
+     * @return {@link Group} с фоном, змейкой и яблоком.
+     */
+    @Override
+    public Node getNode() {
+        return root;
+    }
+
+    /**
+     * Заменяет прямоугольники змейки новыми и перемещает яблоко.
+     *
+     * @param state {@link GameState} для отрисовки.
+     */
+    @Override
+    public void render(GameState state) {
+        int width = state.getWidth();
+        List<Rectangle> blocks = new ArrayList<>(state.getLength());
+        for (int i = 0; i < state.getLength(); i++) {
+            int cell = state.getCell(i);
+            blocks.add(block(cell % width, cell / width));
+        }
+        snakeLayer.getChildren().setAll(blocks);
+
+        int cell = state.getApple();
+        apple.setVisible(cell != GameEngine.NO_CELL);
+        if (cell != GameEngine.NO_CELL) {
+            apple.setCenterX(cell % width * cellSize + cellSize / 2.0);
+            apple.setCenterY(cell / width * cellSize + cellSize / 2.0);
+            apple.toFront();
+        }
+    }
+
+    /**
+     * Создает и возвращает прямоугольник, представляющий клетку змейки.
+     *
+     * @param x Координата X клетки.
+     * @param y Координата Y клетки.
+     * @return {@link Rectangle} - созданный прямоугольник.
+     */
+    private Rectangle block(int x, int y) {
+        Rectangle rect = new Rectangle(x * cellSize, y * cellSize, cellSize, cellSize);
+        rect.setFill(SNAKE);
+        return rect;
+    }
+}
@@ -0,0 +1,455 @@
+package project.snakegame;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Прочитанный повтор игры.
+ * <p>
+ * Формат файла (числа в порядке байтов big-endian):
+ * <pre>
+ * int    MAGIC ("SNKR")
+ * byte   VERSION
+ * int    ширина поля, int высота поля
+ * long   зерно генератора яблок
+ * byte   порядковый номер {@link Difficulty}
+ * int    длина начального тела, затем индексы клеток от хвоста к голове
+ * записи varint: (разница номеров шагов &lt;&lt; CODE_BITS) | код
+ * </pre>
+ * Код записи - порядковый номер {@link Direction}, принятого перед шагом с данным номером,
+ * {@link #END} - признак конца игры после указанного числа шагов или {@link #KEYFRAME} -
+ * ключевой кадр {@link Keyframe} с полным состоянием игры после указанного числа шагов
+ * (за кодом следуют длина кадра varint и сам кадр).
+ * <p>
+ * Файл читается через отображение в память: при чтении запоминаются только смещения ключевых кадров,
+ * а {@link #seek(long)} восстанавливает ближайший предшествующий кадр и проигрывает от него
+ * оставшиеся шаги, так что переход к любому шагу длинной записи занимает доли миллисекунды.
+ */
+public final class Replay {
+
+    /**
+     * Переменная для логирования
+     */
+    private static final Logger logger = LogManager.getLogger(Replay.class);
+
+    /**
+     * Сигнатура файла повтора.
+     */
+    static final int MAGIC = 0x534E4B52;
+
+    /**
+     * Версия формата.
+     */
+    static final byte VERSION = 2;
+
+    /**
+     * Количество младших бит записи, занятых кодом события.
+     */
+    static final int CODE_BITS = 3;
+
+    /**
+     * Код признака конца игры.
+     */
+    static final int END = 4;
+
+    /**
+     * Код ключевого кадра. Появился в версии 2 формата, файлы версии 1 читаются без кадров.
+     */
+    static final int KEYFRAME = 5;
+
+    /**
+     * Ширина поля.
+     */
+    private final int width;
+
+    /**
+     * Высота поля.
+     */
+    private final int height;
+
+    /**
+     * Зерно генератора яблок.
+     */
+    private final long seed;
+
+    /**
+     * Уровень сложности.
+     */
+    private final Difficulty difficulty;
+
+    /**
+     * Начальное тело змейки.
+     */
+    private final int[] body;
+
+    /**
+     * Номера шагов, перед которыми менялось направление, по возрастанию.
+     */
+    private final long[] turnTicks;
+
+    /**
+     * Направления, принятые перед шагами из {@link #turnTicks}.
+     */
+    private final Direction[] turns;
+
+    /**
+     * Количество шагов за игру; если запись оборвалась без признака конца - номер шага последней
+     * прочитанной записи.
+     */
+    private final long endTick;
+
+    /**
+     * Содержимое файла повтора, из которого читаются ключевые кадры.
+     */
+    private final ByteBuffer data;
+
+    /**
+     * Номера шагов ключевых кадров, по возрастанию.
+     */
+    private final long[] keyframeTicks;
+
+    /**
+     * Смещения ключевых кадров в {@link #data}.
+     */
+    private final int[] keyframeOffsets;
+
+    /**
+     * Создает повтор из прочитанных данных.
+     *
+     * @param width      Ширина поля.
+     * @param height     Высота поля.
+     * @param seed       Зерно генератора яблок.
+     * @param difficulty Уровень сложности.
+     * @param body       Начальное тело змейки.
+     * @param turnTicks  Номера шагов смены направления.
+     * @param turns      Направления.
+     * @param endTick    Количество шагов за игру.
+     * @param data       Содержимое файла.
+     * @param keyframeTicks   Номера шагов ключевых кадров.
+     * @param keyframeOffsets Смещения ключевых кадров.
+     */
+    private Replay(int width, int height, long seed, Difficulty difficulty, int[] body,
+                   long[] turnTicks, Direction[] turns, long endTick,
+                   ByteBuffer data, long[] keyframeTicks, int[] keyframeOffsets) {
+        this.width = width;
+        this.height = height;
+        this.seed = seed;
+        this.difficulty = difficulty;
+        this.body = body;
+        this.turnTicks = turnTicks;
+        this.turns = turns;
+        this.endTick = endTick;
+        this.data = data;
+        this.keyframeTicks = keyframeTicks;
+        this.keyframeOffsets = keyframeOffsets;
+    }
+
+    /**
+     * Читает повтор из файла.
+     *
+     * @param file Путь к файлу повтора.
+     * @return Прочитанный {@link Replay}.
+     * @throws IOException если файл не удалось прочитать или он имеет неверный формат.
+     */
+    public static Replay read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(in);
+        }
+    }
+
+    /**
+     * Читает повтор из буфера.
+     *
+     * @param in Буфер с содержимым файла повтора.
+     * @return Прочитанный {@link Replay}.
+     * @throws IOException если данные имеют неверный формат.
+     */
+    static Replay read(ByteBuffer in) throws IOException {
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IOException("not a replay file");
+            }
+            byte version = in.get();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("unsupported replay version: " + version);
+            }
+            int width = in.getInt();
+            int height = in.getInt();
+            long seed = in.getLong();
+            Difficulty difficulty = Difficulty.values()[in.get()];
+            int[] body = new int[in.getInt()];
+            for (int i = 0; i < body.length; i++) {
+                body[i] = in.getInt();
+            }
+
+            long[] turnTicks = new long[16];
+            Direction[] turns = new Direction[16];
+            int count = 0;
+            long tick = 0;
+            long endTick = -1;
+            long[] keyframeTicks = new long[4];
+            int[] keyframeOffsets = new int[4];
+            int keyframes = 0;
+            Direction[] directions = Direction.values();
+            while (in.hasRemaining()) {
+                long value = readVarint(in);
+                tick += value >>> CODE_BITS;
+                int code = (int) (value & ((1 << CODE_BITS) - 1));
+                if (code == END) {
+                    endTick = tick;
+                    break;
+                }
+                if (code == KEYFRAME) {
+                    int size = (int) readVarint(in);
+                    if (keyframes == keyframeTicks.length) {
+                        keyframeTicks = Arrays.copyOf(keyframeTicks, keyframes * 2);
+                        keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframes * 2);
+                    }
+                    keyframeTicks[keyframes] = tick;
+                    keyframeOffsets[keyframes++] = in.position();
+                    in.position(in.position() + size);
+                    continue;
+                }
+                if (count == turns.length) {
+                    turnTicks = Arrays.copyOf(turnTicks, count * 2);
+                    turns = Arrays.copyOf(turns, count * 2);
+                }
+                turnTicks[count] = tick;
+                turns[count++] = directions[code];
+            }
+            if (endTick < 0) {
+                endTick = tick;
+                logger.warn("the replay has no end record, it is played up to tick {}", endTick);
+            }
+            return new Replay(width, height, seed, difficulty, body,
+                    Arrays.copyOf(turnTicks, count), Arrays.copyOf(turns, count), endTick,
+                    in, Arrays.copyOf(keyframeTicks, keyframes), Arrays.copyOf(keyframeOffsets, keyframes));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+                 | NegativeArraySizeException e) {
+            throw new IOException("corrupted replay file", e);
+        }
+    }
+
+    /**
+     * Читает число в формате varint.
+     *
+     * @param in Буфер.
+     * @return Прочитанное число.
+     */
+    static long readVarint(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    /**
+     * Записывает неотрицательное число в формате varint.
+     *
+     * @param out   Буфер.
+     * @param value Число.
+     */
+    static void writeVarint(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    /**
+     * Создает змейку в начальном состоянии записанной игры, с первым яблоком.
+     *
+     * @return Новая {@link Snake}.
+     */
+    public Snake newSnake() {
+        GameEngine engine = new GameEngine(width, height, body, seed);
+        engine.placeApple();
+        return new Snake(engine);
+    }
+
+    /**
+     * Создает контроллер, повторяющий записанные смены направления.
+     *
+     * @return Новый {@link Controller} для одного воспроизведения.
+     */
+    public Controller newController() {
+        return newController(0);
+    }
+
+    /**
+     * Создает контроллер, повторяющий записанные смены направления начиная с заданного шага.
+     *
+     * @param fromTick Номер шага, с которого начинается воспроизведение.
+     * @return Новый {@link Controller} для одного воспроизведения.
+     */
+    public Controller newController(long fromTick) {
+        int first = lowerBound(turnTicks, turnTicks.length, fromTick);
+        return new Controller() {
+            /**
+             * Номер следующей записанной смены направления.
+             */
+            private int next = first;
+
+            @Override
+            public Direction decide(GameState state) {
+                while (next < turns.length && turnTicks[next] < state.getTicks()) {
+                    next++;
+                }
+                return next < turns.length && turnTicks[next] == state.getTicks() ? turns[next++] : null;
+            }
+        };
+    }
+
+    /**
+     * Воспроизводит игру без отрисовки с наибольшей скоростью.
+     *
+     * @return {@link Snake} в конечном состоянии.
+     */
+    public Snake playHeadless() {
+        Snake snake = newSnake();
+        play(snake.getEngine(), endTick);
+        return snake;
+    }
+
+    /**
+     * Восстанавливает состояние игры на заданном шаге: берет ближайший ключевой кадр не позже этого шага
+     * и проигрывает от него оставшиеся шаги.
+     *
+     * @param tick Номер шага. Если он больше числа шагов игры, возвращается конечное состояние.
+     * @return {@link Snake} в состоянии после {@code tick} шагов или после смерти, если она наступила раньше.
+     * @throws IOException если ключевой кадр поврежден.
+     */
+    public Snake seek(long tick) throws IOException {
+        long target = Math.min(tick, endTick);
+        Snake snake = newSnake();
+        GameEngine engine = snake.getEngine();
+        int keyframe = lowerBound(keyframeTicks, keyframeTicks.length, target + 1) - 1;
+        if (keyframe >= 0) {
+            Keyframe.read(data.duplicate().position(keyframeOffsets[keyframe]), keyframeTicks[keyframe], engine);
+        }
+        play(engine, target);
+        return snake;
+    }
+
+    /**
+     * Проигрывает записанные смены направления до заданного шага.
+     *
+     * @param engine {@link GameEngine} в записанном состоянии.
+     * @param until  Номер шага, на котором воспроизведение останавливается.
+     */
+    private void play(GameEngine engine, long until) {
+        Controller controller = newController(engine.getTicks());
+        while (engine.isAlive() && engine.getTicks() < until) {
+            Direction direction = controller.decide(engine);
+            if (direction != null) {
+                engine.turn(direction);
+            }
+            engine.tick();
+        }
+    }
+
+    /**
+     * Находит первый элемент отсортированного массива, не меньший заданного значения.
+     *
+     * @param values Отсортированный массив.
+     * @param count  Количество используемых элементов.
+     * @param key    Искомое значение.
+     * @return Индекс первого элемента {@code >= key} или {@code count}, если таких нет.
+     */
+    private static int lowerBound(long[] values, int count, long key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Возвращает уровень сложности записанной игры.
+     *
+     * @return {@link Difficulty}.
+     */
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    /**
+     * Возвращает зерно записанной игры.
+     *
+     * @return Зерно генератора яблок.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Возвращает количество шагов за игру.
+     *
+     * @return Число шагов; если запись оборвалась без признака конца (например, игра была прервана),
+     * номер шага последней прочитанной смены направления или ключевого кадра.
+     */
+    public long getEndTick() {
+        return endTick;
+    }
+
+    /**
+     * Возвращает количество записанных смен направления.
+     *
+     * @return Число смен направления.
+     */
+    public int getTurnCount() {
+        return turns.length;
+    }
+
+    /**
+     * Возвращает количество ключевых кадров.
+     *
+     * @return Число ключевых кадров.
+     */
+    public int getKeyframeCount() {
+        return keyframeTicks.length;
+    }
+
+    /**
+     * Проигрывает файл повтора без отрисовки и выводит итог в лог.
+     *
+     * @param args Путь к файлу повтора и, необязательно, номер шага, к которому нужно перейти.
+     * @throws IOException Если файл не удалось прочитать.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0 || args.length > 2) {
+            System.err.println("usage: Replay <replay> [tick]");
+            System.exit(2);
+        }
+        Replay replay = read(Path.of(args[0]));
+        long start = System.nanoTime();
+        GameEngine engine = args.length > 1
+                ? replay.seek(Long.parseLong(args[1])).getEngine()
+                : replay.playHeadless().getEngine();
+        long elapsed = System.nanoTime() - start;
+        logger.info("replayed {} ticks in {} us: score {}, alive {}", engine.getTicks(),
+                TimeUnit.NANOSECONDS.toMicros(elapsed), engine.getScore(), engine.isAlive());
+    }
+}
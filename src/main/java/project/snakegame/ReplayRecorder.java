@@ -0,0 +1,228 @@
+package project.snakegame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Запись повтора игры в компактном двоичном формате {@link Replay}.
+ * <p>
+ * Записываются только зерно, уровень сложности, начальное тело и принятые смены направления:
+ * яблоки восстанавливаются из зерна, а остальное - правилами игры. Каждая смена направления занимает
+ * в файле обычно 1-2 байта (разница номеров шагов в формате varint). Данные копятся в прямом буфере
+ * и сбрасываются в {@link FileChannel} только при его заполнении и при закрытии, поэтому запись
+ * на шаге игры - это несколько операций с памятью.
+ * <p>
+ * Раз в {@code keyframeInterval} шагов записывается ключевой кадр {@link Keyframe}, чтобы длинную запись
+ * можно было воспроизводить с любого места. По умолчанию интервал не меньше площади поля, поэтому кадры
+ * занимают в среднем не больше нескольких байт на шаг.
+ * <p>
+ * Класс не потокобезопасен: все вызовы должны выполняться из потока игры.
+ */
+public class ReplayRecorder implements Closeable {
+
+    /**
+     * Размер буфера записи.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Наибольшая длина одной записи varint.
+     */
+    private static final int MAX_VARINT = 10;
+
+    /**
+     * Наименьший интервал ключевых кадров по умолчанию, в шагах.
+     */
+    private static final long MIN_KEYFRAME_INTERVAL = 4096;
+
+    /**
+     * Канал файла повтора.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Буфер записи.
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * Интервал ключевых кадров в шагах.
+     */
+    private final long keyframeInterval;
+
+    /**
+     * Буфер ключевого кадра, создается при записи первого кадра.
+     */
+    private ByteBuffer keyframe;
+
+    /**
+     * Номер шага последней записанной смены направления.
+     */
+    private long lastTick;
+
+    /**
+     * Флаг закрытия.
+     */
+    private boolean closed;
+
+    /**
+     * Создает файл повтора и записывает в него заголовок с начальным состоянием игры.
+     *
+     * @param file       Путь к файлу повтора.
+     * @param engine     {@link GameEngine} новой игры, в которой еще не было шагов.
+     * @param difficulty {@link Difficulty} игры.
+     * @throws IOException если файл не удалось создать или записать.
+     */
+    public ReplayRecorder(Path file, GameEngine engine, Difficulty difficulty) throws IOException {
+        this(file, engine, difficulty, Math.max(MIN_KEYFRAME_INTERVAL, (long) engine.getWidth() * engine.getHeight()));
+    }
+
+    /**
+     * Создает файл повтора с заданным интервалом ключевых кадров и записывает в него заголовок.
+     *
+     * @param file             Путь к файлу повтора.
+     * @param engine           {@link GameEngine} новой игры, в которой еще не было шагов.
+     * @param difficulty       {@link Difficulty} игры.
+     * @param keyframeInterval Количество шагов между ключевыми кадрами.
+     * @throws IOException если файл не удалось создать или записать.
+     */
+    public ReplayRecorder(Path file, GameEngine engine, Difficulty difficulty, long keyframeInterval)
+            throws IOException {
+        if (keyframeInterval <= 0) {
+            throw new IllegalArgumentException("keyframe interval must be positive: " + keyframeInterval);
+        }
+        this.keyframeInterval = keyframeInterval;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.lastTick = engine.getTicks();
+        buffer.putInt(Replay.MAGIC);
+        buffer.put(Replay.VERSION);
+        buffer.putInt(engine.getWidth());
+        buffer.putInt(engine.getHeight());
+        buffer.putLong(engine.getSeed());
+        buffer.put((byte) difficulty.ordinal());
+        buffer.putInt(engine.getLength());
+        for (int i = 0; i < engine.getLength(); i++) {
+            if (buffer.remaining() < Integer.BYTES) {
+                flush();
+            }
+            buffer.putInt(engine.getCell(i));
+        }
+    }
+
+    /**
+     * Записывает смену направления, принятую перед шагом с заданным номером.
+     *
+     * @param tick      Количество шагов, выполненных до смены направления.
+     * @param direction Новое направление.
+     * @throws IOException если не удалось сбросить буфер в файл.
+     */
+    public void turn(long tick, Direction direction) throws IOException {
+        writeRecord(tick, direction.ordinal());
+    }
+
+    /**
+     * Отмечает выполненный шаг игры и записывает ключевой кадр, если подошел его срок.
+     *
+     * @param engine {@link GameEngine} после шага.
+     * @throws IOException если не удалось сбросить буфер в файл.
+     */
+    public void step(GameEngine engine) throws IOException {
+        if (engine.isAlive() && engine.getTicks() % keyframeInterval == 0) {
+            keyframe(engine);
+        }
+    }
+
+    /**
+     * Записывает ключевой кадр с текущим состоянием игры.
+     *
+     * @param engine {@link GameEngine}, состояние которого записывается.
+     * @throws IOException если не удалось сбросить буфер в файл.
+     */
+    public void keyframe(GameEngine engine) throws IOException {
+        if (keyframe == null) {
+            keyframe = ByteBuffer.allocate(Keyframe.maxSize(engine.getWidth() * engine.getHeight()));
+        }
+        keyframe.clear();
+        Keyframe.write(engine, keyframe);
+        keyframe.flip();
+        writeRecord(engine.getTicks(), Replay.KEYFRAME);
+        if (buffer.remaining() < MAX_VARINT) {
+            flush();
+        }
+        Replay.writeVarint(buffer, keyframe.remaining());
+        if (buffer.remaining() < keyframe.remaining()) {
+            flush();
+            while (keyframe.hasRemaining()) {
+                channel.write(keyframe);
+            }
+        } else {
+            buffer.put(keyframe);
+        }
+    }
+
+    /**
+     * Записывает признак конца игры с номером последнего шага, сбрасывает буфер и закрывает файл.
+     *
+     * @param tick Количество шагов, выполненных за игру.
+     * @throws IOException если не удалось записать или закрыть файл.
+     */
+    public void finish(long tick) throws IOException {
+        if (closed) {
+            return;
+        }
+        writeRecord(tick, Replay.END);
+        close();
+    }
+
+    /**
+     * Сбрасывает буфер и закрывает файл. Если {@link #finish(long)} не вызывался, повтор не содержит
+     * признака конца и воспроизводится до смерти змейки.
+     *
+     * @throws IOException если не удалось записать или закрыть файл.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Записывает одну запись: разницу номеров шагов и код события.
+     *
+     * @param tick Номер шага события.
+     * @param code Код события: порядковый номер {@link Direction} или {@link Replay#END}.
+     * @throws IOException если не удалось сбросить буфер в файл.
+     */
+    private void writeRecord(long tick, int code) throws IOException {
+        if (buffer.remaining() < MAX_VARINT) {
+            flush();
+        }
+        Replay.writeVarint(buffer, ((tick - lastTick) << Replay.CODE_BITS) | code);
+        lastTick = tick;
+    }
+
+    /**
+     * Сбрасывает содержимое буфера в файл.
+     *
+     * @throws IOException если запись не удалась.
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
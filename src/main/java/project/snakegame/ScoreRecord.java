@@ -0,0 +1,156 @@
+package project.snakegame;
+
+/**
+ * Итог одной законченной игры для таблицы рекордов {@link ScoreStore}.
+ */
+public final class ScoreRecord {
+
+    /**
+     * Количество съеденных яблок.
+     */
+    private final int score;
+
+    /**
+     * Сложность игры.
+     */
+    private final Difficulty difficulty;
+
+    /**
+     * Длина змейки в конце игры.
+     */
+    private final int length;
+
+    /**
+     * Количество шагов игры.
+     */
+    private final long ticks;
+
+    /**
+     * Длительность игры в миллисекундах.
+     */
+    private final long durationMillis;
+
+    /**
+     * Зерно игры.
+     */
+    private final long seed;
+
+    /**
+     * Момент окончания игры в миллисекундах от начала эпохи.
+     */
+    private final long finishedAt;
+
+    /**
+     * Создает итог игры.
+     *
+     * @param score          Количество съеденных яблок.
+     * @param difficulty     Сложность игры.
+     * @param length         Длина змейки в конце игры.
+     * @param ticks          Количество шагов игры.
+     * @param durationMillis Длительность игры в миллисекундах.
+     * @param seed           Зерно игры.
+     * @param finishedAt     Момент окончания игры в миллисекундах от начала эпохи.
+     * @throws IllegalArgumentException если счет отрицателен.
+     */
+    public ScoreRecord(int score, Difficulty difficulty, int length, long ticks, long durationMillis, long seed,
+                       long finishedAt) {
+        if (score < 0) {
+            throw new IllegalArgumentException("negative score: " + score);
+        }
+        this.score = score;
+        this.difficulty = difficulty;
+        this.length = length;
+        this.ticks = ticks;
+        this.durationMillis = durationMillis;
+        this.seed = seed;
+        this.finishedAt = finishedAt;
+    }
+
+    /**
+     * Создает итог законченной игры по ее состоянию, например по последнему снимку {@link GameSnapshot}.
+     *
+     * @param state          Состояние законченной игры.
+     * @param seed           Зерно игры.
+     * @param difficulty     Сложность игры.
+     * @param durationMillis Длительность игры в миллисекундах.
+     * @return {@link ScoreRecord} с текущим моментом окончания.
+     */
+    public static ScoreRecord of(GameState state, long seed, Difficulty difficulty, long durationMillis) {
+        return new ScoreRecord(state.getScore(), difficulty, state.getLength(), state.getTicks(), durationMillis,
+                seed, System.currentTimeMillis());
+    }
+
+    /**
+     * Возвращает количество съеденных яблок.
+     *
+     * @return Счет.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Возвращает сложность игры.
+     *
+     * @return {@link Difficulty}.
+     */
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    /**
+     * Возвращает длину змейки в конце игры.
+     *
+     * @return Количество клеток тела.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Возвращает количество шагов игры.
+     *
+     * @return Число шагов.
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Возвращает длительность игры.
+     *
+     * @return Миллисекунды.
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * Возвращает зерно игры.
+     *
+     * @return Зерно, по которому игру можно воспроизвести.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Возвращает момент окончания игры.
+     *
+     * @return Миллисекунды от начала эпохи.
+     */
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * Возвращает строковое представление итога.
+     *
+     * @return Строка с полями итога.
+     */
+    @Override
+    public String toString() {
+        return "score " + score + ", " + difficulty.name() + ", length " + length + ", " + ticks + " ticks, "
+                + durationMillis + " ms, seed " + Long.toHexString(seed);
+    }
+}
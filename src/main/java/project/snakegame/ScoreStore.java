@@ -0,0 +1,535 @@
+package project.snakegame;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Хранилище итогов игр: журнал, в который только дописывают, и отсортированный индекс рекордов.
+ * <p>
+ * Журнал {@code scores.log} - заголовок ({@code int} MAGIC "SNKS", {@code int} версия) и записи
+ * фиксированного размера {@link #RECORD_SIZE}: CRC32 остальных полей, счет, длина, сложность, шаги,
+ * длительность, зерно и момент окончания. Пакет записей дописывается одной записью в файл и сбрасывается
+ * на диск ({@link FileChannel#force(boolean)}), поэтому после сбоя в журнале может оказаться только
+ * оборванный хвост последнего пакета: при открытии он находится по размеру и CRC и отрезается.
+ * <p>
+ * Индекс - по одному отсортированному массиву {@code long} на сложность: в старших 32 битах
+ * {@code Integer.MAX_VALUE - счет}, в младших - номер записи журнала, так что лучший и более ранний результат
+ * идет первым. Лучшие N результатов - это первые N ключей и N чтений записей по смещению, независимо
+ * от числа записей. Индекс сохраняется в {@code scores.idx} (через временный файл и атомарную замену)
+ * при закрытии; при открытии он загружается, а записи журнала после сохраненного индекса досчитываются,
+ * поэтому потеря индекса при сбое стоит только повторного чтения журнала.
+ * <p>
+ * Дописывать записи может один поток ({@link ScoreWriter}); запросы можно выполнять из любых потоков
+ * одновременно с дописыванием.
+ */
+public final class ScoreStore implements Closeable {
+
+    /**
+     * Переменная для логирования
+     */
+    private static final Logger logger = LogManager.getLogger(ScoreStore.class);
+
+    /**
+     * Сигнатура журнала.
+     */
+    static final int LOG_MAGIC = 0x534E4B53;
+
+    /**
+     * Сигнатура индекса.
+     */
+    static final int INDEX_MAGIC = 0x534E4B49;
+
+    /**
+     * Версия форматов журнала и индекса.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Размер заголовка журнала в байтах.
+     */
+    static final int LOG_HEADER = 2 * Integer.BYTES;
+
+    /**
+     * Размер записи журнала в байтах.
+     */
+    static final int RECORD_SIZE = 4 * Integer.BYTES + 4 * Long.BYTES;
+
+    /**
+     * Количество записей, читаемых за раз при проверке журнала.
+     */
+    private static final int SCAN_BATCH = 4096;
+
+    /**
+     * Сложности по порядковым номерам.
+     */
+    private static final Difficulty[] DIFFICULTIES = Difficulty.values();
+
+    /**
+     * Путь к файлу индекса.
+     */
+    private final Path indexFile;
+
+    /**
+     * Канал журнала.
+     */
+    private final FileChannel log;
+
+    /**
+     * Ключи индекса по сложностям; используются первые {@link #sizes} элементов.
+     */
+    private final long[][] index = new long[DIFFICULTIES.length][];
+
+    /**
+     * Количество ключей индекса по сложностям.
+     */
+    private final int[] sizes = new int[DIFFICULTIES.length];
+
+    /**
+     * Количество записей журнала, попавших в индекс.
+     */
+    private int records;
+
+    /**
+     * Буфер кодирования пакета записей; используется только пишущим потоком.
+     */
+    private ByteBuffer batchBuffer = ByteBuffer.allocate(64 * RECORD_SIZE);
+
+    /**
+     * Контрольная сумма для кодирования и проверки записей.
+     */
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Открывает хранилище над открытым журналом.
+     *
+     * @param indexFile Путь к файлу индекса.
+     * @param log       Канал журнала.
+     */
+    private ScoreStore(Path indexFile, FileChannel log) {
+        this.indexFile = indexFile;
+        this.log = log;
+        for (int d = 0; d < DIFFICULTIES.length; d++) {
+            index[d] = new long[16];
+        }
+    }
+
+    /**
+     * Открывает или создает хранилище в каталоге.
+     *
+     * @param dir Каталог с файлами {@code scores.log} и {@code scores.idx}.
+     * @return Открытое {@link ScoreStore}.
+     * @throws IOException если файлы не удалось открыть или журнал не является журналом итогов.
+     */
+    public static ScoreStore open(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        FileChannel log = FileChannel.open(dir.resolve("scores.log"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ScoreStore store = new ScoreStore(dir.resolve("scores.idx"), log);
+        try {
+            store.load();
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        }
+        return store;
+    }
+
+    /**
+     * Проверяет заголовок журнала, загружает индекс и добавляет в него записи, которых в нем нет.
+     *
+     * @throws IOException если журнал не удалось прочитать или он некорректен.
+     */
+    private void load() throws IOException {
+        if (log.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(LOG_HEADER).putInt(LOG_MAGIC).putInt(VERSION).flip();
+            writeFully(header, 0);
+            log.force(true);
+        }
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER);
+        readFully(header, 0);
+        header.flip();
+        if (header.remaining() < LOG_HEADER || header.getInt() != LOG_MAGIC || header.getInt() != VERSION) {
+            throw new IOException("not a score log");
+        }
+        long stored = (log.size() - LOG_HEADER) / RECORD_SIZE;
+        if (stored > Integer.MAX_VALUE) {
+            throw new IOException("the score log is too large: " + stored + " records");
+        }
+        int indexed = loadIndex((int) stored);
+        records = indexed;
+        int valid = scan(indexed, (int) stored);
+        long end = LOG_HEADER + (long) valid * RECORD_SIZE;
+        if (log.size() != end) {
+            logger.warn("truncating {} bytes of an unfinished score log tail", log.size() - end);
+            log.truncate(end);
+            log.force(true);
+        }
+        if (valid != indexed) {
+            saveIndex();
+        }
+    }
+
+    /**
+     * Загружает сохраненный индекс, если он согласован с журналом.
+     *
+     * @param stored Количество целых записей в журнале.
+     * @return Количество записей, покрытых индексом; {@code 0}, если индекса нет или он поврежден.
+     */
+    private int loadIndex(int stored) {
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.wrap(Files.readAllBytes(indexFile));
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (IOException e) {
+            logger.warn("failed to read the score index, rebuilding it", e);
+            return 0;
+        }
+        try {
+            if (buffer.getInt() != INDEX_MAGIC || buffer.getInt() != VERSION) {
+                throw new IllegalStateException("bad header");
+            }
+            int covered = buffer.getInt();
+            if (covered < 0 || covered > stored) {
+                throw new IllegalStateException("covers " + covered + " of " + stored + " records");
+            }
+            long total = 0;
+            for (int d = 0; d < DIFFICULTIES.length; d++) {
+                int count = buffer.getInt();
+                if (count < 0 || count > covered) {
+                    throw new IllegalStateException("bad count " + count);
+                }
+                long[] keys = new long[Math.max(16, count)];
+                buffer.asLongBuffer().get(keys, 0, count);
+                buffer.position(buffer.position() + count * Long.BYTES);
+                index[d] = keys;
+                sizes[d] = count;
+                total += count;
+            }
+            if (total != covered || buffer.hasRemaining()) {
+                throw new IllegalStateException("keys do not match " + covered + " records");
+            }
+            return covered;
+        } catch (RuntimeException e) {
+            logger.warn("the score index is corrupted ({}), rebuilding it", e.getMessage());
+            for (int d = 0; d < DIFFICULTIES.length; d++) {
+                index[d] = new long[16];
+                sizes[d] = 0;
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Читает записи журнала, которых нет в индексе, проверяет их CRC и добавляет в индекс.
+     *
+     * @param from Номер первой записи.
+     * @param to   Номер после последней целой записи.
+     * @return Номер первой поврежденной записи или {@code to}, если все записи целы.
+     * @throws IOException если журнал не удалось прочитать.
+     */
+    private int scan(int from, int to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BATCH * RECORD_SIZE);
+        long[][] keys = new long[DIFFICULTIES.length][];
+        int[] counts = new int[DIFFICULTIES.length];
+        for (int d = 0; d < DIFFICULTIES.length; d++) {
+            keys[d] = new long[16];
+        }
+        int record = from;
+        scanning:
+        while (record < to) {
+            int count = Math.min(SCAN_BATCH, to - record);
+            buffer.clear().limit(count * RECORD_SIZE);
+            readFully(buffer, LOG_HEADER + (long) record * RECORD_SIZE);
+            for (int i = 0; i < count; i++, record++) {
+                int offset = i * RECORD_SIZE;
+                if (!valid(buffer, offset)) {
+                    break scanning;
+                }
+                int difficulty = buffer.getInt(offset + 3 * Integer.BYTES);
+                if (counts[difficulty] == keys[difficulty].length) {
+                    keys[difficulty] = Arrays.copyOf(keys[difficulty], counts[difficulty] * 2);
+                }
+                keys[difficulty][counts[difficulty]++] = key(buffer.getInt(offset + Integer.BYTES), record);
+            }
+        }
+        for (int d = 0; d < DIFFICULTIES.length; d++) {
+            merge(d, keys[d], counts[d]);
+        }
+        records = record;
+        return record;
+    }
+
+    /**
+     * Проверяет CRC записи в буфере.
+     *
+     * @param buffer Буфер с записями.
+     * @param offset Смещение записи.
+     * @return {@code true}, если запись цела и ее сложность известна.
+     */
+    private boolean valid(ByteBuffer buffer, int offset) {
+        crc.reset();
+        crc.update(buffer.slice(offset + Integer.BYTES, RECORD_SIZE - Integer.BYTES));
+        int difficulty = buffer.getInt(offset + 3 * Integer.BYTES);
+        return buffer.getInt(offset) == (int) crc.getValue() && difficulty >= 0 && difficulty < DIFFICULTIES.length;
+    }
+
+    /**
+     * Строит ключ индекса.
+     *
+     * @param score  Счет.
+     * @param record Номер записи журнала.
+     * @return Ключ, по возрастанию которого результаты идут от лучшего к худшему.
+     */
+    private static long key(int score, int record) {
+        return (long) (Integer.MAX_VALUE - score) << 32 | record;
+    }
+
+    /**
+     * Сливает отсортированные новые ключи в индекс сложности, начиная с конца, без промежуточного массива.
+     *
+     * @param difficulty Порядковый номер сложности.
+     * @param keys       Новые ключи; сортируются.
+     * @param count      Количество новых ключей.
+     */
+    private void merge(int difficulty, long[] keys, int count) {
+        if (count == 0) {
+            return;
+        }
+        Arrays.sort(keys, 0, count);
+        int size = sizes[difficulty];
+        long[] target = index[difficulty];
+        if (size + count > target.length) {
+            target = Arrays.copyOf(target, Math.max(size + count, target.length * 2));
+            index[difficulty] = target;
+        }
+        int i = size - 1;
+        int j = count - 1;
+        for (int k = size + count - 1; j >= 0; k--) {
+            target[k] = i >= 0 && target[i] > keys[j] ? target[i--] : keys[j--];
+        }
+        sizes[difficulty] = size + count;
+    }
+
+    /**
+     * Дописывает пакет итогов в журнал, сбрасывает его на диск и добавляет итоги в индекс.
+     * Запись на диск выполняется без блокировки запросов; вызывается только одним пишущим потоком.
+     *
+     * @param batch Итоги.
+     * @throws IOException если журнал не удалось записать.
+     */
+    public void append(List<ScoreRecord> batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int first;
+        synchronized (this) {
+            first = records;
+        }
+        if ((long) first + batch.size() > Integer.MAX_VALUE) {
+            throw new IOException("the score log is full");
+        }
+        if (batchBuffer.capacity() < batch.size() * RECORD_SIZE) {
+            batchBuffer = ByteBuffer.allocate(batch.size() * RECORD_SIZE);
+        }
+        ByteBuffer buffer = batchBuffer.clear();
+        long[][] keys = new long[DIFFICULTIES.length][batch.size()];
+        int[] counts = new int[DIFFICULTIES.length];
+        for (int i = 0; i < batch.size(); i++) {
+            ScoreRecord record = batch.get(i);
+            int offset = buffer.position();
+            buffer.putInt(0).putInt(record.getScore()).putInt(record.getLength())
+                    .putInt(record.getDifficulty().ordinal()).putLong(record.getTicks())
+                    .putLong(record.getDurationMillis()).putLong(record.getSeed()).putLong(record.getFinishedAt());
+            crc.reset();
+            crc.update(buffer.slice(offset + Integer.BYTES, RECORD_SIZE - Integer.BYTES));
+            buffer.putInt(offset, (int) crc.getValue());
+            int difficulty = record.getDifficulty().ordinal();
+            keys[difficulty][counts[difficulty]++] = key(record.getScore(), first + i);
+        }
+        buffer.flip();
+        writeFully(buffer, LOG_HEADER + (long) first * RECORD_SIZE);
+        log.force(false);
+        synchronized (this) {
+            for (int d = 0; d < DIFFICULTIES.length; d++) {
+                merge(d, keys[d], counts[d]);
+            }
+            records = first + batch.size();
+        }
+    }
+
+    /**
+     * Возвращает лучшие результаты сложности: больший счет выше, при равном счете выше более ранний.
+     *
+     * @param difficulty Сложность.
+     * @param n          Наибольшее количество результатов.
+     * @return Итоги от лучшего к худшему.
+     * @throws IOException если записи не удалось прочитать.
+     */
+    public List<ScoreRecord> top(Difficulty difficulty, int n) throws IOException {
+        long[] keys;
+        synchronized (this) {
+            int d = difficulty.ordinal();
+            keys = Arrays.copyOf(index[d], Math.min(n, sizes[d]));
+        }
+        List<ScoreRecord> result = new ArrayList<>(keys.length);
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        for (long key : keys) {
+            result.add(read((int) key, buffer));
+        }
+        return result;
+    }
+
+    /**
+     * Читает запись журнала по номеру.
+     *
+     * @param record Номер записи.
+     * @param buffer Буфер размером {@link #RECORD_SIZE}.
+     * @return {@link ScoreRecord}.
+     * @throws IOException если запись не удалось прочитать.
+     */
+    private ScoreRecord read(int record, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        readFully(buffer, LOG_HEADER + (long) record * RECORD_SIZE);
+        buffer.flip();
+        buffer.getInt();
+        int score = buffer.getInt();
+        int length = buffer.getInt();
+        Difficulty difficulty = DIFFICULTIES[buffer.getInt()];
+        return new ScoreRecord(score, difficulty, length, buffer.getLong(), buffer.getLong(), buffer.getLong(),
+                buffer.getLong());
+    }
+
+    /**
+     * Возвращает количество сохраненных итогов.
+     *
+     * @return Число записей журнала.
+     */
+    public synchronized int size() {
+        return records;
+    }
+
+    /**
+     * Возвращает количество сохраненных итогов сложности.
+     *
+     * @param difficulty Сложность.
+     * @return Число итогов.
+     */
+    public synchronized int count(Difficulty difficulty) {
+        return sizes[difficulty.ordinal()];
+    }
+
+    /**
+     * Сохраняет индекс во временный файл и атомарно заменяет им прежний.
+     *
+     * @throws IOException если индекс не удалось записать.
+     */
+    public synchronized void saveIndex() throws IOException {
+        int total = 0;
+        for (int size : sizes) {
+            total += size;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(3 * Integer.BYTES + DIFFICULTIES.length * Integer.BYTES
+                + total * Long.BYTES);
+        buffer.putInt(INDEX_MAGIC).putInt(VERSION).putInt(records);
+        for (int d = 0; d < DIFFICULTIES.length; d++) {
+            buffer.putInt(sizes[d]);
+            buffer.asLongBuffer().put(index[d], 0, sizes[d]);
+            buffer.position(buffer.position() + sizes[d] * Long.BYTES);
+        }
+        buffer.flip();
+        Path temp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Сохраняет индекс и закрывает журнал.
+     *
+     * @throws IOException если индекс не удалось сохранить или журнал не удалось закрыть.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            saveIndex();
+        } finally {
+            log.close();
+        }
+    }
+
+    /**
+     * Записывает буфер в журнал целиком.
+     *
+     * @param buffer   Буфер в режиме чтения.
+     * @param position Смещение в журнале.
+     * @throws IOException если запись не удалась.
+     */
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += log.write(buffer, position);
+        }
+    }
+
+    /**
+     * Читает из журнала до заполнения буфера или конца файла.
+     *
+     * @param buffer   Буфер в режиме записи.
+     * @param position Смещение в журнале.
+     * @throws IOException если чтение не удалось.
+     */
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = log.read(buffer, position);
+            if (read < 0) {
+                return;
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Печатает таблицу рекордов.
+     *
+     * @param args каталог хранилища, сложность (по умолчанию все) и количество результатов (по умолчанию 10)
+     * @throws IOException если хранилище не удалось открыть
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: ScoreStore <dir> [difficulty] [n]");
+            System.exit(2);
+        }
+        int n = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        try (ScoreStore store = open(Path.of(args[0]))) {
+            for (Difficulty difficulty : DIFFICULTIES) {
+                if (args.length > 1 && !difficulty.name().equalsIgnoreCase(args[1])) {
+                    continue;
+                }
+                System.out.printf("%s: %d games%n", difficulty.name(), store.count(difficulty));
+                int place = 1;
+                for (ScoreRecord record : store.top(difficulty, n)) {
+                    System.out.printf("%4d. %s%n", place++, record);
+                }
+            }
+        }
+    }
+}
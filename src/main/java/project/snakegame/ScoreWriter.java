@@ -0,0 +1,181 @@
+package project.snakegame;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Фоновый писатель итогов игр в {@link ScoreStore}.
+ * <p>
+ * Игровые потоки и поток JavaFX только кладут итог в ограниченную очередь и никогда не ждут диска.
+ * Поток писателя забирает из очереди все накопившиеся итоги и дописывает их в журнал одним пакетом,
+ * так что один сброс на диск обслуживает сразу много законченных игр. Если очередь переполнена,
+ * итог отбрасывается с предупреждением в журнале.
+ */
+public final class ScoreWriter implements Closeable {
+
+    /**
+     * Переменная для логирования
+     */
+    private static final Logger logger = LogManager.getLogger(ScoreWriter.class);
+
+    /**
+     * Емкость очереди по умолчанию.
+     */
+    static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * Наибольший размер пакета.
+     */
+    private static final int MAX_BATCH = 1024;
+
+    /**
+     * Период проверки флага работы, пока очередь пуста, в миллисекундах.
+     */
+    private static final long POLL_MILLIS = 100;
+
+    /**
+     * Хранилище итогов.
+     */
+    private final ScoreStore store;
+
+    /**
+     * Очередь итогов, ожидающих записи.
+     */
+    private final ArrayBlockingQueue<ScoreRecord> queue;
+
+    /**
+     * Поток писателя.
+     */
+    private final Thread thread;
+
+    /**
+     * Флаг работы писателя.
+     */
+    private volatile boolean running = true;
+
+    /**
+     * Количество записанных итогов.
+     */
+    private volatile long written;
+
+    /**
+     * Количество отброшенных итогов.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Создает писатель с очередью емкостью {@link #DEFAULT_CAPACITY} и запускает его поток.
+     *
+     * @param store Хранилище итогов.
+     */
+    public ScoreWriter(ScoreStore store) {
+        this(store, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Создает писатель и запускает его поток.
+     *
+     * @param store    Хранилище итогов.
+     * @param capacity Емкость очереди.
+     */
+    public ScoreWriter(ScoreStore store, int capacity) {
+        this.store = store;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.thread = new Thread(this::run, "score-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Передает итог на запись без ожидания. Может вызываться из любых потоков.
+     *
+     * @param record Итог игры.
+     * @return {@code true}, если итог принят; {@code false}, если очередь переполнена или писатель закрыт.
+     */
+    public boolean submit(ScoreRecord record) {
+        // если писатель закрылся сразу после проверки, итог либо уже забран close(), либо отбрасывается здесь
+        if (!running || !queue.offer(record) || !running && queue.remove(record)) {
+            dropped.incrementAndGet();
+            logger.warn("the score queue is full or closed, the result {} was dropped", record);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Тело потока: забирает итоги пакетами и дописывает их в хранилище до закрытия и опустошения очереди.
+     */
+    private void run() {
+        List<ScoreRecord> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                ScoreRecord first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                store.append(batch);
+                written += batch.size();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.error("the score writer was interrupted, {} results are lost", queue.size());
+                return;
+            } catch (IOException e) {
+                logger.error("failed to save {} results", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Возвращает количество записанных итогов.
+     *
+     * @return Число итогов, дописанных в хранилище.
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    /**
+     * Возвращает количество отброшенных итогов.
+     *
+     * @return Число итогов, не попавших в очередь.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Дописывает оставшиеся в очереди итоги и останавливает поток писателя.
+     * Итоги, принятые {@link #submit(ScoreRecord)} уже после выхода потока, дописываются здесь же.
+     * Хранилище не закрывается.
+     *
+     * @throws IOException если ожидание потока было прервано или оставшиеся итоги не удалось записать.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while waiting for the score writer", e);
+        }
+        List<ScoreRecord> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            store.append(rest);
+            written += rest.size();
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package project.snakegame;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.util.AbstractList;
 import java.util.List;
+import java.util.RandomAccess;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -10,7 +12,8 @@ import org.apache.logging.log4j.Logger;
  * Представляет змейку в игре.
  * <p>
  * Управляет положением змейки на игровом поле, ее направлением движения,
- * а также отслеживает, жива ли змейка.
+ * а также отслеживает, жива ли змейка. Вся игровая логика выполняется в {@link GameEngine},
+ * этот класс лишь переводит его примитивное состояние в {@link Cell}.
  */
 public class Snake {
 
@@ -20,33 +23,77 @@ public class Snake {
     private static final Logger logger = LogManager.getLogger(Snake.class);
 
     /**
-     * Список клеток, составляющих тело змейки.
-     * Первая клетка в списке - голова, последняя - хвост.
+     * Игровое ядро, в котором хранится тело змейки.
      */
-    private List<Cell> body = new ArrayList<>();
+    private final GameEngine engine;
 
     /**
-     * Клетка, представляющая текущее положение яблока.
+     * Представление тела змейки в виде списка клеток только для чтения.
      */
-    private Cell apple;
+    private final List<Cell> cells = new CellView();
 
     /**
-     * Текущее направление движения змейки.
+     * Запись повтора игры или {@code null}, если игра не записывается.
      */
-    private Direction direction = Direction.RIGHT;
+    private ReplayRecorder recorder;
 
     /**
-     * Флаг, указывающий, жива ли змейка.
+     * Создает новый экземпляр змейки с заданным начальным положением тела
+     * на поле размера {@link Main#getWidth()} на {@link Main#getHeight()}.
+     *
+     * @param cells Список {@link Cell}, представляющих начальные клетки тела змейки.
      */
-    private boolean isAlive = true;
+    public Snake(List<Cell> cells) {
+        this(Main.getWidth(), Main.getHeight(), cells);
+    }
 
     /**
-     * Создает новый экземпляр змейки с заданным начальным положением тела.
+     * Создает новый экземпляр змейки на квадратном поле заданного размера.
      *
-     * @param cells Список {@link Cell}, представляющих начальные клетки тела змейки.
+     * @param size  Размер стороны поля в клетках.
+     * @param cells Список {@link Cell}, представляющих начальные клетки тела змейки, от хвоста к голове.
      */
-    public Snake(List<Cell> cells) {
-        body.addAll(cells);
+    public Snake(int size, List<Cell> cells) {
+        this(size, size, cells);
+    }
+
+    /**
+     * Создает новый экземпляр змейки на поле заданного размера.
+     *
+     * @param width  Ширина поля в клетках.
+     * @param height Высота поля в клетках.
+     * @param cells  Список {@link Cell}, представляющих начальные клетки тела змейки, от хвоста к голове.
+     */
+    public Snake(int width, int height, List<Cell> cells) {
+        this(new GameEngine(width, height, toIndices(width, cells)));
+    }
+
+    /**
+     * Создает змейку поверх уже существующего игрового ядра.
+     *
+     * @param engine {@link GameEngine}, которым управляет змейка.
+     */
+    public Snake(GameEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Переводит список клеток в индексы клеток поля.
+     *
+     * @param width Ширина поля.
+     * @param cells Список клеток.
+     * @return Массив индексов.
+     */
+    private static int[] toIndices(int width, List<Cell> cells) {
+        int[] indices = new int[cells.size()];
+        for (int i = 0; i < indices.length; i++) {
+            Cell cell = cells.get(i);
+            if (cell.getX() < 0 || cell.getX() >= width) {
+                throw new IllegalArgumentException("cell is out of the board: " + cell.getX() + "," + cell.getY());
+            }
+            indices[i] = cell.getY() * width + cell.getX();
+        }
+        return indices;
     }
 
     /**
@@ -55,7 +102,7 @@ public class Snake {
      * @param cell {@link Cell}, представляющая положение яблока.
      */
     void apple(Cell cell) {
-        apple = cell;
+        engine.setApple(cell == null ? GameEngine.NO_CELL : engine.index(cell.getX(), cell.getY()));
     }
 
     /**
@@ -66,72 +113,131 @@ public class Snake {
      * @param direction Новое направление движения {@link Direction}.
      */
     void directionTo(Direction direction) {
-        if (this.direction==Direction.RIGHT && direction==Direction.LEFT) {
-            this.direction = Direction.RIGHT;
+        var previous = engine.getDirection();
+        if (engine.turn(direction)) {
+            logger.debug("changing the direction of the snake");
+            if (direction != previous) {
+                GameEvents.turn(engine, direction);
+                record(direction);
+            }
+        }
+    }
 
-        } else if (this.direction==Direction.LEFT && direction==Direction.RIGHT) {
-            this.direction = Direction.LEFT;
+    /**
+     * Начинает запись повтора игры. Все последующие смены направления попадают в повтор.
+     *
+     * @param recorder {@link ReplayRecorder}, созданный для этой змейки.
+     */
+    void setRecorder(ReplayRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Завершает запись повтора, если она велась, и закрывает файл.
+     */
+    void finishRecording() {
+        if (recorder == null) {
+            return;
+        }
+        try {
+            recorder.finish(engine.getTicks());
+        } catch (IOException e) {
+            logger.error("failed to finish the replay", e);
+        }
+        recorder = null;
+    }
 
-        } else if (this.direction==Direction.UP && direction==Direction.DOWN) {
-            this.direction = Direction.UP;
+    /**
+     * Записывает смену направления в повтор. При ошибке записи повтор отключается, а игра продолжается.
+     *
+     * @param direction Новое направление.
+     */
+    private void record(Direction direction) {
+        if (recorder == null) {
+            return;
+        }
+        try {
+            recorder.turn(engine.getTicks(), direction);
+        } catch (IOException e) {
+            stopRecording(e);
+        }
+    }
 
-        } else if (this.direction==Direction.DOWN && direction==Direction.UP) {
-            this.direction = Direction.DOWN;
+    /**
+     * Отмечает шаг в повторе, чтобы в нем периодически появлялись ключевые кадры.
+     */
+    private void recordStep() {
+        if (recorder == null) {
+            return;
+        }
+        try {
+            recorder.step(engine);
+        } catch (IOException e) {
+            stopRecording(e);
+        }
+    }
 
-        } else {
-            this.direction = direction;
-            logger.info("changing the direction of the snake");
+    /**
+     * Отключает запись повтора после ошибки, игра при этом продолжается.
+     *
+     * @param e Ошибка записи.
+     */
+    private void stopRecording(IOException e) {
+        logger.error("failed to record the replay, recording is stopped", e);
+        try {
+            recorder.close();
+        } catch (IOException ignored) {
+            // файл уже поврежден, закрываем его по возможности
         }
+        recorder = null;
     }
 
     /**
      * Выполняет один шаг движения змейки.
      * <p>
      * Определяет следующую позицию головы змейки в зависимости от текущего направления.
-     * Проверяет столкновение с собственным телом.
+     * Проверяет столкновение с собственным телом и стенами уровня.
      * Если змейка съедает яблоко, ее длина увеличивается.
      *
      * @return {@code true}, если змейка съела яблоко на этом шаге, {@code false} в противном случае.
      */
     boolean step() {
-        var tail = body.get(body.size() - 1);
-        var next = switch (direction) {
-            case RIGHT -> new Cell(
-                    (tail.getX() + 1) % Main.getSize(), tail.getY()
-            );
-            case LEFT -> new Cell(
-                    (tail.getX() - 1 + Main.getSize()) % Main.getSize(), tail.getY()
-            );
-            case UP -> new Cell(
-                    tail.getX(), (tail.getY() - 1 + Main.getSize()) % Main.getSize()
-            );
-            case DOWN -> new Cell(
-                    tail.getX(), (tail.getY() + 1) % Main.getSize()
-            );
-        };
-
-
-        if (body.contains(next)) {
-            logger.info("the snake crashed into itself. The game is over");
-            isAlive = false;
-            return false;
+        var wasAlive = engine.isAlive();
+        var eat = engine.tick();
+        recordStep();
+        if (eat) {
+            GameEvents.eat(engine);
+        } else if (wasAlive && !engine.isAlive()) {
+            Level level = engine.getLevel();
+            if (level != null && level.isWall(engine.neighbour(engine.getHead(), engine.getDirection()))) {
+                logger.info("the snake crashed into a wall. The game is over");
+            } else {
+                logger.info("the snake crashed into itself. The game is over");
+            }
+            GameEvents.death(engine);
         }
-
-        var eat = next.equals(apple);
-        if (!eat) {
-            body.remove(0);
-        }
-        body.add(next);
         return eat;
     }
 
     /**
      * Возвращает список клеток, составляющих тело змейки.
+     * <p>
+     * Список является представлением кольцевого буфера {@link GameEngine} только для чтения:
+     * тело не копируется, а изменения после очередного шага сразу видны через тот же список.
      *
-     * @return {@link List<Cell>} - список клеток тела змейки.
+     * @return {@link List<Cell>} - список клеток тела змейки, от хвоста к голове.
      */
     List<Cell> asCells() {
-        return body;
+        return cells;
+    }
+
+    /**
+     * Возвращает игровое ядро змейки.
+     *
+     * @return {@link GameEngine}.
+     */
+    GameEngine getEngine() {
+        return engine;
     }
 
     /**
@@ -140,6 +246,34 @@ public class Snake {
      * @return {@code true}, если змейка жива, {@code false} в противном случае.
      */
     public boolean isAlive() {
-        return this.isAlive;
+        return engine.isAlive();
+    }
+
+    /**
+     * Список клеток тела только для чтения поверх кольцевого буфера ядра.
+     */
+    private final class CellView extends AbstractList<Cell> implements RandomAccess {
+
+        /**
+         * Возвращает клетку тела по порядковому номеру.
+         *
+         * @param index Номер клетки от хвоста.
+         * @return {@link Cell} с координатами клетки.
+         */
+        @Override
+        public Cell get(int index) {
+            int cell = engine.getCell(index);
+            return new Cell(engine.x(cell), engine.y(cell));
+        }
+
+        /**
+         * Возвращает длину змейки.
+         *
+         * @return Количество клеток тела.
+         */
+        @Override
+        public int size() {
+            return engine.getLength();
+        }
     }
 }
@@ -0,0 +1,75 @@
+package project.snakegame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Передача снимков {@link GameSnapshot} от потока игры потоку отрисовки без блокировок.
+ * <p>
+ * Писатель заполняет свой задний буфер и публикует его, читатель забирает последний опубликованный буфер.
+ * Помимо двух буферов, принадлежащих сторонам, есть третий, промежуточный, которым они обмениваются
+ * атомарной операцией. Поэтому ни писатель, ни читатель никогда не ждут друг друга и не видят
+ * наполовину записанный снимок, а читатель, пропустивший несколько публикаций, получает самую свежую.
+ */
+public final class SnapshotExchange {
+
+    /**
+     * Флаг в {@link #middle}, означающий, что промежуточный буфер содержит еще не прочитанный снимок.
+     */
+    private static final int FRESH = 4;
+
+    /**
+     * Три буфера снимков.
+     */
+    private final GameSnapshot[] buffers = new GameSnapshot[3];
+
+    /**
+     * Номер промежуточного буфера и флаг {@link #FRESH}.
+     */
+    private final AtomicInteger middle = new AtomicInteger(1);
+
+    /**
+     * Номер буфера, принадлежащего писателю.
+     */
+    private int back = 0;
+
+    /**
+     * Номер буфера, принадлежащего читателю.
+     */
+    private int front = 2;
+
+    /**
+     * Создает обменник для поля заданного размера и публикует в нем начальное состояние ядра.
+     *
+     * @param engine {@link GameEngine}, состояние которого будет передаваться.
+     */
+    public SnapshotExchange(GameEngine engine) {
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new GameSnapshot(engine.getWidth(), engine.getHeight());
+            buffers[i].copyFrom(engine);
+        }
+    }
+
+    /**
+     * Копирует состояние ядра в задний буфер и публикует его. Вызывается только из потока игры.
+     *
+     * @param engine {@link GameEngine}, состояние которого нужно опубликовать.
+     */
+    public void publish(GameEngine engine) {
+        buffers[back].copyFrom(engine);
+        back = middle.getAndSet(back | FRESH) & ~FRESH;
+    }
+
+    /**
+     * Возвращает самый свежий опубликованный снимок. Вызывается только из потока отрисовки.
+     * <p>
+     * Снимок остается в распоряжении читателя до следующего вызова этого метода.
+     *
+     * @return {@link GameSnapshot} последнего опубликованного состояния.
+     */
+    public GameSnapshot latest() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & ~FRESH;
+        }
+        return buffers[front];
+    }
+}
@@ -0,0 +1,598 @@
+package project.snakegame;
+
+import java.util.Arrays;
+
+/**
+ * Игра "Змейка" на очень большом поле (до 2<sup>31</sup> - 1 клеток по каждой стороне), из которого занята
+ * лишь малая доля.
+ * <p>
+ * В отличие от {@link GameEngine}, здесь нет массивов размером с поле. Поле разбито на квадратные плитки
+ * {@link #TILE} x {@link #TILE}: каждая плитка - это битовые маски тела и яблок по строкам (одно
+ * {@code long} на строку). Плитка создается, когда в нее входит голова или яблоко, и удаляется, когда
+ * из нее уходит последняя клетка, а плитки хранятся в {@link LongMap} по ключу из номеров строки и столбца
+ * плитки. Поэтому память и все операции зависят только от занятой площади:
+ * <ul>
+ *     <li>столкновение и поедание яблока - один поиск плитки и проверка бита;</li>
+ *     <li>яблоко размещается случайными пробами, которые почти всегда попадают в свободную клетку,
+ *     пока поле не заполнено;</li>
+ *     <li>отрисовщик ({@link SparseWorldView}) читает только плитки видимой области.</li>
+ * </ul>
+ * Клетка {@code (x, y)} кодируется числом {@code (long) y << 32 | x}. Поле замкнуто в тор,
+ * как и в {@link GameEngine}. Класс не потокобезопасен.
+ */
+public final class SparseWorld {
+
+    /**
+     * Значение клетки, означающее ее отсутствие.
+     */
+    public static final long NO_CELL = -1;
+
+    /**
+     * Двоичный логарифм стороны плитки.
+     */
+    static final int TILE_SHIFT = 6;
+
+    /**
+     * Сторона плитки в клетках; строка плитки - одно {@code long}.
+     */
+    public static final int TILE = 1 << TILE_SHIFT;
+
+    /**
+     * Количество случайных проб при размещении яблока, после которого свободная клетка ищется перебором плиток.
+     */
+    private static final int PLACE_ATTEMPTS = 64;
+
+    /**
+     * Наибольшее количество освобожденных плиток, которые хранятся для повторного использования.
+     */
+    private static final int POOL_SIZE = 16;
+
+    /**
+     * Плитка поля: маски тела и яблок по строкам.
+     */
+    private static final class Tile {
+
+        /**
+         * Маски тела: бит {@code x % TILE} строки {@code y % TILE}.
+         */
+        final long[] body = new long[TILE];
+
+        /**
+         * Маски яблок в той же раскладке.
+         */
+        final long[] apples = new long[TILE];
+
+        /**
+         * Количество занятых клеток тела и яблок; плитка удаляется, когда оно становится нулем.
+         */
+        int count;
+    }
+
+    /**
+     * Ширина поля.
+     */
+    private final int width;
+
+    /**
+     * Высота поля.
+     */
+    private final int height;
+
+    /**
+     * Плитки по ключу {@link #tileKey(int, int)}.
+     */
+    private final LongMap<Tile> tiles = new LongMap<>();
+
+    /**
+     * Освобожденные плитки для повторного использования.
+     */
+    private final Tile[] pool = new Tile[POOL_SIZE];
+
+    /**
+     * Количество плиток в {@link #pool}.
+     */
+    private int pooled;
+
+    /**
+     * Кольцевой буфер тела от хвоста к голове; растет удвоением.
+     */
+    private long[] body = new long[16];
+
+    /**
+     * Позиция хвоста в {@link #body}.
+     */
+    private int tailPos;
+
+    /**
+     * Длина змейки.
+     */
+    private int length;
+
+    /**
+     * Клетки яблок; {@link #NO_CELL} - яблоко не удалось разместить.
+     */
+    private long[] apples;
+
+    /**
+     * Генератор случайных чисел игры.
+     */
+    private final SplitMix64 random;
+
+    /**
+     * Направление движения.
+     */
+    private Direction direction = Direction.RIGHT;
+
+    /**
+     * Жива ли змейка.
+     */
+    private boolean alive = true;
+
+    /**
+     * Количество выполненных шагов.
+     */
+    private long ticks;
+
+    /**
+     * Количество съеденных яблок.
+     */
+    private int score;
+
+    /**
+     * Создает поле со змейкой длины 3 в центре, движущейся вправо, и яблоками в случайных клетках.
+     *
+     * @param width  Ширина поля.
+     * @param height Высота поля.
+     * @param apples Количество яблок на поле.
+     * @param seed   Зерно генератора.
+     * @throws IllegalArgumentException если поле меньше 3 x 1 или яблок меньше нуля.
+     */
+    public SparseWorld(int width, int height, int apples, long seed) {
+        if (width < 3 || height < 1 || apples < 0) {
+            throw new IllegalArgumentException("invalid world: " + width + "x" + height + ", apples " + apples);
+        }
+        this.width = width;
+        this.height = height;
+        this.random = new SplitMix64(seed);
+        int x = width / 2 - 1;
+        int y = height / 2;
+        for (int i = 0; i < 3; i++) {
+            long cell = cell(x + i, y);
+            body[i] = cell;
+            set(cell, false);
+        }
+        length = 3;
+        this.apples = new long[apples];
+        for (int i = 0; i < apples; i++) {
+            this.apples[i] = placeApple();
+        }
+    }
+
+    /**
+     * Кодирует координаты клетки.
+     *
+     * @param x Координата X.
+     * @param y Координата Y.
+     * @return Клетка.
+     */
+    public static long cell(int x, int y) {
+        return (long) y << 32 | x;
+    }
+
+    /**
+     * Возвращает координату X клетки.
+     *
+     * @param cell Клетка.
+     * @return Координата X.
+     */
+    public static int x(long cell) {
+        return (int) cell;
+    }
+
+    /**
+     * Возвращает координату Y клетки.
+     *
+     * @param cell Клетка.
+     * @return Координата Y.
+     */
+    public static int y(long cell) {
+        return (int) (cell >>> 32);
+    }
+
+    /**
+     * Возвращает ключ плитки, содержащей клетку.
+     *
+     * @param x Координата X клетки.
+     * @param y Координата Y клетки.
+     * @return Номер строки плитки в старших 32 битах и номер столбца в младших.
+     */
+    private static long tileKey(int x, int y) {
+        return (long) (y >>> TILE_SHIFT) << 32 | x >>> TILE_SHIFT;
+    }
+
+    /**
+     * Изменяет направление движения змейки; разворот на 180 градусов игнорируется.
+     *
+     * @param direction Новое направление движения.
+     * @return {@code true}, если направление принято.
+     */
+    public boolean turn(Direction direction) {
+        if (direction == this.direction.opposite()) {
+            return false;
+        }
+        this.direction = direction;
+        return true;
+    }
+
+    /**
+     * Меняет направление (если это не разворот) и выполняет один шаг.
+     *
+     * @param direction Запрошенное направление или {@code null}, чтобы сохранить текущее.
+     * @return {@code true}, если змейка съела яблоко на этом шаге.
+     */
+    public boolean tick(Direction direction) {
+        if (direction != null) {
+            turn(direction);
+        }
+        return tick();
+    }
+
+    /**
+     * Выполняет один шаг, как {@link GameEngine#tick()}: столкновение проверяется со всем телом, включая хвост,
+     * а съеденное яблоко сразу заменяется новым. Шаг не создает объектов, пока хватает плиток в запасе
+     * и буфера тела.
+     *
+     * @return {@code true}, если змейка съела яблоко на этом шаге, {@code false} в противном случае
+     * или если змейка мертва.
+     */
+    public boolean tick() {
+        if (!alive) {
+            return false;
+        }
+        long next = neighbour(getHead(), direction);
+        ticks++;
+        int x = x(next);
+        int y = y(next);
+        Tile tile = tiles.get(tileKey(x, y));
+        long bit = 1L << x;
+        int row = y & (TILE - 1);
+        if (tile != null && (tile.body[row] & bit) != 0) {
+            alive = false;
+            return false;
+        }
+        boolean eat = tile != null && (tile.apples[row] & bit) != 0;
+        if (eat) {
+            clear(next, true);
+        } else {
+            clear(body[tailPos], false);
+            tailPos = tailPos + 1 == body.length ? 0 : tailPos + 1;
+            length--;
+        }
+        if (length == body.length) {
+            grow();
+        }
+        int pos = tailPos + length;
+        body[pos >= body.length ? pos - body.length : pos] = next;
+        length++;
+        set(next, false);
+        if (eat) {
+            score++;
+            for (int i = 0; i < apples.length; i++) {
+                if (apples[i] == next) {
+                    apples[i] = placeApple();
+                    break;
+                }
+            }
+        }
+        return eat;
+    }
+
+    /**
+     * Возвращает соседнюю клетку с переносом через край поля.
+     *
+     * @param cell      Клетка.
+     * @param direction Направление.
+     * @return Соседняя клетка.
+     */
+    public long neighbour(long cell, Direction direction) {
+        int x = x(cell) + direction.getDx();
+        int y = y(cell) + direction.getDy();
+        if (x < 0) {
+            x = width - 1;
+        } else if (x == width) {
+            x = 0;
+        }
+        if (y < 0) {
+            y = height - 1;
+        } else if (y == height) {
+            y = 0;
+        }
+        return cell(x, y);
+    }
+
+    /**
+     * Размещает яблоко в случайной свободной клетке и возвращает ее.
+     * <p>
+     * Сначала клетка выбирается равномерно по всему полю, пока не попадет в свободную: на разреженном поле
+     * это почти всегда первая проба. Если {@link #PLACE_ATTEMPTS} проб не удались, поле почти заполнено,
+     * и свободная клетка ищется перебором плиток от случайной, где отсутствующая плитка целиком свободна, -
+     * этот перебор пропорционален занятой площади.
+     *
+     * @return Клетка яблока или {@link #NO_CELL}, если свободных клеток нет.
+     */
+    private long placeApple() {
+        for (int attempt = 0; attempt < PLACE_ATTEMPTS; attempt++) {
+            long cell = cell(random.nextInt(width), random.nextInt(height));
+            if (isFree(cell)) {
+                set(cell, true);
+                return cell;
+            }
+        }
+        int columns = (width + TILE - 1) >>> TILE_SHIFT;
+        long count = (long) columns * ((height + TILE - 1) >>> TILE_SHIFT);
+        long start = random.nextLong(count);
+        for (long i = 0; i < count; i++) {
+            long index = (start + i) % count;
+            int x0 = (int) (index % columns) << TILE_SHIFT;
+            int y0 = (int) (index / columns) << TILE_SHIFT;
+            for (int y = y0; y < Math.min(y0 + TILE, height); y++) {
+                for (int x = x0; x < Math.min(x0 + TILE, width); x++) {
+                    long cell = cell(x, y);
+                    if (isFree(cell)) {
+                        set(cell, true);
+                        return cell;
+                    }
+                }
+            }
+        }
+        return NO_CELL;
+    }
+
+    /**
+     * Добавляет яблоко в заданную клетку (для проверок).
+     *
+     * @param cell Свободная клетка.
+     * @throws IllegalArgumentException если клетка занята.
+     */
+    void addApple(long cell) {
+        if (!isFree(cell)) {
+            throw new IllegalArgumentException("the cell is not free: " + x(cell) + "," + y(cell));
+        }
+        apples = Arrays.copyOf(apples, apples.length + 1);
+        apples[apples.length - 1] = cell;
+        set(cell, true);
+    }
+
+    /**
+     * Проверяет, свободна ли клетка от тела и яблок.
+     *
+     * @param cell Клетка.
+     * @return {@code true}, если клетка свободна.
+     */
+    private boolean isFree(long cell) {
+        Tile tile = tiles.get(tileKey(x(cell), y(cell)));
+        if (tile == null) {
+            return true;
+        }
+        int row = y(cell) & (TILE - 1);
+        return ((tile.body[row] | tile.apples[row]) & 1L << x(cell)) == 0;
+    }
+
+    /**
+     * Отмечает клетку телом или яблоком, создавая плитку при необходимости.
+     *
+     * @param cell  Клетка.
+     * @param apple {@code true} для яблока, {@code false} для тела.
+     */
+    private void set(long cell, boolean apple) {
+        int x = x(cell);
+        int y = y(cell);
+        long key = tileKey(x, y);
+        Tile tile = tiles.get(key);
+        if (tile == null) {
+            if (pooled > 0) {
+                tile = pool[--pooled];
+                pool[pooled] = null;
+            } else {
+                tile = new Tile();
+            }
+            tiles.put(key, tile);
+        }
+        long[] rows = apple ? tile.apples : tile.body;
+        rows[y & (TILE - 1)] |= 1L << x;
+        tile.count++;
+    }
+
+    /**
+     * Снимает отметку тела или яблока с клетки и удаляет опустевшую плитку.
+     *
+     * @param cell  Клетка.
+     * @param apple {@code true} для яблока, {@code false} для тела.
+     */
+    private void clear(long cell, boolean apple) {
+        int x = x(cell);
+        int y = y(cell);
+        long key = tileKey(x, y);
+        Tile tile = tiles.get(key);
+        long[] rows = apple ? tile.apples : tile.body;
+        rows[y & (TILE - 1)] &= ~(1L << x);
+        if (--tile.count == 0) {
+            tiles.remove(key);
+            if (pooled < POOL_SIZE) {
+                pool[pooled++] = tile;
+            }
+        }
+    }
+
+    /**
+     * Удваивает буфер тела, раскладывая тело с начала буфера.
+     */
+    private void grow() {
+        long[] grown = new long[body.length * 2];
+        for (int i = 0; i < length; i++) {
+            grown[i] = getCell(i);
+        }
+        body = grown;
+        tailPos = 0;
+    }
+
+    /**
+     * Возвращает маску тела в строке плитки: бит {@code i} соответствует клетке {@code (x0 + i, y)},
+     * где {@code x0} - начало плитки, содержащей {@code x}.
+     *
+     * @param x Координата X любой клетки плитки.
+     * @param y Координата Y строки.
+     * @return Маска; {@code 0}, если плитки нет.
+     */
+    long bodyRow(int x, int y) {
+        Tile tile = tiles.get(tileKey(x, y));
+        return tile == null ? 0 : tile.body[y & (TILE - 1)];
+    }
+
+    /**
+     * Возвращает маску яблок в строке плитки, как {@link #bodyRow(int, int)}.
+     *
+     * @param x Координата X любой клетки плитки.
+     * @param y Координата Y строки.
+     * @return Маска; {@code 0}, если плитки нет.
+     */
+    long appleRow(int x, int y) {
+        Tile tile = tiles.get(tileKey(x, y));
+        return tile == null ? 0 : tile.apples[y & (TILE - 1)];
+    }
+
+    /**
+     * Проверяет, занята ли клетка телом змейки.
+     *
+     * @param cell Клетка.
+     * @return {@code true}, если клетка принадлежит телу.
+     */
+    public boolean occupied(long cell) {
+        return (bodyRow(x(cell), y(cell)) & 1L << x(cell)) != 0;
+    }
+
+    /**
+     * Проверяет, лежит ли в клетке яблоко.
+     *
+     * @param cell Клетка.
+     * @return {@code true}, если в клетке яблоко.
+     */
+    public boolean hasApple(long cell) {
+        return (appleRow(x(cell), y(cell)) & 1L << x(cell)) != 0;
+    }
+
+    /**
+     * Возвращает клетку тела по порядковому номеру.
+     *
+     * @param i Номер клетки от хвоста ({@code 0}) до головы ({@code getLength() - 1}).
+     * @return Клетка.
+     * @throws IndexOutOfBoundsException если номер выходит за пределы тела.
+     */
+    public long getCell(int i) {
+        if (i < 0 || i >= length) {
+            throw new IndexOutOfBoundsException("cell " + i + " of " + length);
+        }
+        int pos = tailPos + i;
+        return body[pos >= body.length ? pos - body.length : pos];
+    }
+
+    /**
+     * Возвращает клетку головы.
+     *
+     * @return Клетка.
+     */
+    public long getHead() {
+        return getCell(length - 1);
+    }
+
+    /**
+     * Возвращает клетку яблока.
+     *
+     * @param i Номер яблока.
+     * @return Клетка или {@link #NO_CELL}.
+     */
+    public long getApple(int i) {
+        return apples[i];
+    }
+
+    /**
+     * Возвращает количество яблок.
+     *
+     * @return Число яблок.
+     */
+    public int getAppleCount() {
+        return apples.length;
+    }
+
+    /**
+     * Возвращает количество плиток в памяти.
+     *
+     * @return Число плиток, в которых есть тело или яблоко.
+     */
+    public int getTileCount() {
+        return tiles.size();
+    }
+
+    /**
+     * Возвращает длину змейки.
+     *
+     * @return Количество клеток тела.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Возвращает текущее направление движения.
+     *
+     * @return {@link Direction}.
+     */
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * Возвращает текущий статус змейки (жива или нет).
+     *
+     * @return {@code true}, если змейка жива.
+     */
+    public boolean isAlive() {
+        return alive;
+    }
+
+    /**
+     * Возвращает количество выполненных шагов.
+     *
+     * @return Число шагов.
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Возвращает количество съеденных яблок.
+     *
+     * @return Счет игры.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Возвращает ширину поля.
+     *
+     * @return Ширина в клетках.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Возвращает высоту поля.
+     *
+     * @return Высота в клетках.
+     */
+    public int getHeight() {
+        return height;
+    }
+}
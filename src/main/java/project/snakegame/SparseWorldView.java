@@ -0,0 +1,129 @@
+package project.snakegame;
+
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+
+/**
+ * Отрисовщик видимой области {@link SparseWorld} вокруг головы змейки.
+ * <p>
+ * Шахматный фон растеризуется один раз ({@link BoardRenderer#background(int, int, int)}) на одну клетку шире
+ * области и при смене четности угла области сдвигается на клетку, а не рисуется заново. На холсте каждый
+ * кадр рисуются только занятые клетки видимых плиток: для каждой строки плитки читается одна маска,
+ * и перебираются ее установленные биты. Поэтому стоимость кадра зависит от размера области и числа
+ * видимых занятых клеток, но не от размера поля. Все методы вызываются только из потока JavaFX.
+ */
+public final class SparseWorldView {
+
+    /**
+     * Ширина области в клетках.
+     */
+    private final int columns;
+
+    /**
+     * Высота области в клетках.
+     */
+    private final int rows;
+
+    /**
+     * Размер стороны клетки в пикселях.
+     */
+    private final int cellSize;
+
+    /**
+     * Корневой узел: фон и холст, обрезанные по области.
+     */
+    private final Pane root;
+
+    /**
+     * Фон на одну клетку шире области.
+     */
+    private final ImageView background;
+
+    /**
+     * Контекст рисования холста со змейкой и яблоками.
+     */
+    private final GraphicsContext gc;
+
+    /**
+     * Создает отрисовщик области заданного размера.
+     *
+     * @param columns  Ширина области в клетках.
+     * @param rows     Высота области в клетках.
+     * @param cellSize Размер стороны клетки в пикселях.
+     */
+    public SparseWorldView(int columns, int rows, int cellSize) {
+        this.columns = columns;
+        this.rows = rows;
+        this.cellSize = cellSize;
+        this.background = BoardRenderer.background(columns + 1, rows, cellSize);
+        Canvas canvas = new Canvas(columns * cellSize, rows * cellSize);
+        this.gc = canvas.getGraphicsContext2D();
+        this.root = new Pane(background, canvas);
+        root.setPrefSize(columns * cellSize, rows * cellSize);
+        root.setClip(new Rectangle(columns * cellSize, rows * cellSize));
+    }
+
+    /**
+     * Возвращает узел, который нужно добавить в сцену.
+     *
+     * @return {@link Pane} с изображением области.
+     */
+    public Node getNode() {
+        return root;
+    }
+
+    /**
+     * Перерисовывает область с головой змейки в центре.
+     * <p>
+     * Область разбивается на куски, лежащие в одной плитке поля и не пересекающие край поля, и для каждой
+     * строки куска рисуются биты масок тела и яблок.
+     *
+     * @param world Поле.
+     */
+    public void render(SparseWorld world) {
+        long head = world.getHead();
+        int originX = Math.floorMod(SparseWorld.x(head) - columns / 2, world.getWidth());
+        int originY = Math.floorMod(SparseWorld.y(head) - rows / 2, world.getHeight());
+        background.setTranslateX(((originX + originY) & 1) == 0 ? 0 : -cellSize);
+        gc.clearRect(0, 0, columns * cellSize, rows * cellSize);
+        for (int row = 0; row < rows; row++) {
+            int y = (int) ((originY + (long) row) % world.getHeight());
+            int column = 0;
+            while (column < columns) {
+                int x = (int) ((originX + (long) column) % world.getWidth());
+                int offset = x & (SparseWorld.TILE - 1);
+                int span = Math.min(Math.min(SparseWorld.TILE - offset, columns - column), world.getWidth() - x);
+                long window = span == Long.SIZE ? -1L : ((1L << span) - 1) << offset;
+                paint(world.bodyRow(x, y) & window, offset, column, row, BoardRenderer.SNAKE);
+                paint(world.appleRow(x, y) & window, offset, column, row, BoardRenderer.APPLE);
+                column += span;
+            }
+        }
+    }
+
+    /**
+     * Закрашивает клетки, отмеченные в маске строки плитки.
+     *
+     * @param mask   Маска строки плитки, обрезанная по видимому куску.
+     * @param offset Номер бита первой видимой клетки куска.
+     * @param column Столбец области, в котором начинается кусок.
+     * @param row    Строка области.
+     * @param color  Цвет.
+     */
+    private void paint(long mask, int offset, int column, int row, Color color) {
+        if (mask == 0) {
+            return;
+        }
+        gc.setFill(color);
+        while (mask != 0) {
+            int bit = Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+            gc.fillRect((column + bit - offset) * cellSize, row * cellSize, cellSize, cellSize);
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package project.snakegame;
+
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+/**
+ * Стена наблюдения: все игры {@link GameWall} на одном {@link Canvas}.
+ * <p>
+ * Все клетки рисуются копированием областей одного общего атласа спрайтов: фон поля целиком, клетка змейки,
+ * яблоко и полупрозрачное затемнение закончившейся игры. Поэтому стена не создает узлов графа сцены,
+ * а каждый рисуемый элемент - это одна команда {@link GraphicsContext#drawImage} из одной текстуры.
+ * Освободившаяся клетка восстанавливается копией той же клетки из фона в атласе.
+ * <p>
+ * Каждое место стены, как {@link CanvasRenderer}, помнит нарисованное тело и перерисовывает только изменившиеся
+ * клетки. Места обходятся по кругу, и за кадр обновляются только те, что успевают уложиться в бюджет времени
+ * кадра; следующий кадр продолжает обход с места, на котором остановился предыдущий. Поэтому при большой
+ * нагрузке частота обновления каждого места снижается равномерно, а частота кадров - нет. Места, игры которых
+ * не сделали шага с прошлого обновления, бюджет не расходуют.
+ */
+public final class SpectatorWall {
+
+    /**
+     * Промежуток между местами стены в пикселях.
+     */
+    static final int GAP = 2;
+
+    /**
+     * Бюджет обновления мест за кадр по умолчанию в наносекундах: половина кадра при 60 кадрах в секунду.
+     */
+    static final long DEFAULT_BUDGET_NANOS = 8_000_000L;
+
+    /**
+     * Цвет затемнения закончившейся игры.
+     */
+    private static final Color DIM = Color.rgb(0, 0, 0, 0.5);
+
+    /**
+     * Игры, которые показывает стена.
+     */
+    private final GameWall games;
+
+    /**
+     * Размер стороны клетки в пикселях.
+     */
+    private final int cellSize;
+
+    /**
+     * Ширина поля одной игры в пикселях.
+     */
+    private final int boardWidth;
+
+    /**
+     * Высота поля одной игры в пикселях.
+     */
+    private final int boardHeight;
+
+    /**
+     * Холст стены.
+     */
+    private final Canvas canvas;
+
+    /**
+     * Контекст рисования холста.
+     */
+    private final GraphicsContext gc;
+
+    /**
+     * Атлас спрайтов: фон поля, под ним в одну строку клетка змейки, яблоко и затемнение.
+     */
+    private final WritableImage atlas;
+
+    /**
+     * Места стены.
+     */
+    private final Tile[] tiles;
+
+    /**
+     * Номер места, с которого начнется обход на следующем кадре.
+     */
+    private int cursor;
+
+    /**
+     * Бюджет обновления мест за кадр в наносекундах.
+     */
+    private long budgetNanos = DEFAULT_BUDGET_NANOS;
+
+    /**
+     * Количество кадров.
+     */
+    private long frames;
+
+    /**
+     * Количество обновлений мест.
+     */
+    private long refreshes;
+
+    /**
+     * Создает стену; места раскладываются в квадратную сетку.
+     *
+     * @param games    Игры для показа.
+     * @param cellSize Размер стороны клетки в пикселях.
+     */
+    public SpectatorWall(GameWall games, int cellSize) {
+        this.games = games;
+        this.cellSize = cellSize;
+        this.boardWidth = games.getWidth() * cellSize;
+        this.boardHeight = games.getHeight() * cellSize;
+        int columns = columns(games.size());
+        int rows = (games.size() + columns - 1) / columns;
+        this.canvas = new Canvas(columns * (boardWidth + GAP) - GAP, rows * (boardHeight + GAP) - GAP);
+        this.gc = canvas.getGraphicsContext2D();
+        gc.setImageSmoothing(false);
+        this.atlas = atlas(games.getWidth(), games.getHeight(), cellSize);
+        this.tiles = new Tile[games.size()];
+        for (int slot = 0; slot < tiles.length; slot++) {
+            tiles[slot] = new Tile(slot, slot % columns * (boardWidth + GAP), slot / columns * (boardHeight + GAP));
+        }
+    }
+
+    /**
+     * Вычисляет количество столбцов квадратной сетки.
+     *
+     * @param count Количество мест.
+     * @return Наименьшее число столбцов, квадрат которого не меньше {@code count}.
+     */
+    static int columns(int count) {
+        int columns = (int) Math.sqrt(count);
+        return columns * columns < count ? columns + 1 : columns;
+    }
+
+    /**
+     * Растеризует атлас спрайтов.
+     *
+     * @param width    Ширина поля в клетках.
+     * @param height   Высота поля в клетках.
+     * @param cellSize Размер стороны клетки в пикселях.
+     * @return {@link WritableImage} с фоном поля и тремя спрайтами под ним.
+     */
+    static WritableImage atlas(int width, int height, int cellSize) {
+        int boardWidth = width * cellSize;
+        int boardHeight = height * cellSize;
+        WritableImage image = new WritableImage(Math.max(boardWidth, 3 * cellSize), boardHeight + cellSize);
+        PixelWriter writer = image.getPixelWriter();
+        writer.setPixels(0, 0, boardWidth, boardHeight,
+                BoardRenderer.background(width, height, cellSize).getImage().getPixelReader(), 0, 0);
+        double radius = cellSize / 2.0;
+        for (int py = 0; py < cellSize; py++) {
+            for (int px = 0; px < cellSize; px++) {
+                double dx = px + 0.5 - radius;
+                double dy = py + 0.5 - radius;
+                writer.setColor(px, boardHeight + py, BoardRenderer.SNAKE);
+                writer.setColor(cellSize + px, boardHeight + py,
+                        dx * dx + dy * dy <= radius * radius ? BoardRenderer.APPLE : Color.TRANSPARENT);
+                writer.setColor(2 * cellSize + px, boardHeight + py, DIM);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Возвращает узел, который нужно добавить в сцену.
+     *
+     * @return {@link Canvas} стены.
+     */
+    public Node getNode() {
+        return canvas;
+    }
+
+    /**
+     * Возвращает холст стены.
+     *
+     * @return {@link Canvas}.
+     */
+    Canvas getCanvas() {
+        return canvas;
+    }
+
+    /**
+     * Задает бюджет обновления мест за кадр.
+     *
+     * @param budgetNanos Бюджет в наносекундах; хотя бы одно место обновляется за кадр при любом бюджете.
+     */
+    public void setBudget(long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+    }
+
+    /**
+     * Обновляет места, изменившиеся с их прошлого обновления, пока не исчерпан бюджет кадра.
+     * Вызывается только из потока JavaFX.
+     *
+     * @return Количество обновленных мест.
+     */
+    public int render() {
+        long start = System.nanoTime();
+        int refreshed = 0;
+        for (int visited = 0; visited < tiles.length; visited++) {
+            Tile tile = tiles[cursor];
+            cursor = cursor + 1 == tiles.length ? 0 : cursor + 1;
+            if (tile.refresh(games.get(tile.slot))) {
+                refreshed++;
+                if (System.nanoTime() - start >= budgetNanos) {
+                    break;
+                }
+            }
+        }
+        frames++;
+        refreshes += refreshed;
+        return refreshed;
+    }
+
+    /**
+     * Возвращает количество кадров.
+     *
+     * @return Число вызовов {@link #render()}.
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     * Возвращает количество обновлений мест.
+     *
+     * @return Суммарное число обновленных мест за все кадры.
+     */
+    public long getRefreshes() {
+        return refreshes;
+    }
+
+    /**
+     * Место стены: последняя нарисованная игра и ее нарисованное тело.
+     */
+    private final class Tile {
+
+        /**
+         * Номер места в {@link GameWall}.
+         */
+        private final int slot;
+
+        /**
+         * Координата X левого верхнего угла места на холсте.
+         */
+        private final int originX;
+
+        /**
+         * Координата Y левого верхнего угла места на холсте.
+         */
+        private final int originY;
+
+        /**
+         * Кольцевой буфер нарисованных клеток тела.
+         */
+        private final int[] drawn;
+
+        /**
+         * Нарисованная игра.
+         */
+        private GameWall.Game game;
+
+        /**
+         * Позиция нарисованного хвоста в {@link #drawn}.
+         */
+        private int drawnTailPos;
+
+        /**
+         * Номер нарисованного хвоста.
+         */
+        private long drawnTailSeq;
+
+        /**
+         * Номер нарисованной головы.
+         */
+        private long drawnHeadSeq;
+
+        /**
+         * Клетка нарисованного яблока.
+         */
+        private int drawnApple;
+
+        /**
+         * Количество шагов нарисованного состояния.
+         */
+        private long drawnTicks;
+
+        /**
+         * Создает место стены.
+         *
+         * @param slot    Номер места.
+         * @param originX Координата X места на холсте.
+         * @param originY Координата Y места на холсте.
+         */
+        Tile(int slot, int originX, int originY) {
+            this.slot = slot;
+            this.originX = originX;
+            this.originY = originY;
+            this.drawn = new int[games.getWidth() * games.getHeight()];
+        }
+
+        /**
+         * Перерисовывает место, если его игра сделала шаг или сменилась.
+         *
+         * @param current Текущая игра места.
+         * @return {@code true}, если место было перерисовано.
+         */
+        boolean refresh(GameWall.Game current) {
+            GameSnapshot state = current.latest();
+            if (current != game) {
+                game = current;
+                renderFull(state);
+                return true;
+            }
+            if (state.getTicks() == drawnTicks) {
+                return false;
+            }
+            long tailSeq = state.getTailSeq();
+            long headSeq = tailSeq + state.getLength() - 1;
+            if (tailSeq > drawnHeadSeq || tailSeq < drawnTailSeq || headSeq < drawnHeadSeq) {
+                renderFull(state);
+                return true;
+            }
+            int width = state.getWidth();
+            if (drawnApple != GameEngine.NO_CELL && drawnApple != state.getApple()) {
+                restore(drawnApple, width);
+            }
+            while (drawnTailSeq < tailSeq) {
+                restore(drawn[drawnTailPos], width);
+                drawnTailPos = drawnTailPos + 1 == drawn.length ? 0 : drawnTailPos + 1;
+                drawnTailSeq++;
+            }
+            while (drawnHeadSeq < headSeq) {
+                drawnHeadSeq++;
+                int cell = state.getCell((int) (drawnHeadSeq - tailSeq));
+                drawn[(int) (drawnHeadSeq % drawn.length)] = cell;
+                sprite(0, cell, width);
+            }
+            if (drawnApple != GameEngine.NO_CELL && drawnApple != state.getApple() && state.occupied(drawnApple)) {
+                sprite(0, drawnApple, width);
+            }
+            finish(state);
+            return true;
+        }
+
+        /**
+         * Рисует место заново: фон поля одной копией из атласа, затем тело и яблоко.
+         *
+         * @param state Снимок игры.
+         */
+        private void renderFull(GameSnapshot state) {
+            int width = state.getWidth();
+            gc.drawImage(atlas, 0, 0, boardWidth, boardHeight, originX, originY, boardWidth, boardHeight);
+            drawnTailSeq = state.getTailSeq();
+            drawnHeadSeq = drawnTailSeq + state.getLength() - 1;
+            drawnTailPos = (int) (drawnTailSeq % drawn.length);
+            for (int i = 0; i < state.getLength(); i++) {
+                int cell = state.getCell(i);
+                drawn[(int) ((drawnTailSeq + i) % drawn.length)] = cell;
+                sprite(0, cell, width);
+            }
+            finish(state);
+        }
+
+        /**
+         * Рисует яблоко, затемняет место закончившейся игры и запоминает нарисованное состояние.
+         *
+         * @param state Снимок игры.
+         */
+        private void finish(GameSnapshot state) {
+            drawnApple = state.getApple();
+            if (drawnApple != GameEngine.NO_CELL) {
+                sprite(1, drawnApple, state.getWidth());
+            }
+            if (!state.isAlive()) {
+                gc.drawImage(atlas, 2 * cellSize, boardHeight, cellSize, cellSize,
+                        originX, originY, boardWidth, boardHeight);
+            }
+            drawnTicks = state.getTicks();
+        }
+
+        /**
+         * Восстанавливает фон клетки копией той же клетки из фона в атласе.
+         *
+         * @param cell  Индекс клетки.
+         * @param width Ширина поля.
+         */
+        private void restore(int cell, int width) {
+            int x = cell % width * cellSize;
+            int y = cell / width * cellSize;
+            gc.drawImage(atlas, x, y, cellSize, cellSize, originX + x, originY + y, cellSize, cellSize);
+        }
+
+        /**
+         * Рисует спрайт в клетке.
+         *
+         * @param sprite Номер спрайта: 0 - змейка, 1 - яблоко.
+         * @param cell   Индекс клетки.
+         * @param width  Ширина поля.
+         */
+        private void sprite(int sprite, int cell, int width) {
+            gc.drawImage(atlas, sprite * cellSize, boardHeight, cellSize, cellSize,
+                    originX + cell % width * cellSize, originY + cell / width * cellSize, cellSize, cellSize);
+        }
+    }
+}
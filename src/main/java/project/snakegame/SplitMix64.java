@@ -0,0 +1,73 @@
+package project.snakegame;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Быстрый детерминированный генератор псевдослучайных чисел SplitMix64.
+ * <p>
+ * В отличие от {@link java.util.Random} и {@link java.util.SplittableRandom}, все его состояние - одно число
+ * {@code long}, которое можно прочитать и восстановить. Это позволяет воспроизводить игру по зерну
+ * и сохранять состояние генератора вместе с состоянием игры.
+ */
+public final class SplitMix64 implements RandomGenerator {
+
+    /**
+     * Шаг, на который увеличивается состояние при каждом вызове.
+     */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Текущее состояние генератора.
+     */
+    private long state;
+
+    /**
+     * Создает генератор с заданным зерном.
+     *
+     * @param seed Зерно генератора.
+     */
+    public SplitMix64(long seed) {
+        this.state = seed;
+    }
+
+    /**
+     * Возвращает следующее псевдослучайное число.
+     *
+     * @return Случайное значение {@code long}.
+     */
+    @Override
+    public long nextLong() {
+        return mix(state += GOLDEN_GAMMA);
+    }
+
+    /**
+     * Перемешивает биты числа финальной функцией SplitMix64: близкие аргументы дают независимые
+     * на вид результаты.
+     *
+     * @param z Исходное значение.
+     * @return Перемешанное значение.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Возвращает текущее состояние генератора.
+     *
+     * @return Состояние, которое можно передать в {@link #setState(long)}.
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * Восстанавливает ранее сохраненное состояние генератора.
+     *
+     * @param state Состояние, полученное из {@link #getState()}.
+     */
+    public void setState(long state) {
+        this.state = state;
+    }
+}
@@ -0,0 +1,99 @@
+package project.snakegame;
+
+import javafx.application.Platform;
+import javafx.scene.Scene;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Замер времени запуска: от старта JVM до готовности JavaFX и до первого отрисованного кадра окна игры.
+ * <p>
+ * Готовность JavaFX записывается в журнал строкой {@value #TOOLKIT_MESSAGE} в начале
+ * {@link Main#start(javafx.stage.Stage)}: это время известно и там, где кадр отрисовать нельзя (например,
+ * на машине без библиотек вывода текста), но оно не включает построение сцены и первую отрисовку.
+ * <p>
+ * Кадр импульса JavaFX выводится потоком отрисовки после обработчиков импульса, а следующий импульс начинается
+ * только после вывода предыдущего кадра, поэтому первый кадр считается выведенным во втором импульсе после
+ * {@link javafx.stage.Stage#show()}. Время пишется в журнал строкой {@value #FIRST_FRAME_MESSAGE}, которую
+ * разбирает измерительный стенд. С {@code -Dsnake.startup.exit=true} приложение сразу завершается - так
+ * запускается и обучающий прогон для архива CDS.
+ */
+final class Startup {
+
+    /**
+     * Переменная для логирования
+     */
+    private static final Logger logger = LogManager.getLogger(Startup.class);
+
+    /**
+     * Начало строки журнала с временем готовности JavaFX.
+     */
+    static final String TOOLKIT_MESSAGE = "toolkit initialized in ";
+
+    /**
+     * Начало строки журнала с временем первого кадра.
+     */
+    static final String FIRST_FRAME_MESSAGE = "first frame rendered in ";
+
+    /**
+     * Количество импульсов, после которого первый кадр гарантированно выведен.
+     */
+    private static final int FIRST_FRAME_PULSES = 2;
+
+    /**
+     * Закрытый конструктор: класс содержит только статические методы.
+     */
+    private Startup() {
+    }
+
+    /**
+     * Записывает время готовности JavaFX. Вызывается в начале {@link Main#start(javafx.stage.Stage)}.
+     */
+    static void toolkitReady() {
+        logger.info(TOOLKIT_MESSAGE + "{} ms after the JVM start", sinceJvmStart());
+    }
+
+    /**
+     * Подписывается на импульсы сцены, чтобы записать время первого кадра. Вызывается после показа окна.
+     *
+     * @param scene Сцена окна игры.
+     */
+    static void measureFirstFrame(Scene scene) {
+        scene.addPostLayoutPulseListener(new Runnable() {
+            /**
+             * Количество прошедших импульсов.
+             */
+            private int pulses;
+
+            /**
+             * Записывает время на втором импульсе и отписывается.
+             */
+            @Override
+            public void run() {
+                if (++pulses < FIRST_FRAME_PULSES) {
+                    return;
+                }
+                long millis = sinceJvmStart();
+                scene.removePostLayoutPulseListener(this);
+                logger.info(FIRST_FRAME_MESSAGE + "{} ms after the JVM start", millis);
+                if (Boolean.getBoolean("snake.startup.exit")) {
+                    Platform.exit();
+                }
+            }
+        });
+    }
+
+    /**
+     * Возвращает время от старта JVM. Текущий момент берется до обращения к {@link ManagementFactory},
+     * чтобы загрузка классов управления не попадала в замер.
+     *
+     * @return Миллисекунды от старта JVM.
+     */
+    static long sinceJvmStart() {
+        long now = System.currentTimeMillis();
+        return now - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+}
@@ -0,0 +1,325 @@
+package project.snakegame;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Набор из K независимых игр для обучения с подкреплением, которые делают шаг одним вызовом.
+ * <p>
+ * Результат шага всех игр записывается в один переиспользуемый прямой буфер {@link #getResult()}
+ * (числа little-endian, как их читает {@code numpy.frombuffer}):
+ * <pre>
+ * float[K]          награды: +1 за яблоко, -1 за гибель, 0 иначе
+ * byte[K]           1, если эпизод закончился (гибель или предел шагов), иначе 0
+ * byte[K][3][H][W]  наблюдения: плоскости тела, головы и яблока, 1 - клетка занята, 0 - нет
+ * </pre>
+ * Закончившаяся игра сразу начинается заново, как в векторных средах gym: награда и признак конца
+ * относятся к последнему шагу старого эпизода, а наблюдение - уже к новому эпизоду.
+ * <p>
+ * Плоскости обновляются по изменениям шага (хвост, голова, яблоко), а не перезаписываются целиком,
+ * поэтому шаг стоит O(1) на игру независимо от размера поля; целиком плоскости пишутся только при сбросе.
+ * Игры ведутся прямо на {@link GameEngine} без адаптера {@link Snake} и его журнала, а новый эпизод
+ * начинается в том же ядре через {@link GameEngine#reset(int[], long)}, поэтому шаг не создает объектов
+ * и не пишет в журнал даже при окончании эпизодов.
+ */
+public final class VectorEnv {
+
+    /**
+     * Количество плоскостей наблюдения.
+     */
+    public static final int PLANES = 3;
+
+    /**
+     * Номер плоскости тела (включая голову).
+     */
+    public static final int BODY = 0;
+
+    /**
+     * Номер плоскости головы.
+     */
+    public static final int HEAD = 1;
+
+    /**
+     * Номер плоскости яблока.
+     */
+    public static final int APPLE = 2;
+
+    /**
+     * Действие, сохраняющее текущее направление.
+     */
+    public static final byte KEEP = -1;
+
+    /**
+     * Награда за съеденное яблоко.
+     */
+    static final float EAT_REWARD = 1;
+
+    /**
+     * Награда за гибель.
+     */
+    static final float DEATH_REWARD = -1;
+
+    /**
+     * Направления по порядковым номерам.
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * Начальные клетки тела змейки, от хвоста к голове.
+     */
+    private static final int[] START = {0, 1, 2};
+
+    /**
+     * Ширина поля.
+     */
+    private final int width;
+
+    /**
+     * Высота поля.
+     */
+    private final int height;
+
+    /**
+     * Наибольшее количество шагов эпизода.
+     */
+    private final long maxSteps;
+
+    /**
+     * Игровые ядра; каждое переиспользуется для всех эпизодов своей игры.
+     */
+    private final GameEngine[] engines;
+
+    /**
+     * Буфер результата шага.
+     */
+    private final ByteBuffer result;
+
+    /**
+     * Смещение признаков конца эпизода в {@link #result}.
+     */
+    private final int donesOffset;
+
+    /**
+     * Смещение наблюдений в {@link #result}.
+     */
+    private final int observationsOffset;
+
+    /**
+     * Нули для очистки наблюдения одной игры.
+     */
+    private final byte[] zeros;
+
+    /**
+     * Зерно набора игр.
+     */
+    private long seed;
+
+    /**
+     * Количество начатых эпизодов; номер эпизода определяет зерно его игры.
+     */
+    private long episodes;
+
+    /**
+     * Создает набор игр. Перед первым шагом нужно вызвать {@link #reset(long)}.
+     *
+     * @param count    Количество игр K.
+     * @param width    Ширина поля.
+     * @param height   Высота поля.
+     * @param maxSteps Наибольшее количество шагов эпизода.
+     * @throws IllegalArgumentException если параметры не положительны или буфер не помещается в память.
+     */
+    public VectorEnv(int count, int width, int height, long maxSteps) {
+        if (count <= 0 || width < 3 || height <= 0 || maxSteps <= 0) {
+            throw new IllegalArgumentException("invalid environment: " + count + " x " + width + "x" + height
+                    + ", max steps " + maxSteps);
+        }
+        long size = (long) count * (Float.BYTES + 1 + PLANES * (long) width * height);
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("observation buffer is too large: " + size + " bytes");
+        }
+        this.width = width;
+        this.height = height;
+        this.maxSteps = maxSteps;
+        this.engines = new GameEngine[count];
+        for (int env = 0; env < count; env++) {
+            engines[env] = new GameEngine(width, height, START, 0);
+        }
+        this.result = ByteBuffer.allocateDirect((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        this.donesOffset = count * Float.BYTES;
+        this.observationsOffset = donesOffset + count;
+        this.zeros = new byte[observationSize()];
+    }
+
+    /**
+     * Начинает новые эпизоды во всех играх.
+     *
+     * @param seed Зерно; игры и их последующие эпизоды получают зерна, выведенные из него.
+     */
+    public void reset(long seed) {
+        this.seed = seed;
+        this.episodes = 0;
+        for (int env = 0; env < engines.length; env++) {
+            restart(env);
+            result.putFloat(env * Float.BYTES, 0);
+            result.put(donesOffset + env, (byte) 0);
+        }
+    }
+
+    /**
+     * Делает по одному шагу во всех играх.
+     *
+     * @param actions Буфер из K байт: порядковый номер {@link Direction} или любое другое значение
+     *                (например, {@link #KEEP}), чтобы сохранить направление. Позиция буфера сдвигается на K.
+     */
+    public void step(ByteBuffer actions) {
+        for (int env = 0; env < engines.length; env++) {
+            int action = actions.get();
+            GameEngine engine = engines[env];
+            if (action >= 0 && action < DIRECTIONS.length) {
+                engine.turn(DIRECTIONS[action]);
+            }
+            int tail = engine.getTail();
+            int head = engine.getHead();
+            int apple = engine.getApple();
+            long tailSeq = engine.getTailSeq();
+            boolean ate = engine.tick();
+            float reward = ate ? EAT_REWARD : 0;
+            boolean done = false;
+            if (!engine.isAlive()) {
+                reward = DEATH_REWARD;
+                done = true;
+            } else {
+                int base = observationsOffset + env * observationSize();
+                int area = width * height;
+                if (engine.getTailSeq() != tailSeq) {
+                    result.put(base + BODY * area + tail, (byte) 0);
+                }
+                result.put(base + BODY * area + engine.getHead(), (byte) 1);
+                result.put(base + HEAD * area + head, (byte) 0);
+                result.put(base + HEAD * area + engine.getHead(), (byte) 1);
+                if (engine.getApple() != apple) {
+                    if (apple != GameEngine.NO_CELL) {
+                        result.put(base + APPLE * area + apple, (byte) 0);
+                    }
+                    if (engine.getApple() != GameEngine.NO_CELL) {
+                        result.put(base + APPLE * area + engine.getApple(), (byte) 1);
+                    }
+                }
+                done = engine.getTicks() >= maxSteps || engine.getApple() == GameEngine.NO_CELL;
+            }
+            if (done) {
+                restart(env);
+            }
+            result.putFloat(env * Float.BYTES, reward);
+            result.put(donesOffset + env, (byte) (done ? 1 : 0));
+        }
+    }
+
+    /**
+     * Начинает новый эпизод игры и записывает ее наблюдение целиком.
+     *
+     * @param env Номер игры.
+     */
+    private void restart(int env) {
+        GameEngine engine = engines[env];
+        engine.reset(START, BatchSimulator.gameSeed(seed, episodes++));
+        engine.placeApple();
+        int base = observationsOffset + env * observationSize();
+        int area = width * height;
+        result.put(base, zeros);
+        for (int i = 0; i < engine.getLength(); i++) {
+            result.put(base + BODY * area + engine.getCell(i), (byte) 1);
+        }
+        result.put(base + HEAD * area + engine.getHead(), (byte) 1);
+        if (engine.getApple() != GameEngine.NO_CELL) {
+            result.put(base + APPLE * area + engine.getApple(), (byte) 1);
+        }
+    }
+
+    /**
+     * Возвращает буфер результата последнего шага или сброса. Буфер переиспользуется при каждом вызове.
+     *
+     * @return Прямой буфер little-endian; позиция и предел не используются.
+     */
+    public ByteBuffer getResult() {
+        return result;
+    }
+
+    /**
+     * Возвращает размер наблюдения одной игры.
+     *
+     * @return {@code PLANES * height * width} байт.
+     */
+    public int observationSize() {
+        return PLANES * width * height;
+    }
+
+    /**
+     * Возвращает награду игры за последний шаг.
+     *
+     * @param env Номер игры.
+     * @return Награда.
+     */
+    public float getReward(int env) {
+        return result.getFloat(env * Float.BYTES);
+    }
+
+    /**
+     * Проверяет, закончился ли эпизод игры на последнем шаге.
+     *
+     * @param env Номер игры.
+     * @return {@code true}, если игра начата заново.
+     */
+    public boolean isDone(int env) {
+        return result.get(donesOffset + env) != 0;
+    }
+
+    /**
+     * Возвращает значение клетки наблюдения.
+     *
+     * @param env   Номер игры.
+     * @param plane Номер плоскости.
+     * @param cell  Индекс клетки.
+     * @return 1, если клетка отмечена в плоскости, иначе 0.
+     */
+    public int getObservation(int env, int plane, int cell) {
+        return result.get(observationsOffset + env * observationSize() + plane * width * height + cell);
+    }
+
+    /**
+     * Возвращает игровое ядро для проверки наблюдений.
+     *
+     * @param env Номер игры.
+     * @return {@link GameEngine} текущего эпизода.
+     */
+    GameEngine getEngine(int env) {
+        return engines[env];
+    }
+
+    /**
+     * Возвращает количество игр.
+     *
+     * @return K.
+     */
+    public int getCount() {
+        return engines.length;
+    }
+
+    /**
+     * Возвращает ширину поля.
+     *
+     * @return Ширина в клетках.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Возвращает высоту поля.
+     *
+     * @return Высота в клетках.
+     */
+    public int getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,152 @@
+package project.snakegame;
+
+/**
+ * Ключи хеширования Зобриста для состояния игры.
+ * <p>
+ * Хеш состояния - XOR ключей его составляющих: каждой клетки тела, клетки головы, направления, яблока,
+ * счета и признака смерти. При шаге меняются лишь несколько составляющих, поэтому {@link GameEngine}
+ * обновляет хеш за постоянное время, исключая старые ключи и добавляя новые той же операцией XOR.
+ * <p>
+ * Ключ вычисляется перемешиванием {@link SplitMix64#mix(long)} номера составляющей и значения, поэтому ключи
+ * одинаковы во всех процессах. Ключи клеток тела и головы, которые меняются на каждом шаге, для первых
+ * {@link #TABLE_CELLS} клеток заранее сложены в общие таблицы: шаг читает четыре ключа из таблиц вместо
+ * четырех перемешиваний, а огромные поля не требуют таблиц своего размера.
+ */
+final class Zobrist {
+
+    /**
+     * Составляющая: клетка тела.
+     */
+    private static final long BODY = 0x243F6A8885A308D3L;
+
+    /**
+     * Составляющая: клетка головы.
+     */
+    private static final long HEAD = 0x13198A2E03707344L;
+
+    /**
+     * Составляющая: клетка яблока.
+     */
+    private static final long APPLE = 0xA4093822299F31D0L;
+
+    /**
+     * Составляющая: направление.
+     */
+    private static final long DIRECTION = 0x082EFA98EC4E6C89L;
+
+    /**
+     * Составляющая: счет.
+     */
+    private static final long SCORE = 0x452821E638D01377L;
+
+    /**
+     * Ключ признака смерти змейки.
+     */
+    static final long DEAD = SplitMix64.mix(0xBE5466CF34E90C6CL);
+
+    /**
+     * Шаг между значениями одной составляющей.
+     */
+    private static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Количество клеток, ключи которых хранятся в таблицах: поле 256x256.
+     */
+    static final int TABLE_CELLS = 1 << 16;
+
+    /**
+     * Ключи клеток тела.
+     */
+    private static final long[] BODY_KEYS = table(BODY);
+
+    /**
+     * Ключи клеток головы.
+     */
+    private static final long[] HEAD_KEYS = table(HEAD);
+
+    /**
+     * Закрытый конструктор: класс содержит только статические методы.
+     */
+    private Zobrist() {
+    }
+
+    /**
+     * Вычисляет таблицу ключей составляющей для первых {@link #TABLE_CELLS} клеток.
+     *
+     * @param component Номер составляющей.
+     * @return Таблица ключей.
+     */
+    private static long[] table(long component) {
+        long[] keys = new long[TABLE_CELLS];
+        for (int cell = 0; cell < TABLE_CELLS; cell++) {
+            keys[cell] = SplitMix64.mix(component + cell * GAMMA);
+        }
+        return keys;
+    }
+
+    /**
+     * Возвращает ключ клетки тела.
+     *
+     * @param cell Индекс клетки.
+     * @return Ключ.
+     */
+    static long body(int cell) {
+        return cell < TABLE_CELLS ? BODY_KEYS[cell] : SplitMix64.mix(BODY + cell * GAMMA);
+    }
+
+    /**
+     * Возвращает ключ клетки головы.
+     *
+     * @param cell Индекс клетки.
+     * @return Ключ.
+     */
+    static long head(int cell) {
+        return cell < TABLE_CELLS ? HEAD_KEYS[cell] : SplitMix64.mix(HEAD + cell * GAMMA);
+    }
+
+    /**
+     * Возвращает ключ клетки яблока.
+     *
+     * @param cell Индекс клетки или {@link GameEngine#NO_CELL}.
+     * @return Ключ.
+     */
+    static long apple(int cell) {
+        return SplitMix64.mix(APPLE + cell * GAMMA);
+    }
+
+    /**
+     * Возвращает ключ направления.
+     *
+     * @param direction Направление.
+     * @return Ключ.
+     */
+    static long direction(Direction direction) {
+        return SplitMix64.mix(DIRECTION + direction.ordinal() * GAMMA);
+    }
+
+    /**
+     * Возвращает ключ счета.
+     *
+     * @param score Счет.
+     * @return Ключ.
+     */
+    static long score(int score) {
+        return SplitMix64.mix(SCORE + score * GAMMA);
+    }
+
+    /**
+     * Вычисляет хеш состояния заново по всем его составляющим за время, пропорциональное длине змейки.
+     * Совпадает с хешем, который {@link GameEngine} поддерживает инкрементально.
+     *
+     * @param state Состояние игры.
+     * @return Хеш состояния.
+     */
+    static long of(GameState state) {
+        long hash = head(state.getHead()) ^ direction(state.getDirection()) ^ apple(state.getApple())
+                ^ score(state.getScore());
+        for (int i = 0; i < state.getLength(); i++) {
+            hash ^= body(state.getCell(i));
+        }
+        return state.isAlive() ? hash : hash ^ DEAD;
+    }
+}
@@ -0,0 +1,99 @@
+package project.snakegame;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для проверки функциональности класса {@link Arena}.
+ */
+public class ArenaTest {
+
+    /**
+     * Проверяет, что змейки, идущие в одну клетку, погибают обе и освобождают свои клетки.
+     */
+    @Test
+    void tick_headOnCollisionKillsBoth() {
+        Arena arena = new Arena(10, 3, 0, 0, 1);
+        int left = arena.spawn(new int[]{0, 1, 2}, Direction.RIGHT);
+        int right = arena.spawn(new int[]{6, 5, 4}, Direction.LEFT);
+        assertEquals(0, arena.tick());
+        assertFalse(arena.isAlive(left));
+        assertFalse(arena.isAlive(right));
+        for (int cell = 0; cell < 30; cell++) {
+            assertEquals(Arena.NO_SNAKE, arena.getOwner(cell));
+        }
+    }
+
+    /**
+     * Проверяет, что вход в клетку хвоста, который ушел бы на этом шаге, считается столкновением, как в {@link GameEngine}.
+     */
+    @Test
+    void tick_enteringOwnTailIsCollision() {
+        Arena arena = new Arena(10, 1, 0, 0, 1);
+        int full = arena.spawn(new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9}, Direction.RIGHT);
+        arena.tick();
+        assertFalse(arena.isAlive(full));
+
+        arena = new Arena(10, 1, 0, 0, 1);
+        int shorter = arena.spawn(new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8}, Direction.RIGHT);
+        for (int i = 0; i < 20; i++) {
+            arena.tick();
+        }
+        assertTrue(arena.isAlive(shorter));
+        assertEquals(9, arena.getLength(shorter));
+    }
+
+    /**
+     * Проверяет, что змейка растет, съедая яблоко, а яблоко размещается заново.
+     */
+    @Test
+    void tick_eatingGrowsSnake() {
+        Arena arena = new Arena(10, 1, 0, 1, 3);
+        int apple = arena.getApple(0);
+        int[] cells = new int[3];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = (apple + 1 + i) % 10;
+        }
+        int snake = arena.spawn(cells, Direction.RIGHT);
+        while (arena.getScore(snake) == 0 && arena.getTicks() < 10) {
+            arena.tick();
+        }
+        assertEquals(1, arena.getScore(snake));
+        assertEquals(4, arena.getLength(snake));
+        assertEquals(snake, arena.getOwner(apple));
+        assertNotEquals(apple, arena.getApple(0));
+        assertEquals(Arena.NO_SNAKE, arena.getOwner(arena.getApple(0)));
+    }
+
+    /**
+     * Проверяет, что результат не зависит от числа потоков.
+     */
+    @Test
+    void tick_isReproducibleAcrossPools() {
+        ForkJoinPool singlePool = new ForkJoinPool(1);
+        ForkJoinPool parallelPool = new ForkJoinPool(4);
+        try {
+            Arena single = new Arena(200, 200, 2_000, 500, 42, singlePool);
+            Arena parallel = new Arena(200, 200, 2_000, 500, 42, parallelPool);
+            for (int i = 0; i < 300; i++) {
+                assertEquals(single.tick(), parallel.tick());
+            }
+            assertTrue(single.getAliveCount() > 0);
+            assertTrue(single.getAliveCount() < single.getSnakeCount());
+            for (int snake = 0; snake < single.getSnakeCount(); snake++) {
+                assertEquals(single.isAlive(snake), parallel.isAlive(snake));
+                assertEquals(single.getHead(snake), parallel.getHead(snake));
+                assertEquals(single.getScore(snake), parallel.getScore(snake));
+            }
+            for (int apple = 0; apple < single.getAppleCount(); apple++) {
+                assertEquals(single.getApple(apple), parallel.getApple(apple));
+            }
+        } finally {
+            singlePool.shutdown();
+            parallelPool.shutdown();
+        }
+    }
+}
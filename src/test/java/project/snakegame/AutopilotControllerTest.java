@@ -0,0 +1,47 @@
+package project.snakegame;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для проверки функциональности класса {@link AutopilotController}.
+ */
+public class AutopilotControllerTest {
+
+    /**
+     * Проверяет, что автопилот в среднем набирает больше очков, чем жадный контроллер.
+     */
+    @Test
+    void run_scoresHigherThanGreedy() {
+        BatchSimulator simulator = new BatchSimulator(15, 15, 20_000);
+        BatchResult greedy = simulator.run(50, 1, seed -> new GreedyController());
+        BatchResult autopilot = simulator.run(50, 1, seed -> new AutopilotController());
+        assertTrue(autopilot.getMeanScore() > 2 * greedy.getMeanScore(),
+                autopilot.getMeanScore() + " vs " + greedy.getMeanScore());
+    }
+
+    /**
+     * Проверяет, что после прогрева выбор направления не создает объектов.
+     */
+    @Test
+    void decide_doesNotAllocate() {
+        GameEngine engine = new GameEngine(40, 40, new int[]{0, 1, 2}, 3);
+        engine.placeApple();
+        AutopilotController controller = new AutopilotController();
+        controller.decide(engine);
+        long before = GameMetrics.allocatedBytes();
+        long decisions = 0;
+        while (engine.isAlive() && decisions < 20_000) {
+            Direction direction = controller.decide(engine);
+            decisions++;
+            if (direction == null) {
+                break;
+            }
+            engine.tick(direction);
+        }
+        long allocated = GameMetrics.allocatedBytes() - before;
+        assertTrue(decisions > 1_000);
+        assertTrue(allocated < 64 * 1024, "allocated " + allocated + " bytes");
+    }
+}
@@ -0,0 +1,33 @@
+package project.snakegame;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для проверки функциональности класса {@link BatchSimulator}.
+ */
+public class BatchSimulatorTest {
+
+    /**
+     * Проверяет, что результат прогона не зависит от числа потоков.
+     */
+    @Test
+    void run_isReproducibleAcrossPools() {
+        BatchResult single = new BatchSimulator(15, 15, 5_000, new ForkJoinPool(1))
+                .run(100, 42, seed -> new GreedyController());
+        BatchResult parallel = new BatchSimulator(15, 15, 5_000, new ForkJoinPool(4))
+                .run(100, 42, seed -> new GreedyController());
+        assertEquals(100, parallel.getGames());
+        assertEquals(single.getTotalTicks(), parallel.getTotalTicks());
+        for (int game = 0; game < 100; game++) {
+            assertEquals(single.getScore(game), parallel.getScore(game));
+            assertEquals(single.getHash(game), parallel.getHash(game));
+        }
+        assertEquals(single.getDigest(), parallel.getDigest());
+        assertTrue(parallel.getScorePercentile(100) > 0);
+        assertTrue(parallel.getScorePercentile(0) <= parallel.getScorePercentile(50));
+    }
+}
@@ -0,0 +1,32 @@
+package project.snakegame;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelReader;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для проверки функциональности интерфейса {@link BoardRenderer}.
+ */
+public class BoardRendererTest {
+
+    /**
+     * Проверяет, что растеризованный фон совпадает по размеру с полем и окрашен как шахматная доска.
+     */
+    @Test
+    void background_rasterizesCheckerboard() {
+        ImageView view = BoardRenderer.background(3, 2, 4);
+        Image image = view.getImage();
+        assertEquals(12, image.getWidth());
+        assertEquals(8, image.getHeight());
+        PixelReader pixels = image.getPixelReader();
+        for (int y = 0; y < 2; y++) {
+            for (int x = 0; x < 3; x++) {
+                assertEquals(BoardRenderer.cellColor(x, y), pixels.getColor(x * 4, y * 4));
+                assertEquals(BoardRenderer.cellColor(x, y), pixels.getColor(x * 4 + 3, y * 4 + 3));
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package project.snakegame;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для проверки частичной перерисовки {@link CanvasRenderer}.
+ */
+public class CanvasRendererTest {
+
+    /**
+     * Пустая клетка модели.
+     */
+    private static final int EMPTY_CELL = 0;
+
+    /**
+     * Клетка модели со змейкой.
+     */
+    private static final int SNAKE_CELL = 1;
+
+    /**
+     * Клетка модели с яблоком.
+     */
+    private static final int APPLE_CELL = 2;
+
+    /**
+     * Отрисовщик, который вместо рисования на холсте ведет модель поля по тем же командам.
+     * Размер клетки равен одному пикселю, поэтому размер холста совпадает с размером поля.
+     */
+    private static final class ModelRenderer extends CanvasRenderer {
+
+        /**
+         * Содержимое клеток модели.
+         */
+        private int[] cells = new int[0];
+
+        /**
+         * Количество закрашенных и стертых клеток с последнего сброса.
+         */
+        private int operations;
+
+        /**
+         * Создает отрисовщик для поля заданного размера.
+         *
+         * @param width  Ширина поля.
+         * @param height Высота поля.
+         */
+        ModelRenderer(int width, int height) {
+            super(width, height, 1);
+        }
+
+        /**
+         * Очищает модель под текущий размер холста.
+         */
+        @Override
+        void clearAll() {
+            cells = new int[(int) getCanvas().getWidth() * (int) getCanvas().getHeight()];
+        }
+
+        /**
+         * Стирает клетку модели.
+         *
+         * @param cell  Индекс клетки.
+         * @param width Ширина поля.
+         */
+        @Override
+        void clear(int cell, int width) {
+            cells[cell] = EMPTY_CELL;
+            operations++;
+        }
+
+        /**
+         * Отмечает в модели клетку змейки.
+         *
+         * @param cell  Индекс клетки.
+         * @param width Ширина поля.
+         */
+        @Override
+        void paintSnake(int cell, int width) {
+            cells[cell] = SNAKE_CELL;
+            operations++;
+        }
+
+        /**
+         * Отмечает в модели клетку яблока.
+         *
+         * @param cell  Индекс клетки.
+         * @param width Ширина поля.
+         */
+        @Override
+        void paintApple(int cell, int width) {
+            cells[cell] = APPLE_CELL;
+            operations++;
+        }
+    }
+
+    /**
+     * Проверяет, что после частичных кадров через разное количество шагов нарисовано ровно состояние игры,
+     * а стоимость кадра зависит от числа шагов, а не от длины змейки.
+     */
+    @Test
+    void render_paintsOnlyChangedCells() {
+        GameEngine engine = new GameEngine(12, 10, new int[]{0, 1, 2}, 9);
+        engine.placeApple();
+        ModelRenderer renderer = new ModelRenderer(12, 10);
+        renderer.render(engine);
+        assertModel(engine, renderer);
+        Controller controller = new GreedyController();
+        SplitMix64 random = new SplitMix64(4);
+        int frames = 0;
+        while (engine.isAlive() && engine.getApple() != GameEngine.NO_CELL && frames < 2_000) {
+            int steps = 1 + random.nextInt(3);
+            for (int i = 0; i < steps && engine.isAlive(); i++) {
+                engine.tick(controller.decide(engine));
+            }
+            renderer.operations = 0;
+            renderer.render(engine);
+            assertModel(engine, renderer);
+            if (engine.getLength() > 2 * steps + 4) {
+                assertTrue(renderer.operations <= 2 * steps + 3,
+                        "frame after " + steps + " steps touched " + renderer.operations + " cells");
+            }
+            frames++;
+        }
+        assertTrue(engine.getScore() > 5);
+    }
+
+    /**
+     * Проверяет, что при смене поля холст получает размер нового поля и перерисовывается целиком.
+     */
+    @Test
+    void render_resizesCanvasForNewBoard() {
+        ModelRenderer renderer = new ModelRenderer(10, 10);
+        GameEngine small = new GameEngine(10, 10, new int[]{0, 1, 2}, 1);
+        small.placeApple();
+        renderer.render(small);
+        assertModel(small, renderer);
+
+        GameEngine large = new GameEngine(20, 15, new int[]{250, 251, 252, 253}, 2);
+        large.placeApple();
+        renderer.render(large);
+        assertEquals(20, renderer.getCanvas().getWidth());
+        assertEquals(15, renderer.getCanvas().getHeight());
+        assertModel(large, renderer);
+    }
+
+    /**
+     * Сравнивает модель отрисовщика с состоянием игры.
+     *
+     * @param state    Состояние игры.
+     * @param renderer Отрисовщик.
+     */
+    private static void assertModel(GameState state, ModelRenderer renderer) {
+        int[] expected = new int[state.getWidth() * state.getHeight()];
+        for (int i = 0; i < state.getLength(); i++) {
+            expected[state.getCell(i)] = SNAKE_CELL;
+        }
+        if (state.getApple() != GameEngine.NO_CELL) {
+            expected[state.getApple()] = APPLE_CELL;
+        }
+        assertArrayEquals(expected, renderer.cells, () -> "tick " + state.getTicks() + ": "
+                + Arrays.toString(renderer.cells));
+    }
+}
@@ -0,0 +1,141 @@
+package project.snakegame;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для проверки хеширования Зобриста {@link Zobrist} и проверки {@link DeterminismVerifier}.
+ */
+public class DeterminismVerifierTest {
+
+    /**
+     * Проверяет, что инкрементальный хеш ядра совпадает с вычисленным заново после каждого шага,
+     * смены направления, перестановки яблока, смерти и восстановления ключевого кадра.
+     */
+    @Test
+    void hash_matchesRecomputation() {
+        GameEngine engine = new GameEngine(12, 9, new int[]{0, 1, 2}, 5);
+        engine.placeApple();
+        assertEquals(Zobrist.of(engine), engine.getHash());
+        GreedyController controller = new GreedyController();
+        while (engine.isAlive()) {
+            long before = engine.getHash();
+            engine.tick(controller.decide(engine));
+            assertNotEquals(before, engine.getHash());
+            assertEquals(Zobrist.of(engine), engine.getHash());
+            if (engine.getTicks() % 7 == 0) {
+                engine.turn(engine.getDirection().opposite());
+                engine.turn(Direction.values()[(int) (engine.getTicks() % 4)]);
+                assertEquals(Zobrist.of(engine), engine.getHash());
+            }
+        }
+        engine.setApple(GameEngine.NO_CELL);
+        assertEquals(Zobrist.of(engine), engine.getHash());
+
+        GameEngine restored = new GameEngine(12, 9, new int[]{0, 1, 2}, 5);
+        restored.restore(new int[]{20, 21, 22, 23}, freeCells(12 * 9, 20, 24), Direction.DOWN, 50, 3, 10, 1);
+        assertEquals(Zobrist.of(restored), restored.getHash());
+    }
+
+    /**
+     * Возвращает все клетки поля, кроме диапазона.
+     *
+     * @param area Площадь поля.
+     * @param from Первая исключаемая клетка.
+     * @param to   Клетка после последней исключаемой.
+     * @return Свободные клетки.
+     */
+    private static int[] freeCells(int area, int from, int to) {
+        int[] free = new int[area - (to - from)];
+        int i = 0;
+        for (int cell = 0; cell < area; cell++) {
+            if (cell < from || cell >= to) {
+                free[i++] = cell;
+            }
+        }
+        return free;
+    }
+
+    /**
+     * Проверяет, что хеш различает состояния, отличающиеся только направлением, яблоком или счетом.
+     */
+    @Test
+    void hash_distinguishesComponents() {
+        GameEngine a = new GameEngine(10, 10, new int[]{0, 1, 2}, 1);
+        GameEngine b = new GameEngine(10, 10, new int[]{0, 1, 2}, 1);
+        assertEquals(a.getHash(), b.getHash());
+        b.turn(Direction.DOWN);
+        assertNotEquals(a.getHash(), b.getHash());
+        b.turn(Direction.RIGHT);
+        assertEquals(a.getHash(), b.getHash());
+        b.setApple(50);
+        assertNotEquals(a.getHash(), b.getHash());
+        assertNotEquals(Zobrist.score(0), Zobrist.score(1));
+        assertNotEquals(Zobrist.body(3), Zobrist.head(3));
+    }
+
+    /**
+     * Проверяет, что все способы прогона дают одинаковые потоки хешей, а пакетный прогон - одинаковые
+     * конечные состояния на одном и на нескольких потоках.
+     *
+     * @throws IOException          если повтор не удалось записать.
+     * @throws InterruptedException если ожидание было прервано.
+     */
+    @Test
+    void verify_findsNoDivergence() throws IOException, InterruptedException {
+        DeterminismVerifier greedy = new DeterminismVerifier(15, 15, 20_000, seed -> new GreedyController());
+        DeterminismVerifier autopilot = new DeterminismVerifier(15, 15, 20_000, seed -> new AutopilotController());
+        for (long seed = 1; seed <= 5; seed++) {
+            assertEquals(List.of(), greedy.verify(seed));
+            assertEquals(List.of(), autopilot.verify(seed));
+        }
+        assertEquals(-1, greedy.verifyBatch(64, 3, 4));
+    }
+
+    /**
+     * Проверяет, что контроллер, зависящий от общего состояния прогонов, обнаруживается как недетерминированный.
+     *
+     * @throws IOException          если повтор не удалось записать.
+     * @throws InterruptedException если ожидание было прервано.
+     */
+    @Test
+    void verify_detectsNondeterministicController() throws IOException, InterruptedException {
+        Random shared = new Random(1);
+        DeterminismVerifier verifier = new DeterminismVerifier(15, 15, 2_000, seed -> state ->
+                Direction.values()[shared.nextInt(4)]);
+        List<DeterminismVerifier.Divergence> divergences = verifier.verify(1);
+        assertFalse(divergences.isEmpty());
+        for (DeterminismVerifier.Divergence divergence : divergences) {
+            assertNotEquals(divergence.getExpected(), divergence.getActual());
+        }
+    }
+
+    /**
+     * Проверяет, что сообщается первый шаг расхождения, в том числе когда один поток хешей короче другого.
+     */
+    @Test
+    void compare_reportsFirstDivergentTick() {
+        long[] reference = {1, 2, 3, 4, 5};
+        List<DeterminismVerifier.Divergence> divergences = new ArrayList<>();
+        DeterminismVerifier.compare("same", reference, new long[]{1, 2, 3, 4, 5}, 0, divergences);
+        DeterminismVerifier.compare("resumed", reference, new long[]{3, 4, 5}, 2, divergences);
+        assertTrue(divergences.isEmpty());
+
+        DeterminismVerifier.compare("changed", reference, new long[]{1, 2, 9, 4, 7}, 0, divergences);
+        DeterminismVerifier.compare("short", reference, new long[]{4}, 3, divergences);
+        DeterminismVerifier.compare("long", reference, new long[]{1, 2, 3, 4, 5, 6}, 0, divergences);
+        assertEquals(3, divergences.size());
+        assertEquals("changed", divergences.get(0).getRunner());
+        assertEquals(2, divergences.get(0).getTick());
+        assertEquals(3, divergences.get(0).getExpected());
+        assertEquals(9, divergences.get(0).getActual());
+        assertEquals(4, divergences.get(1).getTick());
+        assertEquals(5, divergences.get(2).getTick());
+    }
+}
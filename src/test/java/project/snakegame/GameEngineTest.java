@@ -0,0 +1,194 @@
+package project.snakegame;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для проверки функциональности класса {@link GameEngine}.
+ */
+public class GameEngineTest {
+
+    /**
+     * Проверяет перенос головы через край поля и то, что хвост следует за головой.
+     */
+    @Test
+    void tick_wrapsAroundBoard() {
+        GameEngine engine = new GameEngine(5, 4, new int[]{3, 4});
+        assertFalse(engine.tick());
+        assertEquals(engine.index(0, 0), engine.getHead());
+        assertEquals(engine.index(4, 0), engine.getTail());
+        assertFalse(engine.tick(Direction.UP));
+        assertEquals(engine.index(0, 3), engine.getHead());
+        assertEquals(2, engine.getLength());
+    }
+
+    /**
+     * Проверяет, что при съедании яблока змейка растет, а разворот на 180 градусов игнорируется.
+     */
+    @Test
+    void tick_eatsAppleAndIgnoresReversal() {
+        GameEngine engine = new GameEngine(10, 10, new int[]{0, 1, 2});
+        engine.setApple(engine.index(3, 0));
+        assertFalse(engine.turn(Direction.LEFT));
+        assertTrue(engine.tick(Direction.LEFT));
+        assertEquals(4, engine.getLength());
+        assertEquals(engine.index(0, 0), engine.getTail());
+        assertEquals(engine.index(3, 0), engine.getHead());
+        assertEquals(1, engine.getTicks());
+    }
+
+    /**
+     * Проверяет, что столкновение с собственным телом останавливает игру.
+     */
+    @Test
+    void tick_collidesWithSelf() {
+        GameEngine engine = new GameEngine(10, 10, new int[]{11, 10, 0, 1});
+        engine.tick(Direction.DOWN);
+        assertFalse(engine.isAlive());
+        assertFalse(engine.tick());
+        assertEquals(1, engine.getTicks());
+    }
+
+    /**
+     * Проверяет, что карта занятости обновляется при движении головы и хвоста,
+     * а повторяющиеся клетки в начальном теле отклоняются.
+     */
+    @Test
+    void occupied_followsHeadAndTail() {
+        GameEngine engine = new GameEngine(70, 2, new int[]{62, 63, 64});
+        engine.tick();
+        assertFalse(engine.occupied(62));
+        assertTrue(engine.occupied(63));
+        assertTrue(engine.occupied(65));
+        assertThrows(IllegalArgumentException.class, () -> new GameEngine(5, 5, new int[]{1, 2, 1}));
+    }
+
+    /**
+     * Выращивает змейку до заполнения всего поля, кроме одной клетки, и проверяет,
+     * что стоимость шага при этом не растет вместе с длиной змейки.
+     * <p>
+     * Змейка движется по гамильтонову циклу "змейкой" по строкам, поэтому при длине на единицу меньше
+     * площади поля она может бесконечно ходить, не сталкиваясь с собой.
+     */
+    @Test
+    void tick_costStaysFlatWhenBoardIsFull() {
+        int size = 256;
+        GameEngine shortSnake = new GameEngine(size, size, new int[]{0, 1, 2});
+        GameEngine longSnake = new GameEngine(size, size, new int[]{0, 1, 2});
+        while (longSnake.getLength() < size * size - 1) {
+            Direction direction = serpentine(longSnake);
+            longSnake.setApple(next(longSnake, direction));
+            assertTrue(longSnake.tick(direction));
+        }
+        longSnake.setApple(GameEngine.NO_CELL);
+
+        long shortBest = Long.MAX_VALUE;
+        long longBest = Long.MAX_VALUE;
+        for (int round = 0; round < 10; round++) {
+            shortBest = Math.min(shortBest, timeTicks(shortSnake, 50_000));
+            longBest = Math.min(longBest, timeTicks(longSnake, 50_000));
+        }
+        assertTrue(longSnake.isAlive());
+        assertEquals(size * size - 1, longSnake.getLength());
+        assertTrue(longBest < shortBest * 5 + 1_000_000,
+                "short: " + shortBest + " ns, long: " + longBest + " ns");
+    }
+
+    /**
+     * Проверяет, что при заполнении поля на 99% яблоко всегда попадает в свободную клетку,
+     * а одинаковое зерно дает одинаковую последовательность яблок.
+     */
+    @Test
+    void placeApple_picksFreeCellAtHighFill() {
+        int size = 100;
+        GameEngine engine = new GameEngine(size, size, new int[]{0, 1, 2}, 42);
+        while (engine.getLength() < size * size * 99 / 100) {
+            Direction direction = serpentine(engine);
+            engine.setApple(next(engine, direction));
+            engine.tick(direction);
+        }
+        assertEquals(size * size - engine.getLength(), engine.getFreeCount());
+        for (int i = 0; i < 1000; i++) {
+            int apple = engine.placeApple();
+            assertNotEquals(GameEngine.NO_CELL, apple);
+            assertFalse(engine.occupied(apple));
+        }
+
+        GameEngine first = new GameEngine(size, size, new int[]{0, 1, 2}, 7);
+        GameEngine second = new GameEngine(size, size, new int[]{0, 1, 2}, 7);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(first.placeApple(), second.placeApple());
+        }
+    }
+
+    /**
+     * Выполняет заданное число шагов по гамильтонову циклу и возвращает затраченное время.
+     *
+     * @param engine Игровое ядро.
+     * @param ticks  Количество шагов.
+     * @return Время в наносекундах.
+     */
+    private static long timeTicks(GameEngine engine, int ticks) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ticks; i++) {
+            engine.tick(serpentine(engine));
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Проверяет, что перезапущенное ядро играет так же, как новое ядро с тем же зерном.
+     */
+    @Test
+    void reset_matchesFreshEngine() {
+        GameEngine reused = new GameEngine(12, 9, new int[]{0, 1, 2}, 1);
+        reused.placeApple();
+        for (int step = 0; step < 300 && reused.isAlive(); step++) {
+            reused.tick(serpentine(reused));
+        }
+        reused.reset(new int[]{30, 31, 32}, 77);
+        GameEngine fresh = new GameEngine(12, 9, new int[]{30, 31, 32}, 77);
+        assertEquals(fresh.getHash(), reused.getHash());
+        reused.placeApple();
+        fresh.placeApple();
+        for (int step = 0; step < 500 && fresh.isAlive(); step++) {
+            Direction direction = step % 7 == 0 ? Direction.UP : Direction.RIGHT;
+            assertEquals(fresh.tick(direction), reused.tick(direction));
+            assertEquals(fresh.getApple(), reused.getApple());
+            assertEquals(fresh.getHash(), reused.getHash());
+        }
+        assertEquals(fresh.getTicks(), reused.getTicks());
+        assertEquals(fresh.getScore(), reused.getScore());
+        assertEquals(fresh.isAlive(), reused.isAlive());
+    }
+
+    /**
+     * Возвращает направление обхода поля по строкам: четные строки слева направо, нечетные - справа налево.
+     *
+     * @param engine Игровое ядро.
+     * @return Направление следующего шага.
+     */
+    private static Direction serpentine(GameEngine engine) {
+        int head = engine.getHead();
+        int x = engine.x(head);
+        if (engine.y(head) % 2 == 0) {
+            return x == engine.getWidth() - 1 ? Direction.DOWN : Direction.RIGHT;
+        }
+        return x == 0 ? Direction.DOWN : Direction.LEFT;
+    }
+
+    /**
+     * Вычисляет клетку, в которую перейдет голова при шаге в заданном направлении.
+     *
+     * @param engine    Игровое ядро.
+     * @param direction Направление шага.
+     * @return Индекс следующей клетки.
+     */
+    private static int next(GameEngine engine, Direction direction) {
+        int head = engine.getHead();
+        int x = Math.floorMod(engine.x(head) + direction.getDx(), engine.getWidth());
+        int y = Math.floorMod(engine.y(head) + direction.getDy(), engine.getHeight());
+        return engine.index(x, y);
+    }
+}
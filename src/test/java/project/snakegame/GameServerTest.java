@@ -0,0 +1,141 @@
+package project.snakegame;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для проверки {@link GameServer} и {@link GameClient} на локальном сокете.
+ */
+public class GameServerTest {
+
+    /**
+     * Проверяет, что клиент, управляющий змейкой по сети, восстанавливает то же состояние, что и на сервере.
+     */
+    @Test
+    void client_reconstructsServerState() throws Exception {
+        GameEngine engine = new GameEngine(15, 15, new int[]{0, 1, 2}, 5);
+        engine.placeApple();
+        GameServer server = new GameServer(new Snake(engine), TimeUnit.MILLISECONDS.toNanos(1));
+        server.setTickLimit(1_000);
+        CompletableFuture<Void> game = runAsync(server, 1);
+        Controller controller = new AutopilotController();
+        GameClient client = GameClient.connect(server.getAddress());
+        try (client) {
+            while (client.receive()) {
+                Direction direction = controller.decide(client);
+                if (client.isAlive() && direction != null && direction != client.getDirection()) {
+                    client.send(direction);
+                }
+            }
+        }
+        game.get(10, TimeUnit.SECONDS);
+        assertState(engine, client);
+        assertEquals(1, client.getStateCount());
+        assertTrue(engine.getScore() > 0);
+    }
+
+    /**
+     * Проверяет, что клиент, который не читает данные, не задерживает игру и получает полное состояние
+     * вместо накопления изменений, а остальные клиенты продолжают получать игру.
+     */
+    @Test
+    void slowClient_doesNotStallGame() throws Exception {
+        GameEngine engine = new GameEngine(10, 10, new int[]{0, 1, 2}, 1);
+        GameServer server = new GameServer(new Snake(engine), 0,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setTickLimit(200_000);
+        CompletableFuture<Void> game = runAsync(server, 2);
+        GameClient client;
+        try (SocketChannel slow = SocketChannel.open()) {
+            slow.setOption(StandardSocketOptions.SO_RCVBUF, 1024);
+            slow.connect(server.getAddress());
+            client = GameClient.connect(server.getAddress());
+            try (client) {
+                while (client.receive()) {
+                    assertTrue(client.isAlive());
+                }
+            }
+            game.get(10, TimeUnit.SECONDS);
+        }
+        assertState(engine, client);
+        assertEquals(200_000, engine.getTicks());
+        assertTrue(server.getResyncs() > 0);
+    }
+
+    /**
+     * Проверяет, что разворот, присланный одним клиентом, не занимает шаг и не задерживает поворот,
+     * присланный другим клиентом к тому же шагу.
+     */
+    @Test
+    void reversal_doesNotDelayAnotherClientsTurn() throws Exception {
+        GameEngine engine = new GameEngine(15, 15, new int[]{105, 106, 107}, 3);
+        engine.placeApple();
+        GameServer server = new GameServer(new Snake(engine), TimeUnit.MILLISECONDS.toNanos(300));
+        server.setTickLimit(2);
+        CompletableFuture<Void> game = runAsync(server, 2);
+        GameClient first = GameClient.connect(server.getAddress());
+        GameClient second = GameClient.connect(server.getAddress());
+        try (first; second) {
+            assertTrue(first.receive());
+            assertTrue(second.receive());
+            first.send(Direction.LEFT);
+            Thread.sleep(50);
+            second.send(Direction.UP);
+            while (first.receive()) {
+                assertTrue(first.isAlive());
+            }
+            while (second.receive()) {
+                assertTrue(second.isAlive());
+            }
+        }
+        game.get(10, TimeUnit.SECONDS);
+        assertEquals(2, engine.getTicks());
+        assertEquals(Direction.UP, engine.getDirection());
+        assertState(engine, second);
+    }
+
+    /**
+     * Запускает игру сервера в отдельном потоке.
+     *
+     * @param server  Сервер.
+     * @param clients Количество клиентов, которых нужно дождаться.
+     * @return Завершение игры.
+     */
+    private static CompletableFuture<Void> runAsync(GameServer server, int clients) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                server.run(clients);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    /**
+     * Сравнивает состояние клиента с состоянием сервера.
+     *
+     * @param expected Ядро игры сервера.
+     * @param actual   Клиент.
+     */
+    private static void assertState(GameEngine expected, GameClient actual) {
+        assertEquals(expected.getTicks(), actual.getTicks());
+        assertEquals(expected.getScore(), actual.getScore());
+        assertEquals(expected.isAlive(), actual.isAlive());
+        assertEquals(expected.getApple(), actual.getApple());
+        assertEquals(expected.getDirection(), actual.getDirection());
+        assertEquals(expected.getTailSeq(), actual.getTailSeq());
+        assertEquals(expected.getLength(), actual.getLength());
+        for (int i = 0; i < expected.getLength(); i++) {
+            assertEquals(expected.getCell(i), actual.getCell(i));
+        }
+    }
+}
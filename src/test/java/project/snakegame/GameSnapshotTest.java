@@ -0,0 +1,82 @@
+package project.snakegame;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для проверки функциональности классов {@link GameSnapshot} и {@link SnapshotExchange}.
+ */
+public class GameSnapshotTest {
+
+    /**
+     * Проверяет, что инкрементальное копирование дает то же тело, яблоко и счет, что и в ядре,
+     * в том числе когда между копированиями прошло несколько шагов.
+     */
+    @Test
+    void copyFrom_matchesEngineAfterSeveralTicks() {
+        GameEngine engine = new GameEngine(8, 8, new int[]{0, 1, 2}, 3);
+        GameSnapshot snapshot = new GameSnapshot(8, 8);
+        Direction[] turns = {Direction.DOWN, Direction.RIGHT, Direction.UP, Direction.RIGHT};
+        for (int i = 0; i < 60 && engine.isAlive(); i++) {
+            engine.setApple(i % 3 == 0 ? nextCell(engine) : engine.getApple());
+            engine.tick(turns[i / 5 % turns.length]);
+            if (i % 4 == 0) {
+                snapshot.copyFrom(engine);
+                assertSameState(engine, snapshot);
+            }
+        }
+        snapshot.copyFrom(engine);
+        assertSameState(engine, snapshot);
+    }
+
+    /**
+     * Проверяет, что читатель получает самый свежий из опубликованных снимков.
+     */
+    @Test
+    void exchange_returnsLatestPublished() {
+        GameEngine engine = new GameEngine(8, 8, new int[]{0, 1, 2}, 3);
+        SnapshotExchange exchange = new SnapshotExchange(engine);
+        assertEquals(0, exchange.latest().getTicks());
+        engine.tick();
+        exchange.publish(engine);
+        engine.tick();
+        exchange.publish(engine);
+        assertEquals(2, exchange.latest().getTicks());
+        assertSameState(engine, exchange.latest());
+    }
+
+    /**
+     * Сравнивает состояние ядра и снимка.
+     *
+     * @param engine   Игровое ядро.
+     * @param snapshot Снимок.
+     */
+    private static void assertSameState(GameEngine engine, GameSnapshot snapshot) {
+        assertEquals(engine.getTailSeq(), snapshot.getTailSeq());
+        assertEquals(engine.getLength(), snapshot.getLength());
+        for (int i = 0; i < engine.getLength(); i++) {
+            assertEquals(engine.getCell(i), snapshot.getCell(i));
+        }
+        for (int cell = 0; cell < engine.getWidth() * engine.getHeight(); cell++) {
+            assertEquals(engine.occupied(cell), snapshot.occupied(cell));
+        }
+        assertEquals(engine.getApple(), snapshot.getApple());
+        assertEquals(engine.getScore(), snapshot.getScore());
+        assertEquals(engine.isAlive(), snapshot.isAlive());
+    }
+
+    /**
+     * Вычисляет клетку перед головой змейки.
+     *
+     * @param engine Игровое ядро.
+     * @return Индекс клетки, в которую перейдет голова.
+     */
+    private static int nextCell(GameEngine engine) {
+        int head = engine.getHead();
+        Direction direction = engine.getDirection();
+        int x = Math.floorMod(engine.x(head) + direction.getDx(), engine.getWidth());
+        int y = Math.floorMod(engine.y(head) + direction.getDy(), engine.getHeight());
+        return engine.index(x, y);
+    }
+}
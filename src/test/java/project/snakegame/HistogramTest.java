@@ -0,0 +1,71 @@
+package project.snakegame;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для проверки функциональности классов {@link Histogram} и {@link GameMetrics}.
+ */
+public class HistogramTest {
+
+    /**
+     * Проверяет, что каждое значение попадает в корзину, верхняя граница которой не меньше значения
+     * и отличается от него не больше чем на 1/16.
+     */
+    @Test
+    void bucket_boundsValueWithinPrecision() {
+        long[] values = {0, 1, 31, 32, 33, 1_000, 123_456_789, Long.MAX_VALUE / 3, Long.MAX_VALUE};
+        for (long value : values) {
+            long upper = Histogram.upperBound(Histogram.bucket(value));
+            assertTrue(upper >= value, "value " + value);
+            assertTrue(upper - value <= value / 16, "value " + value);
+        }
+        for (int bucket = 1; bucket < Histogram.bucket(Long.MAX_VALUE); bucket++) {
+            assertEquals(bucket, Histogram.bucket(Histogram.upperBound(bucket - 1) + 1));
+        }
+    }
+
+    /**
+     * Проверяет перцентили, среднее и максимум на равномерном распределении.
+     */
+    @Test
+    void percentiles_matchUniformDistribution() {
+        Histogram histogram = new Histogram();
+        for (int value = 1; value <= 10_000; value++) {
+            histogram.record(value);
+        }
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(5_000, histogram.getMean());
+        assertEquals(10_000, histogram.getMax());
+        assertEquals(5_000, histogram.getPercentile(50), 5_000 / 16.0);
+        assertEquals(9_900, histogram.getPercentile(99), 9_900 / 16.0);
+        assertEquals(10_000, histogram.getPercentile(100));
+        assertEquals(0, new Histogram().getPercentile(99));
+    }
+
+    /**
+     * Проверяет, что метрики доступны через JMX как составные атрибуты.
+     */
+    @Test
+    void register_exposesMetricsThroughJmx() throws Exception {
+        GameMetrics metrics = new GameMetrics();
+        metrics.recordTick(1_000, 0);
+        metrics.recordTick(3_000, 64);
+        metrics.register();
+        try {
+            var server = ManagementFactory.getPlatformMBeanServer();
+            var name = new ObjectName(GameMetrics.OBJECT_NAME);
+            CompositeData tickTime = (CompositeData) server.getAttribute(name, "TickTime");
+            assertEquals(2L, tickTime.get("count"));
+            assertEquals(3_000L, tickTime.get("max"));
+            assertEquals(64L, server.getAttribute(name, "AllocatedBytes"));
+        } finally {
+            metrics.unregister();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package project.snakegame;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для проверки функциональности классов {@link InputQueue} и {@link GameLoop}.
+ */
+public class InputQueueTest {
+
+    /**
+     * Проверяет порядок выдачи нажатий и отбрасывание нажатий при заполненной очереди.
+     */
+    @Test
+    void offer_keepsOrderAndRejectsWhenFull() {
+        InputQueue queue = new InputQueue(2);
+        assertTrue(queue.isEmpty());
+        assertTrue(queue.offer(Direction.UP, 10));
+        assertTrue(queue.offer(Direction.LEFT, 20));
+        assertFalse(queue.offer(Direction.DOWN, 30));
+        assertEquals(Direction.UP, queue.peek());
+        assertEquals(10, queue.peekStamp());
+        queue.remove();
+        assertEquals(Direction.LEFT, queue.peek());
+        queue.remove();
+        assertTrue(queue.isEmpty());
+    }
+
+    /**
+     * Проверяет, что разворот и повтор направления отбрасываются, не занимая шаг, и поворот после них
+     * применяется на том же шаге, а очередь без поворотов становится пустой.
+     */
+    @Test
+    void skipToTurn_dropsRepeatsAndReversals() {
+        SparseWorld world = new SparseWorld(50, 50, 0, 1);
+        InputQueue queue = new InputQueue(4);
+        queue.offer(Direction.LEFT, 10);
+        queue.offer(Direction.RIGHT, 20);
+        queue.offer(Direction.UP, 30);
+        assertTrue(queue.skipToTurn(world.getDirection()));
+        assertEquals(Direction.UP, queue.peek());
+        assertEquals(30, queue.peekStamp());
+        world.tick(queue.peek());
+        queue.remove();
+        assertEquals(Direction.UP, world.getDirection());
+
+        queue.offer(Direction.DOWN, 40);
+        queue.offer(Direction.UP, 50);
+        assertFalse(queue.skipToTurn(world.getDirection()));
+        assertTrue(queue.isEmpty());
+    }
+
+    /**
+     * Проверяет, что два быстрых поворота за один шаг применяются на двух шагах подряд,
+     * а не приводят к развороту змейки в собственное тело.
+     */
+    @Test
+    void applyInput_appliesOneTurnPerTick() {
+        Snake snake = new Snake(List.of(new Cell(0, 5), new Cell(1, 5), new Cell(2, 5)));
+        GameLoop loop = new GameLoop(snake, Difficulty.NORMAL);
+        loop.input(Direction.UP, 0);
+        loop.input(Direction.LEFT, 0);
+
+        loop.applyInput(100);
+        assertEquals(Direction.UP, snake.getEngine().getDirection());
+        snake.step();
+        loop.applyInput(300);
+        assertEquals(Direction.LEFT, snake.getEngine().getDirection());
+        snake.step();
+        assertTrue(snake.isAlive());
+        assertEquals(2, loop.getInputsApplied());
+        assertEquals(200, loop.getMeanInputLatency());
+        assertEquals(300, loop.getMaxInputLatency());
+    }
+}
@@ -0,0 +1,124 @@
+package project.snakegame;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для проверки уровней со стенами {@link Level} и их учета в {@link GameEngine}.
+ */
+public class LevelTest {
+
+    /**
+     * Уровень 15x15 с рамкой и крестом из стен с проходами.
+     *
+     * @return {@link Level}.
+     */
+    private static Level cross() {
+        List<String> rows = new ArrayList<>();
+        for (int y = 0; y < 15; y++) {
+            StringBuilder row = new StringBuilder();
+            for (int x = 0; x < 15; x++) {
+                boolean frame = x == 0 || y == 0 || x == 14 || y == 14;
+                boolean cross = (x == 7 && y > 2 && y < 12 || y == 7 && x > 2 && x < 12) && x != y;
+                row.append(frame || cross ? '#' : '.');
+            }
+            rows.add(row.toString());
+        }
+        return Level.parse(rows);
+    }
+
+    /**
+     * Проверяет, что уровень, записанный в файл, читается через отображение в память без изменений.
+     *
+     * @param dir Временный каталог.
+     * @throws IOException если файл не удалось записать или прочитать.
+     */
+    @Test
+    void read_restoresWrittenLevel(@TempDir Path dir) throws IOException {
+        Level level = cross();
+        Path file = dir.resolve("cross.snkl");
+        level.write(file);
+        Level read = Level.read(file);
+
+        assertEquals(15, read.getWidth());
+        assertEquals(15, read.getHeight());
+        assertEquals(level.getWallCount(), read.getWallCount());
+        assertArrayEquals(level.getWallCells(), read.getWallCells());
+        assertEquals(16 + 4 * Long.BYTES, Files.size(file));
+    }
+
+    /**
+     * Проверяет, что усеченный файл и файл с чужой сигнатурой отвергаются.
+     *
+     * @param dir Временный каталог.
+     * @throws IOException если файл не удалось записать.
+     */
+    @Test
+    void read_rejectsMalformedFiles(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("broken.snkl");
+        cross().write(file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> Level.read(file));
+
+        bytes[0] ^= 1;
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> Level.read(file));
+    }
+
+    /**
+     * Проверяет, что стены не попадают в свободные клетки, яблоко никогда не появляется в стене,
+     * а змейка погибает, врезавшись в стену.
+     */
+    @Test
+    void engine_treatsWallsAsOccupied() {
+        Level level = cross();
+        int[] spawn = level.spawn();
+        GameEngine engine = new GameEngine(level, spawn, 7);
+        assertEquals(15 * 15 - level.getWallCount() - 3, engine.getFreeCount());
+        for (int i = 0; i < 10_000; i++) {
+            int apple = engine.placeApple();
+            assertFalse(level.isWall(apple));
+            assertFalse(engine.occupied(apple));
+        }
+
+        engine.turn(Direction.UP);
+        assertFalse(engine.tick());
+        assertFalse(engine.isAlive());
+        assertThrows(IllegalArgumentException.class, () -> new GameEngine(level, new int[]{0, 1, 2}, 7));
+    }
+
+    /**
+     * Проверяет, что снимок состояния видит стены и что автопилот обходит их.
+     */
+    @Test
+    void autopilot_avoidsWalls() {
+        Level level = cross();
+        int total = 0;
+        for (int game = 0; game < 20; game++) {
+            GameEngine engine = new GameEngine(level, level.spawn(), game);
+            engine.placeApple();
+            AutopilotController controller = new AutopilotController();
+            GameSnapshot snapshot = new GameSnapshot(15, 15);
+            snapshot.copyFrom(engine);
+            for (int cell : level.getWallCells()) {
+                assertTrue(snapshot.occupied(cell));
+            }
+            while (engine.isAlive() && engine.getTicks() < 20_000 && engine.getApple() != GameEngine.NO_CELL) {
+                engine.tick(controller.decide(engine));
+            }
+            assertTrue(engine.getScore() > 0);
+            total += engine.getScore();
+        }
+        assertTrue(total / 20 > 30, "mean score " + total / 20);
+    }
+}
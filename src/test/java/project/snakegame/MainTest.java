@@ -49,8 +49,8 @@ public class MainTest {
     void genApple_generatesAppleWithinBounds() {
         for (int i = 0; i < 100; i++) {
             Cell apple = game.genApple();
-            assertTrue(apple.getX() >= 0 && apple.getX() < Main.getSize());
-            assertTrue(apple.getY() >= 0 && apple.getY() < Main.getSize());
+            assertTrue(apple.getX() >= 0 && apple.getX() < Main.getWidth());
+            assertTrue(apple.getY() >= 0 && apple.getY() < Main.getHeight());
         }
     }
 }
@@ -0,0 +1,130 @@
+package project.snakegame;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для проверки записи и воспроизведения повторов {@link Replay}.
+ */
+public class ReplayTest {
+
+    /**
+     * Проверяет, что воспроизведение записанной игры приходит в то же конечное состояние.
+     */
+    @Test
+    void playHeadless_reproducesRecordedGame(@TempDir Path dir) throws IOException {
+        GameEngine engine = new GameEngine(15, 15, new int[]{0, 1, 2}, 42);
+        engine.placeApple();
+        Snake snake = new Snake(engine);
+        Path file = dir.resolve("game.snkr");
+        snake.setRecorder(new ReplayRecorder(file, engine, Difficulty.HARD));
+        Controller controller = new GreedyController();
+        while (snake.isAlive() && engine.getTicks() < 5_000) {
+            Direction direction = controller.decide(engine);
+            if (direction != null) {
+                snake.directionTo(direction);
+            }
+            snake.step();
+        }
+        snake.finishRecording();
+
+        Replay replay = Replay.read(file);
+        assertEquals(Difficulty.HARD, replay.getDifficulty());
+        assertEquals(42, replay.getSeed());
+        assertEquals(engine.getTicks(), replay.getEndTick());
+        assertTrue(replay.getTurnCount() > 0);
+
+        GameEngine replayed = replay.playHeadless().getEngine();
+        assertEquals(engine.getTicks(), replayed.getTicks());
+        assertEquals(engine.getScore(), replayed.getScore());
+        assertEquals(engine.getHead(), replayed.getHead());
+        assertEquals(engine.getApple(), replayed.getApple());
+        assertEquals(engine.isAlive(), replayed.isAlive());
+    }
+
+    /**
+     * Проверяет, что переход к шагу через ключевые кадры дает то же состояние, что и исходная игра,
+     * включая размещение следующих яблок.
+     */
+    @Test
+    void seek_restoresStateFromKeyframes(@TempDir Path dir) throws IOException {
+        GameEngine engine = new GameEngine(12, 12, new int[]{0, 1, 2}, 7);
+        engine.placeApple();
+        Snake snake = new Snake(engine);
+        Path file = dir.resolve("game.snkr");
+        snake.setRecorder(new ReplayRecorder(file, engine, Difficulty.EASY, 50));
+        Controller controller = new GreedyController();
+        long[] heads = new long[3_000];
+        long[] apples = new long[heads.length];
+        int[] scores = new int[heads.length];
+        while (snake.isAlive() && engine.getTicks() < heads.length) {
+            Direction direction = controller.decide(engine);
+            if (direction != null) {
+                snake.directionTo(direction);
+            }
+            snake.step();
+            int tick = (int) engine.getTicks() - 1;
+            heads[tick] = engine.getHead();
+            apples[tick] = engine.getApple();
+            scores[tick] = engine.getScore();
+        }
+        snake.finishRecording();
+        long ticks = engine.getTicks();
+
+        Replay replay = Replay.read(file);
+        assertTrue(replay.getKeyframeCount() > 0);
+        for (long tick = 1; tick <= ticks; tick += 37) {
+            GameEngine restored = replay.seek(tick).getEngine();
+            assertEquals(tick, restored.getTicks());
+            assertEquals(heads[(int) tick - 1], restored.getHead());
+            assertEquals(apples[(int) tick - 1], restored.getApple());
+            assertEquals(scores[(int) tick - 1], restored.getScore());
+        }
+        GameEngine last = replay.seek(Long.MAX_VALUE).getEngine();
+        assertEquals(ticks, last.getTicks());
+        assertEquals(engine.getHead(), last.getHead());
+        assertEquals(engine.getScore(), last.getScore());
+        assertEquals(engine.isAlive(), last.isAlive());
+    }
+
+    /**
+     * Проверяет, что повтор прерванной игры без признака конца, в которой змейка никогда не погибает,
+     * проигрывается до последней записи, а не бесконечно.
+     */
+    @Test
+    void read_truncatedReplayEndsAtLastRecord(@TempDir Path dir) throws IOException {
+        GameEngine engine = new GameEngine(20, 20, new int[]{0, 1, 2}, 3);
+        Snake snake = new Snake(engine);
+        Path file = dir.resolve("game.snkr");
+        snake.setRecorder(new ReplayRecorder(file, engine, Difficulty.NORMAL, 50));
+        snake.directionTo(Direction.DOWN);
+        for (int i = 0; i < 520; i++) {
+            snake.step();
+        }
+        snake.finishRecording();
+        assertTrue(snake.isAlive());
+
+        byte[] bytes = Files.readAllBytes(file);
+        int end = bytes.length - 1;
+        while (end > 0 && bytes[end - 1] < 0) {
+            end--;
+        }
+        Replay replay = Replay.read(ByteBuffer.wrap(Arrays.copyOf(bytes, end)));
+        assertEquals(500, replay.getEndTick());
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            GameEngine played = replay.playHeadless().getEngine();
+            assertEquals(500, played.getTicks());
+            assertTrue(played.isAlive());
+            assertEquals(500, replay.seek(Long.MAX_VALUE).getEngine().getTicks());
+        });
+    }
+}
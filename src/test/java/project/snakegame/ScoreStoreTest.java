@@ -0,0 +1,192 @@
+package project.snakegame;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для проверки хранилища итогов {@link ScoreStore} и писателя {@link ScoreWriter}.
+ */
+public class ScoreStoreTest {
+
+    /**
+     * Создает итог с заданным счетом.
+     *
+     * @param score      Счет.
+     * @param difficulty Сложность.
+     * @param seed       Зерно, по которому итоги различаются в проверках.
+     * @return {@link ScoreRecord}.
+     */
+    private static ScoreRecord record(int score, Difficulty difficulty, long seed) {
+        return new ScoreRecord(score, difficulty, score + 3, score * 10L, score * 100L, seed, 1_700_000_000_000L);
+    }
+
+    /**
+     * Проверяет, что лучшие результаты возвращаются по убыванию счета отдельно для каждой сложности,
+     * а при равном счете первым идет более ранний.
+     *
+     * @param dir Временный каталог.
+     * @throws IOException если хранилище не удалось открыть.
+     */
+    @Test
+    void top_ordersByScorePerDifficulty(@TempDir Path dir) throws IOException {
+        try (ScoreStore store = ScoreStore.open(dir)) {
+            store.append(List.of(record(5, Difficulty.EASY, 1), record(9, Difficulty.HARD, 2),
+                    record(7, Difficulty.EASY, 3)));
+            store.append(List.of(record(7, Difficulty.EASY, 4), record(1, Difficulty.EASY, 5)));
+
+            List<ScoreRecord> easy = store.top(Difficulty.EASY, 3);
+            assertEquals(List.of(3L, 4L, 1L), easy.stream().map(ScoreRecord::getSeed).toList());
+            assertEquals(7, easy.get(0).getScore());
+            assertEquals(10, easy.get(0).getLength());
+            assertEquals(70, easy.get(0).getTicks());
+            assertEquals(700, easy.get(0).getDurationMillis());
+            assertEquals(Difficulty.EASY, easy.get(0).getDifficulty());
+            assertEquals(1, store.top(Difficulty.HARD, 10).size());
+            assertTrue(store.top(Difficulty.NORMAL, 10).isEmpty());
+            assertEquals(5, store.size());
+            assertEquals(4, store.count(Difficulty.EASY));
+        }
+    }
+
+    /**
+     * Проверяет, что итоги переживают повторное открытие, а потерянный индекс восстанавливается по журналу.
+     *
+     * @param dir Временный каталог.
+     * @throws IOException если хранилище не удалось открыть.
+     */
+    @Test
+    void open_rebuildsLostIndex(@TempDir Path dir) throws IOException {
+        Random random = new Random(1);
+        List<ScoreRecord> records = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            records.add(record(random.nextInt(1000), Difficulty.values()[i % 3], i));
+        }
+        try (ScoreStore store = ScoreStore.open(dir)) {
+            store.append(records.subList(0, 6000));
+        }
+        List<ScoreRecord> expected;
+        try (ScoreStore store = ScoreStore.open(dir)) {
+            assertEquals(6000, store.size());
+            store.append(records.subList(6000, records.size()));
+            expected = store.top(Difficulty.NORMAL, 100);
+        }
+        Files.delete(dir.resolve("scores.idx"));
+        try (ScoreStore store = ScoreStore.open(dir)) {
+            assertEquals(10_000, store.size());
+            List<ScoreRecord> top = store.top(Difficulty.NORMAL, 100);
+            assertEquals(expected.stream().map(ScoreRecord::getSeed).toList(),
+                    top.stream().map(ScoreRecord::getSeed).toList());
+            for (int i = 1; i < top.size(); i++) {
+                assertTrue(top.get(i - 1).getScore() >= top.get(i).getScore());
+            }
+        }
+    }
+
+    /**
+     * Проверяет, что оборванный и поврежденный хвост журнала отрезается при открытии,
+     * а целые записи перед ним сохраняются.
+     *
+     * @param dir Временный каталог.
+     * @throws IOException если хранилище не удалось открыть.
+     */
+    @Test
+    void open_truncatesTornTail(@TempDir Path dir) throws IOException {
+        try (ScoreStore store = ScoreStore.open(dir)) {
+            store.append(List.of(record(1, Difficulty.EASY, 1), record(2, Difficulty.EASY, 2)));
+        }
+        Path log = dir.resolve("scores.log");
+        try (ScoreStore store = ScoreStore.open(dir)) {
+            store.append(List.of(record(3, Difficulty.EASY, 3)));
+        }
+        byte[] bytes = Files.readAllBytes(log);
+        bytes[bytes.length - 1] ^= 1;
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes));
+            channel.write(ByteBuffer.wrap(new byte[20]));
+        }
+        Files.delete(dir.resolve("scores.idx"));
+
+        try (ScoreStore store = ScoreStore.open(dir)) {
+            assertEquals(2, store.size());
+            assertEquals(2, store.top(Difficulty.EASY, 10).get(0).getScore());
+            store.append(List.of(record(4, Difficulty.EASY, 4)));
+        }
+        assertEquals(ScoreStore.LOG_HEADER + 3 * ScoreStore.RECORD_SIZE, Files.size(log));
+        try (ScoreStore store = ScoreStore.open(dir)) {
+            assertEquals(4, store.top(Difficulty.EASY, 1).get(0).getScore());
+        }
+    }
+
+    /**
+     * Проверяет, что писатель сохраняет все принятые итоги к моменту закрытия
+     * и отбрасывает итоги после закрытия.
+     *
+     * @param dir Временный каталог.
+     * @throws IOException если хранилище не удалось открыть.
+     */
+    @Test
+    void writer_savesSubmittedRecordsOnClose(@TempDir Path dir) throws IOException {
+        try (ScoreStore store = ScoreStore.open(dir)) {
+            ScoreWriter writer = new ScoreWriter(store, 100_000);
+            for (int i = 0; i < 50_000; i++) {
+                assertTrue(writer.submit(record(i % 500, Difficulty.HARD, i)));
+            }
+            writer.close();
+            assertEquals(50_000, writer.getWritten());
+            assertFalse(writer.submit(record(1, Difficulty.HARD, 0)));
+            assertEquals(1, writer.getDropped());
+            assertEquals(50_000, store.count(Difficulty.HARD));
+            List<ScoreRecord> top = store.top(Difficulty.HARD, 100);
+            assertEquals(100, top.size());
+            assertEquals(499, top.get(0).getScore());
+            assertEquals(499, top.get(99).getScore());
+            assertEquals(499, top.get(0).getSeed());
+        }
+    }
+
+    /**
+     * Проверяет, что каждый итог, принятый {@link ScoreWriter#submit(ScoreRecord)} во время закрытия писателя,
+     * записывается, а не теряется.
+     *
+     * @param dir Временный каталог.
+     * @throws Exception если хранилище не удалось открыть или поток был прерван.
+     */
+    @Test
+    void writer_savesRecordsAcceptedDuringClose(@TempDir Path dir) throws Exception {
+        for (int round = 0; round < 20; round++) {
+            try (ScoreStore store = ScoreStore.open(dir.resolve("round" + round))) {
+                ScoreWriter writer = new ScoreWriter(store, 100_000);
+                AtomicLong accepted = new AtomicLong();
+                Thread[] submitters = new Thread[3];
+                for (int t = 0; t < submitters.length; t++) {
+                    submitters[t] = new Thread(() -> {
+                        for (int i = 0; i < 2_000 && writer.submit(record(i % 100, Difficulty.EASY, i)); i++) {
+                            accepted.incrementAndGet();
+                        }
+                    });
+                    submitters[t].start();
+                }
+                writer.close();
+                for (Thread submitter : submitters) {
+                    submitter.join();
+                }
+                assertEquals(accepted.get(), writer.getWritten());
+                assertEquals(accepted.get(), store.size());
+                assertTrue(writer.getDropped() <= submitters.length);
+            }
+        }
+    }
+}
@@ -54,4 +54,18 @@ public class SnakeTest {
         assertFalse(snake.isAlive());
         assertFalse(snake.step());
     }
+
+    /**
+     * Проверяет, что {@link Snake#asCells()} является представлением тела только для чтения,
+     * которое отражает изменения после шага без повторного вызова метода.
+     */
+    @Test
+    void asCells_isLiveReadOnlyView() {
+        Snake snake = new Snake(List.of(new Cell(0, 0), new Cell(1, 0)));
+        List<Cell> cells = snake.asCells();
+        snake.step();
+        assertEquals(new Cell(1, 0), cells.get(0));
+        assertEquals(new Cell(2, 0), cells.get(1));
+        assertThrows(UnsupportedOperationException.class, () -> cells.add(new Cell(5, 5)));
+    }
 }
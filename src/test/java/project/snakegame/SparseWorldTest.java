@@ -0,0 +1,112 @@
+package project.snakegame;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для проверки разреженного поля {@link SparseWorld} и таблицы {@link LongMap}.
+ */
+public class SparseWorldTest {
+
+    /**
+     * Проверяет, что таблица ведет себя как {@link HashMap} при случайных вставках и удалениях.
+     */
+    @Test
+    void longMap_matchesHashMap() {
+        LongMap<Long> map = new LongMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(2000) * 0x1_0000_0001L;
+            if (random.nextBoolean()) {
+                map.put(key, (long) i);
+                expected.put(key, (long) i);
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (long key = 0; key < 2000; key++) {
+            assertEquals(expected.get(key * 0x1_0000_0001L), map.get(key * 0x1_0000_0001L));
+        }
+    }
+
+    /**
+     * Проверяет, что на огромном поле в памяти остаются только плитки под змейкой.
+     */
+    @Test
+    void tick_freesTilesBehindTheSnake() {
+        SparseWorld world = new SparseWorld(100_000, 100_000, 0, 1);
+        for (int i = 0; i < 10_000; i++) {
+            world.tick(i % 2000 < 1000 ? Direction.RIGHT : Direction.DOWN);
+            assertTrue(world.isAlive());
+            assertTrue(world.getTileCount() <= 3);
+        }
+        assertEquals(3, world.getLength());
+        long head = world.getHead();
+        assertTrue(world.occupied(head));
+        assertFalse(world.occupied(SparseWorld.cell(50_000, 50_000)));
+    }
+
+    /**
+     * Проверяет, что съеденное яблоко удлиняет змейку и заменяется новым в свободной клетке.
+     */
+    @Test
+    void tick_eatsAppleAndGrows() {
+        SparseWorld world = new SparseWorld(1000, 1000, 0, 2);
+        long head = world.getHead();
+        long apple = world.neighbour(head, Direction.RIGHT);
+        world.addApple(apple);
+
+        assertTrue(world.tick(Direction.RIGHT));
+        assertEquals(4, world.getLength());
+        assertEquals(1, world.getScore());
+        assertEquals(apple, world.getHead());
+        assertFalse(world.hasApple(apple));
+        long replacement = world.getApple(0);
+        assertNotEquals(SparseWorld.NO_CELL, replacement);
+        assertTrue(world.hasApple(replacement));
+        assertFalse(world.occupied(replacement));
+    }
+
+    /**
+     * Проверяет перенос через край поля и столкновение с хвостом, который еще не сдвинулся.
+     */
+    @Test
+    void tick_wrapsAroundAndCollidesWithTail() {
+        SparseWorld wide = new SparseWorld(4, 1, 0, 3);
+        wide.tick();
+        assertTrue(wide.isAlive());
+        assertEquals(0, SparseWorld.x(wide.getHead()));
+
+        SparseWorld narrow = new SparseWorld(3, 1, 0, 3);
+        assertFalse(narrow.tick());
+        assertFalse(narrow.isAlive());
+    }
+
+    /**
+     * Проверяет, что яблоки занимают все свободные клетки почти заполненного поля, а на заполненном поле
+     * яблоко не размещается.
+     */
+    @Test
+    void placeApple_fillsCrowdedWorld() {
+        SparseWorld crowded = new SparseWorld(8, 8, 61, 4);
+        Set<Long> cells = new HashSet<>();
+        for (int i = 0; i < crowded.getAppleCount(); i++) {
+            long apple = crowded.getApple(i);
+            assertNotEquals(SparseWorld.NO_CELL, apple);
+            assertFalse(crowded.occupied(apple));
+            assertTrue(cells.add(apple));
+        }
+
+        SparseWorld full = new SparseWorld(3, 1, 1, 4);
+        assertEquals(SparseWorld.NO_CELL, full.getApple(0));
+    }
+}
@@ -0,0 +1,91 @@
+package project.snakegame;
+
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для проверки стены наблюдения {@link SpectatorWall} и игр {@link GameWall}.
+ */
+public class SpectatorWallTest {
+
+    /**
+     * Проверяет, что закончившаяся игра перезапускается новым объектом, который публикует начальное состояние.
+     */
+    @Test
+    void step_restartsFinishedGames() {
+        GameWall games = new GameWall(4, 10, 10, 0, 1, 1, seed -> new GreedyController());
+        GameWall.Game first = games.get(0);
+        boolean restarted = false;
+        for (int i = 0; i < 20_000 && !restarted; i++) {
+            games.step(0, games.size());
+            restarted = games.get(0) != first;
+        }
+        assertTrue(restarted);
+        GameSnapshot fresh = games.get(0).latest();
+        assertTrue(fresh.isAlive());
+        assertTrue(fresh.getTicks() <= 1);
+    }
+
+    /**
+     * Проверяет, что потоки игр делают шаги, когда стену никто не отрисовывает.
+     *
+     * @throws InterruptedException если ожидание было прервано.
+     */
+    @Test
+    void start_stepsWithoutRenderer() throws InterruptedException {
+        GameWall games = new GameWall(16, 25, 25, 0, 2, 2, seed -> new GreedyController());
+        games.start();
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (games.getSteps() < 10_000 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        games.stop();
+        assertTrue(games.getSteps() >= 10_000, "steps " + games.getSteps());
+    }
+
+    /**
+     * Проверяет, что обновляются только места, игры которых сделали шаг, а при исчерпанном бюджете
+     * места обновляются по одному за кадр по кругу.
+     */
+    @Test
+    void render_refreshesChangedTilesWithinBudget() {
+        GameWall games = new GameWall(9, 12, 12, 0, 3, 1, seed -> new GreedyController());
+        SpectatorWall wall = new SpectatorWall(games, 2);
+        assertEquals(3 * 24 + 2 * SpectatorWall.GAP, wall.getCanvas().getWidth());
+        assertEquals(9, wall.render());
+        assertEquals(0, wall.render());
+
+        games.step(0, games.size());
+        assertEquals(9, wall.render());
+
+        games.step(0, games.size());
+        wall.setBudget(0);
+        for (int i = 0; i < 9; i++) {
+            assertEquals(1, wall.render());
+        }
+        assertEquals(0, wall.render());
+        assertEquals(9 + 9 + 9, wall.getRefreshes());
+    }
+
+    /**
+     * Проверяет раскладку атласа: фон поля, под ним клетка змейки, яблоко с прозрачными углами и затемнение.
+     */
+    @Test
+    void atlas_containsBackgroundAndSprites() {
+        WritableImage atlas = SpectatorWall.atlas(3, 2, 4);
+        assertEquals(12, atlas.getWidth());
+        assertEquals(12, atlas.getHeight());
+        PixelReader pixels = atlas.getPixelReader();
+        assertEquals(BoardRenderer.cellColor(1, 1), pixels.getColor(5, 5));
+        assertEquals(BoardRenderer.SNAKE, pixels.getColor(1, 9));
+        assertEquals(BoardRenderer.APPLE, pixels.getColor(6, 10));
+        assertEquals(Color.TRANSPARENT, pixels.getColor(4, 8));
+        assertTrue(pixels.getColor(9, 9).getOpacity() < 1);
+        assertEquals(4, SpectatorWall.columns(16));
+        assertEquals(5, SpectatorWall.columns(17));
+    }
+}
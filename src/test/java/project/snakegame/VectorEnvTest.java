@@ -0,0 +1,111 @@
+package project.snakegame;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для проверки {@link VectorEnv} и протокола {@link GymServer}.
+ */
+public class VectorEnvTest {
+
+    /**
+     * Проверяет, что после любых шагов плоскости наблюдений совпадают с состоянием игр,
+     * а закончившиеся игры начинаются заново.
+     */
+    @Test
+    void step_keepsObservationsInSyncWithGames() {
+        VectorEnv env = new VectorEnv(8, 8, 6, 200);
+        env.reset(11);
+        SplitMix64 random = new SplitMix64(3);
+        ByteBuffer actions = ByteBuffer.allocate(env.getCount());
+        int dones = 0;
+        for (int step = 0; step < 500; step++) {
+            actions.clear();
+            for (int i = 0; i < env.getCount(); i++) {
+                actions.put((byte) (random.nextInt(5) - 1));
+            }
+            actions.flip();
+            env.step(actions);
+            for (int i = 0; i < env.getCount(); i++) {
+                if (env.isDone(i)) {
+                    dones++;
+                    assertEquals(0, env.getEngine(i).getTicks());
+                }
+                assertObservation(env, i);
+            }
+        }
+        assertTrue(dones > 0);
+    }
+
+    /**
+     * Проверяет, что на поле, целиком занятом змейкой, эпизод начинается без яблока и наблюдение не портится.
+     */
+    @Test
+    void reset_handlesBoardWithoutFreeCells() {
+        VectorEnv env = new VectorEnv(2, 3, 1, 10);
+        env.reset(5);
+        for (int i = 0; i < env.getCount(); i++) {
+            assertEquals(GameEngine.NO_CELL, env.getEngine(i).getApple());
+            assertObservation(env, i);
+        }
+        env.step(ByteBuffer.wrap(new byte[]{VectorEnv.KEEP, VectorEnv.KEEP}));
+        for (int i = 0; i < env.getCount(); i++) {
+            assertTrue(env.isDone(i));
+            assertObservation(env, i);
+        }
+    }
+
+    /**
+     * Проверяет заголовок, размер ответов и награды протокола {@link GymServer}.
+     */
+    @Test
+    void serve_answersEachCommandWithFixedSizeResult() throws IOException {
+        int count = 4;
+        VectorEnv env = new VectorEnv(count, 5, 5, 1_000);
+        ByteBuffer commands = ByteBuffer.allocate(1 + Long.BYTES + 2 * (1 + count) + 1).order(ByteOrder.LITTLE_ENDIAN);
+        commands.put(GymServer.RESET).putLong(7);
+        commands.put(GymServer.STEP).put(new byte[]{VectorEnv.KEEP, VectorEnv.KEEP, VectorEnv.KEEP, VectorEnv.KEEP});
+        commands.put(GymServer.STEP).put(new byte[]{0, 1, 2, 3});
+        commands.put(GymServer.QUIT);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new GymServer(env).serve(Channels.newChannel(new ByteArrayInputStream(commands.array())),
+                Channels.newChannel(output));
+
+        int resultSize = count * (Float.BYTES + 1 + env.observationSize());
+        ByteBuffer response = ByteBuffer.wrap(output.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(5 * Integer.BYTES + 3 * resultSize, response.remaining());
+        assertEquals(GymServer.MAGIC, response.getInt());
+        assertEquals(count, response.getInt());
+        assertEquals(5, response.getInt());
+        assertEquals(5, response.getInt());
+        assertEquals(VectorEnv.PLANES, response.getInt());
+        response.position(response.position() + 2 * resultSize);
+        for (int i = 0; i < count; i++) {
+            assertEquals(env.getReward(i), response.getFloat());
+        }
+    }
+
+    /**
+     * Сравнивает плоскости наблюдения игры с ее ядром.
+     *
+     * @param env Набор игр.
+     * @param i   Номер игры.
+     */
+    private static void assertObservation(VectorEnv env, int i) {
+        GameEngine engine = env.getEngine(i);
+        int area = env.getWidth() * env.getHeight();
+        for (int cell = 0; cell < area; cell++) {
+            assertEquals(engine.occupied(cell) ? 1 : 0, env.getObservation(i, VectorEnv.BODY, cell));
+            assertEquals(cell == engine.getHead() ? 1 : 0, env.getObservation(i, VectorEnv.HEAD, cell));
+            assertEquals(cell == engine.getApple() ? 1 : 0, env.getObservation(i, VectorEnv.APPLE, cell));
+        }
+    }
+}